@@ -0,0 +1,60 @@
+package app.bench;
+
+import app.model.Furniture;
+import app.model.PlanModel;
+import app.model.Room;
+import app.util.PlanData;
+import app.util.PlanGenerator;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Builds plans of a given size for the benchmarks from {@link PlanGenerator}.
+ */
+public final class BenchmarkPlans {
+
+    private BenchmarkPlans() {
+    }
+
+    /**
+     * Creates a model holding a generated plan.
+     *
+     * @param items Approximate number of plan items (rooms, doors, windows and furniture).
+     * @param seed  Seed for the generator.
+     * @return The model, with its plan size set to cover all rooms.
+     */
+    public static PlanModel create(int items, long seed) {
+        PlanData data = new PlanGenerator(seed).generate(items);
+        BufferedImage image = createImage();
+        for (Furniture furniture : data.getFurnitures()) {
+            furniture.setImage(image);
+        }
+
+        int width = 0;
+        int height = 0;
+        for (Room room : data.getRooms()) {
+            width = Math.max(width, room.getX() + room.getWidth());
+            height = Math.max(height, room.getY() + room.getHeight());
+        }
+
+        PlanModel model = new PlanModel();
+        model.replaceAll(data.getRooms());
+        model.setPlanSize(width, height);
+        return model;
+    }
+
+    /**
+     * Creates one small image shared by every generated piece of furniture, so painting
+     * goes through the image path without reading resources.
+     */
+    private static BufferedImage createImage() {
+        BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(4, 4, 32, 32);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,30 @@
+package app.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result comes with its allocation rate.
+ * Accepts the usual JMH command line, e.g. {@code CanvasBenchmark -p items=1000} to run one
+ * suite at one size.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include("app\\..*Benchmark");
+        }
+        Options options = builder
+                .addProfiler(GCProfiler.class)
+                .parent(commandLine)
+                .build();
+        new Runner(options).run();
+    }
+}
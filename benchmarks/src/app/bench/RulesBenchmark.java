@@ -0,0 +1,63 @@
+package app.bench;
+
+import app.model.PlanModel;
+import app.model.Room;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placement rules of {@link PlanModel} that scan every room.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RulesBenchmark {
+    private static final int PROBES = 1024;
+    private static final String[] DIRECTIONS = {"North", "South", "East", "West"};
+
+    @Param({"10", "1000", "100000"})
+    public int items;
+
+    private PlanModel model;
+    private Room[] sampleRooms;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = BenchmarkPlans.create(items, 42);
+        List<Room> rooms = model.getRooms();
+        Random random = new Random(7);
+        sampleRooms = new Room[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            sampleRooms[i] = rooms.get(random.nextInt(rooms.size()));
+        }
+    }
+
+    @Benchmark
+    public boolean checkRoomOverlap() {
+        return model.checkRoomOverlap(sampleRooms[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public boolean isWallShared() {
+        int i = next++;
+        return model.isWallShared(sampleRooms[i & (PROBES - 1)], DIRECTIONS[i & 3]);
+    }
+}
@@ -0,0 +1,79 @@
+package app.bench;
+
+import app.model.PlanModel;
+import app.util.PlanData;
+import app.util.PlanSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading plans through {@link PlanSerializer}, using files in the temp directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SerializerBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int items;
+
+    private PlanData data;
+    private File saveFile;
+    private File loadFile;
+    private ForkJoinPool singleThread;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        PlanModel model = BenchmarkPlans.create(items, 42);
+        data = new PlanData(model.getRooms());
+        saveFile = File.createTempFile("plan-save", ".ser");
+        loadFile = File.createTempFile("plan-load", ".ser");
+        PlanSerializer.savePlan(data, loadFile);
+        singleThread = new ForkJoinPool(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        saveFile.delete();
+        loadFile.delete();
+        singleThread.shutdown();
+    }
+
+    @Benchmark
+    public File savePlan() throws IOException {
+        PlanSerializer.savePlan(data, saveFile);
+        return saveFile;
+    }
+
+    @Benchmark
+    public PlanData loadPlan() throws IOException, ClassNotFoundException {
+        return PlanSerializer.loadPlan(loadFile);
+    }
+
+    /**
+     * Loads with one worker, as the baseline for how loading scales with cores.
+     */
+    @Benchmark
+    public PlanData loadPlanSingleThread() throws IOException, ClassNotFoundException {
+        return PlanSerializer.loadPlan(loadFile, singleThread);
+    }
+}
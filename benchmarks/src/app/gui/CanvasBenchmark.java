@@ -0,0 +1,123 @@
+package app.gui;
+
+import app.bench.BenchmarkPlans;
+import app.model.Furniture;
+import app.model.PlanItem;
+import app.model.PlanModel;
+import app.model.Room;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering and picking on the canvas. Lives in app.gui to reach the package-private
+ * paint and hit-test methods of {@link CanvasPanel}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CanvasBenchmark {
+    private static final int VIEWPORT_WIDTH = 1280;
+    private static final int VIEWPORT_HEIGHT = 800;
+    private static final int PROBES = 1024;
+
+    @Param({"10", "1000", "100000"})
+    public int items;
+
+    private PlanModel model;
+    private CanvasPanel canvas;
+    private BufferedImage image;
+    private Graphics2D wallGraphics;
+    private Point[] probes;
+    private Room[] sampleRooms;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = BenchmarkPlans.create(items, 42);
+        canvas = new CanvasPanel(model);
+        canvas.setSize(model.getPlanWidth(), model.getPlanHeight());
+        image = new BufferedImage(VIEWPORT_WIDTH, VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        wallGraphics = image.createGraphics();
+
+        Random random = new Random(7);
+        probes = new Point[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = PlanModel.snapToGrid(new Point(
+                    random.nextInt(model.getPlanWidth()), random.nextInt(model.getPlanHeight())));
+        }
+        List<Room> rooms = model.getRooms();
+        sampleRooms = new Room[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            sampleRooms[i] = rooms.get(random.nextInt(rooms.size()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        wallGraphics.dispose();
+    }
+
+    /**
+     * Repaints one viewport of a scrolled canvas, as Swing does when the clip is the visible area.
+     */
+    @Benchmark
+    public BufferedImage paintViewport() {
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+        canvas.paintComponent(g);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Repaints with a clip covering the whole plan, so nothing is culled.
+     */
+    @Benchmark
+    public BufferedImage paintWholePlan() {
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, model.getPlanWidth(), model.getPlanHeight());
+        canvas.paintComponent(g);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * The lookup done by mousePressed: furniture first, then rooms.
+     */
+    @Benchmark
+    public PlanItem pick() {
+        Point p = probes[next++ & (PROBES - 1)];
+        Furniture furniture = canvas.findFurnitureAt(p);
+        return furniture != null ? furniture : canvas.findRoomAt(p);
+    }
+
+    @Benchmark
+    public Graphics2D drawWallWithItems() {
+        Room room = sampleRooms[next++ & (PROBES - 1)];
+        int x = room.getX();
+        int y = room.getY();
+        canvas.drawWallWithItems(wallGraphics, room, "North", x, y, x + room.getWidth(), y);
+        return wallGraphics;
+    }
+}
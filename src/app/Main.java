@@ -1,12 +1,29 @@
 package app;
 
 import app.gui.CanvasPanel;
+import app.gui.CirculationReport;
 import app.gui.ControlPanel;
+import app.gui.EdtWatchdog;
+import app.gui.InputRecorder;
+import app.gui.InputRecording;
+import app.gui.LayoutDesigner;
+import app.gui.PlanBrowser;
+import app.gui.PlanPreview;
+import app.gui.PlanSearch;
+import app.gui.PlanStatisticsView;
+import app.gui.RuleViolations;
+import app.model.PlanMemoryReport;
 import java.awt.*;
+import java.io.IOException;
+import javax.management.JMException;
 import javax.swing.*;
 
 public class Main {
+    // Shortest EDT stall that is reported to the flight recorder
+    private static final long EDT_STALL_THRESHOLD_MILLIS = 200;
+
     public static void main(String[] args) {
+        EdtWatchdog.start(EDT_STALL_THRESHOLD_MILLIS);
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("2D Floor Planner");
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -17,6 +34,97 @@ public class Main {
             ControlPanel controlPanel = new ControlPanel(canvas);
             canvas.addRoomSelectionListener(controlPanel); // Ensure control panel listens to room selection
 
+            // Paint metrics for JMX clients such as JConsole
+            try {
+                canvas.getPaintMetrics().register("app.gui:type=PaintMetrics");
+            } catch (JMException e) {
+                System.err.println("Paint metrics are not available over JMX: " + e.getMessage());
+            }
+
+            JMenuBar menuBar = new JMenuBar();
+            JMenu viewMenu = new JMenu("View");
+            JCheckBoxMenuItem overlayItem = new JCheckBoxMenuItem("Performance Overlay");
+            overlayItem.addActionListener(e -> canvas.setShowMetrics(overlayItem.isSelected()));
+            viewMenu.add(overlayItem);
+            menuBar.add(viewMenu);
+
+            // Input recordings for replaying latency problems with InputReplayer
+            JMenu toolsMenu = new JMenu("Tools");
+            InputRecorder recorder = new InputRecorder(canvas);
+            JMenuItem recordItem = new JMenuItem("Start Input Recording");
+            recordItem.addActionListener(e -> {
+                if (!recorder.isRecording()) {
+                    recorder.start();
+                    recordItem.setText("Stop Input Recording...");
+                    return;
+                }
+                InputRecording recording = recorder.stop();
+                recordItem.setText("Start Input Recording");
+                JFileChooser fileChooser = new JFileChooser();
+                if (fileChooser.showSaveDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                    try {
+                        recording.save(fileChooser.getSelectedFile());
+                    } catch (IOException ex) {
+                        JOptionPane.showMessageDialog(frame, "Error saving recording: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            });
+            toolsMenu.add(recordItem);
+
+            JMenuItem memoryItem = new JMenuItem("Memory Report...");
+            memoryItem.addActionListener(e -> {
+                JTextArea text = new JTextArea(PlanMemoryReport.of(canvas.getModel()).toString());
+                text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+                text.setEditable(false);
+                JOptionPane.showMessageDialog(frame, text, "Plan Memory", JOptionPane.INFORMATION_MESSAGE);
+            });
+            toolsMenu.add(memoryItem);
+
+            JMenuItem layoutItem = new JMenuItem("Layout Designer...");
+            layoutItem.addActionListener(e -> new LayoutDesigner(frame, canvas).setVisible(true));
+            toolsMenu.add(layoutItem);
+
+            JMenuItem arrangeItem = new JMenuItem("Arrange All Furniture");
+            arrangeItem.addActionListener(e -> canvas.arrangeFurniture(canvas.getModel().getRooms()));
+            toolsMenu.add(arrangeItem);
+
+            JMenuItem rulesItem = new JMenuItem("Rule Violations...");
+            rulesItem.addActionListener(e -> new RuleViolations(frame, canvas).setVisible(true));
+            toolsMenu.add(rulesItem);
+
+            JMenuItem circulationItem = new JMenuItem("Circulation...");
+            circulationItem.addActionListener(e -> new CirculationReport(frame, canvas).setVisible(true));
+            toolsMenu.add(circulationItem);
+
+            JMenuItem statisticsItem = new JMenuItem("Plan Statistics...");
+            statisticsItem.addActionListener(e -> new PlanStatisticsView(frame, canvas).setVisible(true));
+            toolsMenu.add(statisticsItem);
+
+            JMenuItem browserItem = new JMenuItem("Plan Browser...");
+            browserItem.addActionListener(e -> new PlanBrowser(frame, controlPanel::openPlan).setVisible(true));
+            toolsMenu.add(browserItem);
+
+            JMenuItem searchItem = new JMenuItem("Plan Search...");
+            searchItem.addActionListener(e -> new PlanSearch(frame, controlPanel::openPlan).setVisible(true));
+            toolsMenu.add(searchItem);
+
+            // Differences to a saved version, drawn over the plan until cleared
+            JMenuItem compareItem = new JMenuItem("Compare With Saved Plan...");
+            compareItem.addActionListener(e -> {
+                JFileChooser fileChooser = new JFileChooser();
+                fileChooser.setAccessory(new PlanPreview(fileChooser));
+                if (fileChooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                    controlPanel.compareWith(fileChooser.getSelectedFile());
+                }
+            });
+            toolsMenu.add(compareItem);
+
+            JMenuItem clearCompareItem = new JMenuItem("Clear Comparison");
+            clearCompareItem.addActionListener(e -> canvas.setDiff(null));
+            toolsMenu.add(clearCompareItem);
+            menuBar.add(toolsMenu);
+            frame.setJMenuBar(menuBar);
+
             frame.setLayout(new BorderLayout());
             frame.add(controlPanel, BorderLayout.WEST);
             frame.add(new JScrollPane(canvas), BorderLayout.CENTER);
@@ -1,6 +1,8 @@
 package app.gui;
 
 import app.model.*;
+import app.util.PaintEvent;
+import app.util.PlanDiff;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.*;
@@ -9,18 +11,35 @@ import javax.swing.*;
 
 /**
  * The canvas where rooms, doors, windows, and furniture are drawn.
- * Supports adding, displaying, and interacting with elements.
+ * A view over a {@link PlanModel}: it handles mouse interaction and dialogs,
+ * and leaves the plan data, rules and history to the model.
  */
 public class CanvasPanel extends JPanel {
-    private List<Room> rooms;
-    private List<Furniture> furnitures;
+    private final PlanModel model;
     private Room roomToHighlight = null; // For highlighting selected room
     private Furniture selectedFurniture = null; // Currently selected furniture
 
     // Grid settings
-    private final int GRID_SIZE = 20;
+    private final int GRID_SIZE = PlanModel.GRID_SIZE;
     private boolean showGrid = true;
 
+    // Extra pixels repainted around a changed item, enough for wall strokes and the highlight
+    private static final int DAMAGE_MARGIN = 10;
+
+    // Paint timings, optionally drawn as an overlay in the top left corner of the visible area
+    private final PaintMetrics metrics;
+    private boolean showMetrics = false;
+    private final javax.swing.Timer metricsRefresh;
+    private static final int METRICS_REFRESH_MS = 500;
+    private static final int METRICS_LINE_HEIGHT = 15;
+    private static final int METRICS_WIDTH = 330;
+
+    // Differences to an earlier version, drawn over the plan; null when not comparing
+    private PlanDiff diff = null;
+    private static final Color DIFF_ADDED = new Color(0, 160, 0);
+    private static final Color DIFF_REMOVED = new Color(210, 0, 0);
+    private static final Color DIFF_CHANGED = new Color(235, 140, 0);
+
     // Drag-and-Drop Variables
     private Room draggingRoom = null;
     private Furniture draggingFurniture = null;
@@ -38,17 +57,21 @@ public class CanvasPanel extends JPanel {
     // Room Selection Listeners
     private List<RoomSelectionListener> roomSelectionListeners = new ArrayList<>();
 
-    // Next Room Position for Row-Major Placement
-    private int nextRoomX = 0; // Starting x position aligned to grid
-    private int nextRoomY = 0; // Starting y position aligned to grid
-
-    // Undo and Redo Stacks (Encapsulated)
-    private Deque<Command> undoStack = new ArrayDeque<>();
-    private Deque<Command> redoStack = new ArrayDeque<>();
+    // Selection notification held back while a transaction is open
+    private boolean selectionPending = false;
+    private Room pendingSelection = null;
 
     public CanvasPanel() {
-        rooms = new ArrayList<>();
-        furnitures = new ArrayList<>();
+        this(new PlanModel());
+    }
+
+    public CanvasPanel(PlanModel model) {
+        this.model = model;
+        // Deliver all changes made during one EDT task as a single batch
+        model.setEventDispatcher(SwingUtilities::invokeLater);
+        model.addChangeListener(this::onPlanChanged);
+        this.metrics = new PaintMetrics(model);
+        this.metricsRefresh = new javax.swing.Timer(METRICS_REFRESH_MS, e -> repaint(metricsOverlayBounds()));
 
         setBackground(new Color(245, 245, 245)); // Softer background color
         setPreferredSize(new Dimension(1200, 800));
@@ -59,28 +82,26 @@ public class CanvasPanel extends JPanel {
                 requestFocusInWindow(); // To capture key events
                 Point p = snapToGrid(e.getPoint());
                 // Check if clicking on furniture first
-                for (Furniture furniture : furnitures) {
-                    if (furniture.contains(p)) {
-                        selectedRoom = furniture.getRoom();
-                        selectedFurniture = furniture;
-                        furnitureDragOffset = new Point(p.x - furniture.getX(), p.y - furniture.getY());
-                        draggingFurniture = furniture;
-                        notifyRoomSelected(selectedRoom);
-                        originalPosition = furniture.getPosition();
-                        return;
-                    }
+                Furniture furniture = findFurnitureAt(p);
+                if (furniture != null) {
+                    selectedRoom = furniture.getRoom();
+                    selectedFurniture = furniture;
+                    furnitureDragOffset = new Point(p.x - furniture.getX(), p.y - furniture.getY());
+                    draggingFurniture = furniture;
+                    notifyRoomSelected(selectedRoom);
+                    originalPosition = furniture.getPosition();
+                    return;
                 }
                 // Check if clicking on a room
-                for (Room room : rooms) {
-                    if (room.contains(p)) {
-                        selectedRoom = room;
-                        selectedFurniture = null;
-                        draggingRoom = room;
-                        dragOffset = new Point(p.x - room.getX(), p.y - room.getY());
-                        notifyRoomSelected(room);
-                        originalPosition = new Point(room.getX(), room.getY());
-                        return;
-                    }
+                Room room = findRoomAt(p);
+                if (room != null) {
+                    selectedRoom = room;
+                    selectedFurniture = null;
+                    draggingRoom = room;
+                    dragOffset = new Point(p.x - room.getX(), p.y - room.getY());
+                    notifyRoomSelected(room);
+                    originalPosition = new Point(room.getX(), room.getY());
+                    return;
                 }
                 // Clicked on empty space
                 selectedRoom = null;
@@ -97,55 +118,50 @@ public class CanvasPanel extends JPanel {
                     int newY = p.y - dragOffset.y;
                     Point newPos = new Point(newX, newY);
                     // Temporarily set new position for overlap checking
-                    Room oldRoom = draggingRoom;
+                    Rectangle oldExtent = draggingRoom.getExtent();
                     draggingRoom.setPosition(newPos);
-                    boolean overlap = checkRoomOverlap(draggingRoom);
+                    boolean overlap = model.checkRoomOverlap(draggingRoom);
                     if (overlap) {
                         roomToHighlight = draggingRoom;
                     } else {
                         roomToHighlight = null;
                     }
-                    repaint();
+                    repaintDamage(oldExtent.union(draggingRoom.getExtent()));
                 } else if (draggingFurniture != null) {
                     int newX = p.x - furnitureDragOffset.x;
                     int newY = p.y - furnitureDragOffset.y;
                     Point newPos = new Point(newX, newY);
+                    Rectangle oldBounds = draggingFurniture.getDisplayBounds();
                     draggingFurniture.setPosition(newPos);
-                    repaint();
+                    repaintDamage(oldBounds.union(draggingFurniture.getDisplayBounds()));
                 }
             }
 
             @Override
             public void mouseReleased(MouseEvent e) {
+                metrics.endDrag();
                 if (draggingRoom != null) {
                     Point p = snapToGrid(e.getPoint());
                     int newX = p.x - dragOffset.x;
                     int newY = p.y - dragOffset.y;
                     Point newPos = new Point(newX, newY);
-                    // Check for overlap before finalizing
-                    draggingRoom.setPosition(newPos);
-                    boolean overlap = checkRoomOverlap(draggingRoom);
-                    if (overlap) {
-                        showMessage("Rooms cannot overlap!", "Overlap Error", JOptionPane.ERROR_MESSAGE);
-                        draggingRoom.setPosition(originalPosition);
-                    } else {
-                        // Record the move
-                        pushUndo(new MoveRoomCommand(draggingRoom, originalPosition, newPos));
-                        redoStack.clear();
-                    }
+                    Room room = draggingRoom;
                     roomToHighlight = null;
                     draggingRoom = null;
+                    // The model rejects the move and puts the room back if it overlaps
+                    showResult(model.moveRoom(room, originalPosition, newPos));
                     repaint();
                 } else if (draggingFurniture != null) {
                     Point p = snapToGrid(e.getPoint());
                     int newX = p.x - furnitureDragOffset.x;
                     int newY = p.y - furnitureDragOffset.y;
                     Point newPos = new Point(newX, newY);
-                    // Optionally, add overlap checks for furniture
-                    pushUndo(new MoveFurnitureCommand(draggingFurniture, originalPosition, newPos));
-                    redoStack.clear();
+                    Furniture furniture = draggingFurniture;
                     draggingFurniture = null;
-                    repaint();
+                    // The model rejects the move and puts the furniture back if it overlaps
+                    if (!showResult(model.moveFurniture(furniture, originalPosition, newPos))) {
+                        repaint();
+                    }
                 }
             }
 
@@ -153,12 +169,9 @@ public class CanvasPanel extends JPanel {
             public void mouseClicked(MouseEvent e) {
                 if (e.getClickCount() == 2) { // Double-click to rotate furniture
                     Point p = snapToGrid(e.getPoint());
-                    for (Furniture furniture : furnitures) {
-                        if (furniture.contains(p)) {
-                            rotateFurniture(furniture, true); // Rotate clockwise
-                            repaint();
-                            break;
-                        }
+                    Furniture furniture = findFurnitureAt(p);
+                    if (furniture != null) {
+                        rotateFurniture(furniture, true); // Rotate clockwise
                     }
                 }
             }
@@ -186,70 +199,166 @@ public class CanvasPanel extends JPanel {
     }
 
     /**
-     * Rotates the specified furniture.
+     * Gets the model this canvas displays.
      *
-     * @param furniture The furniture to rotate.
-     * @param clockwise True to rotate clockwise, false for counter-clockwise.
+     * @return The plan model.
      */
-    public void rotateFurniture(Furniture furniture, boolean clockwise) {
-        Point oldPosition = furniture.getPosition();
-        if (clockwise) {
-            furniture.rotateClockwise();
+    public PlanModel getModel() {
+        return model;
+    }
+
+    /**
+     * Gets the paint and interaction timings of this canvas.
+     *
+     * @return The metrics.
+     */
+    public PaintMetrics getPaintMetrics() {
+        return metrics;
+    }
+
+    public boolean isShowMetrics() {
+        return showMetrics;
+    }
+
+    /**
+     * Shows or hides the metrics overlay. While it is shown the enclosing viewport scrolls
+     * by repainting instead of blitting, so the overlay is not dragged along with the content.
+     *
+     * @param show True to show the overlay.
+     */
+    public void setShowMetrics(boolean show) {
+        if (show == showMetrics) {
+            return;
+        }
+        showMetrics = show;
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        if (viewport != null) {
+            viewport.setScrollMode(show ? JViewport.SIMPLE_SCROLL_MODE : JViewport.BLIT_SCROLL_MODE);
+        }
+        if (show) {
+            metricsRefresh.start();
         } else {
-            furniture.rotateCounterClockwise();
+            metricsRefresh.stop();
         }
-        Point newPosition = furniture.getPosition();
-        pushUndo(new RotateFurnitureCommand(furniture, oldPosition, newPosition));
-        redoStack.clear();
+        repaint();
+    }
+
+    public PlanDiff getDiff() {
+        return diff;
     }
 
     /**
-     * Snaps a point to the nearest grid intersection.
+     * Shows the differences to an earlier version of the plan over the plan: added items in
+     * green, removed ones in red at their old place, and moved or resized ones in orange with
+     * their old outline dashed.
      *
-     * @param p The original point.
-     * @return The snapped point.
+     * @param diff The differences, or null to hide the overlay.
      */
-    private Point snapToGrid(Point p) {
-        int x = (p.x / GRID_SIZE) * GRID_SIZE;
-        int y = (p.y / GRID_SIZE) * GRID_SIZE;
-        return new Point(x, y);
+    public void setDiff(PlanDiff diff) {
+        this.diff = diff;
+        repaint();
     }
 
     /**
-     * Checks if the newRoom overlaps with any existing rooms.
+     * Gets the area covered by the metrics overlay, in canvas coordinates.
      *
-     * @param newRoom The room to check for overlaps.
-     * @return True if there is an overlap, false otherwise.
+     * @return The overlay bounds.
      */
-    private boolean checkRoomOverlap(Room newRoom) {
-        for (Room room : rooms) {
-            if (room != newRoom && room.intersects(newRoom)) {
-                return true;
+    private Rectangle metricsOverlayBounds() {
+        Rectangle visibleRect = getVisibleRect();
+        int lines = 5 + PaintMetrics.Layer.values().length;
+        return new Rectangle(visibleRect.x + 10, visibleRect.y + 10, METRICS_WIDTH, lines * METRICS_LINE_HEIGHT + 10);
+    }
+
+    /**
+     * Reacts to model changes: drops a selection that no longer exists and
+     * repaints only the areas the changes touched.
+     *
+     * @param events The coalesced changes.
+     */
+    private void onPlanChanged(List<PlanChangeEvent> events) {
+        Rectangle damage = null;
+        boolean reset = false;
+        boolean selectionRemoved = false;
+        for (PlanChangeEvent event : events) {
+            if (event.getType() == PlanChangeEvent.Type.RESET) {
+                reset = true;
+                continue;
+            }
+            if (event.getType() == PlanChangeEvent.Type.REMOVED && event.getItem() == selectedRoom) {
+                selectionRemoved = true;
             }
+            Rectangle area = event.getDamage();
+            damage = damage == null ? area : damage.union(area);
+        }
+        if (reset && selectedRoom != null && !model.getRooms().contains(selectedRoom)) {
+            selectionRemoved = true;
+        }
+        if (selectionRemoved) {
+            selectedRoom = null;
+            selectedFurniture = null;
+            notifyRoomSelected(null);
+        }
+        if (reset) {
+            repaint();
+        } else if (damage != null) {
+            repaintDamage(damage);
         }
-        return false;
     }
 
     /**
-     * Determines if a wall is external based on its direction and room position.
+     * Repaints an area of the canvas, widened to cover wall strokes and the overlap highlight.
      *
-     * @param room      The room containing the wall.
-     * @param direction The direction of the wall.
-     * @return True if the wall is external, false otherwise.
+     * @param area The changed area.
+     */
+    private void repaintDamage(Rectangle area) {
+        repaint(area.x - DAMAGE_MARGIN, area.y - DAMAGE_MARGIN,
+                area.width + 2 * DAMAGE_MARGIN, area.height + 2 * DAMAGE_MARGIN);
+    }
+
+    /**
+     * Finds the furniture under a point.
+     *
+     * @param p The point, already snapped to the grid.
+     * @return The first furniture containing the point, or null.
+     */
+    Furniture findFurnitureAt(Point p) {
+        return model.findFurnitureAt(p);
+    }
+
+    /**
+     * Finds the room under a point.
+     *
+     * @param p The point, already snapped to the grid.
+     * @return The first room containing the point, or null.
      */
-    private boolean isExternalWall(Room room, String direction) {
-        switch(direction) {
-            case "North":
-                return room.getY() == 0;
-            case "South":
-                return (room.getY() + room.getHeight()) == getHeight();
-            case "East":
-                return (room.getX() + room.getWidth()) == getWidth();
-            case "West":
-                return room.getX() == 0;
-            default:
-                return false;
+    Room findRoomAt(Point p) {
+        for (Room room : model.getRooms()) {
+            if (room.contains(p)) {
+                return room;
+            }
         }
+        return null;
+    }
+
+    /**
+     * Rotates the specified furniture.
+     *
+     * @param furniture The furniture to rotate.
+     * @param clockwise True to rotate clockwise, false for counter-clockwise.
+     */
+    public void rotateFurniture(Furniture furniture, boolean clockwise) {
+        model.rotateFurniture(furniture, clockwise);
+    }
+
+    /**
+     * Snaps a point to the nearest grid intersection.
+     *
+     * @param p The original point.
+     * @return The snapped point.
+     */
+    private Point snapToGrid(Point p) {
+        return PlanModel.snapToGrid(p);
     }
 
     /**
@@ -265,69 +374,171 @@ public class CanvasPanel extends JPanel {
 
     @Override
     protected void paintComponent(Graphics g) {
+        PaintEvent event = new PaintEvent();
+        event.begin();
         super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g.create();
 
+        // Only items touching the repainted area are drawn
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        // Refreshing just the overlay is not a frame worth recording
+        boolean overlayOnly = showMetrics && metricsOverlayBounds().contains(clip);
+        metrics.startFrame(!overlayOnly);
+
         // Draw grid if enabled
         if (showGrid) {
             g2.setColor(new Color(220, 220, 220)); // Light gray grid lines
-            for (int x = 0; x < getWidth(); x += GRID_SIZE) {
-                g2.drawLine(x, 0, x, getHeight());
+            int firstX = Math.max(0, clip.x / GRID_SIZE * GRID_SIZE);
+            int firstY = Math.max(0, clip.y / GRID_SIZE * GRID_SIZE);
+            int lastX = Math.min(getWidth(), clip.x + clip.width);
+            int lastY = Math.min(getHeight(), clip.y + clip.height);
+            for (int x = firstX; x < lastX; x += GRID_SIZE) {
+                g2.drawLine(x, clip.y, x, lastY);
             }
-            for (int y = 0; y < getHeight(); y += GRID_SIZE) {
-                g2.drawLine(0, y, getWidth(), y);
+            for (int y = firstY; y < lastY; y += GRID_SIZE) {
+                g2.drawLine(clip.x, y, lastX, y);
             }
         }
 
-        // Draw all rooms
-        for (Room room : rooms) {
-            // Fill room color
-            g2.setColor(room.getColor());
-            g2.fillRect(room.getX(), room.getY(), room.getWidth(), room.getHeight());
+        metrics.endLayer(PaintMetrics.Layer.GRID);
 
-            // Draw room border
-            g2.setColor(Color.BLACK);
-            g2.setStroke(new BasicStroke(2));
-            g2.drawRect(room.getX(), room.getY(), room.getWidth(), room.getHeight());
-
-            // Draw room name if available
-            if (room.getName() != null) {
-                Font originalFont = g2.getFont();
-                Font smallFont = originalFont.deriveFont(Font.BOLD, 14f);
-                g2.setFont(smallFont);
-                FontMetrics fm = g2.getFontMetrics();
-                int textWidth = fm.stringWidth(room.getName());
-                g2.drawString(room.getName(), room.getX() + (room.getWidth() - textWidth) / 2, room.getY() + 20);
-                g2.setFont(originalFont);
+        // Widen the clip so wall strokes just outside it still count as visible
+        Rectangle visible = new Rectangle(clip);
+        visible.grow(DAMAGE_MARGIN, DAMAGE_MARGIN);
+
+        // Draw room fills first, so no fill covers the walls of a neighbouring room
+        List<Room> visibleRooms = new ArrayList<>();
+        for (Room room : model.getRooms()) {
+            if (room.getExtent().intersects(visible)) {
+                visibleRooms.add(room);
+                drawRoom(g2, room);
             }
+        }
+        metrics.endLayer(PaintMetrics.Layer.ROOM_FILLS);
 
-            // Draw walls with doors and windows
+        // Draw walls with doors and windows
+        for (Room room : visibleRooms) {
             drawRoomWalls(g2, room);
+        }
+        metrics.endLayer(PaintMetrics.Layer.WALLS);
 
-            // Draw furniture
-            for (Furniture furniture : room.getFurnitures()) {
-                if (furniture.getImage() != null) {
-                    Graphics2D backup = (Graphics2D) g2.create();
-                    int centerX = furniture.getX() + furniture.getWidth() / 2;
-                    int centerY = furniture.getY() + furniture.getHeight() / 2;
-                    backup.rotate(Math.toRadians(furniture.getAngle()), centerX, centerY);
-                    backup.drawImage(furniture.getImage(), furniture.getX(), furniture.getY(), furniture.getWidth(), furniture.getHeight(), this);
-                    backup.dispose();
-                } else {
-                    g2.setColor(Color.MAGENTA);
-                    g2.fillRect(furniture.getX(), furniture.getY(), furniture.getWidth(), furniture.getHeight());
-
-                    // Draw border only for non-image furnitures
-                    g2.setColor(Color.BLACK);
-                    g2.setStroke(new BasicStroke(1));
-                    g2.drawRect(furniture.getX(), furniture.getY(), furniture.getWidth(), furniture.getHeight());
-                }
+        // Draw furniture. The piece being dragged is only indexed at its new place once dropped,
+        // so it is drawn separately, on top
+        int furnitureDrawn = 0;
+        for (Furniture furniture : model.getFurnituresIn(visible)) {
+            if (furniture != draggingFurniture) {
+                drawFurniture(g2, furniture);
+                furnitureDrawn++;
             }
         }
+        if (draggingFurniture != null && draggingFurniture.getDisplayBounds().intersects(visible)) {
+            drawFurniture(g2, draggingFurniture);
+            furnitureDrawn++;
+        }
+        int furnitureCulled = model.getFurnitureCount() - furnitureDrawn;
+        metrics.endLayer(PaintMetrics.Layer.FURNITURE);
 
         // Draw highlight if any
         drawHighlight(g2, roomToHighlight);
+        if (diff != null) {
+            drawDiff(g2, visible);
+        }
+        metrics.endLayer(PaintMetrics.Layer.HIGHLIGHT);
+
+        int roomsCulled = model.getRooms().size() - visibleRooms.size();
+        metrics.endFrame(visibleRooms.size(), roomsCulled, furnitureDrawn, furnitureCulled,
+                draggingRoom != null || draggingFurniture != null);
+
+        if (showMetrics) {
+            drawMetricsOverlay(g2);
+        }
         g2.dispose();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.clipWidth = clip.width;
+            event.clipHeight = clip.height;
+            event.roomsDrawn = visibleRooms.size();
+            event.roomsCulled = roomsCulled;
+            event.furnitureDrawn = furnitureDrawn;
+            event.furnitureCulled = furnitureCulled;
+            event.commit();
+        }
+    }
+
+    /**
+     * Draws the metrics overlay in the top left corner of the visible area.
+     *
+     * @param g2 The Graphics2D object.
+     */
+    private void drawMetricsOverlay(Graphics2D g2) {
+        Rectangle bounds = metricsOverlayBounds();
+        g2.setColor(new Color(0, 0, 0, 180));
+        g2.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g2.setColor(Color.WHITE);
+        g2.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        int y = bounds.y + METRICS_LINE_HEIGHT;
+        for (String line : metrics.describe()) {
+            g2.drawString(line, bounds.x + 8, y);
+            y += METRICS_LINE_HEIGHT;
+        }
+    }
+
+    /**
+     * Draws a room's fill, border and name.
+     *
+     * @param g2   The Graphics2D object.
+     * @param room The room to draw.
+     */
+    private void drawRoom(Graphics2D g2, Room room) {
+        // Fill room color
+        g2.setColor(room.getColor());
+        g2.fillRect(room.getX(), room.getY(), room.getWidth(), room.getHeight());
+
+        // Draw room border
+        g2.setColor(Color.BLACK);
+        g2.setStroke(new BasicStroke(2));
+        g2.drawRect(room.getX(), room.getY(), room.getWidth(), room.getHeight());
+
+        // Draw room name if available
+        if (room.getName() != null) {
+            Font originalFont = g2.getFont();
+            Font smallFont = originalFont.deriveFont(Font.BOLD, 14f);
+            g2.setFont(smallFont);
+            FontMetrics fm = g2.getFontMetrics();
+            int textWidth = fm.stringWidth(room.getName());
+            g2.drawString(room.getName(), room.getX() + (room.getWidth() - textWidth) / 2, room.getY() + 20);
+            g2.setFont(originalFont);
+        }
+    }
+
+    /**
+     * Draws a piece of furniture, rotated about its center.
+     *
+     * @param g2        The Graphics2D object.
+     * @param furniture The furniture to draw.
+     */
+    private void drawFurniture(Graphics2D g2, Furniture furniture) {
+        if (furniture.getImage() != null) {
+            Graphics2D backup = (Graphics2D) g2.create();
+            int centerX = furniture.getX() + furniture.getWidth() / 2;
+            int centerY = furniture.getY() + furniture.getHeight() / 2;
+            backup.rotate(Math.toRadians(furniture.getAngle()), centerX, centerY);
+            backup.drawImage(furniture.getImage(), furniture.getX(), furniture.getY(), furniture.getWidth(), furniture.getHeight(), this);
+            backup.dispose();
+        } else {
+            g2.setColor(Color.MAGENTA);
+            g2.fillRect(furniture.getX(), furniture.getY(), furniture.getWidth(), furniture.getHeight());
+
+            // Draw border only for non-image furnitures
+            g2.setColor(Color.BLACK);
+            g2.setStroke(new BasicStroke(1));
+            g2.drawRect(furniture.getX(), furniture.getY(), furniture.getWidth(), furniture.getHeight());
+        }
     }
 
     /**
@@ -371,7 +582,7 @@ public class CanvasPanel extends JPanel {
      * @param x2        Ending x-coordinate.
      * @param y2        Ending y-coordinate.
      */
-    private void drawWallWithItems(Graphics2D g2, Room room, String direction, int x1, int y1, int x2, int y2) {
+    void drawWallWithItems(Graphics2D g2, Room room, String direction, int x1, int y1, int x2, int y2) {
         List<PlanItem> itemsOnWall = new ArrayList<>();
 
         // Collect doors and windows on this wall
@@ -465,13 +676,67 @@ public class CanvasPanel extends JPanel {
         }
     }
 
+    /**
+     * Draws the changes of the current diff that touch the visible area.
+     *
+     * @param g2      The Graphics2D object.
+     * @param visible The area being repainted.
+     */
+    private void drawDiff(Graphics2D g2, Rectangle visible) {
+        Stroke solid = new BasicStroke(2);
+        Stroke dashed = new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{6}, 0);
+        for (PlanDiff.Change change : diff.getChanges()) {
+            Rectangle oldBounds = change.getOldBounds();
+            Rectangle newBounds = change.getNewBounds();
+            if (!(oldBounds != null && oldBounds.intersects(visible)) && !(newBounds != null && newBounds.intersects(visible))) {
+                continue;
+            }
+            switch (change.getKind()) {
+                case ADDED:
+                    g2.setColor(new Color(DIFF_ADDED.getRed(), DIFF_ADDED.getGreen(), DIFF_ADDED.getBlue(), 60));
+                    g2.fill(newBounds);
+                    g2.setColor(DIFF_ADDED);
+                    g2.setStroke(solid);
+                    g2.draw(newBounds);
+                    break;
+                case REMOVED:
+                    g2.setColor(new Color(DIFF_REMOVED.getRed(), DIFF_REMOVED.getGreen(), DIFF_REMOVED.getBlue(), 60));
+                    g2.fill(oldBounds);
+                    g2.setColor(DIFF_REMOVED);
+                    g2.setStroke(dashed);
+                    g2.draw(oldBounds);
+                    break;
+                default:
+                    g2.setColor(DIFF_CHANGED);
+                    g2.setStroke(dashed);
+                    g2.draw(oldBounds);
+                    g2.setStroke(solid);
+                    g2.draw(newBounds);
+                    g2.drawLine((int) oldBounds.getCenterX(), (int) oldBounds.getCenterY(),
+                            (int) newBounds.getCenterX(), (int) newBounds.getCenterY());
+                    break;
+            }
+        }
+    }
+
     // Additional getters for rooms and furnitures
     public List<Room> getRooms() {
-        return rooms;
+        return model.getRooms();
     }
 
     public List<Furniture> getFurnitures() {
-        return furnitures;
+        return model.getFurnitures();
+    }
+
+    /**
+     * Highlights a room and scrolls it into view.
+     *
+     * @param room The room.
+     */
+    public void showRoom(Room room) {
+        roomToHighlight = room;
+        scrollRectToVisible(room.getExtent());
+        repaint();
     }
 
     /**
@@ -506,22 +771,70 @@ public class CanvasPanel extends JPanel {
      * @param room The selected Room, or null.
      */
     private void notifyRoomSelected(Room room) {
+        if (model.isInTransaction()) {
+            selectionPending = true;
+            pendingSelection = room;
+            return;
+        }
         for (RoomSelectionListener listener : roomSelectionListeners) {
             listener.onRoomSelected(room);
         }
     }
 
     /**
-     * Shows a message dialog.
+     * Shows a message dialog. Package-private so a headless replay can report messages instead.
      *
      * @param message The message to display.
      * @param title   The title of the dialog.
      * @param type    The message type.
      */
-    private void showMessage(String message, String title, int type) {
+    void showMessage(String message, String title, int type) {
         JOptionPane.showMessageDialog(this, message, title, type);
     }
 
+    /**
+     * Shows an error dialog if a model operation failed.
+     *
+     * @param result The outcome of the operation.
+     * @return True if the operation succeeded.
+     */
+    private boolean showResult(PlanResult result) {
+        if (!result.isOk()) {
+            showMessage(result.getMessage(), result.getTitle(), JOptionPane.ERROR_MESSAGE);
+        } else if (result.isWarning()) {
+            showMessage(result.getMessage(), result.getTitle(), JOptionPane.WARNING_MESSAGE);
+        }
+        return result.isOk();
+    }
+
+    /**
+     * Keeps the model's notion of the drawing area in step with the canvas size.
+     */
+    private void syncPlanSize() {
+        model.setPlanSize(getWidth(), getHeight());
+    }
+
+    /**
+     * Prompts for a positive length.
+     *
+     * @param prompt The prompt text.
+     * @param title  The dialog title.
+     * @param label  Name used in the error message.
+     * @return The length, or null if the user canceled or entered an invalid value.
+     */
+    private Integer promptLength(String prompt, String title, String label) {
+        String lengthStr = JOptionPane.showInputDialog(this, prompt, title, JOptionPane.PLAIN_MESSAGE);
+        if (lengthStr == null) return null; // User canceled
+        try {
+            int length = Integer.parseInt(lengthStr);
+            if (length <= 0) throw new NumberFormatException();
+            return length;
+        } catch (NumberFormatException ex) {
+            showMessage("Invalid " + label + " length entered.", "Input Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
     /**
      * Adds a room to the canvas.
      *
@@ -532,23 +845,8 @@ public class CanvasPanel extends JPanel {
      * @param name The optional name of the room.
      */
     public void addRoom(String type, Color color, int width, int height, String name) {
-        // Position based on nextRoomX and nextRoomY
-        Room newRoom = new Room(nextRoomX, nextRoomY, width, height, type, color, name);
-        // Check for overlap
-        if (checkRoomOverlap(newRoom)) {
-            showMessage("Cannot place room here. It overlaps with an existing room.", "Placement Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-        rooms.add(newRoom);
-        pushUndo(new AddRoomCommand(newRoom));
-        redoStack.clear();
-        // Update next position (row-major order)
-        nextRoomX += width; // Removed GRID_SIZE for spacing between rooms
-        if (nextRoomX + width > getWidth()) {
-            nextRoomX = 0;
-            nextRoomY += height; // Removed GRID_SIZE for spacing between rooms
-        }
-        repaint();
+        syncPlanSize();
+        showResult(model.addRoom(type, color, width, height, name));
     }
 
     /**
@@ -564,704 +862,127 @@ public class CanvasPanel extends JPanel {
      * @param name      The optional name of the new room.
      */
     public void addRelativeRoom(Room baseRoom, String type, String direction, String alignment, Color color, int width, int height, String name) {
-        int newX = baseRoom.getX();
-        int newY = baseRoom.getY();
-
-        switch (direction) {
-            case "North":
-                newY = baseRoom.getY() - height; // Removed GRID_SIZE for spacing
-                break;
-            case "South":
-                newY = baseRoom.getY() + baseRoom.getHeight(); // Removed GRID_SIZE for spacing
-                break;
-            case "East":
-                newX = baseRoom.getX() + baseRoom.getWidth(); // Removed GRID_SIZE for spacing
-                break;
-            case "West":
-                newX = baseRoom.getX() - width; // Removed GRID_SIZE for spacing
-                break;
-            default:
-                showMessage("Invalid direction for relative room.", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-        }
-
-        // Adjust alignment
-        switch (alignment) {
-            case "Left":
-                if (direction.equals("North") || direction.equals("South")) {
-                    newX = baseRoom.getX();
-                } else {
-                    newY = baseRoom.getY();
-                }
-                break;
-            case "Center":
-                if (direction.equals("North") || direction.equals("South")) {
-                    newX = baseRoom.getX() + (baseRoom.getWidth() - width) / 2;
-                } else {
-                    newY = baseRoom.getY() + (baseRoom.getHeight() - height) / 2;
-                }
-                break;
-            case "Right":
-                if (direction.equals("North") || direction.equals("South")) {
-                    newX = baseRoom.getX() + baseRoom.getWidth() - width;
-                } else {
-                    newY = baseRoom.getY() + baseRoom.getHeight() - height;
-                }
-                break;
-            default:
-                showMessage("Invalid alignment option.", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-        }
-
-        Room newRoom = new Room(newX, newY, width, height, type, color, name);
-        // Check for overlap
-        if (checkRoomOverlap(newRoom)) {
-            showMessage("Cannot place room here. It overlaps with an existing room.", "Placement Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+        syncPlanSize();
+        showResult(model.addRelativeRoom(baseRoom, type, direction, alignment, color, width, height, name));
+    }
 
-        rooms.add(newRoom);
-        pushUndo(new AddRelativeRoomCommand(newRoom));
-        redoStack.clear();
-        repaint();
+    /**
+     * Adds a generated layout below the rooms already on the canvas, as one undo step.
+     *
+     * @param layout The layout.
+     */
+    public void addLayout(LayoutSolver.Layout layout) {
+        syncPlanSize();
+        showResult(model.addRooms(layout.createRooms()));
     }
 
     /**
-     * Adds a door to a specified room.
+     * Adds a door to a specified room, prompting for its length.
      *
      * @param room      The room to which the door will be added.
      * @param direction The direction ("North", "South", "East", "West") where the door will be placed.
      */
     public void addDoorToRoom(Room room, String direction) {
-        if (room == null) {
-            showMessage("No room selected.", "Error", JOptionPane.ERROR_MESSAGE);
+        syncPlanSize();
+        if (!showResult(model.checkDoorWall(room, direction))) {
             return;
         }
-
-        // Prevent Bedroom/Bathroom doors from leading outside
-        if (room.getType().equalsIgnoreCase("Bedroom") || room.getType().equalsIgnoreCase("Bathroom")) {
-            if (isExternalWall(room, direction)) {
-                showMessage("ERROR: Bedroom/Bathroom doors cannot lead directly outside.", "Placement Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-        }
-
-        // Prevent doors on the same wall overlapping with existing items
         // Prompt for door length
-        String lengthStr = JOptionPane.showInputDialog(this, "Enter Door Length (pixels):", "Door Dimensions", JOptionPane.PLAIN_MESSAGE);
-        if (lengthStr == null) return; // User canceled
-        int doorLength;
-        try {
-            doorLength = Integer.parseInt(lengthStr);
-            if (doorLength <= 0) throw new NumberFormatException();
-        } catch (NumberFormatException ex) {
-            showMessage("Invalid door length entered.", "Input Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        // Determine door dimensions based on direction
-        int doorWidth, doorHeight;
-        if (direction.equals("North") || direction.equals("South")) {
-            doorWidth = doorLength;
-            doorHeight = 20; // Fixed height for horizontal doors
-        } else { // East or West
-            doorWidth = 20; // Fixed width for vertical doors
-            doorHeight = doorLength;
-        }
-
-        // Check if the wall is shared with another room
-        boolean isWallShared = isWallShared(room, direction);
-
-        if (room.getType().equalsIgnoreCase("Bedroom") || room.getType().equalsIgnoreCase("Bathroom")) {
-            if (!isWallShared) {
-                showMessage("ERROR: Bedroom/Bathroom doors must be placed on walls connecting to another room.", "Placement Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-        }
-
-        // Determine door position on the specified wall
-        Door newDoor = new Door(doorWidth, doorHeight, direction);
-
-        // Positioning door on the specified wall
-        switch (direction) {
-            case "North":
-                newDoor.setPosition(new Point(
-                        room.getX() + (room.getWidth() - newDoor.getWidth()) / 2,
-                        room.getY()
-                ));
-                break;
-            case "South":
-                newDoor.setPosition(new Point(
-                        room.getX() + (room.getWidth() - newDoor.getWidth()) / 2,
-                        room.getY() + room.getHeight()
-                ));
-                break;
-            case "East":
-                newDoor.setPosition(new Point(
-                        room.getX() + room.getWidth(),
-                        room.getY() + (room.getHeight() - newDoor.getHeight()) / 2
-                ));
-                break;
-            case "West":
-                newDoor.setPosition(new Point(
-                        room.getX() - newDoor.getWidth(),
-                        room.getY() + (room.getHeight() - newDoor.getHeight()) / 2
-                ));
-                break;
-            default:
-                showMessage("Invalid direction for door.", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-        }
-
-        // Snap door position to grid
-        newDoor.setPosition(snapToGrid(newDoor.getPosition()));
-
-        // Check if door is within wall bounds
-        if (!isWithinWallBounds(room, newDoor)) {
-            showMessage("Door positioning is out of wall bounds!", "Placement Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        // Check for overlapping with existing doors and windows
-        if (isOverlappingDoorOrWindow(room, newDoor)) {
-            showMessage("Cannot place door here. It overlaps with an existing door or window!", "Overlap Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        room.addDoor(newDoor);
-        repaint();
-
-        // Push to undo stack
-        pushUndo(new AddDoorCommand(room, newDoor));
-        redoStack.clear();
+        Integer doorLength = promptLength("Enter Door Length (pixels):", "Door Dimensions", "door");
+        if (doorLength == null) return;
+        showResult(model.addDoor(room, direction, doorLength));
     }
 
     /**
-     * Adds a window to a specified room.
+     * Adds a window to a specified room, prompting for its length.
      *
      * @param room      The room to which the window will be added.
      * @param direction The direction ("North", "South", "East", "West") where the window will be placed.
      */
     public void addWindowToRoom(Room room, String direction) {
-        if (room == null) {
-            showMessage("No room selected.", "Error", JOptionPane.ERROR_MESSAGE);
+        syncPlanSize();
+        if (!showResult(model.checkWindowWall(room, direction))) {
             return;
         }
-
-        // Prevent windows on the same wall overlapping with existing doors
-        boolean hasDoorOnWall = false;
-        for (Door door : room.getDoors()) {
-            if (door.getDirection().equals(direction)) {
-                hasDoorOnWall = true;
-                break;
-            }
-        }
-        if (hasDoorOnWall) {
-            showMessage("Cannot place window on a wall that has a door!", "Placement Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        // Check if the wall is shared with another room
-        if (isWallShared(room, direction)) {
-            showMessage("Cannot place window on a wall shared with another room.", "Placement Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
         // Prompt for window length
-        String lengthStr = JOptionPane.showInputDialog(this, "Enter Window Length (pixels):", "Window Dimensions", JOptionPane.PLAIN_MESSAGE);
-        if (lengthStr == null) return; // User canceled
-        int windowLength;
-        try {
-            windowLength = Integer.parseInt(lengthStr);
-            if (windowLength <= 0) throw new NumberFormatException();
-        } catch (NumberFormatException ex) {
-            showMessage("Invalid window length entered.", "Input Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        PlanWindow newWindow = new PlanWindow(
-                direction.equals("North") || direction.equals("South") ? windowLength : 10,
-                direction.equals("North") || direction.equals("South") ? 10 : windowLength,
-                direction
-        );
-
-        // Positioning window on the specified wall, centered
-        switch (direction) {
-            case "North":
-                newWindow.setPosition(new Point(
-                        room.getX() + (room.getWidth() - newWindow.getWidth()) / 2,
-                        room.getY()
-                ));
-                break;
-            case "South":
-                newWindow.setPosition(new Point(
-                        room.getX() + (room.getWidth() - newWindow.getWidth()) / 2,
-                        room.getY() + room.getHeight()
-                ));
-                break;
-            case "East":
-                newWindow.setPosition(new Point(
-                        room.getX() + room.getWidth(),
-                        room.getY() + (room.getHeight() - newWindow.getHeight()) / 2
-                ));
-                break;
-            case "West":
-                newWindow.setPosition(new Point(
-                        room.getX() - newWindow.getWidth(),
-                        room.getY() + (room.getHeight() - newWindow.getHeight()) / 2
-                ));
-                break;
-            default:
-                showMessage("Invalid direction for window.", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-        }
-
-        // Snap window position to grid
-        newWindow.setPosition(snapToGrid(newWindow.getPosition()));
-
-        // Check if window is within wall bounds
-        if (!isWithinWallBounds(room, newWindow)) {
-            showMessage("Window positioning is out of wall bounds!", "Placement Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        // Check for overlap with existing windows and doors
-        if (isOverlappingDoorOrWindow(room, newWindow)) {
-            showMessage("Cannot place window here. Overlaps with existing window or door!", "Overlap Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        room.addWindow(newWindow);
-        repaint();
-
-        // Push to undo stack
-        pushUndo(new AddWindowCommand(room, newWindow));
-        redoStack.clear();
-    }
-
-    /**
-     * Checks if a door/window overlaps with existing doors or windows on the same wall.
-     *
-     * @param room The room where the door/window is being added.
-     * @param item The door/window being added.
-     * @return True if there is an overlap, false otherwise.
-     */
-    private boolean isOverlappingDoorOrWindow(Room room, PlanItem item) {
-        List<PlanItem> existingItems = new ArrayList<>();
-        if (item instanceof Door) {
-            existingItems.addAll(room.getDoors());
-            existingItems.addAll(room.getWindows());
-        } else if (item instanceof PlanWindow) {
-            existingItems.addAll(room.getWindows());
-            existingItems.addAll(room.getDoors());
-        }
-
-        for (PlanItem existingItem : existingItems) {
-            if (existingItem != item && existingItem.intersects(item)) {
-                return true;
-            }
-        }
-        return false;
+        Integer windowLength = promptLength("Enter Window Length (pixels):", "Window Dimensions", "window");
+        if (windowLength == null) return;
+        showResult(model.addWindow(room, direction, windowLength));
     }
 
     /**
-     * Checks if the item is within the bounds of the room's wall.
-     *
-     * @param room The room containing the wall.
-     * @param item The item to check.
-     * @return True if within bounds, false otherwise.
-     */
-    private boolean isWithinWallBounds(Room room, PlanItem item) {
-        Rectangle roomBounds = room.getBounds();
-        Rectangle itemBounds = item.getBounds();
-
-        String direction = "";
-        if (item instanceof Door) {
-            direction = ((Door)item).getDirection();
-        } else if (item instanceof PlanWindow) {
-            direction = ((PlanWindow)item).getDirection();
-        }
-
-        switch(direction) {
-            case "North":
-            case "South":
-                return roomBounds.x <= itemBounds.x && (itemBounds.x + item.getWidth()) <= (roomBounds.x + roomBounds.width);
-            case "East":
-            case "West":
-                return roomBounds.y <= itemBounds.y && (itemBounds.y + item.getHeight()) <= (roomBounds.y + roomBounds.height);
-            default:
-                return false;
-        }
-    }
-
-    /**
-     * Pushes a command onto the undo stack.
-     *
-     * @param command The command to push.
-     */
-    public void pushUndo(Command command) {
-        undoStack.push(command);
-    }
-
-    /**
-     * Pushes a command onto the redo stack.
+     * Adds furniture to a room.
      *
-     * @param command The command to push.
-     */
-    public void pushRedo(Command command) {
-        redoStack.push(command);
-    }
-
-    /**
-     * Clears the redo stack.
-     */
-    public void clearRedo() {
-        redoStack.clear();
-    }
-
-    /**
-     * Performs an undo operation.
-     */
-    public void performUndo() {
-        if (!undoStack.isEmpty()) {
-            Command cmd = undoStack.pop();
-            cmd.undo();
-            redoStack.push(cmd);
-            repaint();
-        }
-    }
-
-    /**
-     * Performs a redo operation.
+     * @param room      The room to which the furniture will be added.
+     * @param furniture The furniture to add.
      */
-    public void performRedo() {
-        if (!redoStack.isEmpty()) {
-            Command cmd = redoStack.pop();
-            cmd.execute();
-            undoStack.push(cmd);
-            repaint();
-        }
+    public void addFurnitureToRoom(Room room, Furniture furniture) {
+        // Placed on a free spot rather than where it was created, if the room has one
+        showResult(model.placeFurniture(room, furniture));
     }
 
     /**
-     * Checks if a wall is shared with another room.
+     * Rearranges the furniture of rooms so nothing overlaps, as one undo step.
      *
-     * @param room The room to check.
-     * @param direction The direction of the wall.
-     * @return True if the wall is shared with another room, false otherwise.
+     * @param rooms The rooms to arrange.
      */
-    private boolean isWallShared(Room room, String direction) {
-        for (Room otherRoom : rooms) {
-            if (otherRoom == room) continue;
-            switch (direction) {
-                case "North":
-                    if (otherRoom.getY() + otherRoom.getHeight() == room.getY() &&
-                        roomsOverlap(room.getX(), room.getX() + room.getWidth(), otherRoom.getX(), otherRoom.getX() + otherRoom.getWidth())) {
-                        return true;
-                    }
-                    break;
-                case "South":
-                    if (otherRoom.getY() == room.getY() + room.getHeight() &&
-                        roomsOverlap(room.getX(), room.getX() + room.getWidth(), otherRoom.getX(), otherRoom.getX() + otherRoom.getWidth())) {
-                        return true;
-                    }
-                    break;
-                case "East":
-                    if (otherRoom.getX() == room.getX() + room.getWidth() &&
-                        roomsOverlap(room.getY(), room.getY() + room.getHeight(), otherRoom.getY(), otherRoom.getY() + otherRoom.getHeight())) {
-                        return true;
-                    }
-                    break;
-                case "West":
-                    if (otherRoom.getX() + otherRoom.getWidth() == room.getX() &&
-                        roomsOverlap(room.getY(), room.getY() + room.getHeight(), otherRoom.getY(), otherRoom.getY() + otherRoom.getHeight())) {
-                        return true;
-                    }
-                    break;
-            }
-        }
-        return false;
+    public void arrangeFurniture(List<Room> rooms) {
+        showResult(model.arrangeFurniture(rooms));
     }
 
     /**
-     * Helper method to determine if two ranges overlap.
+     * Executes a command and records it for undo.
      *
-     * @param start1 Start of first range.
-     * @param end1 End of first range.
-     * @param start2 Start of second range.
-     * @param end2 End of second range.
-     * @return True if ranges overlap, false otherwise.
-     */
-    private boolean roomsOverlap(int start1, int end1, int start2, int end2) {
-        return Math.max(start1, start2) < Math.min(end1, end2);
-    }
-
-    /**
-     * Interface for undoable actions.
+     * @param command The command to run.
      */
-    public interface Command {
-        void execute();
-        void undo();
+    public void executeCommand(Command command) {
+        model.executeCommand(command);
     }
 
     /**
-     * Command to add a room.
+     * Starts a transaction. Every command run until the matching {@link #commitTransaction()}
+     * becomes a single undo step, and repaints and selection notifications are held back.
      */
-    public class AddRoomCommand implements Command {
-        private Room room;
-
-        public AddRoomCommand(Room room) {
-            this.room = room;
-        }
-
-        @Override
-        public void execute() {
-            rooms.add(room);
-        }
-
-        @Override
-        public void undo() {
-            rooms.remove(room);
-            repaint();
-        }
+    public void beginTransaction() {
+        model.beginTransaction();
     }
 
     /**
-     * Command to add a relative room.
+     * Commits the current transaction as one undo step, then repaints and notifies once.
      */
-    public class AddRelativeRoomCommand implements Command {
-        private Room room;
-
-        public AddRelativeRoomCommand(Room room) {
-            this.room = room;
-        }
-
-        @Override
-        public void execute() {
-            rooms.add(room);
-        }
-
-        @Override
-        public void undo() {
-            rooms.remove(room);
-            repaint();
-        }
+    public void commitTransaction() {
+        model.commitTransaction();
+        flushPendingSelection();
     }
 
     /**
-     * Command to delete a room.
+     * Undoes every command of the current transaction and discards it.
      */
-    public class DeleteRoomCommand implements Command {
-        private Room room;
-        private List<Door> doorsBackup;
-        private List<PlanWindow> windowsBackup;
-        private List<Furniture> furnituresBackup;
-
-        public DeleteRoomCommand(Room room) {
-            this.room = room;
-            this.doorsBackup = new ArrayList<>(room.getDoors());
-            this.windowsBackup = new ArrayList<>(room.getWindows());
-            this.furnituresBackup = new ArrayList<>(room.getFurnitures());
-        }
-
-        @Override
-        public void execute() {
-            // Remove furnitures from global list
-            for (Furniture furniture : furnituresBackup) {
-                furnitures.remove(furniture);
-            }
-
-            // Remove room
-            rooms.remove(room);
-            repaint();
-        }
-
-        @Override
-        public void undo() {
-            // Add room back
-            rooms.add(room);
-
-            // Restore doors, windows, and furnitures
-            for (Door door : doorsBackup) {
-                room.addDoor(door);
-            }
-            for (PlanWindow window : windowsBackup) {
-                room.addWindow(window);
-            }
-            for (Furniture furniture : furnituresBackup) {
-                room.addFurniture(furniture);
-                furnitures.add(furniture);
-            }
-            repaint();
-        }
-    }
-
-    /**
-     * Command to move a room.
-     */
-    public class MoveRoomCommand implements Command {
-        private Room room;
-        private Point oldPosition;
-        private Point newPosition;
-
-        public MoveRoomCommand(Room room, Point oldPosition, Point newPosition) {
-            this.room = room;
-            this.oldPosition = oldPosition;
-            this.newPosition = newPosition;
-        }
-
-        @Override
-        public void execute() {
-            room.setPosition(newPosition);
-        }
-
-        @Override
-        public void undo() {
-            room.setPosition(oldPosition);
-        }
+    public void rollbackTransaction() {
+        model.rollbackTransaction();
+        flushPendingSelection();
     }
 
-    /**
-     * Command to add a door.
-     */
-    public class AddDoorCommand implements Command {
-        private Room room;
-        private Door door;
-
-        public AddDoorCommand(Room room, Door door) {
-            this.room = room;
-            this.door = door;
-        }
-
-        @Override
-        public void execute() {
-            room.addDoor(door);
-        }
-
-        @Override
-        public void undo() {
-            room.getDoors().remove(door);
-            repaint();
+    private void flushPendingSelection() {
+        if (selectionPending && !model.isInTransaction()) {
+            selectionPending = false;
+            Room room = pendingSelection;
+            pendingSelection = null;
+            notifyRoomSelected(room);
         }
     }
 
     /**
-     * Command to add a window.
-     */
-    public class AddWindowCommand implements Command {
-        private Room room;
-        private PlanWindow window;
-
-        public AddWindowCommand(Room room, PlanWindow window) {
-            this.room = room;
-            this.window = window;
-        }
-
-        @Override
-        public void execute() {
-            room.addWindow(window);
-        }
-
-        @Override
-        public void undo() {
-            room.getWindows().remove(window);
-            repaint();
-        }
-    }
-
-    /**
-     * Command to add furniture.
-     */
-    public class AddFurnitureCommand implements Command {
-        private Room room;
-        private Furniture furniture;
-
-        public AddFurnitureCommand(Room room, Furniture furniture) {
-            this.room = room;
-            this.furniture = furniture;
-        }
-
-        @Override
-        public void execute() {
-            room.addFurniture(furniture);
-            furnitures.add(furniture);
-        }
-
-        @Override
-        public void undo() {
-            room.getFurnitures().remove(furniture);
-            furnitures.remove(furniture);
-            repaint();
-        }
-    }
-
-    /**
-     * Command to move furniture.
-     */
-    public class MoveFurnitureCommand implements Command {
-        private Furniture furniture;
-        private Point oldPosition;
-        private Point newPosition;
-
-        public MoveFurnitureCommand(Furniture furniture, Point oldPosition, Point newPosition) {
-            this.furniture = furniture;
-            this.oldPosition = oldPosition;
-            this.newPosition = newPosition;
-        }
-
-        @Override
-        public void execute() {
-            furniture.setPosition(newPosition);
-        }
-
-        @Override
-        public void undo() {
-            furniture.setPosition(oldPosition);
-        }
-    }
-
-    /**
-     * Command to rotate furniture.
+     * Performs an undo operation.
      */
-    public class RotateFurnitureCommand implements Command {
-        private Furniture furniture;
-        private Point oldPosition;
-        private Point newPosition;
-
-        public RotateFurnitureCommand(Furniture furniture, Point oldPosition, Point newPosition) {
-            this.furniture = furniture;
-            this.oldPosition = oldPosition;
-            this.newPosition = newPosition;
-        }
-
-        @Override
-        public void execute() {
-            // Rotation is already handled before pushing the command
-        }
-
-        @Override
-        public void undo() {
-            furniture.setPosition(oldPosition);
-            repaint();
-        }
+    public void performUndo() {
+        model.performUndo();
     }
 
     /**
-     * Adds furniture to a room.
-     *
-     * @param room      The room to which the furniture will be added.
-     * @param furniture The furniture to add.
+     * Performs a redo operation.
      */
-    public void addFurnitureToRoom(Room room, Furniture furniture) {
-        room.addFurniture(furniture);
-        furnitures.add(furniture);
-        repaint();
-        pushUndo(new AddFurnitureCommand(room, furniture));
-        redoStack.clear();
+    public void performRedo() {
+        model.performRedo();
     }
-
-    /**
-     * Adds a relative room and furniture placements as needed.
-     */
-    // Additional methods can be added here as needed.
-}
\ No newline at end of file
+}
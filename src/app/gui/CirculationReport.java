@@ -0,0 +1,159 @@
+package app.gui;
+
+import app.model.Room;
+import app.model.RoomGraph;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Window listing how every room is reached: whether there is a way in from outside, the
+ * walking distance to the nearest exit and the number of rooms walked through. The list
+ * follows changes to rooms and doors; double-clicking a room shows it on the canvas.
+ */
+public class CirculationReport extends JDialog {
+    private static final String[] COLUMNS = {"Room", "Reachable", "Egress Distance", "Rooms to Exit"};
+
+    private final RoomGraph graph;
+    private final CanvasPanel canvas;
+    private final ReportTableModel tableModel = new ReportTableModel();
+    private final JLabel status = new JLabel();
+    private final Runnable graphListener = this::refresh;
+
+    /**
+     * Creates the window.
+     *
+     * @param owner  The parent window.
+     * @param canvas The canvas showing the plan.
+     */
+    public CirculationReport(Window owner, CanvasPanel canvas) {
+        super(owner, "Circulation", ModalityType.MODELESS);
+        this.canvas = canvas;
+        graph = new RoomGraph(canvas.getModel());
+        graph.addChangeListener(graphListener);
+
+        JTable table = new JTable(tableModel);
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(200);
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.getSelectedRow();
+                if (e.getClickCount() == 2 && row >= 0) {
+                    canvas.showRoom(tableModel.get(table.convertRowIndexToModel(row)));
+                }
+            }
+        });
+
+        status.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        setLayout(new BorderLayout());
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        setSize(600, 500);
+        setLocationRelativeTo(owner);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                graph.removeChangeListener(graphListener);
+                graph.close();
+            }
+        });
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        refresh();
+    }
+
+    private void refresh() {
+        long start = System.nanoTime();
+        List<Room> rooms = new ArrayList<>(canvas.getModel().getRooms());
+        List<Row> rows = new ArrayList<>(rooms.size());
+        int unreachable = 0;
+        for (Room room : rooms) {
+            double distance = graph.getEgressDistance(room);
+            if (distance == Double.POSITIVE_INFINITY) {
+                unreachable++;
+            }
+            rows.add(new Row(room, distance, graph.getEgressRoute(room).size()));
+        }
+        tableModel.setRows(rows);
+        status.setText(String.format("%d rooms, %d exits, %d rooms without a way out (%.1f ms)", rooms.size(),
+                graph.getExits().size(), unreachable, (System.nanoTime() - start) / 1e6));
+    }
+
+    private static final class Row {
+        final Room room;
+        final double distance;
+        final int routeLength;
+
+        Row(Room room, double distance, int routeLength) {
+            this.room = room;
+            this.distance = distance;
+            this.routeLength = routeLength;
+        }
+    }
+
+    private static final class ReportTableModel extends AbstractTableModel {
+        private List<Row> rows = new ArrayList<>();
+
+        void setRows(List<Row> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        Room get(int row) {
+            return rows.get(row).room;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 0:
+                    return String.class;
+                case 1:
+                    return Boolean.class;
+                case 2:
+                    return Long.class;
+                default:
+                    return Integer.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Row entry = rows.get(row);
+            switch (column) {
+                case 0:
+                    Room room = entry.room;
+                    return String.format("%s at %d,%d", room.getName() != null ? room.getName() : room.getType(),
+                            room.getX(), room.getY());
+                case 1:
+                    return entry.distance < Double.POSITIVE_INFINITY;
+                case 2:
+                    return entry.distance < Double.POSITIVE_INFINITY ? Math.round(entry.distance) : null;
+                default:
+                    return entry.routeLength;
+            }
+        }
+    }
+}
@@ -1,27 +1,44 @@
 package app.gui;
 
 import app.model.*;
+import app.util.ImageLoader;
+import app.util.NdjsonPlanReader;
+import app.util.NdjsonPlanWriter;
 import app.util.PlanData;
+import app.util.PlanDiff;
 import app.util.PlanSerializer;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.*;
 
 /**
  * Control panel for managing the floor plan.
  */
-public class ControlPanel extends JPanel implements RoomSelectionListener {
+public class ControlPanel extends JPanel implements RoomSelectionListener, HistoryListener {
+    // Rooms handed to the model at a time while an NDJSON file is imported
+    private static final int IMPORT_BATCH_ROOMS = 256;
+
     private CanvasPanel canvas;
     private Room selectedRoom = null;
     private File currentFile;
+    private SwingWorker<Integer, List<Room>> importWorker = null;
 
     // UI Components that might need to be enabled/disabled based on selection
     private JButton deleteRoomButton;
+    private JSlider historySlider;
+    private boolean updatingHistorySlider = false;
 
     public ControlPanel(CanvasPanel canvas) {
         this.canvas = canvas;
         canvas.addRoomSelectionListener(this); // Correctly adding as a listener
+        canvas.getModel().addHistoryListener(this);
 
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         setPreferredSize(new Dimension(250, 800));
@@ -34,9 +51,12 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
         createAddWindowButton();
         createFurniturePanel();
         createFixturePanel();
+        createArrangeButton();
         createSaveLoadButtons();
+        createJsonButtons();
         createDeleteRoomButton();
         createUndoRedoButtons();
+        createHistorySlider();
 
         add(Box.createVerticalGlue());
     }
@@ -92,7 +112,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
                     }
                 }
 
-                Color color = getColorForRoomType(type);
+                Color color = RoomType.of(type).getColor();
                 canvas.setCurrentAction(CanvasPanel.ActionMode.ADD_ROOM);
                 canvas.addRoom(type, color, width, height, name);
                 canvas.resetActionMode();
@@ -175,7 +195,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
                 }
             }
 
-            Color color = getColorForRoomType(type);
+            Color color = RoomType.of(type).getColor();
             canvas.setCurrentAction(CanvasPanel.ActionMode.ADD_RELATIVE_ROOM);
             canvas.addRelativeRoom(selectedRoom, type, direction, alignment, color, width, height, name);
             canvas.resetActionMode();
@@ -291,9 +311,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
 
             Furniture chair = new Furniture(width, height, "Chair", selectedRoom);
             // Set image from resources
-            ImageIcon icon = new ImageIcon(getClass().getResource("/resources/chair.png"));
-            Image scaledImage = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            chair.setImage(scaledImage, "/resources/chair.png");
+            chair.setImage(ImageLoader.loadScaled("/resources/chair.png", width, height), "/resources/chair.png");
 
             canvas.addFurnitureToRoom(selectedRoom, chair);
         });
@@ -333,9 +351,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
 
             Furniture table = new Furniture(width, height, "Table", selectedRoom);
             // Set image from resources
-            ImageIcon icon = new ImageIcon(getClass().getResource("/resources/table.png"));
-            Image scaledImage = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            table.setImage(scaledImage, "/resources/table.png");
+            table.setImage(ImageLoader.loadScaled("/resources/table.png", width, height), "/resources/table.png");
 
             canvas.addFurnitureToRoom(selectedRoom, table);
         });
@@ -376,9 +392,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
 
             Furniture bed = new Furniture(width, height, "Bed", selectedRoom);
             // Set image from resources
-            ImageIcon icon = new ImageIcon(getClass().getResource("/resources/bed.png"));
-            Image scaledImage = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            bed.setImage(scaledImage, "/resources/bed.png");
+            bed.setImage(ImageLoader.loadScaled("/resources/bed.png", width, height), "/resources/bed.png");
 
             canvas.addFurnitureToRoom(selectedRoom, bed);
         });
@@ -418,9 +432,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
 
             Furniture sofa = new Furniture(width, height, "Sofa", selectedRoom);
             // Set image from resources
-            ImageIcon icon = new ImageIcon(getClass().getResource("/resources/sofa.png"));
-            Image scaledImage = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            sofa.setImage(scaledImage, "/resources/sofa.png");
+            sofa.setImage(ImageLoader.loadScaled("/resources/sofa.png", width, height), "/resources/sofa.png");
 
             canvas.addFurnitureToRoom(selectedRoom, sofa);
         });
@@ -460,9 +472,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
 
             Furniture diningSet = new Furniture(width, height, "Dining Set", selectedRoom);
             // Set image from resources
-            ImageIcon icon = new ImageIcon(getClass().getResource("/resources/dining_set.png"));
-            Image scaledImage = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            diningSet.setImage(scaledImage, "/resources/dining_set.png");
+            diningSet.setImage(ImageLoader.loadScaled("/resources/dining_set.png", width, height), "/resources/dining_set.png");
 
             canvas.addFurnitureToRoom(selectedRoom, diningSet);
         });
@@ -525,9 +535,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
 
             Furniture commode = new Furniture(width, height, "Commode", selectedRoom);
             // Set image from resources
-            ImageIcon icon = new ImageIcon(getClass().getResource("/resources/commode.png"));
-            Image scaledImage = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            commode.setImage(scaledImage, "/resources/commode.png");
+            commode.setImage(ImageLoader.loadScaled("/resources/commode.png", width, height), "/resources/commode.png");
 
             canvas.addFurnitureToRoom(selectedRoom, commode);
         });
@@ -567,9 +575,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
 
             Furniture washbasin = new Furniture(width, height, "Washbasin", selectedRoom);
             // Set image from resources
-            ImageIcon icon = new ImageIcon(getClass().getResource("/resources/washbasin.png"));
-            Image scaledImage = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            washbasin.setImage(scaledImage, "/resources/washbasin.png");
+            washbasin.setImage(ImageLoader.loadScaled("/resources/washbasin.png", width, height), "/resources/washbasin.png");
 
             canvas.addFurnitureToRoom(selectedRoom, washbasin);
         });
@@ -609,9 +615,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
 
             Furniture shower = new Furniture(width, height, "Shower", selectedRoom);
             // Set image from resources
-            ImageIcon icon = new ImageIcon(getClass().getResource("/resources/shower.png"));
-            Image scaledImage = icon.getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            shower.setImage(scaledImage, "/resources/shower.png");
+            shower.setImage(ImageLoader.loadScaled("/resources/shower.png", width, height), "/resources/shower.png");
 
             canvas.addFurnitureToRoom(selectedRoom, shower);
         });
@@ -626,6 +630,26 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
         add(Box.createRigidArea(new Dimension(0, 10)));
     }
 
+    /**
+     * Creates the "Arrange Furniture" button, which rearranges the furniture of the selected room.
+     */
+    private void createArrangeButton() {
+        JButton arrangeButton = new JButton("Arrange Furniture");
+        arrangeButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        arrangeButton.setMaximumSize(new Dimension(Integer.MAX_VALUE, arrangeButton.getMinimumSize().height));
+        arrangeButton.setBackground(new Color(255, 228, 196));
+        arrangeButton.setFocusPainted(false);
+        arrangeButton.addActionListener(e -> {
+            if (selectedRoom == null) {
+                JOptionPane.showMessageDialog(this, "Please select a room first.", "No Room Selected", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            canvas.arrangeFurniture(List.of(selectedRoom));
+        });
+        add(arrangeButton);
+        add(Box.createRigidArea(new Dimension(0, 10)));
+    }
+
     /**
      * Creates the "Save" and "Load" buttons.
      */
@@ -641,16 +665,35 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
         saveButton.setFocusPainted(false);
         saveButton.addActionListener(e -> {
             JFileChooser fileChooser = new JFileChooser();
+            // Embedded images keep the plan self-contained when image files move
+            JCheckBox embedImages = new JCheckBox("Embed images", true);
+            fileChooser.setAccessory(embedImages);
             int option = fileChooser.showSaveDialog(this);
             if (option == JFileChooser.APPROVE_OPTION) {
                 File file = fileChooser.getSelectedFile();
-                try {
-                    PlanData data = new PlanData(canvas.getRooms(), canvas.getFurnitures());
-                    PlanSerializer.savePlan(data, file);
-                    JOptionPane.showMessageDialog(this, "Plan saved successfully.", "Save Successful", JOptionPane.INFORMATION_MESSAGE);
-                } catch (IOException ex) {
-                    JOptionPane.showMessageDialog(this, "Error saving plan: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
-                }
+                boolean embed = embedImages.isSelected();
+                // The snapshot does not change while the user keeps editing
+                PlanSnapshot snapshot = canvas.getModel().getSnapshot();
+                saveButton.setEnabled(false);
+                new SwingWorker<Void, Void>() {
+                    @Override
+                    protected Void doInBackground() throws IOException {
+                        PlanSerializer.savePlan(new PlanData(snapshot.toRooms()), file, ForkJoinPool.commonPool(), embed);
+                        return null;
+                    }
+
+                    @Override
+                    protected void done() {
+                        saveButton.setEnabled(true);
+                        try {
+                            get();
+                            JOptionPane.showMessageDialog(ControlPanel.this, "Plan saved successfully.", "Save Successful", JOptionPane.INFORMATION_MESSAGE);
+                        } catch (InterruptedException | ExecutionException ex) {
+                            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                            JOptionPane.showMessageDialog(ControlPanel.this, "Error saving plan: " + cause.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    }
+                }.execute();
             }
         });
 
@@ -660,55 +703,202 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
         loadButton.setFocusPainted(false);
         loadButton.addActionListener(e -> {
             JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setAccessory(new PlanPreview(fileChooser));
             int option = fileChooser.showOpenDialog(this);
             if (option == JFileChooser.APPROVE_OPTION) {
+                openPlan(fileChooser.getSelectedFile());
+            }
+        });
+
+        saveLoadPanel.add(saveButton);
+        saveLoadPanel.add(Box.createRigidArea(new Dimension(10, 0)));
+        saveLoadPanel.add(loadButton);
+
+        add(saveLoadPanel);
+        add(Box.createRigidArea(new Dimension(0, 10)));
+    }
+
+    /**
+     * Loads a plan file and replaces the current plan with it.
+     *
+     * @param file The plan file.
+     */
+    public void openPlan(File file) {
+        cancelImport();
+        try {
+            PlanData data = PlanSerializer.loadPlan(file);
+
+            // Replace the plan; the model re-links doors, windows and furnitures to their rooms.
+            // Furniture images are resolved through the shared image store when first drawn.
+            canvas.getModel().replaceAll(data.getRooms());
+
+            canvas.repaint();
+            JOptionPane.showMessageDialog(this, "Plan loaded successfully.", "Load Successful", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException | ClassNotFoundException ex) {
+            JOptionPane.showMessageDialog(this, "Error loading plan: " + ex.getMessage(), "Load Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Compares the plan being edited with a saved version and shows the differences on the canvas.
+     *
+     * @param file The saved version, taken as the earlier one.
+     */
+    public void compareWith(File file) {
+        try {
+            PlanData saved = PlanSerializer.loadPlan(file);
+            PlanDiff diff = PlanDiff.compare(saved.getRooms(), canvas.getModel().getRooms());
+            canvas.setDiff(diff);
+            JOptionPane.showMessageDialog(this, "Changes since " + file.getName() + ": " + diff,
+                    "Compare", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException | ClassNotFoundException ex) {
+            JOptionPane.showMessageDialog(this, "Error loading plan: " + ex.getMessage(), "Load Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Creates the NDJSON "Import" and "Export" buttons.
+     */
+    private void createJsonButtons() {
+        JPanel jsonPanel = new JPanel();
+        jsonPanel.setLayout(new BoxLayout(jsonPanel, BoxLayout.X_AXIS));
+        jsonPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        jsonPanel.setBorder(BorderFactory.createTitledBorder("NDJSON"));
+
+        JButton exportButton = new JButton("Export");
+        exportButton.setFont(new Font("SansSerif", Font.BOLD, 13));
+        exportButton.setBackground(new Color(144, 238, 144));
+        exportButton.setFocusPainted(false);
+        exportButton.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
                 File file = fileChooser.getSelectedFile();
-                try {
-                    PlanData data = PlanSerializer.loadPlan(file);
-                    canvas.getRooms().clear();
-                    canvas.getFurnitures().clear();
-
-                    // Add loaded rooms and furnitures
-                    canvas.getRooms().addAll(data.getRooms());
-                    canvas.getFurnitures().addAll(data.getFurnitures());
-
-                    // Restore room references in furnitures and load images
-                    for (Furniture furniture : canvas.getFurnitures()) {
-                        furniture.setRoom(findRoomForFurniture(furniture));
-                        if (furniture.getImagePath() != null && !furniture.getImagePath().trim().isEmpty()) {
-                            ImageIcon icon = new ImageIcon(getClass().getResource(furniture.getImagePath()));
-                            // Optionally, scale the image to fit the furniture dimensions
-                            Image scaledImage = icon.getImage().getScaledInstance(furniture.getWidth(), furniture.getHeight(), Image.SCALE_SMOOTH);
-                            furniture.setImage(scaledImage, furniture.getImagePath());
-                        }
+                PlanSnapshot snapshot = canvas.getModel().getSnapshot();
+                exportButton.setEnabled(false);
+                new SwingWorker<Void, Void>() {
+                    @Override
+                    protected Void doInBackground() throws IOException {
+                        NdjsonPlanWriter.write(snapshot.toRooms(), file);
+                        return null;
                     }
 
-                    // Restore room references in doors and windows
-                    for (Room room : canvas.getRooms()) {
-                        for (Door door : room.getDoors()) {
-                            door.setRoom(room);
-                        }
-                        for (PlanWindow window : room.getWindows()) {
-                            window.setRoom(room);
+                    @Override
+                    protected void done() {
+                        exportButton.setEnabled(true);
+                        try {
+                            get();
+                            JOptionPane.showMessageDialog(ControlPanel.this, "Plan exported successfully.", "Export Successful", JOptionPane.INFORMATION_MESSAGE);
+                        } catch (InterruptedException | ExecutionException ex) {
+                            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                            JOptionPane.showMessageDialog(ControlPanel.this, "Error exporting plan: " + cause.getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
                         }
                     }
+                }.execute();
+            }
+        });
 
-                    canvas.repaint();
-                    JOptionPane.showMessageDialog(this, "Plan loaded successfully.", "Load Successful", JOptionPane.INFORMATION_MESSAGE);
-                } catch (IOException | ClassNotFoundException ex) {
-                    JOptionPane.showMessageDialog(this, "Error loading plan: " + ex.getMessage(), "Load Error", JOptionPane.ERROR_MESSAGE);
-                }
+        JButton importButton = new JButton("Import");
+        importButton.setFont(new Font("SansSerif", Font.BOLD, 13));
+        importButton.setBackground(new Color(255, 160, 122));
+        importButton.setFocusPainted(false);
+        importButton.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                importJson(fileChooser.getSelectedFile(), importButton);
             }
         });
 
-        saveLoadPanel.add(saveButton);
-        saveLoadPanel.add(Box.createRigidArea(new Dimension(10, 0)));
-        saveLoadPanel.add(loadButton);
+        jsonPanel.add(importButton);
+        jsonPanel.add(Box.createRigidArea(new Dimension(10, 0)));
+        jsonPanel.add(exportButton);
 
-        add(saveLoadPanel);
+        add(jsonPanel);
         add(Box.createRigidArea(new Dimension(0, 10)));
     }
 
+    /**
+     * Replaces the plan with an NDJSON file. The file is read on a background thread and
+     * rooms appear on the canvas batch by batch while it is still being read. The current
+     * plan is kept until the first batch has been read, and put back if the file turns out
+     * to be broken later on. The history is reset once, when the import has finished.
+     *
+     * @param file         The file to import.
+     * @param importButton Disabled until the import has finished.
+     */
+    private void importJson(File file, JButton importButton) {
+        cancelImport();
+        PlanModel model = canvas.getModel();
+        importButton.setEnabled(false);
+        importWorker = new SwingWorker<Integer, List<Room>>() {
+            private List<Room> previousRooms = null;
+
+            @Override
+            protected Integer doInBackground() throws IOException {
+                try (NdjsonPlanReader reader = NdjsonPlanReader.open(file)) {
+                    return reader.readBatches(IMPORT_BATCH_ROOMS, batch -> {
+                        if (isCancelled()) {
+                            throw new CancellationException();
+                        }
+                        publish(batch);
+                    });
+                }
+            }
+
+            @Override
+            protected void process(List<List<Room>> batches) {
+                if (isCancelled()) {
+                    return; // Batches read before another plan was loaded
+                }
+                for (List<Room> batch : batches) {
+                    if (previousRooms == null) {
+                        previousRooms = new ArrayList<>(model.getRooms());
+                        model.replaceAll(Collections.emptyList());
+                    }
+                    model.appendRooms(batch);
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (importWorker == this) {
+                    importWorker = null;
+                }
+                if (importWorker == null) {
+                    importButton.setEnabled(true);
+                }
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    int rooms = get();
+                    model.clearHistory();
+                    JOptionPane.showMessageDialog(ControlPanel.this, "Imported " + rooms + " rooms.", "Import Successful", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    String kept = "The current plan was kept.";
+                    if (previousRooms != null) {
+                        model.replaceAll(previousRooms);
+                        kept = "The previous plan was restored.";
+                    }
+                    JOptionPane.showMessageDialog(ControlPanel.this, "Error importing plan: " + cause.getMessage() + "\n" + kept,
+                            "Import Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        importWorker.execute();
+    }
+
+    /**
+     * Stops a running NDJSON import, e.g. because another plan is loaded. Batches that were
+     * already read are not added any more.
+     */
+    private void cancelImport() {
+        if (importWorker != null) {
+            importWorker.cancel(false);
+            importWorker = null;
+        }
+    }
+
     /**
      * Creates the "Delete Room" button.
      */
@@ -725,11 +915,7 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
             if (selectedRoom != null) {
                 int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete the selected room?", "Confirm Deletion", JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
-                    // Create and execute delete command
-                    CanvasPanel.DeleteRoomCommand cmd = canvas.new DeleteRoomCommand(selectedRoom);
-                    cmd.execute();
-                    canvas.pushUndo(cmd);
-                    canvas.clearRedo();
+                    canvas.getModel().deleteRoom(selectedRoom);
                     selectedRoom = null;
                     onRoomSelected(null);
                 }
@@ -770,18 +956,26 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
     }
 
     /**
-     * Finds the room that a furniture belongs to.
-     *
-     * @param furniture The furniture to find the room for.
-     * @return The Room to which the furniture belongs, or null if not found.
+     * Creates the history timeline slider.
      */
-    private Room findRoomForFurniture(Furniture furniture) {
-        for (Room room : canvas.getRooms()) {
-            if (room.getFurnitures().contains(furniture)) {
-                return room;
+    private void createHistorySlider() {
+        JPanel historyPanel = new JPanel(new BorderLayout());
+        historyPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        historyPanel.setBorder(BorderFactory.createTitledBorder("History"));
+
+        historySlider = new JSlider(0, 0, 0);
+        historySlider.setToolTipText("Drag to jump through the edit history");
+        historySlider.addChangeListener(e -> {
+            if (!updatingHistorySlider) {
+                canvas.getModel().seekHistory(historySlider.getValue());
             }
-        }
-        return null;
+        });
+
+        historyPanel.add(historySlider, BorderLayout.CENTER);
+        historyPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, historyPanel.getPreferredSize().height));
+
+        add(historyPanel);
+        add(Box.createRigidArea(new Dimension(0, 10)));
     }
 
     /**
@@ -796,23 +990,19 @@ public class ControlPanel extends JPanel implements RoomSelectionListener {
     }
 
     /**
-     * Provides color coding based on room type.
+     * Keeps the history slider in step with the canvas undo/redo position.
      *
-     * @param type The type of the room.
-     * @return The corresponding Color.
+     * @param position The number of applied commands.
+     * @param length   The total number of recorded commands.
      */
-    private Color getColorForRoomType(String type) {
-        switch (type) {
-            case "Bedroom":
-                return new Color(152, 251, 152); // Light green
-            case "Bathroom":
-                return new Color(104, 181, 244); // Steel blue
-            case "Kitchen":
-                return new Color(251, 75, 0); // Light salmon
-            case "Dining Room":
-                return new Color(251, 201, 73); // Bisque
-            default:
-                return Color.LIGHT_GRAY;
+    @Override
+    public void onHistoryChanged(int position, int length) {
+        updatingHistorySlider = true;
+        try {
+            historySlider.setMaximum(length);
+            historySlider.setValue(position);
+        } finally {
+            updatingHistorySlider = false;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package app.gui;
+
+import app.util.EdtStallEvent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Background thread that notices when the event dispatch thread stops processing events,
+ * e.g. during synchronous file I/O, and records an {@link EdtStallEvent} for each stall.
+ * It posts a small task to the EDT at a fixed interval and measures how long the task
+ * waits before it runs.
+ */
+public class EdtWatchdog implements Runnable {
+    // Interval between heartbeats and between checks of a pending heartbeat
+    private static final long POLL_MILLIS = 50;
+    // Number of EDT stack frames kept in the event
+    private static final int STACK_DEPTH = 32;
+
+    private final long thresholdMillis;
+    private volatile Thread edt = null;
+    private volatile long acknowledged = 0;
+
+    private EdtWatchdog(long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * Starts a watchdog on a daemon thread.
+     *
+     * @param thresholdMillis Minimum stall length that is recorded.
+     * @return The watchdog.
+     */
+    public static EdtWatchdog start(long thresholdMillis) {
+        EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis);
+        Thread thread = new Thread(watchdog, "EDT watchdog");
+        thread.setDaemon(true);
+        thread.start();
+        return watchdog;
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (long heartbeat = 1; ; heartbeat++) {
+                long sent = heartbeat;
+                EdtStallEvent event = new EdtStallEvent();
+                event.begin();
+                long posted = System.nanoTime();
+                SwingUtilities.invokeLater(() -> {
+                    edt = Thread.currentThread();
+                    acknowledged = sent;
+                });
+
+                String stack = null;
+                while (acknowledged < sent) {
+                    Thread.sleep(POLL_MILLIS);
+                    Thread thread = edt;
+                    if (stack == null && thread != null && elapsedMillis(posted) >= thresholdMillis) {
+                        // Catch the EDT while it is still stuck
+                        stack = formatStack(thread.getStackTrace());
+                    }
+                }
+
+                event.end();
+                if (elapsedMillis(posted) >= thresholdMillis && event.shouldCommit()) {
+                    event.thresholdMillis = thresholdMillis;
+                    event.stack = stack;
+                    event.commit();
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long elapsedMillis(long since) {
+        return (System.nanoTime() - since) / 1_000_000;
+    }
+
+    private static String formatStack(StackTraceElement[] frames) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < frames.length && i < STACK_DEPTH; i++) {
+            sb.append(frames[i]).append('\n');
+        }
+        return sb.toString();
+    }
+}
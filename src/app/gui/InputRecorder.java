@@ -0,0 +1,99 @@
+package app.gui;
+
+import app.model.PlanModel;
+import java.awt.KeyEventDispatcher;
+import java.awt.KeyboardFocusManager;
+import java.awt.Window;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Records the mouse events a {@link CanvasPanel} receives, and the key events sent to its
+ * window, so they can be played back later with {@link InputReplayer}.
+ */
+public class InputRecorder {
+    private final CanvasPanel canvas;
+    private InputRecording recording = null;
+    private long startNanos;
+
+    private final MouseAdapter mouseHandler = new MouseAdapter() {
+        @Override
+        public void mousePressed(MouseEvent e) {
+            record(e);
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            record(e);
+        }
+
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            record(e);
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            record(e);
+        }
+    };
+
+    // The canvas binds its keys in the focused window, so keys are taken before any component sees them
+    private final KeyEventDispatcher keyHandler = this::dispatchKeyEvent;
+
+    public InputRecorder(CanvasPanel canvas) {
+        this.canvas = canvas;
+    }
+
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Starts recording from the current plan.
+     */
+    public void start() {
+        if (recording != null) {
+            return;
+        }
+        PlanModel model = canvas.getModel();
+        recording = new InputRecording(model.getSnapshot().toRooms(), model.getPlanWidth(), model.getPlanHeight(),
+                canvas.getVisibleRect());
+        startNanos = System.nanoTime();
+        canvas.addMouseListener(mouseHandler);
+        canvas.addMouseMotionListener(mouseHandler);
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(keyHandler);
+    }
+
+    /**
+     * Stops recording.
+     *
+     * @return The recording, or null if none was in progress.
+     */
+    public InputRecording stop() {
+        canvas.removeMouseListener(mouseHandler);
+        canvas.removeMouseMotionListener(mouseHandler);
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(keyHandler);
+        InputRecording result = recording;
+        recording = null;
+        return result;
+    }
+
+    private boolean dispatchKeyEvent(KeyEvent e) {
+        Window window = SwingUtilities.getWindowAncestor(canvas);
+        if (e.getID() == KeyEvent.KEY_PRESSED && window != null && window.isFocused()) {
+            record(e);
+        }
+        return false;
+    }
+
+    private void record(MouseEvent e) {
+        recording.add(InputRecording.Input.of(System.nanoTime() - startNanos, e));
+    }
+
+    private void record(KeyEvent e) {
+        recording.add(InputRecording.Input.of(System.nanoTime() - startNanos, e));
+    }
+}
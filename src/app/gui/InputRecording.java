@@ -0,0 +1,154 @@
+package app.gui;
+
+import app.model.Room;
+import java.awt.Component;
+import java.awt.Rectangle;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Mouse and key input captured from a {@link CanvasPanel}, together with the plan it started from.
+ * Saved with Java serialization, like plans.
+ */
+public class InputRecording implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Room> rooms;
+    private final int planWidth;
+    private final int planHeight;
+    private final Rectangle viewport;
+    private final List<Input> inputs = new ArrayList<>();
+
+    /**
+     * Creates an empty recording.
+     *
+     * @param rooms      Independent copies of the rooms at the start of the recording.
+     * @param planWidth  The plan width used by the external wall rule.
+     * @param planHeight The plan height used by the external wall rule.
+     * @param viewport   The visible part of the canvas.
+     */
+    public InputRecording(List<Room> rooms, int planWidth, int planHeight, Rectangle viewport) {
+        this.rooms = rooms;
+        this.planWidth = planWidth;
+        this.planHeight = planHeight;
+        this.viewport = new Rectangle(viewport);
+    }
+
+    void add(Input input) {
+        inputs.add(input);
+    }
+
+    public List<Room> getRooms() {
+        return rooms;
+    }
+
+    public int getPlanWidth() {
+        return planWidth;
+    }
+
+    public int getPlanHeight() {
+        return planHeight;
+    }
+
+    public Rectangle getViewport() {
+        return new Rectangle(viewport);
+    }
+
+    public List<Input> getInputs() {
+        return Collections.unmodifiableList(inputs);
+    }
+
+    /**
+     * Saves the recording to a file.
+     *
+     * @param file The file to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void save(File file) throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            oos.writeObject(this);
+        }
+    }
+
+    /**
+     * Loads a recording from a file.
+     *
+     * @param file The file to read.
+     * @return The recording.
+     * @throws IOException            If an I/O error occurs.
+     * @throws ClassNotFoundException If the class of a serialized object cannot be found.
+     */
+    public static InputRecording load(File file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (InputRecording) ois.readObject();
+        }
+    }
+
+    /**
+     * One recorded mouse or key event, in canvas coordinates.
+     */
+    public static class Input implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long offsetNanos;
+        private final int id;
+        private final int modifiersEx;
+        private final int x, y, button, clickCount;
+        private final int keyCode;
+        private final char keyChar;
+
+        private Input(long offsetNanos, int id, int modifiersEx, int x, int y, int button, int clickCount,
+                      int keyCode, char keyChar) {
+            this.offsetNanos = offsetNanos;
+            this.id = id;
+            this.modifiersEx = modifiersEx;
+            this.x = x;
+            this.y = y;
+            this.button = button;
+            this.clickCount = clickCount;
+            this.keyCode = keyCode;
+            this.keyChar = keyChar;
+        }
+
+        static Input of(long offsetNanos, MouseEvent e) {
+            return new Input(offsetNanos, e.getID(), e.getModifiersEx(), e.getX(), e.getY(), e.getButton(),
+                    e.getClickCount(), 0, KeyEvent.CHAR_UNDEFINED);
+        }
+
+        static Input of(long offsetNanos, KeyEvent e) {
+            return new Input(offsetNanos, e.getID(), e.getModifiersEx(), 0, 0, 0, 0, e.getKeyCode(), e.getKeyChar());
+        }
+
+        /**
+         * Gets the time of the event, measured from the start of the recording.
+         *
+         * @return The offset in nanoseconds.
+         */
+        public long getOffsetNanos() {
+            return offsetNanos;
+        }
+
+        public boolean isKey() {
+            return id >= KeyEvent.KEY_FIRST && id <= KeyEvent.KEY_LAST;
+        }
+
+        /**
+         * Rebuilds the event with a given source.
+         *
+         * @param source The component the event is for.
+         * @param when   The event timestamp in milliseconds.
+         * @return A MouseEvent or KeyEvent.
+         */
+        public InputEvent toEvent(Component source, long when) {
+            if (isKey()) {
+                return new KeyEvent(source, id, when, modifiersEx, keyCode, keyChar);
+            }
+            return new MouseEvent(source, id, when, modifiersEx, x, y, clickCount, false, button);
+        }
+    }
+}
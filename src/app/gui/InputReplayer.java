@@ -0,0 +1,245 @@
+package app.gui;
+
+import app.model.PlanModel;
+import app.model.Room;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.Action;
+import javax.swing.JComponent;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+
+/**
+ * Plays an {@link InputRecording} back into a fresh canvas without a display and measures
+ * how long each event takes to handle and to paint. Dialogs are counted instead of shown.
+ * Usage: {@code InputReplayer <recording> [--realtime] [--runs N] [--max-p99 MILLIS]}
+ */
+public class InputReplayer {
+    private static final String USAGE = "Usage: InputReplayer <recording> [--realtime] [--runs N] [--max-p99 MILLIS]";
+
+    private final InputRecording recording;
+
+    public InputReplayer(InputRecording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Replays the recording once.
+     *
+     * @param realTime True to keep the recorded timing, false to send events as fast as possible.
+     * @return Latencies per event.
+     * @throws InterruptedException      If interrupted while waiting for the EDT.
+     * @throws InvocationTargetException If handling an event threw an exception.
+     */
+    public ReplayReport replay(boolean realTime) throws InterruptedException, InvocationTargetException {
+        ReplayCanvas[] holder = new ReplayCanvas[1];
+        SwingUtilities.invokeAndWait(() -> holder[0] = createCanvas());
+        ReplayCanvas canvas = holder[0];
+
+        Rectangle viewport = recording.getViewport();
+        BufferedImage image = new BufferedImage(Math.max(1, viewport.width), Math.max(1, viewport.height),
+                BufferedImage.TYPE_INT_RGB);
+        List<InputRecording.Input> inputs = recording.getInputs();
+        long[] handleNanos = new long[inputs.size()];
+        long[] paintNanos = new long[inputs.size()];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < inputs.size(); i++) {
+            InputRecording.Input input = inputs.get(i);
+            if (realTime) {
+                long wait = start + input.getOffsetNanos() - System.nanoTime();
+                if (wait > 0) {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+            }
+            int index = i;
+            SwingUtilities.invokeAndWait(() -> {
+                long t0 = System.nanoTime();
+                dispatch(canvas, input.toEvent(canvas, System.currentTimeMillis()));
+                handleNanos[index] = System.nanoTime() - t0;
+            });
+            // Change notifications queued by the handler run before this paint
+            SwingUtilities.invokeAndWait(() -> {
+                long t0 = System.nanoTime();
+                Graphics2D g = image.createGraphics();
+                g.translate(-viewport.x, -viewport.y);
+                g.setClip(viewport);
+                canvas.paintComponent(g);
+                g.dispose();
+                paintNanos[index] = System.nanoTime() - t0;
+            });
+        }
+        return new ReplayReport(handleNanos, paintNanos, canvas.messages);
+    }
+
+    private ReplayCanvas createCanvas() {
+        List<Room> rooms = copyRooms(recording.getRooms());
+        PlanModel model = new PlanModel();
+        model.replaceAll(rooms);
+        model.setPlanSize(recording.getPlanWidth(), recording.getPlanHeight());
+        ReplayCanvas canvas = new ReplayCanvas(model);
+        Rectangle viewport = recording.getViewport();
+        canvas.setSize(Math.max(recording.getPlanWidth(), viewport.x + viewport.width),
+                Math.max(recording.getPlanHeight(), viewport.y + viewport.height));
+        return canvas;
+    }
+
+    /**
+     * Sends an event to the canvas. Keys go straight to the canvas key bindings,
+     * since without a window there is no focus to route them.
+     */
+    private static void dispatch(CanvasPanel canvas, InputEvent event) {
+        if (event instanceof KeyEvent) {
+            KeyStroke keyStroke = KeyStroke.getKeyStrokeForEvent((KeyEvent) event);
+            Object name = canvas.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).get(keyStroke);
+            if (name == null) {
+                name = canvas.getInputMap(JComponent.WHEN_FOCUSED).get(keyStroke);
+            }
+            Action action = name != null ? canvas.getActionMap().get(name) : null;
+            if (action != null && action.isEnabled()) {
+                action.actionPerformed(new ActionEvent(canvas, ActionEvent.ACTION_PERFORMED, name.toString()));
+            }
+        } else {
+            canvas.dispatchEvent(event);
+        }
+    }
+
+    /**
+     * Copies rooms through serialization, so the recording can be replayed more than once.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Room> copyRooms(List<Room> rooms) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(rooms);
+            }
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return (List<Room>) ois.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot copy the recorded plan", e);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        System.setProperty("java.awt.headless", "true");
+        boolean realTime = false;
+        int runs = 1;
+        double maxP99 = Double.POSITIVE_INFINITY;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--realtime":
+                    realTime = true;
+                    break;
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-p99":
+                    maxP99 = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (runs < 1) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        InputReplayer replayer = new InputReplayer(InputRecording.load(new File(args[0])));
+        ReplayReport report = null;
+        for (int run = 1; run <= runs; run++) {
+            report = replayer.replay(realTime);
+            System.out.println("Run " + run + ": " + report);
+        }
+        // The last run is the warmest, so it decides the verdict
+        if (report.getHandleMillis(99) > maxP99 || report.getPaintMillis(99) > maxP99) {
+            System.out.println("FAILED: p99 above " + maxP99 + " ms");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Canvas that counts messages instead of opening dialogs.
+     */
+    private static class ReplayCanvas extends CanvasPanel {
+        private int messages = 0;
+
+        ReplayCanvas(PlanModel model) {
+            super(model);
+        }
+
+        @Override
+        void showMessage(String message, String title, int type) {
+            messages++;
+        }
+    }
+
+    /**
+     * Handling and paint latencies of one replay.
+     */
+    public static class ReplayReport {
+        private final long[] handleNanos;
+        private final long[] paintNanos;
+        private final int messages;
+
+        ReplayReport(long[] handleNanos, long[] paintNanos, int messages) {
+            this.handleNanos = handleNanos.clone();
+            this.paintNanos = paintNanos.clone();
+            Arrays.sort(this.handleNanos);
+            Arrays.sort(this.paintNanos);
+            this.messages = messages;
+        }
+
+        public int getEventCount() {
+            return handleNanos.length;
+        }
+
+        /**
+         * Gets the number of messages the canvas would have shown in dialogs.
+         *
+         * @return The message count.
+         */
+        public int getMessageCount() {
+            return messages;
+        }
+
+        public double getHandleMillis(int percentile) {
+            return percentile(handleNanos, percentile);
+        }
+
+        public double getPaintMillis(int percentile) {
+            return percentile(paintNanos, percentile);
+        }
+
+        private static double percentile(long[] sorted, int percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, Math.min(rank, sorted.length) - 1)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d events, handle p50 %.3f ms p99 %.3f ms, paint p50 %.3f ms p99 %.3f ms, %d messages",
+                    getEventCount(), getHandleMillis(50), getHandleMillis(99), getPaintMillis(50), getPaintMillis(99),
+                    messages);
+        }
+    }
+}
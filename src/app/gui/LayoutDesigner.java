@@ -0,0 +1,205 @@
+package app.gui;
+
+import app.model.LayoutSolver;
+import app.model.RoomType;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import javax.swing.*;
+
+/**
+ * Window that arranges a list of rooms with {@link LayoutSolver} and adds the chosen layout to
+ * the plan. Rooms are entered one per line as type, width and height, optionally followed by a
+ * name; required adjacencies as pairs of line numbers.
+ */
+public class LayoutDesigner extends JDialog {
+    private static final String EXAMPLE_ROOMS = "Bedroom 200 160\nBedroom 160 160\nBathroom 100 80\n"
+            + "Kitchen 160 120\nDining Room 200 160";
+    private static final String EXAMPLE_ADJACENCIES = "1-3, 2-3, 4-5";
+    private static final int STARTS = 64;
+    private static final int STEPS = 5000;
+    private static final int KEEP = 12;
+    private static final int PREVIEW_SIZE = 140;
+
+    private final JTextArea roomsArea = new JTextArea(EXAMPLE_ROOMS, 8, 24);
+    private final JTextField adjacencyField = new JTextField(EXAMPLE_ADJACENCIES);
+    private final DefaultListModel<LayoutSolver.Layout> results = new DefaultListModel<>();
+    private final JList<LayoutSolver.Layout> resultList = new JList<>(results);
+    private final JLabel status = new JLabel("Enter the rooms and press Search");
+    private final JButton searchButton = new JButton("Search");
+    private long seed = 1;
+
+    /**
+     * Creates the window.
+     *
+     * @param owner  The parent window.
+     * @param canvas The canvas the chosen layout is added to.
+     */
+    public LayoutDesigner(Window owner, CanvasPanel canvas) {
+        super(owner, "Layout Designer", ModalityType.MODELESS);
+        searchButton.addActionListener(e -> search());
+        JButton addButton = new JButton("Add to Plan");
+        addButton.addActionListener(e -> {
+            LayoutSolver.Layout layout = resultList.getSelectedValue();
+            if (layout != null) {
+                canvas.addLayout(layout);
+            }
+        });
+        adjacencyField.setToolTipText("Pairs of line numbers of rooms that must share a wall, e.g. 1-3, 2-3");
+
+        JPanel input = new JPanel(new BorderLayout(0, 5));
+        input.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        input.add(new JLabel("Rooms (type width height [name]):"), BorderLayout.NORTH);
+        input.add(new JScrollPane(roomsArea), BorderLayout.CENTER);
+        JPanel adjacencyPanel = new JPanel(new BorderLayout(0, 5));
+        adjacencyPanel.add(new JLabel("Adjacent rooms:"), BorderLayout.NORTH);
+        adjacencyPanel.add(adjacencyField, BorderLayout.CENTER);
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        buttons.add(searchButton);
+        buttons.add(addButton);
+        adjacencyPanel.add(buttons, BorderLayout.SOUTH);
+        input.add(adjacencyPanel, BorderLayout.SOUTH);
+
+        resultList.setCellRenderer(new LayoutRenderer());
+        resultList.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+        resultList.setVisibleRowCount(-1);
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        status.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        setLayout(new BorderLayout());
+        add(input, BorderLayout.WEST);
+        add(new JScrollPane(resultList), BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        setSize(900, 550);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+    }
+
+    private void search() {
+        LayoutSolver solver;
+        try {
+            solver = parse();
+        } catch (IllegalArgumentException e) {
+            status.setText(e.getMessage());
+            return;
+        }
+        // Every search tries new layouts
+        long searchSeed = seed++;
+        searchButton.setEnabled(false);
+        status.setText("Searching...");
+        long start = System.nanoTime();
+        new SwingWorker<List<LayoutSolver.Layout>, Void>() {
+            @Override
+            protected List<LayoutSolver.Layout> doInBackground() {
+                return solver.solve(ForkJoinPool.commonPool(), STARTS, STEPS, KEEP, searchSeed);
+            }
+
+            @Override
+            protected void done() {
+                searchButton.setEnabled(true);
+                try {
+                    results.clear();
+                    for (LayoutSolver.Layout layout : get()) {
+                        results.addElement(layout);
+                    }
+                    resultList.setSelectedIndex(0);
+                    long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                    status.setText(String.format("%d layouts evaluated in %d ms (%,d per second)",
+                            solver.getEvaluatedCount(), millis, solver.getEvaluatedCount() * 1000 / millis));
+                } catch (InterruptedException | ExecutionException ex) {
+                    status.setText("Error searching layouts: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private LayoutSolver parse() {
+        List<LayoutSolver.RoomSpec> specs = new ArrayList<>();
+        String[] lines = roomsArea.getText().split("\n");
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            specs.add(parseRoom(line.trim()));
+        }
+        LayoutSolver solver = new LayoutSolver(specs);
+        for (String pair : adjacencyField.getText().split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            String[] rooms = pair.split("-");
+            try {
+                if (rooms.length != 2) {
+                    throw new NumberFormatException();
+                }
+                solver.requireAdjacent(Integer.parseInt(rooms[0].trim()) - 1, Integer.parseInt(rooms[1].trim()) - 1);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Adjacent rooms are pairs of line numbers, not \"" + pair.trim() + "\"");
+            }
+        }
+        return solver;
+    }
+
+    /**
+     * Parses "type width height [name]". The type may contain spaces, like "Dining Room".
+     */
+    private static LayoutSolver.RoomSpec parseRoom(String line) {
+        String[] words = line.split("\\s+");
+        for (int i = 1; i + 1 < words.length; i++) {
+            if (words[i].matches("\\d+") && words[i + 1].matches("\\d+")) {
+                String type = String.join(" ", Arrays.copyOfRange(words, 0, i));
+                String name = i + 2 < words.length
+                        ? String.join(" ", Arrays.copyOfRange(words, i + 2, words.length)) : null;
+                return new LayoutSolver.RoomSpec(type, Integer.parseInt(words[i]), Integer.parseInt(words[i + 1]), name);
+            }
+        }
+        throw new IllegalArgumentException("Rooms are entered as type, width and height, not \"" + line + "\"");
+    }
+
+    /**
+     * Draws a small picture of a layout with its score.
+     */
+    private static final class LayoutRenderer extends JComponent implements ListCellRenderer<LayoutSolver.Layout> {
+        private LayoutSolver.Layout layout;
+        private boolean selected;
+
+        LayoutRenderer() {
+            setPreferredSize(new Dimension(PREVIEW_SIZE + 10, PREVIEW_SIZE + 30));
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends LayoutSolver.Layout> list,
+                LayoutSolver.Layout value, int index, boolean isSelected, boolean cellHasFocus) {
+            layout = value;
+            selected = isSelected;
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setColor(selected ? new Color(184, 207, 229) : Color.WHITE);
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            Rectangle bounds = layout.getBounds();
+            double scale = (double) PREVIEW_SIZE / Math.max(bounds.width, bounds.height);
+            for (int i = 0; i < layout.size(); i++) {
+                Rectangle room = layout.getBounds(i);
+                int x = 5 + (int) Math.round(room.x * scale);
+                int y = 5 + (int) Math.round(room.y * scale);
+                int w = (int) Math.round((room.x + room.width) * scale) + 5 - x;
+                int h = (int) Math.round((room.y + room.height) * scale) + 5 - y;
+                g2.setColor(RoomType.of(layout.getSpec(i).getType()).getColor());
+                g2.fillRect(x, y, w, h);
+                g2.setColor(Color.BLACK);
+                g2.drawRect(x, y, w, h);
+            }
+            g2.setFont(g2.getFont().deriveFont(11f));
+            g2.drawString(String.format("%d/%d adjacent, %.1f", layout.getAdjacenciesMet(),
+                    layout.getAdjacenciesRequired(), layout.getScore()), 5, PREVIEW_SIZE + 22);
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package app.gui;
+
+import app.model.PlanModel;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Paint and interaction timings of a {@link CanvasPanel}.
+ * Written on the event dispatch thread while painting; readable from any thread,
+ * so the same numbers can be shown on the canvas overlay and read over JMX.
+ */
+public class PaintMetrics implements PaintMetricsMBean {
+
+    /**
+     * The passes of one canvas frame, in painting order.
+     */
+    public enum Layer { GRID, ROOM_FILLS, WALLS, FURNITURE, HIGHLIGHT }
+
+    // Number of drag frames the frame rate is averaged over
+    private static final int DRAG_WINDOW = 30;
+    // Weight of the newest frame in the average frame time
+    private static final double AVERAGE_WEIGHT = 0.1;
+
+    private final PlanModel model;
+
+    private final AtomicLongArray layerNanos = new AtomicLongArray(Layer.values().length);
+    private boolean recording;
+    private long frameStart;
+    private long layerStart;
+    private volatile long frameNanos;
+    private volatile double averageFrameNanos;
+    private volatile long frameCount;
+    private volatile int roomsDrawn, roomsCulled, furnitureDrawn, furnitureCulled;
+
+    private final long[] dragFrameTimes = new long[DRAG_WINDOW];
+    private int dragFrames;
+    private volatile double dragFramesPerSecond;
+
+    public PaintMetrics(PlanModel model) {
+        this.model = model;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server.
+     *
+     * @param name The object name, e.g. "app.gui:type=PaintMetrics".
+     * @throws JMException If the name is invalid or already taken.
+     */
+    public void register(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+    }
+
+    /**
+     * Starts timing a frame.
+     *
+     * @param record False to paint without touching the recorded numbers.
+     */
+    void startFrame(boolean record) {
+        recording = record;
+        frameStart = System.nanoTime();
+        layerStart = frameStart;
+    }
+
+    void endLayer(Layer layer) {
+        if (!recording) {
+            return;
+        }
+        long now = System.nanoTime();
+        layerNanos.set(layer.ordinal(), now - layerStart);
+        layerStart = now;
+    }
+
+    /**
+     * Finishes the frame started by {@link #startFrame(boolean)}.
+     *
+     * @param roomsDrawn      Rooms painted.
+     * @param roomsCulled     Rooms skipped because they were outside the clip.
+     * @param furnitureDrawn  Furniture painted.
+     * @param furnitureCulled Furniture skipped because it was outside the clip.
+     * @param dragging        True if a room or furniture is being dragged.
+     */
+    void endFrame(int roomsDrawn, int roomsCulled, int furnitureDrawn, int furnitureCulled, boolean dragging) {
+        if (!recording) {
+            return;
+        }
+        long end = System.nanoTime();
+        long nanos = end - frameStart;
+        frameNanos = nanos;
+        averageFrameNanos = frameCount == 0 ? nanos : averageFrameNanos + AVERAGE_WEIGHT * (nanos - averageFrameNanos);
+        frameCount++;
+        this.roomsDrawn = roomsDrawn;
+        this.roomsCulled = roomsCulled;
+        this.furnitureDrawn = furnitureDrawn;
+        this.furnitureCulled = furnitureCulled;
+
+        if (dragging) {
+            dragFrameTimes[dragFrames % DRAG_WINDOW] = end;
+            dragFrames++;
+            int window = Math.min(dragFrames, DRAG_WINDOW);
+            if (window > 1) {
+                long first = dragFrameTimes[(dragFrames - window) % DRAG_WINDOW];
+                dragFramesPerSecond = (window - 1) * 1e9 / (end - first);
+            }
+        }
+    }
+
+    /**
+     * Starts a new frame rate window for the next drag. The last rate stays readable until then.
+     */
+    void endDrag() {
+        dragFrames = 0;
+    }
+
+    public double getLayerMillis(Layer layer) {
+        return layerNanos.get(layer.ordinal()) / 1e6;
+    }
+
+    @Override
+    public double getGridMillis() {
+        return getLayerMillis(Layer.GRID);
+    }
+
+    @Override
+    public double getRoomFillsMillis() {
+        return getLayerMillis(Layer.ROOM_FILLS);
+    }
+
+    @Override
+    public double getWallsMillis() {
+        return getLayerMillis(Layer.WALLS);
+    }
+
+    @Override
+    public double getFurnitureMillis() {
+        return getLayerMillis(Layer.FURNITURE);
+    }
+
+    @Override
+    public double getHighlightMillis() {
+        return getLayerMillis(Layer.HIGHLIGHT);
+    }
+
+    @Override
+    public double getFrameMillis() {
+        return frameNanos / 1e6;
+    }
+
+    @Override
+    public double getAverageFrameMillis() {
+        return averageFrameNanos / 1e6;
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public int getRoomsDrawn() {
+        return roomsDrawn;
+    }
+
+    @Override
+    public int getRoomsCulled() {
+        return roomsCulled;
+    }
+
+    @Override
+    public int getFurnitureDrawn() {
+        return furnitureDrawn;
+    }
+
+    @Override
+    public int getFurnitureCulled() {
+        return furnitureCulled;
+    }
+
+    @Override
+    public double getDragFramesPerSecond() {
+        return dragFramesPerSecond;
+    }
+
+    @Override
+    public long getOverlapCheckCount() {
+        return model.getOverlapCheckCount();
+    }
+
+    @Override
+    public double getLastOverlapCheckMicros() {
+        return model.getLastOverlapCheckNanos() / 1e3;
+    }
+
+    @Override
+    public double getAverageOverlapCheckMicros() {
+        long count = model.getOverlapCheckCount();
+        return count == 0 ? 0 : model.getOverlapCheckNanos() / 1e3 / count;
+    }
+
+    /**
+     * Formats the metrics as lines of text for the overlay.
+     *
+     * @return One line per metric group.
+     */
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Frame %.2f ms (avg %.2f ms, %d frames)",
+                getFrameMillis(), getAverageFrameMillis(), getFrameCount()));
+        for (Layer layer : Layer.values()) {
+            lines.add(String.format("  %-10s %.2f ms", layer.name().toLowerCase().replace('_', ' '), getLayerMillis(layer)));
+        }
+        lines.add(String.format("Rooms %d drawn / %d culled", getRoomsDrawn(), getRoomsCulled()));
+        lines.add(String.format("Furniture %d drawn / %d culled", getFurnitureDrawn(), getFurnitureCulled()));
+        lines.add(String.format("Drag %.1f fps", getDragFramesPerSecond()));
+        lines.add(String.format("Overlap check %.1f us (avg %.1f us, %d checks)",
+                getLastOverlapCheckMicros(), getAverageOverlapCheckMicros(), getOverlapCheckCount()));
+        return lines;
+    }
+}
@@ -0,0 +1,44 @@
+package app.gui;
+
+/**
+ * JMX view of {@link PaintMetrics}. Times are for the last recorded frame unless stated otherwise.
+ */
+public interface PaintMetricsMBean {
+    double getGridMillis();
+
+    double getRoomFillsMillis();
+
+    double getWallsMillis();
+
+    double getFurnitureMillis();
+
+    double getHighlightMillis();
+
+    double getFrameMillis();
+
+    /**
+     * @return Exponential moving average of the frame time.
+     */
+    double getAverageFrameMillis();
+
+    long getFrameCount();
+
+    int getRoomsDrawn();
+
+    int getRoomsCulled();
+
+    int getFurnitureDrawn();
+
+    int getFurnitureCulled();
+
+    /**
+     * @return Frames per second over the most recent frames of the current or last drag.
+     */
+    double getDragFramesPerSecond();
+
+    long getOverlapCheckCount();
+
+    double getLastOverlapCheckMicros();
+
+    double getAverageOverlapCheckMicros();
+}
@@ -0,0 +1,204 @@
+package app.gui;
+
+import app.util.PlanHeader;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Window that lists the plans in a directory with their thumbnails and counts.
+ * Only the fixed-size header of each file is read, in parallel, so large plan
+ * libraries can be scanned without decoding any plan. Double-clicking a row opens the plan.
+ */
+public class PlanBrowser extends JDialog {
+    private static final String[] COLUMNS = {"Preview", "File", "Rooms", "Doors", "Windows", "Furniture", "Area (sq px)"};
+    private static final int ROW_HEIGHT = PlanHeader.THUMBNAIL_HEIGHT + 4;
+
+    private final PlanTableModel tableModel = new PlanTableModel();
+    private final JLabel status = new JLabel(" ");
+
+    /**
+     * Creates the browser.
+     *
+     * @param owner  The parent window.
+     * @param opener Opens a plan the user picked.
+     */
+    public PlanBrowser(Window owner, Consumer<File> opener) {
+        super(owner, "Plan Browser", ModalityType.MODELESS);
+
+        JTable table = new JTable(tableModel);
+        table.setRowHeight(ROW_HEIGHT);
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(PlanHeader.THUMBNAIL_WIDTH + 8);
+        table.getColumnModel().getColumn(1).setPreferredWidth(240);
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.getSelectedRow();
+                if (e.getClickCount() == 2 && row >= 0) {
+                    opener.accept(tableModel.get(table.convertRowIndexToModel(row)).file);
+                }
+            }
+        });
+
+        JButton chooseButton = new JButton("Choose Directory...");
+        chooseButton.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                scan(fileChooser.getSelectedFile());
+            }
+        });
+
+        JPanel top = new JPanel(new BorderLayout(10, 0));
+        top.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        top.add(chooseButton, BorderLayout.WEST);
+        top.add(status, BorderLayout.CENTER);
+
+        setLayout(new BorderLayout());
+        add(top, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        setSize(820, 600);
+        setLocationRelativeTo(owner);
+    }
+
+    /**
+     * Lists the plans in a directory. Files without a plan header are left out.
+     *
+     * @param directory The directory.
+     */
+    public void scan(File directory) {
+        status.setText("Scanning " + directory + "...");
+        long start = System.nanoTime();
+        new SwingWorker<List<Entry>, Void>() {
+            @Override
+            protected List<Entry> doInBackground() {
+                File[] files = directory.listFiles(File::isFile);
+                if (files == null) {
+                    return new ArrayList<>();
+                }
+                return Arrays.stream(files).parallel()
+                        .map(PlanBrowser::readEntry)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<Entry> entries = get();
+                    tableModel.setEntries(entries);
+                    status.setText(String.format("%d plans in %s (%d ms)", entries.size(), directory,
+                            (System.nanoTime() - start) / 1_000_000));
+                } catch (InterruptedException | ExecutionException ex) {
+                    status.setText("Error scanning " + directory + ": " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private static Entry readEntry(File file) {
+        try {
+            PlanHeader header = PlanHeader.read(file);
+            return header != null ? new Entry(file, header) : null;
+        } catch (IOException e) {
+            return null; // Not readable; not listed
+        }
+    }
+
+    /**
+     * A plan file and its header. The thumbnail is rendered when the row is first shown.
+     */
+    private static final class Entry {
+        final File file;
+        final PlanHeader header;
+        Icon thumbnail;
+
+        Entry(File file, PlanHeader header) {
+            this.file = file;
+            this.header = header;
+        }
+
+        Icon getThumbnail() {
+            if (thumbnail == null) {
+                thumbnail = new ImageIcon(header.getThumbnail());
+            }
+            return thumbnail;
+        }
+    }
+
+    private static final class PlanTableModel extends AbstractTableModel {
+        private List<Entry> entries = new ArrayList<>();
+
+        void setEntries(List<Entry> entries) {
+            this.entries = entries;
+            fireTableDataChanged();
+        }
+
+        Entry get(int row) {
+            return entries.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 0:
+                    return Icon.class;
+                case 1:
+                    return String.class;
+                case 6:
+                    return Long.class;
+                default:
+                    return Integer.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Entry entry = entries.get(row);
+            PlanHeader header = entry.header;
+            switch (column) {
+                case 0:
+                    return entry.getThumbnail();
+                case 1:
+                    return entry.file.getName();
+                case 2:
+                    return header.getRoomCount();
+                case 3:
+                    return header.getDoorCount();
+                case 4:
+                    return header.getWindowCount();
+                case 5:
+                    return header.getFurnitureCount();
+                default:
+                    return header.getTotalArea();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package app.gui;
+
+import app.util.PlanHeader;
+import java.awt.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import javax.swing.*;
+
+/**
+ * File chooser accessory that shows the thumbnail and counts of the selected plan.
+ * Only the plan's header is read, so moving through a directory stays fast.
+ */
+public class PlanPreview extends JPanel implements PropertyChangeListener {
+    private final JLabel thumbnail = new JLabel();
+    private final JLabel details = new JLabel();
+
+    public PlanPreview(JFileChooser fileChooser) {
+        setLayout(new BorderLayout(0, 5));
+        setBorder(BorderFactory.createEmptyBorder(0, 8, 0, 0));
+        setPreferredSize(new Dimension(PlanHeader.THUMBNAIL_WIDTH * 2 + 16, 220));
+        thumbnail.setHorizontalAlignment(SwingConstants.CENTER);
+        thumbnail.setPreferredSize(new Dimension(PlanHeader.THUMBNAIL_WIDTH * 2, PlanHeader.THUMBNAIL_HEIGHT * 2));
+        details.setVerticalAlignment(SwingConstants.TOP);
+        add(thumbnail, BorderLayout.NORTH);
+        add(details, BorderLayout.CENTER);
+        fileChooser.addPropertyChangeListener(JFileChooser.SELECTED_FILE_CHANGED_PROPERTY, this);
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent e) {
+        show((File) e.getNewValue());
+    }
+
+    private void show(File file) {
+        PlanHeader header = null;
+        if (file != null && file.isFile()) {
+            try {
+                header = PlanHeader.read(file);
+            } catch (IOException e) {
+                // Shown like a file without a header
+            }
+        }
+        if (header == null) {
+            thumbnail.setIcon(null);
+            details.setText(file != null && file.isFile() ? "<html>No preview</html>" : "");
+            return;
+        }
+        Image scaled = header.getThumbnail().getScaledInstance(PlanHeader.THUMBNAIL_WIDTH * 2,
+                PlanHeader.THUMBNAIL_HEIGHT * 2, Image.SCALE_FAST);
+        thumbnail.setIcon(new ImageIcon(scaled));
+        details.setText(describe(header));
+    }
+
+    /**
+     * Formats the counts of a plan header as HTML for a label.
+     *
+     * @param header The header.
+     * @return The description.
+     */
+    static String describe(PlanHeader header) {
+        StringBuilder text = new StringBuilder("<html>");
+        text.append(header.getRoomCount()).append(" rooms<br>");
+        text.append(header.getDoorCount()).append(" doors, ").append(header.getWindowCount()).append(" windows<br>");
+        text.append(header.getFurnitureCount()).append(" furniture<br>");
+        text.append("Area: ").append(header.getTotalArea()).append(" sq px<br>");
+        for (PlanHeader.TypeCount type : header.getRoomTypes()) {
+            text.append(type.getName()).append(": ").append(type.getCount()).append("<br>");
+        }
+        return text.append("</html>").toString();
+    }
+}
@@ -0,0 +1,264 @@
+package app.gui;
+
+import app.util.PlanFeatures;
+import app.util.PlanIndex;
+import app.util.PlanQuery;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Window that searches a plan library through its {@link PlanIndex}. The index is kept up to
+ * date while the window is open, and the results follow changes to the directory.
+ * Double-clicking a result opens the plan.
+ */
+public class PlanSearch extends JDialog {
+    private static final String[] COLUMNS = {"File", "Rooms", "Room Types", "Furniture", "Area (sq px)"};
+    private static final String EXAMPLE = "3 bedrooms, bathroom adjacent to every bedroom, area < 1200000";
+
+    private final ResultTableModel tableModel = new ResultTableModel();
+    private final JTextField queryField = new JTextField(EXAMPLE);
+    private final JLabel status = new JLabel("Choose a plan directory to search");
+    private final Runnable indexListener = () -> SwingUtilities.invokeLater(this::indexChanged);
+
+    private PlanIndex index;
+    private SwingWorker<PlanIndex, Void> indexWorker;
+
+    /**
+     * Creates the search window.
+     *
+     * @param owner  The parent window.
+     * @param opener Opens a plan the user picked.
+     */
+    public PlanSearch(Window owner, Consumer<File> opener) {
+        super(owner, "Plan Search", ModalityType.MODELESS);
+
+        JTable table = new JTable(tableModel);
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(200);
+        table.getColumnModel().getColumn(2).setPreferredWidth(300);
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.getSelectedRow();
+                if (e.getClickCount() == 2 && row >= 0 && index != null) {
+                    opener.accept(index.getFile(tableModel.get(table.convertRowIndexToModel(row))));
+                }
+            }
+        });
+
+        JButton chooseButton = new JButton("Choose Directory...");
+        chooseButton.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                openIndex(fileChooser.getSelectedFile());
+            }
+        });
+        JButton searchButton = new JButton("Search");
+        searchButton.addActionListener(e -> search());
+        queryField.addActionListener(e -> search());
+        queryField.setToolTipText("<html>Comma-separated clauses, e.g.<br>3 bedrooms<br>bathroom &gt;= 1<br>"
+                + "rooms &lt; 12<br>area &lt; 1200000<br>furniture bed &gt;= 2<br>"
+                + "bathroom adjacent to every bedroom</html>");
+
+        JPanel queryPanel = new JPanel(new BorderLayout(5, 0));
+        queryPanel.add(new JLabel("Query:"), BorderLayout.WEST);
+        queryPanel.add(queryField, BorderLayout.CENTER);
+        queryPanel.add(searchButton, BorderLayout.EAST);
+
+        JPanel top = new JPanel(new BorderLayout(10, 5));
+        top.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        top.add(chooseButton, BorderLayout.WEST);
+        top.add(status, BorderLayout.CENTER);
+        top.add(queryPanel, BorderLayout.SOUTH);
+
+        setLayout(new BorderLayout());
+        add(top, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        setSize(900, 600);
+        setLocationRelativeTo(owner);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                closeIndex();
+            }
+        });
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+    }
+
+    /**
+     * Opens the index of a directory in the background and starts watching it.
+     * Only files that changed since the index was saved are read.
+     *
+     * @param directory The plan directory.
+     */
+    public void openIndex(File directory) {
+        closeIndex();
+        status.setText("Indexing " + directory + "...");
+        long start = System.nanoTime();
+        indexWorker = new SwingWorker<PlanIndex, Void>() {
+            @Override
+            protected PlanIndex doInBackground() throws IOException {
+                PlanIndex opened = PlanIndex.open(directory);
+                opened.watch();
+                return opened;
+            }
+
+            @Override
+            protected void done() {
+                boolean stale = indexWorker != this;
+                if (!stale) {
+                    indexWorker = null;
+                }
+                PlanIndex opened;
+                try {
+                    opened = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    if (!stale) {
+                        status.setText("Error indexing " + directory + ": " + ex.getMessage());
+                    }
+                    return;
+                }
+                if (stale) {
+                    // Another directory was chosen, or the window closed, while this one was indexed
+                    close(opened);
+                    return;
+                }
+                index = opened;
+                index.addChangeListener(indexListener);
+                search();
+                status.setText(String.format("%d plans indexed in %s (%d ms)", index.size(), directory,
+                        (System.nanoTime() - start) / 1_000_000));
+            }
+        };
+        indexWorker.execute();
+    }
+
+    private void indexChanged() {
+        search();
+        if (index != null && index.getWatchError() != null) {
+            status.setText("Stopped following changes to " + index.getDirectory() + ": "
+                    + index.getWatchError().getMessage());
+        }
+    }
+
+    private void search() {
+        if (index == null) {
+            return;
+        }
+        PlanQuery query;
+        try {
+            query = PlanQuery.parse(queryField.getText());
+        } catch (IllegalArgumentException e) {
+            status.setText(e.getMessage());
+            return;
+        }
+        long start = System.nanoTime();
+        List<PlanFeatures> results = index.search(query);
+        long micros = (System.nanoTime() - start) / 1000;
+        tableModel.setResults(results);
+        status.setText(String.format("%d of %d plans match %s (%.1f ms)", results.size(), index.size(), query,
+                micros / 1000.0));
+    }
+
+    private void closeIndex() {
+        indexWorker = null; // An index still being opened is closed when it is ready
+        if (index == null) {
+            return;
+        }
+        index.removeChangeListener(indexListener);
+        close(index);
+        index = null;
+        tableModel.setResults(new ArrayList<>());
+    }
+
+    private void close(PlanIndex closing) {
+        try {
+            closing.close();
+        } catch (IOException e) {
+            status.setText("Error saving the index of " + closing.getDirectory() + ": " + e.getMessage());
+        }
+    }
+
+    private static final class ResultTableModel extends AbstractTableModel {
+        private List<PlanFeatures> results = new ArrayList<>();
+
+        void setResults(List<PlanFeatures> results) {
+            this.results = results;
+            fireTableDataChanged();
+        }
+
+        PlanFeatures get(int row) {
+            return results.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return results.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 0:
+                case 2:
+                    return String.class;
+                case 4:
+                    return Long.class;
+                default:
+                    return Integer.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            PlanFeatures features = results.get(row);
+            switch (column) {
+                case 0:
+                    return features.getFileName();
+                case 1:
+                    return features.getRoomCount();
+                case 2:
+                    return describeTypes(features.getRoomCounts());
+                case 3:
+                    return features.getFurnitureCount();
+                default:
+                    return features.getTotalArea();
+            }
+        }
+
+        private static String describeTypes(Map<String, Integer> counts) {
+            StringBuilder text = new StringBuilder();
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                if (text.length() > 0) {
+                    text.append(", ");
+                }
+                text.append(entry.getValue()).append(' ').append(entry.getKey());
+            }
+            return text.toString();
+        }
+    }
+}
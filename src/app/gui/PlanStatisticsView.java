@@ -0,0 +1,203 @@
+package app.gui;
+
+import app.model.PlanChangeEvent;
+import app.model.PlanChangeListener;
+import app.model.PlanModel;
+import app.model.PlanStatistics;
+import app.util.BillOfMaterials;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Window with the live statistics of the plan: floor area per room type, doors, windows and
+ * furniture per type. The numbers are the model's running totals, so refreshing after a change
+ * does not scan the plan. The bill of materials of the plan, or of a whole directory of plans,
+ * can be exported as CSV.
+ */
+public class PlanStatisticsView extends JDialog {
+    private static final String[] COLUMNS = {"Item", "Type", "Count", "Size"};
+
+    private final PlanModel model;
+    private final StatisticsTableModel tableModel = new StatisticsTableModel();
+    private final JLabel status = new JLabel();
+    private final PlanChangeListener planListener = this::planChanged;
+
+    /**
+     * Creates the window.
+     *
+     * @param owner  The parent window.
+     * @param canvas The canvas showing the plan.
+     */
+    public PlanStatisticsView(Window owner, CanvasPanel canvas) {
+        super(owner, "Plan Statistics", ModalityType.MODELESS);
+        this.model = canvas.getModel();
+        model.addChangeListener(planListener);
+
+        JTable table = new JTable(tableModel);
+        table.getColumnModel().getColumn(1).setPreferredWidth(150);
+
+        JButton exportPlanButton = new JButton("Export Plan...");
+        exportPlanButton.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setSelectedFile(new File("plan.csv"));
+            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                File file = fileChooser.getSelectedFile();
+                try {
+                    BillOfMaterials.of("Plan", canvas.getRooms()).write(file);
+                    status.setText("Bill of materials written to " + file);
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, "Error writing " + file + ": " + ex.getMessage(), "Export Error",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+        JButton exportDirectoryButton = new JButton("Export Directory...");
+        exportDirectoryButton.addActionListener(e -> exportDirectory());
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        buttons.add(exportPlanButton);
+        buttons.add(exportDirectoryButton);
+
+        JPanel bottom = new JPanel(new BorderLayout(10, 0));
+        bottom.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        bottom.add(status, BorderLayout.CENTER);
+        bottom.add(buttons, BorderLayout.EAST);
+
+        setLayout(new BorderLayout());
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(bottom, BorderLayout.SOUTH);
+        setSize(600, 450);
+        setLocationRelativeTo(owner);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                model.removeChangeListener(planListener);
+            }
+        });
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        refresh();
+    }
+
+    private void planChanged(List<PlanChangeEvent> events) {
+        for (PlanChangeEvent event : events) {
+            // Moves and rotations keep every count and size
+            if (event.getType() != PlanChangeEvent.Type.MOVED && event.getType() != PlanChangeEvent.Type.ROTATED) {
+                refresh();
+                return;
+            }
+        }
+    }
+
+    private void refresh() {
+        PlanStatistics statistics = model.getStatistics();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row("Rooms", "All", statistics.getRooms()));
+        for (Map.Entry<String, PlanStatistics.Tally> type : statistics.getRoomTypes().entrySet()) {
+            rows.add(row("Rooms", type.getKey(), type.getValue()));
+        }
+        rows.add(row("Doors", "", statistics.getDoors()));
+        rows.add(row("Windows", "", statistics.getWindows()));
+        rows.add(row("Furniture", "All", statistics.getFurniture()));
+        for (Map.Entry<String, PlanStatistics.Tally> type : statistics.getFurnitureTypes().entrySet()) {
+            rows.add(row("Furniture", type.getKey(), type.getValue()));
+        }
+        tableModel.setRows(rows);
+        status.setText(String.format("%d rooms, total floor area %,d", statistics.getRoomCount(),
+                statistics.getTotalArea()));
+    }
+
+    private static Object[] row(String item, String type, PlanStatistics.Tally tally) {
+        return new Object[]{item, type, tally.getCount(), tally.getTotal()};
+    }
+
+    /**
+     * Asks for a plan directory and a CSV file and writes the bill of materials of all plans
+     * in the directory, read in the background.
+     */
+    private void exportDirectory() {
+        JFileChooser directoryChooser = new JFileChooser();
+        directoryChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (directoryChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File directory = directoryChooser.getSelectedFile();
+        JFileChooser fileChooser = new JFileChooser(directory.getParentFile());
+        fileChooser.setSelectedFile(new File(directory.getParentFile(), directory.getName() + ".csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        status.setText("Reading the plans in " + directory + "...");
+        long start = System.nanoTime();
+        new SwingWorker<BillOfMaterials, Void>() {
+            @Override
+            protected BillOfMaterials doInBackground() throws IOException {
+                BillOfMaterials bill = BillOfMaterials.forDirectory(directory);
+                bill.write(file);
+                return bill;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    BillOfMaterials bill = get();
+                    status.setText(String.format("%d plans written to %s, %d unreadable (%d ms)", bill.getPlans().size(),
+                            file, bill.getFailures().size(), (System.nanoTime() - start) / 1_000_000));
+                } catch (InterruptedException | ExecutionException ex) {
+                    status.setText("Error exporting " + directory + ": " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private static final class StatisticsTableModel extends AbstractTableModel {
+        private List<Object[]> rows = new ArrayList<>();
+
+        void setRows(List<Object[]> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 2:
+                    return Integer.class;
+                case 3:
+                    return Long.class;
+                default:
+                    return String.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return rows.get(row)[column];
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package app.gui;
+
+import app.model.RuleValidator;
+import app.model.Violation;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import javax.swing.*;
+
+/**
+ * Window with the live list of rule violations in the plan. The list follows every change;
+ * double-clicking a violation shows its room on the canvas.
+ */
+public class RuleViolations extends JDialog {
+    private final RuleValidator validator;
+    private final DefaultListModel<Violation> listModel = new DefaultListModel<>();
+    private final JLabel status = new JLabel();
+    private final Runnable validatorListener = this::refresh;
+
+    /**
+     * Creates the window and validates the plan.
+     *
+     * @param owner  The parent window.
+     * @param canvas The canvas showing the plan.
+     */
+    public RuleViolations(Window owner, CanvasPanel canvas) {
+        super(owner, "Rule Violations", ModalityType.MODELESS);
+        validator = new RuleValidator(canvas.getModel());
+        validator.addChangeListener(validatorListener);
+
+        JList<Violation> list = new JList<>(listModel);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                Violation violation = list.getSelectedValue();
+                if (e.getClickCount() == 2 && violation != null) {
+                    canvas.showRoom(violation.getRoom());
+                }
+            }
+        });
+
+        JButton validateButton = new JButton("Validate All");
+        validateButton.addActionListener(e -> validator.validateAll());
+
+        JPanel bottom = new JPanel(new BorderLayout(10, 0));
+        bottom.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        bottom.add(status, BorderLayout.CENTER);
+        bottom.add(validateButton, BorderLayout.EAST);
+
+        setLayout(new BorderLayout());
+        add(new JScrollPane(list), BorderLayout.CENTER);
+        add(bottom, BorderLayout.SOUTH);
+        setSize(600, 400);
+        setLocationRelativeTo(owner);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                validator.removeChangeListener(validatorListener);
+                validator.close();
+            }
+        });
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        refresh();
+    }
+
+    private void refresh() {
+        listModel.clear();
+        listModel.addAll(validator.getViolations());
+        status.setText(String.format("%d violations; last check covered %d rooms (%.2f ms)", validator.getViolationCount(),
+                validator.getLastCheckedRoomCount(), validator.getLastCheckNanos() / 1e6));
+    }
+}
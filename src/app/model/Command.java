@@ -0,0 +1,27 @@
+package app.model;
+
+/**
+ * Interface for undoable actions.
+ */
+public interface Command {
+    void execute();
+    void undo();
+
+    /**
+     * Gets the room whose contents this command changes.
+     *
+     * @return The affected room, or null if the command may touch any room.
+     */
+    default Room getAffectedRoom() {
+        return null;
+    }
+
+    /**
+     * Tells whether executing this command takes its affected room out of the plan.
+     *
+     * @return True for commands that delete the affected room.
+     */
+    default boolean removesAffectedRoom() {
+        return false;
+    }
+}
@@ -2,6 +2,8 @@ package app.model;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
@@ -9,6 +11,7 @@ import java.io.Serializable;
  */
 public class Door implements PlanItem, Serializable {
     private static final long serialVersionUID = 1L;
+    private long id = ItemIds.next();
     private int x, y, width, height;
     private String direction; // North, South, East, West
     private transient Room room; // Transient to avoid circular serialization
@@ -19,6 +22,16 @@ public class Door implements PlanItem, Serializable {
         this.direction = direction;
     }
 
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(long id) {
+        this.id = id;
+    }
+
     @Override
     public Rectangle getBounds() {
         return new Rectangle(x, y, width, height);
@@ -114,4 +127,11 @@ public class Door implements PlanItem, Serializable {
                 break;
         }
     }
-}
\ No newline at end of file
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (id == 0) {
+            id = ItemIds.next(); // Saved before items had ids
+        }
+    }
+}
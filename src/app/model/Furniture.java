@@ -1,23 +1,29 @@
 package app.model;
 
+import app.util.ImageLoader;
+import app.util.ImageStore;
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import javax.swing.ImageIcon;
 
 /**
  * Represents a furniture item in the floor plan.
+ * The image is resolved lazily on first use: from the {@link ImageStore} when the furniture has
+ * an image hash, e.g. after loading a plan with embedded images, otherwise from its image path.
  */
 public class Furniture implements PlanItem, Serializable {
     private static final long serialVersionUID = 1L;
+    private long id = ItemIds.next();
     private int x, y, width, height;
     private String type;
     private transient Room room; // Transient to avoid circular serialization
-    private transient Image image; // Transient as images are handled via imagePath
+    private transient Image image; // Transient as images are handled via imageHash and imagePath
+    private transient boolean imageResolved; // True once the image was looked up
     private String imagePath; // Path to the image file
+    private String imageHash; // Content hash of the image in the ImageStore, if known
     private int angle; // Rotation angle in degrees (0, 90, 180, 270)
 
     public Furniture(int width, int height, String type, Room room) {
@@ -28,11 +34,35 @@ public class Furniture implements PlanItem, Serializable {
         this.angle = 0; // Default rotation
     }
 
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(long id) {
+        this.id = id;
+    }
+
     @Override
     public Rectangle getBounds() {
         return new Rectangle(x, y, width, height);
     }
 
+    /**
+     * Gets the area covered by the furniture as drawn, i.e. after rotation about its center.
+     *
+     * @return The rotated bounds.
+     */
+    public Rectangle getDisplayBounds() {
+        if (angle == 90 || angle == 270) {
+            int centerX = x + width / 2;
+            int centerY = y + height / 2;
+            return new Rectangle(centerX - height / 2, centerY - width / 2, height, width);
+        }
+        return getBounds();
+    }
+
     @Override
     public boolean intersects(PlanItem other) {
         return this.getBounds().intersects(other.getBounds());
@@ -86,7 +116,30 @@ public class Furniture implements PlanItem, Serializable {
         this.room = room;
     }
 
+    /**
+     * Gets the image, resolving it through the shared {@link ImageStore} on first use.
+     *
+     * @return The image scaled to the furniture size, or null if there is none.
+     */
     public Image getImage() {
+        if (image == null && !imageResolved) {
+            imageResolved = true;
+            if (imageHash != null) {
+                image = ImageStore.getScaled(imageHash, width, height);
+            }
+            if (image == null && imagePath != null && !imagePath.trim().isEmpty()) {
+                image = ImageLoader.loadScaled(imagePath, width, height);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Gets the image without resolving it.
+     *
+     * @return The image, or null if it was not used yet.
+     */
+    Image getLoadedImage() {
         return image;
     }
 
@@ -111,6 +164,21 @@ public class Furniture implements PlanItem, Serializable {
 
     public void setImagePath(String imagePath) {
         this.imagePath = imagePath;
+        this.imageResolved = false;
+    }
+
+    /**
+     * Gets the content hash of the image, under which plan files embed it.
+     *
+     * @return The SHA-256 hash, or null if the image was never embedded.
+     */
+    public String getImageHash() {
+        return imageHash;
+    }
+
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
+        this.imageResolved = false;
     }
 
     /**
@@ -145,14 +213,10 @@ public class Furniture implements PlanItem, Serializable {
         setAngle(this.angle - 90);
     }
 
-    /**
-     * Custom deserialization to handle transient fields.
-     */
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
-        if (imagePath != null) {
-            ImageIcon icon = new ImageIcon(imagePath);
-            this.image = icon.getImage();
+        if (id == 0) {
+            id = ItemIds.next(); // Saved before items had ids
         }
     }
-}
\ No newline at end of file
+}
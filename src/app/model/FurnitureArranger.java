@@ -0,0 +1,291 @@
+package app.model;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Places the furniture of a room without collisions. Furniture keeps {@link #WALL_CLEARANCE}
+ * away from the walls and out of the area the room's doors swing through, and goes against a
+ * wall where it fits. Obstacles are kept in a coarse grid over the room, so a candidate
+ * position is only checked against the obstacles near it. An arranger only reads its own
+ * room, so arranging one room of a large plan costs the same as arranging it on its own.
+ */
+public final class FurnitureArranger {
+    /**
+     * Gap kept between furniture and the walls.
+     */
+    public static final int WALL_CLEARANCE = PlanModel.GRID_SIZE / 2;
+
+    // Candidate positions are tried at this spacing
+    private static final int STEP = PlanModel.GRID_SIZE / 2;
+    private static final int CELL_SIZE = 2 * PlanModel.GRID_SIZE;
+    // Largest first, so small pieces fill the gaps
+    private static final Comparator<Furniture> LARGEST_FIRST =
+            Comparator.comparingInt(furniture -> -furniture.getWidth() * furniture.getHeight());
+
+    private final Rectangle usable;
+    private final int columns;
+    private final int rows;
+    private final List<List<Rectangle>> cells;
+
+    /**
+     * Creates an arranger for an empty room; only the swing areas of its doors are taken.
+     *
+     * @param room The room.
+     */
+    public FurnitureArranger(Room room) {
+        usable = new Rectangle(room.getX() + WALL_CLEARANCE, room.getY() + WALL_CLEARANCE,
+                Math.max(0, room.getWidth() - 2 * WALL_CLEARANCE), Math.max(0, room.getHeight() - 2 * WALL_CLEARANCE));
+        columns = Math.max(1, (usable.width + CELL_SIZE - 1) / CELL_SIZE);
+        rows = Math.max(1, (usable.height + CELL_SIZE - 1) / CELL_SIZE);
+        cells = new ArrayList<>(Collections.nCopies(columns * rows, null));
+        for (Door door : room.getDoors()) {
+            block(getSwingArea(room, door));
+        }
+    }
+
+    /**
+     * Arranges all furniture of a room, largest first. The room itself is not changed.
+     * Pieces that do not fit stay where they are, so the others are arranged again around
+     * them until every placed piece is clear of the ones left in place.
+     *
+     * @param room The room.
+     * @return Where each piece should go, and the pieces that do not fit.
+     */
+    public static Arrangement arrange(Room room) {
+        List<Furniture> pieces = new ArrayList<>(room.getFurnitures());
+        pieces.sort(LARGEST_FIRST);
+        List<Furniture> unplaced = new ArrayList<>();
+        while (true) {
+            FurnitureArranger arranger = new FurnitureArranger(room);
+            for (Furniture furniture : unplaced) {
+                arranger.block(furniture.getDisplayBounds());
+            }
+            List<Placement> placements = new ArrayList<>(pieces.size());
+            List<Furniture> left = new ArrayList<>();
+            for (Furniture furniture : pieces) {
+                if (unplaced.contains(furniture)) {
+                    continue;
+                }
+                Placement placement = arranger.place(furniture);
+                if (placement != null) {
+                    placements.add(placement);
+                } else {
+                    left.add(furniture);
+                }
+            }
+            if (left.isEmpty()) {
+                return new Arrangement(placements, unplaced);
+            }
+            // Each pass leaves at least one more piece in place, so this ends
+            unplaced.addAll(left);
+        }
+    }
+
+    /**
+     * Gets the area inside a room that a door swings through: a square as deep as the door
+     * is wide, against the wall the door is on.
+     *
+     * @param room The room the door belongs to.
+     * @param door The door.
+     * @return The swing area.
+     */
+    public static Rectangle getSwingArea(Room room, Door door) {
+        switch (door.getDirection()) {
+            case "North":
+                return new Rectangle(door.getX(), room.getY(), door.getWidth(), door.getWidth());
+            case "South":
+                return new Rectangle(door.getX(), room.getY() + room.getHeight() - door.getWidth(), door.getWidth(), door.getWidth());
+            case "East":
+                return new Rectangle(room.getX() + room.getWidth() - door.getHeight(), door.getY(), door.getHeight(), door.getHeight());
+            case "West":
+                return new Rectangle(room.getX(), door.getY(), door.getHeight(), door.getHeight());
+            default:
+                return door.getBounds();
+        }
+    }
+
+    /**
+     * Marks an area as taken.
+     *
+     * @param area The area, in plan coordinates.
+     */
+    public void block(Rectangle area) {
+        Rectangle clipped = area.intersection(usable);
+        if (clipped.isEmpty()) {
+            return;
+        }
+        Rectangle copy = new Rectangle(clipped);
+        for (int row = row(clipped.y); row <= row(clipped.y + clipped.height - 1); row++) {
+            for (int column = column(clipped.x); column <= column(clipped.x + clipped.width - 1); column++) {
+                int cell = row * columns + column;
+                if (cells.get(cell) == null) {
+                    cells.set(cell, new ArrayList<>(4));
+                }
+                cells.get(cell).add(copy);
+            }
+        }
+    }
+
+    /**
+     * Checks if an area lies within the clearance of the walls and overlaps nothing taken.
+     *
+     * @param area The area, in plan coordinates.
+     * @return True if furniture can go there.
+     */
+    public boolean isFree(Rectangle area) {
+        if (!usable.contains(area)) {
+            return false;
+        }
+        for (int row = row(area.y); row <= row(area.y + area.height - 1); row++) {
+            for (int column = column(area.x); column <= column(area.x + area.width - 1); column++) {
+                List<Rectangle> obstacles = cells.get(row * columns + column);
+                if (obstacles == null) {
+                    continue;
+                }
+                for (Rectangle obstacle : obstacles) {
+                    if (obstacle.intersects(area)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds a free place for a piece of furniture, turned or not, as close to a wall as
+     * possible, and marks it as taken. The furniture itself is not moved.
+     *
+     * @param furniture The furniture.
+     * @return Where it should go, or null if it does not fit anywhere.
+     */
+    public Placement place(Furniture furniture) {
+        Placement best = null;
+        int bestGap = Integer.MAX_VALUE;
+        boolean square = furniture.getWidth() == furniture.getHeight();
+        for (int turn = 0; turn < (square ? 1 : 2) && bestGap > 0; turn++) {
+            boolean turned = (turn == 1) != isTurned(furniture.getAngle());
+            int width = turned ? furniture.getHeight() : furniture.getWidth();
+            int height = turned ? furniture.getWidth() : furniture.getHeight();
+            Rectangle area = new Rectangle(0, 0, width, height);
+            for (int y = usable.y; y + height <= usable.y + usable.height && bestGap > 0; y += STEP) {
+                for (int x = usable.x; x + width <= usable.x + usable.width; x += STEP) {
+                    area.setLocation(x, y);
+                    int gap = wallGap(area);
+                    if (gap < bestGap && isFree(area)) {
+                        best = new Placement(furniture, new Rectangle(area), turned);
+                        bestGap = gap;
+                        if (gap == 0) {
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        if (best != null) {
+            block(best.getBounds());
+        }
+        return best;
+    }
+
+    /**
+     * Distance from an area to the nearest wall clearance line.
+     */
+    private int wallGap(Rectangle area) {
+        int gap = Math.min(area.x - usable.x, area.y - usable.y);
+        gap = Math.min(gap, usable.x + usable.width - area.x - area.width);
+        return Math.min(gap, usable.y + usable.height - area.y - area.height);
+    }
+
+    private int column(int x) {
+        return Math.min(columns - 1, Math.max(0, (x - usable.x) / CELL_SIZE));
+    }
+
+    private int row(int y) {
+        return Math.min(rows - 1, Math.max(0, (y - usable.y) / CELL_SIZE));
+    }
+
+    private static boolean isTurned(int angle) {
+        return angle == 90 || angle == 270;
+    }
+
+    /**
+     * Where a piece of furniture should go.
+     */
+    public static final class Placement {
+        private final Furniture furniture;
+        private final Rectangle bounds;
+        private final int angle;
+
+        private Placement(Furniture furniture, Rectangle bounds, boolean turned) {
+            this.furniture = furniture;
+            this.bounds = bounds;
+            // Keep the angle if it already faces the right way
+            int angle = furniture.getAngle();
+            this.angle = isTurned(angle) == turned ? angle : (turned ? 90 : 0);
+        }
+
+        public Furniture getFurniture() {
+            return furniture;
+        }
+
+        /**
+         * Gets the area the furniture covers once placed, as drawn.
+         *
+         * @return The rotated bounds.
+         */
+        public Rectangle getBounds() {
+            return bounds;
+        }
+
+        public int getAngle() {
+            return angle;
+        }
+
+        /**
+         * Gets the position to give the furniture. Turned furniture rotates about its center,
+         * so its position is not the corner of the area it covers.
+         *
+         * @return The unrotated top left corner.
+         */
+        public Point getPosition() {
+            int width = furniture.getWidth();
+            int height = furniture.getHeight();
+            if (isTurned(angle)) {
+                return new Point(bounds.x + height / 2 - width / 2, bounds.y + width / 2 - height / 2);
+            }
+            return new Point(bounds.x, bounds.y);
+        }
+    }
+
+    /**
+     * The result of arranging a room.
+     */
+    public static final class Arrangement {
+        private final List<Placement> placements;
+        private final List<Furniture> unplaced;
+
+        private Arrangement(List<Placement> placements, List<Furniture> unplaced) {
+            this.placements = placements;
+            this.unplaced = unplaced;
+        }
+
+        public List<Placement> getPlacements() {
+            return placements;
+        }
+
+        /**
+         * Gets the furniture that did not fit; it is best left where it is.
+         *
+         * @return The pieces without a place.
+         */
+        public List<Furniture> getUnplaced() {
+            return unplaced;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package app.model;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.*;
+
+/**
+ * Lookup structures over the furniture of a plan. Rooms own their furniture; this index is
+ * derived from them and kept up to date from the model's change events, so it never holds
+ * furniture that is not in a room. Furniture is found by type and by grid cell. Lookups
+ * return furniture in the order it was added, like the single list the plan used to keep.
+ */
+final class FurnitureIndex {
+    /**
+     * Width and height of a spatial cell. Larger than any furniture, so most pieces sit in one to four cells.
+     */
+    static final int CELL_SIZE = 200;
+
+    /**
+     * Where a piece of furniture is indexed.
+     */
+    private static final class Entry {
+        final Furniture furniture;
+        final long sequence;
+        int minColumn, minRow, maxColumn, maxRow;
+        int visit;
+
+        Entry(Furniture furniture, long sequence) {
+            this.furniture = furniture;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final Comparator<Entry> ADDED_ORDER = Comparator.comparingLong(entry -> entry.sequence);
+
+    private final Map<Furniture, Entry> entries = new IdentityHashMap<>();
+    private final Map<Long, List<Furniture>> cells = new HashMap<>();
+    private final Map<String, Set<Furniture>> byType = new HashMap<>();
+    private long nextSequence = 0;
+    private int visit = 0;
+
+    /**
+     * Rebuilds the index from the furniture of the given rooms.
+     *
+     * @param rooms The rooms of the plan.
+     */
+    void rebuild(List<Room> rooms) {
+        entries.clear();
+        cells.clear();
+        byType.clear();
+        nextSequence = 0;
+        for (Room room : rooms) {
+            for (Furniture furniture : room.getFurnitures()) {
+                add(furniture);
+            }
+        }
+    }
+
+    void add(Furniture furniture) {
+        if (entries.containsKey(furniture)) {
+            update(furniture);
+            return;
+        }
+        Entry entry = new Entry(furniture, nextSequence++);
+        entries.put(furniture, entry);
+        byType.computeIfAbsent(furniture.getType(), type -> new LinkedHashSet<>()).add(furniture);
+        place(furniture, entry);
+    }
+
+    void remove(Furniture furniture) {
+        Entry entry = entries.remove(furniture);
+        if (entry == null) {
+            return;
+        }
+        Set<Furniture> ofType = byType.get(furniture.getType());
+        if (ofType != null && ofType.remove(furniture) && ofType.isEmpty()) {
+            byType.remove(furniture.getType());
+        }
+        unplace(furniture, entry);
+    }
+
+    /**
+     * Moves a piece of furniture to the cells of its current position and rotation.
+     */
+    void update(Furniture furniture) {
+        Entry entry = entries.get(furniture);
+        if (entry == null) {
+            return;
+        }
+        Rectangle area = area(furniture);
+        if (Math.floorDiv(area.x, CELL_SIZE) == entry.minColumn && Math.floorDiv(area.y, CELL_SIZE) == entry.minRow
+                && Math.floorDiv(area.x + area.width, CELL_SIZE) == entry.maxColumn
+                && Math.floorDiv(area.y + area.height, CELL_SIZE) == entry.maxRow) {
+            return;
+        }
+        unplace(furniture, entry);
+        place(furniture, entry);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int getCellCount() {
+        return cells.size();
+    }
+
+    /**
+     * Gets the number of cell memberships, i.e. furniture counted once per cell it touches.
+     */
+    long getCellSlotCount() {
+        long slots = 0;
+        for (List<Furniture> cell : cells.values()) {
+            slots += cell.size();
+        }
+        return slots;
+    }
+
+    /**
+     * Gets the furniture of one type.
+     *
+     * @param type The furniture type, e.g. "Chair".
+     * @return The furniture in the order it was added; empty if there is none.
+     */
+    Set<Furniture> ofType(String type) {
+        Set<Furniture> ofType = byType.get(type);
+        return ofType != null ? Collections.unmodifiableSet(ofType) : Collections.emptySet();
+    }
+
+    /**
+     * Finds the first added furniture containing a point.
+     *
+     * @param p The point.
+     * @return The furniture, or null.
+     */
+    Furniture find(Point p) {
+        List<Furniture> candidates = cells.get(key(Math.floorDiv(p.x, CELL_SIZE), Math.floorDiv(p.y, CELL_SIZE)));
+        if (candidates == null) {
+            return null;
+        }
+        Furniture found = null;
+        long foundSequence = Long.MAX_VALUE;
+        for (Furniture furniture : candidates) {
+            if (furniture.contains(p)) {
+                long sequence = entries.get(furniture).sequence;
+                if (sequence < foundSequence) {
+                    found = furniture;
+                    foundSequence = sequence;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the furniture whose drawn bounds intersect an area.
+     *
+     * @param area The area.
+     * @return The furniture in the order it was added.
+     */
+    List<Furniture> query(Rectangle area) {
+        visit++;
+        List<Entry> hits = new ArrayList<>();
+        int minColumn = Math.floorDiv(area.x, CELL_SIZE);
+        int maxColumn = Math.floorDiv(area.x + area.width, CELL_SIZE);
+        int minRow = Math.floorDiv(area.y, CELL_SIZE);
+        int maxRow = Math.floorDiv(area.y + area.height, CELL_SIZE);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                List<Furniture> cell = cells.get(key(column, row));
+                if (cell == null) {
+                    continue;
+                }
+                for (Furniture furniture : cell) {
+                    Entry entry = entries.get(furniture);
+                    // Furniture spanning several cells is only looked at once
+                    if (entry.visit != visit) {
+                        entry.visit = visit;
+                        if (furniture.getDisplayBounds().intersects(area)) {
+                            hits.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+        hits.sort(ADDED_ORDER);
+        List<Furniture> result = new ArrayList<>(hits.size());
+        for (Entry entry : hits) {
+            result.add(entry.furniture);
+        }
+        return result;
+    }
+
+    /**
+     * Area covered for hit-testing and drawing: the unrotated bounds are used for picking,
+     * the rotated ones for drawing.
+     */
+    private static Rectangle area(Furniture furniture) {
+        return furniture.getBounds().union(furniture.getDisplayBounds());
+    }
+
+    private void place(Furniture furniture, Entry entry) {
+        Rectangle area = area(furniture);
+        entry.minColumn = Math.floorDiv(area.x, CELL_SIZE);
+        entry.minRow = Math.floorDiv(area.y, CELL_SIZE);
+        entry.maxColumn = Math.floorDiv(area.x + area.width, CELL_SIZE);
+        entry.maxRow = Math.floorDiv(area.y + area.height, CELL_SIZE);
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+                cells.computeIfAbsent(key(column, row), k -> new ArrayList<>(4)).add(furniture);
+            }
+        }
+    }
+
+    private void unplace(Furniture furniture, Entry entry) {
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+                Long key = key(column, row);
+                List<Furniture> cell = cells.get(key);
+                if (cell != null) {
+                    cell.remove(furniture);
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,8 @@
+package app.model;
+
+/**
+ * Listener interface for changes to the undo/redo history.
+ */
+public interface HistoryListener {
+    void onHistoryChanged(int position, int length);
+}
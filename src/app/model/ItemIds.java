@@ -0,0 +1,41 @@
+package app.model;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Creates the ids of plan items. Ids are random positive 64-bit numbers rather than a counter,
+ * so items created in different sessions, or in different plans that are later combined, do
+ * not collide in practice, and no counter has to be saved with a plan. 0 means "no id".
+ */
+public final class ItemIds {
+    private ItemIds() {
+    }
+
+    /**
+     * Creates a new id. Can be called from any thread.
+     *
+     * @return A positive id.
+     */
+    public static long next() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+        } while (id == 0);
+        return id;
+    }
+
+    /**
+     * Creates an id from a given random source, e.g. to generate the same plan from the same seed.
+     *
+     * @param random The random source.
+     * @return A positive id.
+     */
+    public static long next(SplittableRandom random) {
+        long id;
+        do {
+            id = random.nextLong() & Long.MAX_VALUE;
+        } while (id == 0);
+        return id;
+    }
+}
@@ -0,0 +1,122 @@
+package app.model;
+
+import java.awt.Rectangle;
+
+/**
+ * Immutable copy of a door, window or furniture item at one point in time.
+ */
+public final class ItemSnapshot {
+    public enum Kind { DOOR, WINDOW, FURNITURE }
+
+    private final long key;
+    private final long id;
+    private final Kind kind;
+    private final int x, y, width, height;
+    private final String label; // Direction for doors and windows, type for furniture
+    private final int angle;
+    private final String imagePath;
+    private final String imageHash;
+
+    private ItemSnapshot(long key, long id, Kind kind, int x, int y, int width, int height,
+                         String label, int angle, String imagePath, String imageHash) {
+        this.key = key;
+        this.id = id;
+        this.kind = kind;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.label = label;
+        this.angle = angle;
+        this.imagePath = imagePath;
+        this.imageHash = imageHash;
+    }
+
+    public static ItemSnapshot of(long key, Door door) {
+        return new ItemSnapshot(key, door.getId(), Kind.DOOR, door.getX(), door.getY(), door.getWidth(), door.getHeight(),
+                door.getDirection(), 0, null, null);
+    }
+
+    public static ItemSnapshot of(long key, PlanWindow window) {
+        return new ItemSnapshot(key, window.getId(), Kind.WINDOW, window.getX(), window.getY(), window.getWidth(), window.getHeight(),
+                window.getDirection(), 0, null, null);
+    }
+
+    public static ItemSnapshot of(long key, Furniture furniture) {
+        return new ItemSnapshot(key, furniture.getId(), Kind.FURNITURE, furniture.getX(), furniture.getY(), furniture.getWidth(),
+                furniture.getHeight(), furniture.getType(), furniture.getAngle(), furniture.getImagePath(),
+                furniture.getImageHash());
+    }
+
+    /**
+     * Key of the live item this snapshot was taken from.
+     *
+     * @return The snapshot key.
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the saved id of the item, see {@link PlanItem#getId()}.
+     *
+     * @return The item id.
+     */
+    public long getId() {
+        return id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Rectangle getBounds() {
+        return new Rectangle(x, y, width, height);
+    }
+
+    /**
+     * Gets the wall direction of a door or window.
+     *
+     * @return The direction, or null for furniture.
+     */
+    public String getDirection() {
+        return kind == Kind.FURNITURE ? null : label;
+    }
+
+    /**
+     * Gets the type of a furniture item.
+     *
+     * @return The furniture type, or null for doors and windows.
+     */
+    public String getType() {
+        return kind == Kind.FURNITURE ? label : null;
+    }
+
+    public int getAngle() {
+        return angle;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public String getImageHash() {
+        return imageHash;
+    }
+}
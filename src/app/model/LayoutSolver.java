@@ -0,0 +1,542 @@
+package app.model;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Searches arrangements of a set of rooms that meet required adjacencies. Rooms are placed
+ * against the walls of rooms already placed, the way {@link PlanModel#addRelativeRoom} places
+ * them, so every layout is connected through shared walls, and no two rooms overlap. The same
+ * overlap and shared wall rules as the plan itself are used.
+ * <p>
+ * The search is a multi-start local search: every start builds a random layout and improves
+ * it by moving or turning one room at a time, keeping the change unless the layout gets worse.
+ * Starts run in parallel on a {@link ForkJoinPool}. Each start has its own random generator
+ * split from the seed, so results only depend on the seed, not on the number of threads.
+ */
+public final class LayoutSolver {
+    // One met adjacency outweighs any difference in compactness
+    private static final double ADJACENCY_SCORE = 10;
+    private static final double WASTE_PENALTY = 4;
+    private static final double ASPECT_PENALTY = 1;
+    // Positions tried for each room when a start builds its first layout
+    private static final int PLACEMENT_TRIES = 12;
+    private static final int GRID = PlanModel.GRID_SIZE;
+    private static final String[] DIRECTIONS = {"North", "South", "East", "West"};
+
+    private final List<RoomSpec> specs;
+    private final List<int[]> adjacencies = new ArrayList<>();
+    private final LongAdder evaluated = new LongAdder();
+
+    /**
+     * Creates a solver for a set of rooms.
+     *
+     * @param specs The rooms to arrange.
+     * @throws IllegalArgumentException If there are no rooms.
+     */
+    public LayoutSolver(List<RoomSpec> specs) {
+        if (specs.isEmpty()) {
+            throw new IllegalArgumentException("No rooms to arrange");
+        }
+        this.specs = new ArrayList<>(specs);
+    }
+
+    /**
+     * Requires two rooms to share a wall.
+     *
+     * @param first  Index of the first room.
+     * @param second Index of the second room.
+     * @throws IllegalArgumentException If an index is not a room, or both are the same room.
+     */
+    public void requireAdjacent(int first, int second) {
+        if (first < 0 || first >= specs.size() || second < 0 || second >= specs.size()) {
+            throw new IllegalArgumentException("No room " + (first < 0 || first >= specs.size() ? first : second));
+        }
+        if (first == second) {
+            throw new IllegalArgumentException("A room cannot be adjacent to itself");
+        }
+        adjacencies.add(new int[]{first, second});
+    }
+
+    public List<RoomSpec> getRooms() {
+        return specs;
+    }
+
+    public int getRequiredAdjacencyCount() {
+        return adjacencies.size();
+    }
+
+    /**
+     * Searches layouts.
+     *
+     * @param pool   The pool the starts run on.
+     * @param starts Number of independent starts.
+     * @param steps  Number of changes tried in every start.
+     * @param keep   Maximum number of layouts returned.
+     * @param seed   Seed of the random generators.
+     * @return The best distinct layouts, best first.
+     */
+    public List<Layout> solve(ForkJoinPool pool, int starts, int steps, int keep, long seed) {
+        evaluated.reset();
+        SplittableRandom random = new SplittableRandom(seed);
+        List<ForkJoinTask<Layout>> tasks = new ArrayList<>(starts);
+        for (int start = 0; start < starts; start++) {
+            SplittableRandom startRandom = random.split();
+            tasks.add(pool.submit(() -> new Search(startRandom).run(steps)));
+        }
+        List<Layout> layouts = new ArrayList<>(starts);
+        for (ForkJoinTask<Layout> task : tasks) {
+            layouts.add(task.join());
+        }
+        // Stable, so equal scores keep the order of the starts
+        layouts.sort(Comparator.comparingDouble(Layout::getScore).reversed());
+        Set<Layout> distinct = new LinkedHashSet<>();
+        for (Layout layout : layouts) {
+            if (distinct.size() == keep) {
+                break;
+            }
+            distinct.add(layout);
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    /**
+     * Gets the number of layouts evaluated by the last {@link #solve}, including the ones
+     * rejected because rooms overlapped.
+     *
+     * @return The number of layouts.
+     */
+    public long getEvaluatedCount() {
+        return evaluated.sum();
+    }
+
+    private static boolean touches(Room room, Room otherRoom) {
+        for (String direction : DIRECTIONS) {
+            if (PlanModel.sharesWall(room, otherRoom, direction)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int snap(int size) {
+        return Math.max(GRID, Math.round(size / (float) GRID) * GRID);
+    }
+
+    /**
+     * A room to arrange. Sizes are rounded to the plan grid.
+     */
+    public static final class RoomSpec {
+        private final String type;
+        private final int width;
+        private final int height;
+        private final String name;
+
+        public RoomSpec(String type, int width, int height) {
+            this(type, width, height, null);
+        }
+
+        /**
+         * Creates a room to arrange.
+         *
+         * @param type   The room type.
+         * @param width  Target width; the room may be turned.
+         * @param height Target height.
+         * @param name   The optional name of the room.
+         */
+        public RoomSpec(String type, int width, int height, String name) {
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("Room size must be positive: " + width + "x" + height);
+            }
+            this.type = type;
+            this.width = snap(width);
+            this.height = snap(height);
+            this.name = name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return (name != null ? name : type) + " " + width + "x" + height;
+        }
+    }
+
+    /**
+     * An arrangement found by the solver, with its top left corner at 0,0.
+     */
+    public static final class Layout {
+        private final List<RoomSpec> specs;
+        private final int[] x;
+        private final int[] y;
+        private final int[] width;
+        private final int[] height;
+        private final double score;
+        private final int adjacenciesMet;
+        private final int adjacenciesRequired;
+
+        private Layout(List<RoomSpec> specs, int[] x, int[] y, int[] width, int[] height, double score,
+                       int adjacenciesMet, int adjacenciesRequired) {
+            this.specs = specs;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.score = score;
+            this.adjacenciesMet = adjacenciesMet;
+            this.adjacenciesRequired = adjacenciesRequired;
+        }
+
+        /**
+         * Gets the score; higher is better. Every met adjacency adds to it, empty space inside
+         * the outline and a long, narrow outline take away from it.
+         *
+         * @return The score.
+         */
+        public double getScore() {
+            return score;
+        }
+
+        public int getAdjacenciesMet() {
+            return adjacenciesMet;
+        }
+
+        public int getAdjacenciesRequired() {
+            return adjacenciesRequired;
+        }
+
+        public int size() {
+            return x.length;
+        }
+
+        public RoomSpec getSpec(int index) {
+            return specs.get(index);
+        }
+
+        public Rectangle getBounds(int index) {
+            return new Rectangle(x[index], y[index], width[index], height[index]);
+        }
+
+        /**
+         * Gets the outline of the whole layout.
+         *
+         * @return The bounds, starting at 0,0.
+         */
+        public Rectangle getBounds() {
+            Rectangle bounds = getBounds(0);
+            for (int i = 1; i < x.length; i++) {
+                bounds.add(getBounds(i));
+            }
+            return bounds;
+        }
+
+        /**
+         * Creates the rooms of this layout, ready for {@link PlanModel#addRooms}.
+         *
+         * @return New rooms in the colours of their types.
+         */
+        public List<Room> createRooms() {
+            List<Room> rooms = new ArrayList<>(x.length);
+            for (int i = 0; i < x.length; i++) {
+                RoomSpec spec = specs.get(i);
+                rooms.add(new Room(x[i], y[i], width[i], height[i], spec.getType(),
+                        RoomType.of(spec.getType()).getColor(), spec.getName()));
+            }
+            return rooms;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Layout)) {
+                return false;
+            }
+            Layout other = (Layout) o;
+            return Arrays.equals(x, other.x) && Arrays.equals(y, other.y)
+                    && Arrays.equals(width, other.width) && Arrays.equals(height, other.height);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(x) + Arrays.hashCode(y);
+        }
+
+        @Override
+        public String toString() {
+            Rectangle bounds = getBounds();
+            return String.format("%d of %d adjacencies, %dx%d, score %.2f", adjacenciesMet, adjacenciesRequired,
+                    bounds.width, bounds.height, score);
+        }
+    }
+
+    /**
+     * One start of the search. Rooms are real {@link Room} objects, so the plan's own rules
+     * apply; only the room that changed is checked against the others.
+     */
+    private final class Search {
+        private final SplittableRandom random;
+        private final int count = specs.size();
+        private final Room[] rooms = new Room[count];
+        private final boolean[] placed = new boolean[count];
+        // Which rooms share a wall, kept up to date for the room that changed
+        private final boolean[][] touching = new boolean[count][count];
+        private final int[] stack = new int[count];
+        private final boolean[] reached = new boolean[count];
+        private long evaluations = 0;
+        private int met;
+
+        Search(SplittableRandom random) {
+            this.random = random;
+        }
+
+        Layout run(int steps) {
+            build();
+            double score = evaluate();
+            for (int step = 0; step < steps && count > 1; step++) {
+                int index = random.nextInt(count);
+                Room old = rooms[index];
+                int oldX = old.getX();
+                int oldY = old.getY();
+                // Turning creates a new room, moving reuses it
+                if (random.nextInt(4) == 0 && old.getWidth() != old.getHeight()) {
+                    rooms[index] = new Room(oldX, oldY, old.getHeight(), old.getWidth(), specs.get(index).getType(), null);
+                }
+                moveNextTo(index, pickOther(index));
+                evaluations++;
+                if (!overlaps(index)) {
+                    updateTouching(index);
+                    if (isConnected()) {
+                        double newScore = evaluate();
+                        if (newScore >= score) {
+                            score = newScore;
+                            continue;
+                        }
+                    }
+                }
+                rooms[index] = old;
+                old.setPosition(new Point(oldX, oldY));
+                updateTouching(index);
+            }
+            score = evaluate();
+            evaluated.add(evaluations);
+            return toLayout(score);
+        }
+
+        /**
+         * Places the rooms one by one in random order, each at the best of a few random
+         * positions against rooms placed before it.
+         */
+        private void build() {
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            for (int k = 0; k < count; k++) {
+                int index = order[k];
+                RoomSpec spec = specs.get(index);
+                boolean turned = random.nextBoolean();
+                rooms[index] = new Room(0, 0, turned ? spec.getHeight() : spec.getWidth(),
+                        turned ? spec.getWidth() : spec.getHeight(), spec.getType(), null);
+                placed[index] = true;
+                if (k == 0) {
+                    continue;
+                }
+                int bestX = 0;
+                int bestY = 0;
+                double bestScore = Double.NEGATIVE_INFINITY;
+                for (int t = 0; t < PLACEMENT_TRIES; t++) {
+                    moveNextTo(index, order[random.nextInt(k)]);
+                    evaluations++;
+                    if (overlaps(index)) {
+                        continue;
+                    }
+                    updateTouching(index);
+                    double score = evaluate();
+                    if (score > bestScore) {
+                        bestScore = score;
+                        bestX = rooms[index].getX();
+                        bestY = rooms[index].getY();
+                    }
+                }
+                if (bestScore == Double.NEGATIVE_INFINITY) {
+                    // East of the room reaching furthest east nothing can be in the way
+                    int east = order[0];
+                    for (int i = 1; i < k; i++) {
+                        Room room = rooms[order[i]];
+                        if (room.getX() + room.getWidth() > rooms[east].getX() + rooms[east].getWidth()) {
+                            east = order[i];
+                        }
+                    }
+                    bestX = rooms[east].getX() + rooms[east].getWidth();
+                    bestY = rooms[east].getY();
+                }
+                rooms[index].setPosition(new Point(bestX, bestY));
+                updateTouching(index);
+            }
+        }
+
+        private int pickOther(int index) {
+            int other = random.nextInt(count - 1);
+            return other >= index ? other + 1 : other;
+        }
+
+        /**
+         * Moves a room against a random wall of another room, aligned with one of its ends or
+         * its middle, or at a random offset along the wall.
+         */
+        private void moveNextTo(int index, int baseIndex) {
+            Room room = rooms[index];
+            Room base = rooms[baseIndex];
+            boolean vertical = random.nextBoolean(); // North or South of the base room
+            int size = vertical ? room.getWidth() : room.getHeight();
+            int baseSize = vertical ? base.getWidth() : base.getHeight();
+            int offset;
+            switch (random.nextInt(6)) {
+                case 0:
+                    offset = 0; // Left
+                    break;
+                case 1:
+                    offset = baseSize - size; // Right
+                    break;
+                case 2:
+                    offset = (baseSize - size) / 2 / GRID * GRID; // Center
+                    break;
+                default:
+                    // Anywhere the walls still overlap by a grid step
+                    int low = -(size / GRID - 1);
+                    int high = baseSize / GRID - 1;
+                    offset = GRID * (low + random.nextInt(high - low + 1));
+            }
+            int x;
+            int y;
+            if (vertical) {
+                x = base.getX() + offset;
+                y = random.nextBoolean() ? base.getY() - room.getHeight() : base.getY() + base.getHeight();
+            } else {
+                x = random.nextBoolean() ? base.getX() - room.getWidth() : base.getX() + base.getWidth();
+                y = base.getY() + offset;
+            }
+            room.setPosition(new Point(x, y));
+        }
+
+        private boolean overlaps(int index) {
+            Room room = rooms[index];
+            for (int i = 0; i < count; i++) {
+                if (i != index && placed[i] && rooms[i].intersects(room)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void updateTouching(int index) {
+            Room room = rooms[index];
+            for (int i = 0; i < count; i++) {
+                boolean shared = i != index && placed[i] && touches(room, rooms[i]);
+                touching[index][i] = shared;
+                touching[i][index] = shared;
+            }
+        }
+
+        private boolean isConnected() {
+            Arrays.fill(reached, false);
+            int size = 0;
+            stack[size++] = 0;
+            reached[0] = true;
+            int found = 1;
+            while (size > 0) {
+                int index = stack[--size];
+                for (int i = 0; i < count; i++) {
+                    if (touching[index][i] && !reached[i]) {
+                        reached[i] = true;
+                        stack[size++] = i;
+                        found++;
+                    }
+                }
+            }
+            return found == count;
+        }
+
+        /**
+         * Scores the placed rooms and remembers how many adjacencies they meet.
+         */
+        private double evaluate() {
+            met = 0;
+            for (int[] adjacency : adjacencies) {
+                if (touching[adjacency[0]][adjacency[1]]) {
+                    met++;
+                }
+            }
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            long roomArea = 0;
+            for (int i = 0; i < count; i++) {
+                if (!placed[i]) {
+                    continue;
+                }
+                Room room = rooms[i];
+                minX = Math.min(minX, room.getX());
+                minY = Math.min(minY, room.getY());
+                maxX = Math.max(maxX, room.getX() + room.getWidth());
+                maxY = Math.max(maxY, room.getY() + room.getHeight());
+                roomArea += (long) room.getWidth() * room.getHeight();
+            }
+            long width = maxX - minX;
+            long height = maxY - minY;
+            double waste = (width * height - roomArea) / (double) roomArea;
+            double aspect = (double) Math.max(width, height) / Math.min(width, height) - 1;
+            return met * ADJACENCY_SCORE - waste * WASTE_PENALTY - aspect * ASPECT_PENALTY;
+        }
+
+        private Layout toLayout(double score) {
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            for (Room room : rooms) {
+                minX = Math.min(minX, room.getX());
+                minY = Math.min(minY, room.getY());
+            }
+            int[] x = new int[count];
+            int[] y = new int[count];
+            int[] width = new int[count];
+            int[] height = new int[count];
+            for (int i = 0; i < count; i++) {
+                x[i] = rooms[i].getX() - minX;
+                y[i] = rooms[i].getY() - minY;
+                width[i] = rooms[i].getWidth();
+                height[i] = rooms[i].getHeight();
+            }
+            return new Layout(specs, x, y, width, height, score, met, adjacencies.size());
+        }
+    }
+}
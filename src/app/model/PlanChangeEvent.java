@@ -0,0 +1,83 @@
+package app.model;
+
+import java.awt.Rectangle;
+
+/**
+ * Describes one change to the plan and the area it affects.
+ */
+public final class PlanChangeEvent {
+    public enum Type {
+        ADDED, REMOVED, MOVED, RESIZED, ROTATED,
+        /** The whole plan was replaced or rewritten; listeners should refresh everything. */
+        RESET
+    }
+
+    private final Type type;
+    private final PlanItem item;
+    private final Rectangle oldBounds;
+    private final Rectangle newBounds;
+
+    public PlanChangeEvent(Type type, PlanItem item, Rectangle oldBounds, Rectangle newBounds) {
+        this.type = type;
+        this.item = item;
+        this.oldBounds = oldBounds == null ? null : new Rectangle(oldBounds);
+        this.newBounds = newBounds == null ? null : new Rectangle(newBounds);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the changed item.
+     *
+     * @return The item, or null for {@link Type#RESET}.
+     */
+    public PlanItem getItem() {
+        return item;
+    }
+
+    /**
+     * Gets the area the item covered before the change.
+     *
+     * @return The old bounds, or null if the item was added.
+     */
+    public Rectangle getOldBounds() {
+        return oldBounds == null ? null : new Rectangle(oldBounds);
+    }
+
+    /**
+     * Gets the area the item covers after the change.
+     *
+     * @return The new bounds, or null if the item was removed.
+     */
+    public Rectangle getNewBounds() {
+        return newBounds == null ? null : new Rectangle(newBounds);
+    }
+
+    /**
+     * Gets the area that has to be redrawn, i.e. the union of old and new bounds.
+     *
+     * @return The damaged area, or null for {@link Type#RESET}.
+     */
+    public Rectangle getDamage() {
+        if (oldBounds == null) return getNewBounds();
+        if (newBounds == null) return getOldBounds();
+        return oldBounds.union(newBounds);
+    }
+
+    /**
+     * Merges this event with a later one of the same type on the same item.
+     *
+     * @param later The later event.
+     * @return One event spanning from this event's old bounds to the later event's new bounds.
+     */
+    PlanChangeEvent mergeWith(PlanChangeEvent later) {
+        return new PlanChangeEvent(type, item, oldBounds, later.newBounds);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + (item == null ? "" : item.getClass().getSimpleName()) + " " + getDamage();
+    }
+}
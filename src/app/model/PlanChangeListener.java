@@ -0,0 +1,11 @@
+package app.model;
+
+import java.util.List;
+
+/**
+ * Listener interface for plan changes.
+ * Events are coalesced and delivered in batches, at most once per dispatch.
+ */
+public interface PlanChangeListener {
+    void planChanged(List<PlanChangeEvent> events);
+}
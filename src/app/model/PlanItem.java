@@ -7,6 +7,20 @@ import java.awt.Rectangle;
  * Interface representing an item on the floor plan.
  */
 public interface PlanItem {
+    /**
+     * Gets the id of the item. It is saved with the plan, so it stays the same across sessions.
+     *
+     * @return A positive id, unique within the plan.
+     */
+    long getId();
+
+    /**
+     * Replaces the id, e.g. when a reader restores a saved item or the model resolves a clash.
+     *
+     * @param id A positive id.
+     */
+    void setId(long id);
+
     Rectangle getBounds();
     boolean intersects(PlanItem other);
     boolean contains(Point p);
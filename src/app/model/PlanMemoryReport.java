@@ -0,0 +1,276 @@
+package app.model;
+
+import app.util.ImageStore;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.*;
+
+/**
+ * Estimated memory retained by an open plan, broken down by category.
+ * Sizes are computed from field layouts for a 64-bit JVM with compressed references
+ * (12 byte object headers, 4 byte references, 8 byte alignment), not measured,
+ * so they are meant for comparing categories and setting budgets.
+ * Must be created on the thread that edits the model.
+ */
+public final class PlanMemoryReport {
+    private static final int HEADER = 12;
+    private static final int REF = 4;
+    private static final int ARRAY_HEADER = 16;
+
+    // Shallow sizes of the plan classes
+    private static final long ROOM = align(HEADER + 8 + 4 * 4 + 3 * REF + 3 * REF);
+    private static final long DOOR = align(HEADER + 8 + 4 * 4 + 2 * REF);
+    private static final long FURNITURE = align(HEADER + 8 + 4 * 4 + 5 * REF + 4 + 1);
+    private static final long ARRAY_LIST = align(HEADER + 4 + REF + 4);
+    private static final long COMMAND = align(HEADER + 4 * REF);
+
+    // Furniture index: entry plus IdentityHashMap slots, LinkedHashSet node plus table slot by type,
+    // and per spatial cell a HashMap node, boxed key and list
+    private static final long INDEX_ENTRY = align(HEADER + REF + 8 + 5 * 4) + 2 * 2 * REF
+            + align(HEADER + 4 + 5 * REF) + 2 * REF;
+    private static final long INDEX_CELL = align(HEADER + 4 + 3 * REF) + 2 * REF + align(HEADER + 8)
+            + align(HEADER + 4 + REF + 4) + ARRAY_HEADER;
+
+    // Shallow sizes of the snapshot classes
+    private static final long PLAN_SNAPSHOT = align(HEADER + REF + 8) + align(HEADER + REF);
+    private static final long TREE_NODE = align(HEADER + 8 + REF + 4 + 2 * REF + 4);
+    private static final long ROOM_SNAPSHOT = align(HEADER + 2 * 8 + 4 * 4 + 3 * REF + 3 * REF);
+    private static final long ITEM_SNAPSHOT = align(HEADER + 2 * 8 + REF + 4 * 4 + REF + 4 + 2 * REF);
+    private static final long UNMODIFIABLE_LIST = align(HEADER + 2 * REF);
+    // HashMap node, table slots and boxed Long, per item in the model's id index
+    private static final long ID_ENTRY = align(HEADER + 4 + 3 * REF) + 2 * REF + align(HEADER + 8);
+    // IdentityHashMap slots, HashMap node, table slot and boxed Long, per registered item
+    private static final long KEY_ENTRY = 2 * 2 * REF + align(HEADER + 4 + 3 * REF) + 2 * REF + 2 * align(HEADER + 8);
+
+    /**
+     * One line of the report.
+     */
+    public static final class Entry {
+        private final String category;
+        private final long count;
+        private final long bytes;
+
+        Entry(String category, long count, long bytes) {
+            this.category = category;
+            this.count = count;
+            this.bytes = bytes;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private PlanMemoryReport() {
+    }
+
+    /**
+     * Estimates the memory retained by a model.
+     *
+     * @param model The model.
+     * @return The report.
+     */
+    public static PlanMemoryReport of(PlanModel model) {
+        PlanMemoryReport report = new PlanMemoryReport();
+        report.addPlan(model);
+        report.addImages(model);
+        report.addHistory("Undo history", model.getUndoStack(), model);
+        report.addHistory("Redo history", model.getRedoStack(), model);
+        report.addVersions(model.getVersions());
+        return report;
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public long getTotalBytes() {
+        long total = 0;
+        for (Entry entry : entries) {
+            total += entry.bytes;
+        }
+        return total;
+    }
+
+    private void add(String category, long count, long bytes) {
+        entries.add(new Entry(category, count, bytes));
+    }
+
+    private void addPlan(PlanModel model) {
+        long rooms = 0, arrays = 0, arrayBytes = 0;
+        long doors = 0, windows = 0, furnitures = 0;
+        Set<String> names = Collections.newSetFromMap(new IdentityHashMap<>());
+        long nameBytes = 0;
+        for (Room room : model.getRooms()) {
+            rooms++;
+            // Names are interned, so rooms with the same name share one string
+            if (room.getName() != null && names.add(room.getName())) {
+                nameBytes += stringBytes(room.getName());
+            }
+            for (int size : new int[]{room.getDoors().size(), room.getWindows().size(), room.getFurnitures().size()}) {
+                if (size > 0) {
+                    arrays++;
+                    arrayBytes += arrayBytes(size);
+                }
+            }
+            doors += room.getDoors().size();
+            windows += room.getWindows().size();
+            furnitures += room.getFurnitures().size();
+        }
+        add("Rooms", rooms, rooms * ROOM);
+        add("Room names", names.size(), nameBytes);
+        add("Room item arrays", arrays, arrayBytes);
+        add("Doors", doors, doors * DOOR);
+        add("Windows", windows, windows * DOOR);
+        add("Furniture", furnitures, furnitures * FURNITURE);
+        FurnitureIndex index = model.getFurnitureIndex();
+        add("Furniture index", index.size(), index.size() * INDEX_ENTRY + index.getCellCount() * INDEX_CELL
+                + index.getCellSlotCount() * REF);
+        add("Item id index", model.getIdIndexSize(), model.getIdIndexSize() * ID_ENTRY);
+    }
+
+    private void addImages(PlanModel model) {
+        Set<Image> scaled = Collections.newSetFromMap(new IdentityHashMap<>());
+        long scaledBytes = 0;
+        for (Furniture furniture : model.getFurnitures()) {
+            Image image = furniture.getLoadedImage();
+            if (image != null && scaled.add(image)) {
+                // Scaled instances are rendered at the furniture size the first time they are drawn
+                scaledBytes += imageBytes(image, furniture.getWidth(), furniture.getHeight());
+            }
+        }
+        add("Images (scaled)", scaled.size(), scaledBytes);
+
+        // The shared image store holds each distinct picture once, encoded and, once used, decoded
+        add("Images (encoded)", ImageStore.getStoredCount(), ImageStore.getStoredBytes());
+        add("Images (decoded sources)", ImageStore.getDecodedCount(), ImageStore.getDecodedBytes());
+    }
+
+    private void addHistory(String category, Deque<Command> commands, PlanModel model) {
+        // Rooms that only the history still holds, e.g. deleted ones
+        Set<Room> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        live.addAll(model.getRooms());
+        Set<Room> retained = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (Command command : commands) {
+            bytes += COMMAND;
+            Room room = command.getAffectedRoom();
+            if (room != null && !live.contains(room) && retained.add(room)) {
+                bytes += roomBytes(room) + arrayBytes(room.getDoors().size()) + arrayBytes(room.getWindows().size())
+                        + arrayBytes(room.getFurnitures().size()) + room.getDoors().size() * DOOR
+                        + room.getWindows().size() * DOOR + room.getFurnitures().size() * FURNITURE;
+            }
+        }
+        add(category, commands.size(), bytes);
+    }
+
+    private void addVersions(VersionedPlan versions) {
+        Set<Object> seenNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<RoomSnapshot> seenRooms = Collections.newSetFromMap(new IdentityHashMap<>());
+        long[] versionCount = {0};
+        long[] nodes = {0};
+        long[] roomBytes = {0};
+        versions.forEachVersion(snapshot -> {
+            versionCount[0]++;
+            nodes[0] += snapshot.forEachUnseenRoom(seenNodes, room -> {
+                if (seenRooms.add(room)) {
+                    roomBytes[0] += roomSnapshotBytes(room);
+                }
+            });
+        });
+        add("Plan versions", versionCount[0], versionCount[0] * PLAN_SNAPSHOT + nodes[0] * TREE_NODE);
+        add("Room snapshots", seenRooms.size(), roomBytes[0]);
+        add("Version key registry", versions.getKeyCount(), versions.getKeyCount() * KEY_ENTRY);
+    }
+
+    private static long roomBytes(Room room) {
+        // The type and color are shared flyweights
+        return ROOM + (room.getName() != null ? stringBytes(room.getName()) : 0);
+    }
+
+    private static long roomSnapshotBytes(RoomSnapshot room) {
+        int items = room.getDoors().size() + room.getWindows().size() + room.getFurnitures().size();
+        return ROOM_SNAPSHOT + 3 * UNMODIFIABLE_LIST + listBytes(room.getDoors().size())
+                + listBytes(room.getWindows().size()) + listBytes(room.getFurnitures().size())
+                + items * ITEM_SNAPSHOT;
+    }
+
+    /**
+     * Estimates an ArrayList that grew to the given size by adding one element at a time.
+     */
+    private static long listBytes(int size) {
+        int capacity = 0;
+        if (size > 0) {
+            capacity = 10;
+            while (capacity < size) {
+                capacity += capacity >> 1;
+            }
+        }
+        return ARRAY_LIST + (capacity > 0 ? align(ARRAY_HEADER + (long) capacity * REF) : 0);
+    }
+
+    /**
+     * Estimates an exactly sized reference array. Empty ones are a shared constant.
+     */
+    private static long arrayBytes(int size) {
+        return size > 0 ? align(ARRAY_HEADER + (long) size * REF) : 0;
+    }
+
+    private static long stringBytes(String s) {
+        return align(HEADER + REF + 4 + 1 + 1) + align(ARRAY_HEADER + s.length());
+    }
+
+    /**
+     * Estimates the pixels of an image, using the expected size if it has not been rendered yet.
+     */
+    private static long imageBytes(Image image, int expectedWidth, int expectedHeight) {
+        if (image instanceof BufferedImage) {
+            DataBuffer buffer = ((BufferedImage) image).getRaster().getDataBuffer();
+            return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+        }
+        int width = image.getWidth(null);
+        int height = image.getHeight(null);
+        if (width <= 0 || height <= 0) {
+            width = expectedWidth;
+            height = expectedHeight;
+        }
+        // Toolkit images are decoded into 32-bit pixels
+        return (long) width * height * 4;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-26s %10s %12s%n", "Category", "Count", "Bytes"));
+        for (Entry entry : entries) {
+            sb.append(String.format("%-26s %10d %12s%n", entry.category, entry.count, formatBytes(entry.bytes)));
+        }
+        sb.append(String.format("%-26s %10s %12s%n", "Total", "", formatBytes(getTotalBytes())));
+        return sb.toString();
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes >= 1 << 20) {
+            return String.format("%.1f MB", bytes / (double) (1 << 20));
+        }
+        if (bytes >= 1 << 10) {
+            return String.format("%.1f KB", bytes / (double) (1 << 10));
+        }
+        return bytes + " B";
+    }
+}
@@ -0,0 +1,1738 @@
+package app.model;
+
+import app.util.CommandEvent;
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * UI-independent floor plan engine.
+ * Owns the rooms and furniture, the placement rules and the undo/redo history.
+ * Operations report rule violations as {@link PlanResult} values instead of showing dialogs,
+ * so the model can run without a display.
+ */
+public class PlanModel {
+    public static final int GRID_SIZE = 20;
+
+    // Seeks of up to this many steps replay the commands in between; longer ones restore the
+    // recorded version of the target directly. Every command has its own version, so there are
+    // no checkpoints to replay from.
+    private static final int MAX_REPLAY_STEPS = 50;
+
+    private final List<Room> rooms = new ArrayList<>();
+
+    // Rooms own their furniture; the index is derived from the change events
+    private final FurnitureIndex furnitureIndex = new FurnitureIndex();
+
+    // Rooms, doors, windows and furniture by id, also derived from the change events
+    private final Map<Long, PlanItem> itemsById = new HashMap<>();
+
+    // Counts and areas, also derived from the change events
+    private final PlanStatistics statistics = new PlanStatistics();
+
+    // Size of the drawing area; walls on its border count as external
+    private int planWidth = 0;
+    private int planHeight = 0;
+
+    // Next Room Position for Row-Major Placement
+    private int nextRoomX = 0; // Starting x position aligned to grid
+    private int nextRoomY = 0; // Starting y position aligned to grid
+
+    // Undo and Redo Stacks (Encapsulated)
+    private final Deque<Command> undoStack = new ArrayDeque<>();
+    private final Deque<Command> redoStack = new ArrayDeque<>();
+
+    // Immutable versions of the plan, kept in step with the undo and redo stacks
+    private final VersionedPlan versions = new VersionedPlan();
+
+    // Set when rooms were appended since the history was last reset; only the current
+    // version has them, so history seeks have to replay commands instead of restoring
+    private boolean versionsIncomplete = false;
+
+    // Open transaction, if any, and the notifications held back until it commits
+    private CompositeCommand transaction = null;
+    private int transactionDepth = 0;
+    private boolean rollbackOnly = false;
+    private int notificationHolds = 0;
+
+    // Change events waiting to be coalesced and delivered
+    private List<PlanChangeEvent> pendingEvents = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private Executor eventDispatcher = Runnable::run;
+
+    private final List<PlanChangeListener> changeListeners = new ArrayList<>();
+    private final List<HistoryListener> historyListeners = new ArrayList<>();
+
+    // Time spent in checkRoomOverlap, read by the paint metrics from any thread
+    private volatile long overlapCheckCount = 0;
+    private volatile long overlapCheckNanos = 0;
+    private volatile long lastOverlapCheckNanos = 0;
+
+    public List<Room> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Gets all furniture of the plan, collected from the rooms that own it.
+     *
+     * @return A read-only list, room by room.
+     */
+    public List<Furniture> getFurnitures() {
+        List<Furniture> result = new ArrayList<>(furnitureIndex.size());
+        for (Room room : rooms) {
+            result.addAll(room.getFurnitures());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public int getFurnitureCount() {
+        return furnitureIndex.size();
+    }
+
+    /**
+     * Gets the furniture of one type, e.g. all chairs.
+     *
+     * @param type The furniture type.
+     * @return A read-only view in the order the furniture was added.
+     */
+    public Set<Furniture> getFurnituresOfType(String type) {
+        return furnitureIndex.ofType(type);
+    }
+
+    /**
+     * Finds the furniture under a point. Where pieces overlap, the one added first wins.
+     *
+     * @param p The point.
+     * @return The furniture, or null.
+     */
+    public Furniture findFurnitureAt(Point p) {
+        return furnitureIndex.find(p);
+    }
+
+    /**
+     * Gets the furniture drawn in an area.
+     *
+     * @param area The area.
+     * @return The furniture whose rotated bounds intersect the area, in the order it was added.
+     */
+    public List<Furniture> getFurnituresIn(Rectangle area) {
+        return furnitureIndex.query(area);
+    }
+
+    /**
+     * Gets the running totals of the plan. They are up to date as soon as a command, undo or
+     * redo returns, before the change events are delivered.
+     *
+     * @return The statistics; they keep changing with the plan.
+     */
+    public PlanStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Finds an item by its id, e.g. one stored in a file or another tool.
+     *
+     * @param id The item id.
+     * @return The room, door, window or furniture in the plan with that id, or null.
+     */
+    public PlanItem getItem(long id) {
+        return itemsById.get(id);
+    }
+
+    /**
+     * Sets the size of the drawing area used by the external wall rule.
+     *
+     * @param width  The width in pixels.
+     * @param height The height in pixels.
+     */
+    public void setPlanSize(int width, int height) {
+        this.planWidth = width;
+        this.planHeight = height;
+    }
+
+    public int getPlanWidth() {
+        return planWidth;
+    }
+
+    public int getPlanHeight() {
+        return planHeight;
+    }
+
+    /**
+     * Snaps a point to the nearest grid intersection.
+     *
+     * @param p The original point.
+     * @return The snapped point.
+     */
+    public static Point snapToGrid(Point p) {
+        int x = (p.x / GRID_SIZE) * GRID_SIZE;
+        int y = (p.y / GRID_SIZE) * GRID_SIZE;
+        return new Point(x, y);
+    }
+
+    /**
+     * Gets the position of a door or window centered on a wall of a room, snapped to the grid.
+     * East and West items sit just outside the room, like the walls are drawn.
+     *
+     * @param room      The room.
+     * @param direction The wall direction.
+     * @param width     The item width.
+     * @param height    The item height.
+     * @return The position, or null for an unknown direction.
+     */
+    public static Point wallPosition(Room room, String direction, int width, int height) {
+        Point position;
+        switch (direction) {
+            case "North":
+                position = new Point(room.getX() + (room.getWidth() - width) / 2, room.getY());
+                break;
+            case "South":
+                position = new Point(room.getX() + (room.getWidth() - width) / 2, room.getY() + room.getHeight());
+                break;
+            case "East":
+                position = new Point(room.getX() + room.getWidth(), room.getY() + (room.getHeight() - height) / 2);
+                break;
+            case "West":
+                position = new Point(room.getX() - width, room.getY() + (room.getHeight() - height) / 2);
+                break;
+            default:
+                return null;
+        }
+        return snapToGrid(position);
+    }
+
+    // ---------------------------------------------------------------------
+    // Listeners
+    // ---------------------------------------------------------------------
+
+    public void addChangeListener(PlanChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(PlanChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    public void addHistoryListener(HistoryListener listener) {
+        historyListeners.add(listener);
+    }
+
+    /**
+     * Sets how batches of change events are delivered. The default delivers them
+     * synchronously at the end of each operation; a Swing view passes
+     * {@code SwingUtilities::invokeLater} so that all changes made during one
+     * EDT task arrive as a single batch.
+     *
+     * @param dispatcher Runs the delivery task.
+     */
+    public void setEventDispatcher(Executor dispatcher) {
+        this.eventDispatcher = dispatcher;
+    }
+
+    /**
+     * Queues a change event for the next delivery.
+     */
+    private void emit(PlanChangeEvent.Type type, PlanItem item, Rectangle oldBounds, Rectangle newBounds) {
+        if (item instanceof Furniture) {
+            updateFurnitureIndex(type, (Furniture) item);
+        }
+        if (type == PlanChangeEvent.Type.ADDED) {
+            indexId(item);
+            statistics.add(item);
+        } else if (type == PlanChangeEvent.Type.REMOVED) {
+            itemsById.remove(item.getId(), item);
+            statistics.remove(item);
+        }
+        pendingEvents.add(new PlanChangeEvent(type, item, oldBounds, newBounds));
+    }
+
+    private void emitRoomAdded(Room room) {
+        emit(PlanChangeEvent.Type.ADDED, room, null, room.getExtent());
+        emitChildren(room, true);
+    }
+
+    private void emitRoomRemoved(Room room) {
+        emit(PlanChangeEvent.Type.REMOVED, room, room.getExtent(), null);
+        emitChildren(room, false);
+    }
+
+    private void emitChildren(Room room, boolean added) {
+        PlanChangeEvent.Type type = added ? PlanChangeEvent.Type.ADDED : PlanChangeEvent.Type.REMOVED;
+        for (Door door : room.getDoors()) {
+            emit(type, door, added ? null : door.getBounds(), added ? door.getBounds() : null);
+        }
+        for (PlanWindow window : room.getWindows()) {
+            emit(type, window, added ? null : window.getBounds(), added ? window.getBounds() : null);
+        }
+        for (Furniture furniture : room.getFurnitures()) {
+            Rectangle bounds = furniture.getDisplayBounds();
+            emit(type, furniture, added ? null : bounds, added ? bounds : null);
+        }
+    }
+
+    private void updateFurnitureIndex(PlanChangeEvent.Type type, Furniture furniture) {
+        switch (type) {
+            case ADDED:
+                furnitureIndex.add(furniture);
+                break;
+            case REMOVED:
+                furnitureIndex.remove(furniture);
+                break;
+            default:
+                furnitureIndex.update(furniture);
+                break;
+        }
+    }
+
+    /**
+     * Adds an item to the id index. An item whose id is already taken by another item, e.g.
+     * one from a copied plan, gets a new id, so ids stay unique within the plan.
+     */
+    private void indexId(PlanItem item) {
+        PlanItem previous = itemsById.putIfAbsent(item.getId(), item);
+        while (previous != null && previous != item) {
+            item.setId(ItemIds.next());
+            previous = itemsById.putIfAbsent(item.getId(), item);
+        }
+    }
+
+    private void rebuildIdIndex() {
+        itemsById.clear();
+        for (Room room : rooms) {
+            indexId(room);
+            room.getDoors().forEach(this::indexId);
+            room.getWindows().forEach(this::indexId);
+            room.getFurnitures().forEach(this::indexId);
+        }
+    }
+
+    private void emitReset() {
+        furnitureIndex.rebuild(rooms);
+        rebuildIdIndex();
+        statistics.rebuild(rooms);
+        pendingEvents.clear();
+        emit(PlanChangeEvent.Type.RESET, null, null, null);
+    }
+
+    /**
+     * Schedules delivery of the queued change events, unless a transaction or bulk undo
+     * is still running. Repeated calls before the delivery runs share one batch.
+     */
+    private void fireChanged() {
+        if (notificationHolds > 0 || flushScheduled || pendingEvents.isEmpty()) {
+            return;
+        }
+        flushScheduled = true;
+        eventDispatcher.execute(this::flushEvents);
+    }
+
+    /**
+     * Delivers the queued change events as one coalesced batch.
+     */
+    private void flushEvents() {
+        flushScheduled = false;
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        List<PlanChangeEvent> batch = coalesce(pendingEvents);
+        pendingEvents = new ArrayList<>();
+        for (PlanChangeListener listener : new ArrayList<>(changeListeners)) {
+            listener.planChanged(batch);
+        }
+    }
+
+    /**
+     * Merges successive move, resize and rotate events on the same item, and drops
+     * everything before the last reset.
+     */
+    private static List<PlanChangeEvent> coalesce(List<PlanChangeEvent> events) {
+        List<PlanChangeEvent> result = new ArrayList<>(events.size());
+        Map<PlanItem, Integer> lastIndex = new IdentityHashMap<>();
+        for (PlanChangeEvent event : events) {
+            if (event.getType() == PlanChangeEvent.Type.RESET) {
+                result.clear();
+                lastIndex.clear();
+                result.add(event);
+                continue;
+            }
+            Integer previous = lastIndex.get(event.getItem());
+            if (previous != null && isMergeable(event) && result.get(previous).getType() == event.getType()) {
+                result.set(previous, result.get(previous).mergeWith(event));
+                continue;
+            }
+            lastIndex.put(event.getItem(), result.size());
+            result.add(event);
+        }
+        return result;
+    }
+
+    private static boolean isMergeable(PlanChangeEvent event) {
+        switch (event.getType()) {
+            case MOVED:
+            case RESIZED:
+            case ROTATED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void fireHistoryChanged() {
+        if (transactionDepth > 0) {
+            return; // Sent once the transaction finishes
+        }
+        int position = getHistoryPosition();
+        int length = getHistoryLength();
+        for (HistoryListener listener : historyListeners) {
+            listener.onHistoryChanged(position, length);
+        }
+    }
+
+    private void holdNotifications() {
+        notificationHolds++;
+    }
+
+    private void releaseNotifications() {
+        if (--notificationHolds == 0) {
+            fireChanged();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Rules
+    // ---------------------------------------------------------------------
+
+    /**
+     * Checks if the newRoom overlaps with any existing rooms.
+     *
+     * @param newRoom The room to check for overlaps.
+     * @return True if there is an overlap, false otherwise.
+     */
+    public boolean checkRoomOverlap(Room newRoom) {
+        long start = System.nanoTime();
+        boolean overlap = false;
+        for (Room room : rooms) {
+            if (room != newRoom && room.intersects(newRoom)) {
+                overlap = true;
+                break;
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        lastOverlapCheckNanos = nanos;
+        overlapCheckNanos += nanos;
+        overlapCheckCount++;
+        return overlap;
+    }
+
+    public long getOverlapCheckCount() {
+        return overlapCheckCount;
+    }
+
+    /**
+     * Gets the total time spent in {@link #checkRoomOverlap(Room)}.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getOverlapCheckNanos() {
+        return overlapCheckNanos;
+    }
+
+    public long getLastOverlapCheckNanos() {
+        return lastOverlapCheckNanos;
+    }
+
+    /**
+     * Determines if a wall is external based on its direction and room position.
+     *
+     * @param room      The room containing the wall.
+     * @param direction The direction of the wall.
+     * @return True if the wall is external, false otherwise.
+     */
+    public boolean isExternalWall(Room room, String direction) {
+        return isExternalWall(room, direction, planWidth, planHeight);
+    }
+
+    /**
+     * Determines if a wall lies on the border of a drawing area of the given size.
+     *
+     * @param room       The room containing the wall.
+     * @param direction  The direction of the wall.
+     * @param planWidth  The width of the drawing area.
+     * @param planHeight The height of the drawing area.
+     * @return True if the wall is external, false otherwise.
+     */
+    public static boolean isExternalWall(Room room, String direction, int planWidth, int planHeight) {
+        switch(direction) {
+            case "North":
+                return room.getY() == 0;
+            case "South":
+                return (room.getY() + room.getHeight()) == planHeight;
+            case "East":
+                return (room.getX() + room.getWidth()) == planWidth;
+            case "West":
+                return room.getX() == 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks if a wall is shared with another room.
+     *
+     * @param room The room to check.
+     * @param direction The direction of the wall.
+     * @return True if the wall is shared with another room, false otherwise.
+     */
+    public boolean isWallShared(Room room, String direction) {
+        for (Room otherRoom : rooms) {
+            if (otherRoom != room && sharesWall(room, otherRoom, direction)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a wall of a room lies against a wall of another room. The walls must overlap by
+     * more than a point; rooms that only touch at a corner do not share a wall.
+     *
+     * @param room      The room whose wall is checked.
+     * @param otherRoom The other room.
+     * @param direction The direction of the wall of room.
+     * @return True if the wall is shared with otherRoom, false otherwise.
+     */
+    public static boolean sharesWall(Room room, Room otherRoom, String direction) {
+        switch (direction) {
+            case "North":
+                return otherRoom.getY() + otherRoom.getHeight() == room.getY() &&
+                    rangesOverlap(room.getX(), room.getX() + room.getWidth(), otherRoom.getX(), otherRoom.getX() + otherRoom.getWidth());
+            case "South":
+                return otherRoom.getY() == room.getY() + room.getHeight() &&
+                    rangesOverlap(room.getX(), room.getX() + room.getWidth(), otherRoom.getX(), otherRoom.getX() + otherRoom.getWidth());
+            case "East":
+                return otherRoom.getX() == room.getX() + room.getWidth() &&
+                    rangesOverlap(room.getY(), room.getY() + room.getHeight(), otherRoom.getY(), otherRoom.getY() + otherRoom.getHeight());
+            case "West":
+                return otherRoom.getX() + otherRoom.getWidth() == room.getX() &&
+                    rangesOverlap(room.getY(), room.getY() + room.getHeight(), otherRoom.getY(), otherRoom.getY() + otherRoom.getHeight());
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Helper method to determine if two ranges overlap.
+     *
+     * @param start1 Start of first range.
+     * @param end1 End of first range.
+     * @param start2 Start of second range.
+     * @param end2 End of second range.
+     * @return True if ranges overlap, false otherwise.
+     */
+    private static boolean rangesOverlap(int start1, int end1, int start2, int end2) {
+        return Math.max(start1, start2) < Math.min(end1, end2);
+    }
+
+    /**
+     * Checks if a door/window overlaps with existing doors or windows on the same wall.
+     *
+     * @param room The room where the door/window is being added.
+     * @param item The door/window being added.
+     * @return True if there is an overlap, false otherwise.
+     */
+    public boolean isOverlappingDoorOrWindow(Room room, PlanItem item) {
+        for (Door door : room.getDoors()) {
+            if (door != item && door.intersects(item)) {
+                return true;
+            }
+        }
+        for (PlanWindow window : room.getWindows()) {
+            if (window != item && window.intersects(item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the item is within the bounds of the room's wall.
+     *
+     * @param room The room containing the wall.
+     * @param item The item to check.
+     * @return True if within bounds, false otherwise.
+     */
+    public boolean isWithinWallBounds(Room room, PlanItem item) {
+        Rectangle roomBounds = room.getBounds();
+        Rectangle itemBounds = item.getBounds();
+
+        String direction = "";
+        if (item instanceof Door) {
+            direction = ((Door)item).getDirection();
+        } else if (item instanceof PlanWindow) {
+            direction = ((PlanWindow)item).getDirection();
+        }
+
+        switch(direction) {
+            case "North":
+            case "South":
+                return roomBounds.x <= itemBounds.x && (itemBounds.x + item.getWidth()) <= (roomBounds.x + roomBounds.width);
+            case "East":
+            case "West":
+                return roomBounds.y <= itemBounds.y && (itemBounds.y + item.getHeight()) <= (roomBounds.y + roomBounds.height);
+            default:
+                return false;
+        }
+    }
+
+    static boolean isBedroomOrBathroom(Room room) {
+        return room.getType().equalsIgnoreCase("Bedroom") || room.getType().equalsIgnoreCase("Bathroom");
+    }
+
+    // ---------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------
+
+    /**
+     * Adds a room at the next free row-major position.
+     *
+     * @param type   The type of the room.
+     * @param color  The color of the room.
+     * @param width  The width of the room.
+     * @param height The height of the room.
+     * @param name   The optional name of the room.
+     * @return The outcome.
+     */
+    public PlanResult addRoom(String type, Color color, int width, int height, String name) {
+        // Position based on nextRoomX and nextRoomY
+        Room newRoom = new Room(nextRoomX, nextRoomY, width, height, type, color, name);
+        // Check for overlap
+        if (checkRoomOverlap(newRoom)) {
+            return PlanResult.error("Placement Error", "Cannot place room here. It overlaps with an existing room.");
+        }
+        executeCommand(new AddRoomCommand(newRoom));
+        // Update next position (row-major order)
+        nextRoomX += width; // Removed GRID_SIZE for spacing between rooms
+        if (nextRoomX + width > planWidth) {
+            nextRoomX = 0;
+            nextRoomY += height; // Removed GRID_SIZE for spacing between rooms
+        }
+        return PlanResult.ok();
+    }
+
+    /**
+     * Adds a relative room to an existing room with specified dimensions, alignment, and optional name.
+     *
+     * @param baseRoom  The base room to which the new room is relative.
+     * @param type      The type of the new room.
+     * @param direction The direction relative to the base room.
+     * @param alignment The alignment relative to the wall (Left, Center, Right).
+     * @param color     The color representing the room type.
+     * @param width     The width of the new room.
+     * @param height    The height of the new room.
+     * @param name      The optional name of the new room.
+     * @return The outcome.
+     */
+    public PlanResult addRelativeRoom(Room baseRoom, String type, String direction, String alignment, Color color, int width, int height, String name) {
+        int newX = baseRoom.getX();
+        int newY = baseRoom.getY();
+
+        switch (direction) {
+            case "North":
+                newY = baseRoom.getY() - height; // Removed GRID_SIZE for spacing
+                break;
+            case "South":
+                newY = baseRoom.getY() + baseRoom.getHeight(); // Removed GRID_SIZE for spacing
+                break;
+            case "East":
+                newX = baseRoom.getX() + baseRoom.getWidth(); // Removed GRID_SIZE for spacing
+                break;
+            case "West":
+                newX = baseRoom.getX() - width; // Removed GRID_SIZE for spacing
+                break;
+            default:
+                return PlanResult.error("Error", "Invalid direction for relative room.");
+        }
+
+        // Adjust alignment
+        switch (alignment) {
+            case "Left":
+                if (direction.equals("North") || direction.equals("South")) {
+                    newX = baseRoom.getX();
+                } else {
+                    newY = baseRoom.getY();
+                }
+                break;
+            case "Center":
+                if (direction.equals("North") || direction.equals("South")) {
+                    newX = baseRoom.getX() + (baseRoom.getWidth() - width) / 2;
+                } else {
+                    newY = baseRoom.getY() + (baseRoom.getHeight() - height) / 2;
+                }
+                break;
+            case "Right":
+                if (direction.equals("North") || direction.equals("South")) {
+                    newX = baseRoom.getX() + baseRoom.getWidth() - width;
+                } else {
+                    newY = baseRoom.getY() + baseRoom.getHeight() - height;
+                }
+                break;
+            default:
+                return PlanResult.error("Error", "Invalid alignment option.");
+        }
+
+        Room newRoom = new Room(newX, newY, width, height, type, color, name);
+        // Check for overlap
+        if (checkRoomOverlap(newRoom)) {
+            return PlanResult.error("Placement Error", "Cannot place room here. It overlaps with an existing room.");
+        }
+
+        executeCommand(new AddRelativeRoomCommand(newRoom));
+        return PlanResult.ok();
+    }
+
+    /**
+     * Adds a group of rooms, such as a {@link LayoutSolver} layout, below the rooms already in
+     * the plan. The rooms keep their positions relative to each other and are added as one undo step.
+     *
+     * @param newRooms The rooms, positioned relative to 0,0.
+     * @return The outcome; if a room would overlap another, nothing is added and the rooms
+     *         keep their positions.
+     */
+    public PlanResult addRooms(List<Room> newRooms) {
+        int offsetY = 0;
+        for (Room room : rooms) {
+            offsetY = Math.max(offsetY, room.getY() + room.getHeight());
+        }
+        offsetY = (offsetY + GRID_SIZE - 1) / GRID_SIZE * GRID_SIZE;
+        // Checked at their new places before any room is moved
+        List<Rectangle> placed = new ArrayList<>(newRooms.size());
+        for (Room room : newRooms) {
+            Rectangle bounds = room.getBounds();
+            bounds.translate(0, offsetY);
+            if (intersectsAny(bounds, placed) || intersectsAnyRoom(bounds)) {
+                return PlanResult.error("Placement Error", "Cannot place the rooms here. They overlap with each other.");
+            }
+            placed.add(bounds);
+        }
+        beginTransaction();
+        for (Room room : newRooms) {
+            room.setPosition(new Point(room.getX(), room.getY() + offsetY));
+            executeCommand(new AddRoomCommand(room));
+        }
+        commitTransaction();
+        return PlanResult.ok();
+    }
+
+    private static boolean intersectsAny(Rectangle bounds, List<Rectangle> others) {
+        for (Rectangle other : others) {
+            if (other.intersects(bounds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean intersectsAnyRoom(Rectangle bounds) {
+        for (Room room : rooms) {
+            if (room.getBounds().intersects(bounds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks the wall rules for a door before its size is known.
+     *
+     * @param room      The room to which the door would be added.
+     * @param direction The wall direction.
+     * @return The outcome.
+     */
+    public PlanResult checkDoorWall(Room room, String direction) {
+        if (room == null) {
+            return PlanResult.error("Error", "No room selected.");
+        }
+        if (isBedroomOrBathroom(room)) {
+            // Prevent Bedroom/Bathroom doors from leading outside
+            if (isExternalWall(room, direction)) {
+                return PlanResult.error("Placement Error", "ERROR: Bedroom/Bathroom doors cannot lead directly outside.");
+            }
+            if (!isWallShared(room, direction)) {
+                return PlanResult.error("Placement Error", "ERROR: Bedroom/Bathroom doors must be placed on walls connecting to another room.");
+            }
+        }
+        return PlanResult.ok();
+    }
+
+    /**
+     * Adds a door to a specified room.
+     *
+     * @param room       The room to which the door will be added.
+     * @param direction  The direction ("North", "South", "East", "West") where the door will be placed.
+     * @param doorLength The length of the door along the wall.
+     * @return The outcome.
+     */
+    public PlanResult addDoor(Room room, String direction, int doorLength) {
+        PlanResult wallCheck = checkDoorWall(room, direction);
+        if (!wallCheck.isOk()) {
+            return wallCheck;
+        }
+        if (doorLength <= 0) {
+            return PlanResult.error("Input Error", "Invalid door length entered.");
+        }
+
+        // Determine door dimensions based on direction
+        int doorWidth, doorHeight;
+        if (direction.equals("North") || direction.equals("South")) {
+            doorWidth = doorLength;
+            doorHeight = 20; // Fixed height for horizontal doors
+        } else { // East or West
+            doorWidth = 20; // Fixed width for vertical doors
+            doorHeight = doorLength;
+        }
+
+        // Determine door position on the specified wall
+        Door newDoor = new Door(doorWidth, doorHeight, direction);
+
+        // Center the door on the specified wall, snapped to the grid
+        Point position = wallPosition(room, direction, newDoor.getWidth(), newDoor.getHeight());
+        if (position == null) {
+            return PlanResult.error("Error", "Invalid direction for door.");
+        }
+        newDoor.setPosition(position);
+
+        // Check if door is within wall bounds
+        if (!isWithinWallBounds(room, newDoor)) {
+            return PlanResult.error("Placement Error", "Door positioning is out of wall bounds!");
+        }
+
+        // Check for overlapping with existing doors and windows
+        if (isOverlappingDoorOrWindow(room, newDoor)) {
+            return PlanResult.error("Overlap Error", "Cannot place door here. It overlaps with an existing door or window!");
+        }
+
+        executeCommand(new AddDoorCommand(room, newDoor));
+        return PlanResult.ok();
+    }
+
+    /**
+     * Checks the wall rules for a window before its size is known.
+     *
+     * @param room      The room to which the window would be added.
+     * @param direction The wall direction.
+     * @return The outcome.
+     */
+    public PlanResult checkWindowWall(Room room, String direction) {
+        if (room == null) {
+            return PlanResult.error("Error", "No room selected.");
+        }
+
+        // Prevent windows on the same wall overlapping with existing doors
+        for (Door door : room.getDoors()) {
+            if (door.getDirection().equals(direction)) {
+                return PlanResult.error("Placement Error", "Cannot place window on a wall that has a door!");
+            }
+        }
+
+        // Check if the wall is shared with another room
+        if (isWallShared(room, direction)) {
+            return PlanResult.error("Placement Error", "Cannot place window on a wall shared with another room.");
+        }
+        return PlanResult.ok();
+    }
+
+    /**
+     * Adds a window to a specified room.
+     *
+     * @param room         The room to which the window will be added.
+     * @param direction    The direction ("North", "South", "East", "West") where the window will be placed.
+     * @param windowLength The length of the window along the wall.
+     * @return The outcome.
+     */
+    public PlanResult addWindow(Room room, String direction, int windowLength) {
+        PlanResult wallCheck = checkWindowWall(room, direction);
+        if (!wallCheck.isOk()) {
+            return wallCheck;
+        }
+        if (windowLength <= 0) {
+            return PlanResult.error("Input Error", "Invalid window length entered.");
+        }
+
+        PlanWindow newWindow = new PlanWindow(
+                direction.equals("North") || direction.equals("South") ? windowLength : 10,
+                direction.equals("North") || direction.equals("South") ? 10 : windowLength,
+                direction
+        );
+
+        // Center the window on the specified wall, snapped to the grid
+        Point position = wallPosition(room, direction, newWindow.getWidth(), newWindow.getHeight());
+        if (position == null) {
+            return PlanResult.error("Error", "Invalid direction for window.");
+        }
+        newWindow.setPosition(position);
+
+        // Check if window is within wall bounds
+        if (!isWithinWallBounds(room, newWindow)) {
+            return PlanResult.error("Placement Error", "Window positioning is out of wall bounds!");
+        }
+
+        // Check for overlap with existing windows and doors
+        if (isOverlappingDoorOrWindow(room, newWindow)) {
+            return PlanResult.error("Overlap Error", "Cannot place window here. Overlaps with existing window or door!");
+        }
+
+        executeCommand(new AddWindowCommand(room, newWindow));
+        return PlanResult.ok();
+    }
+
+    /**
+     * Adds furniture to a room.
+     *
+     * @param room      The room to which the furniture will be added.
+     * @param furniture The furniture to add.
+     */
+    public void addFurniture(Room room, Furniture furniture) {
+        executeCommand(new AddFurnitureCommand(room, furniture));
+    }
+
+    /**
+     * Adds furniture to a free place in a room, clear of the walls, the door swings and the
+     * furniture already there. Like {@link #addFurniture}, adding always succeeds: if the room
+     * has no free place, the furniture is added where it is.
+     *
+     * @param room      The room to which the furniture will be added.
+     * @param furniture The furniture to add.
+     * @return The outcome; a warning if the furniture was added without a free place.
+     */
+    public PlanResult placeFurniture(Room room, Furniture furniture) {
+        FurnitureArranger arranger = new FurnitureArranger(room);
+        for (Furniture other : room.getFurnitures()) {
+            arranger.block(other.getDisplayBounds());
+        }
+        FurnitureArranger.Placement placement = arranger.place(furniture);
+        if (placement != null) {
+            furniture.setAngle(placement.getAngle());
+            furniture.setPosition(placement.getPosition());
+        }
+        executeCommand(new AddFurnitureCommand(room, furniture));
+        if (placement == null) {
+            return PlanResult.warning("Placement Warning", "There is no free space for the " + furniture.getType()
+                    + " in this room. It was added where it was dropped and may overlap other furniture.");
+        }
+        return PlanResult.ok();
+    }
+
+    /**
+     * Rearranges the furniture of rooms with {@link FurnitureArranger} as one undo step.
+     * Arrangements of different rooms are worked out in parallel; only the furniture of the
+     * given rooms is touched.
+     *
+     * @param arranged The rooms to arrange.
+     * @return The outcome; furniture that does not fit stays where it is.
+     */
+    public PlanResult arrangeFurniture(List<Room> arranged) {
+        List<FurnitureArranger.Arrangement> arrangements = arranged.parallelStream()
+                .map(FurnitureArranger::arrange)
+                .collect(Collectors.toList());
+        int unplaced = 0;
+        beginTransaction();
+        for (FurnitureArranger.Arrangement arrangement : arrangements) {
+            for (FurnitureArranger.Placement placement : arrangement.getPlacements()) {
+                Furniture furniture = placement.getFurniture();
+                if (furniture.getAngle() != placement.getAngle()) {
+                    executeCommand(new RotateFurnitureCommand(furniture, furniture.getAngle(), placement.getAngle()));
+                }
+                if (!furniture.getPosition().equals(placement.getPosition())) {
+                    executeCommand(new MoveFurnitureCommand(furniture, furniture.getPosition(), placement.getPosition()));
+                }
+            }
+            unplaced += arrangement.getUnplaced().size();
+        }
+        commitTransaction();
+        if (unplaced > 0) {
+            return PlanResult.warning("Arrangement Warning", unplaced + " pieces of furniture do not fit and were left where they were.");
+        }
+        return PlanResult.ok();
+    }
+
+    /**
+     * Deletes a room together with its doors, windows and furniture.
+     *
+     * @param room The room to delete.
+     */
+    public void deleteRoom(Room room) {
+        executeCommand(new DeleteRoomCommand(room));
+    }
+
+    /**
+     * Commits a room move. The room may already sit at its new position, e.g. after dragging.
+     * If it would overlap another room it is put back where it was.
+     *
+     * @param room        The room being moved.
+     * @param oldPosition Where the room was before the move.
+     * @param newPosition Where the room should end up.
+     * @return The outcome.
+     */
+    public PlanResult moveRoom(Room room, Point oldPosition, Point newPosition) {
+        room.setPosition(newPosition);
+        if (checkRoomOverlap(room)) {
+            room.setPosition(oldPosition);
+            return PlanResult.error("Overlap Error", "Rooms cannot overlap!");
+        }
+        executeCommand(new MoveRoomCommand(room, oldPosition, newPosition));
+        return PlanResult.ok();
+    }
+
+    /**
+     * Commits a furniture move. The furniture may already sit at its new position.
+     *
+     * @param furniture   The furniture being moved.
+     * @param oldPosition Where the furniture was before the move.
+     * @param newPosition Where the furniture should end up.
+     * @return The outcome. If the furniture would overlap other furniture it is put back.
+     */
+    public PlanResult moveFurniture(Furniture furniture, Point oldPosition, Point newPosition) {
+        furniture.setPosition(newPosition);
+        // Only checked when it moved, so pieces that already overlap can still be clicked
+        if (!newPosition.equals(oldPosition) && isOverlappingFurniture(furniture)) {
+            furniture.setPosition(oldPosition);
+            return PlanResult.error("Overlap Error", "Furniture cannot overlap!");
+        }
+        executeCommand(new MoveFurnitureCommand(furniture, oldPosition, newPosition));
+        return PlanResult.ok();
+    }
+
+    /**
+     * Checks if furniture, as drawn, overlaps other furniture of the plan.
+     *
+     * @param furniture The furniture to check.
+     * @return True if there is an overlap, false otherwise.
+     */
+    public boolean isOverlappingFurniture(Furniture furniture) {
+        Rectangle bounds = furniture.getDisplayBounds();
+        for (Furniture other : furnitureIndex.query(bounds)) {
+            if (other != furniture && other.getDisplayBounds().intersects(bounds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rotates the specified furniture.
+     *
+     * @param furniture The furniture to rotate.
+     * @param clockwise True to rotate clockwise, false for counter-clockwise.
+     */
+    public void rotateFurniture(Furniture furniture, boolean clockwise) {
+        int oldAngle = furniture.getAngle();
+        int newAngle = oldAngle + (clockwise ? 90 : -90);
+        executeCommand(new RotateFurnitureCommand(furniture, oldAngle, newAngle));
+    }
+
+    /**
+     * Replaces the whole plan, e.g. after loading a file, and clears the history.
+     * Doors, windows and furniture are re-linked to their rooms.
+     *
+     * @param newRooms The rooms of the new plan.
+     */
+    public void replaceAll(List<Room> newRooms) {
+        rooms.clear();
+        rooms.addAll(newRooms);
+        for (Room room : rooms) {
+            linkItems(room);
+        }
+        clearHistory();
+        emitReset();
+        fireChanged();
+    }
+
+    /**
+     * Adds rooms without recording them for undo, e.g. batches from a streaming import.
+     * The rooms already in the plan are not copied again, so adding a plan batch by batch
+     * stays linear. The history is left alone, so edits made between batches can still be
+     * undone; call {@link #clearHistory()} once all rooms are in, which makes the whole
+     * import a single history reset.
+     *
+     * @param newRooms The rooms to add, with their doors, windows and furniture.
+     */
+    public void appendRooms(List<Room> newRooms) {
+        for (Room room : newRooms) {
+            linkItems(room);
+            rooms.add(room);
+            emitRoomAdded(room);
+        }
+        versions.append(newRooms);
+        versionsIncomplete = true;
+        fireChanged();
+    }
+
+    private static void linkItems(Room room) {
+        for (Door door : room.getDoors()) {
+            door.setRoom(room);
+        }
+        for (PlanWindow window : room.getWindows()) {
+            window.setRoom(room);
+        }
+        for (Furniture furniture : room.getFurnitures()) {
+            furniture.setRoom(room);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // History
+    // ---------------------------------------------------------------------
+
+    /**
+     * Executes a command and records it for undo.
+     *
+     * @param command The command to run.
+     */
+    public void executeCommand(Command command) {
+        runForwards(command, "execute");
+        pushUndo(command);
+        clearRedo();
+        fireChanged();
+    }
+
+    /**
+     * Executes a command and records a flight recorder event for it.
+     *
+     * @param command The command.
+     * @param action  "execute" or "redo".
+     */
+    private void runForwards(Command command, String action) {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        command.execute();
+        commitCommandEvent(event, command, action);
+    }
+
+    /**
+     * Undoes a command and records a flight recorder event for it.
+     *
+     * @param command The command.
+     * @param action  "undo" or "rollback".
+     */
+    private void runBackwards(Command command, String action) {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        command.undo();
+        commitCommandEvent(event, command, action);
+    }
+
+    private void commitCommandEvent(CommandEvent event, Command command, String action) {
+        event.end();
+        if (event.shouldCommit()) {
+            Room room = command.getAffectedRoom();
+            event.command = command.getClass().getSimpleName();
+            event.action = action;
+            event.room = room != null ? room.getName() : null;
+            event.historyPosition = undoStack.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Pushes an already executed command onto the undo stack and records the resulting plan version.
+     *
+     * @param command The command to push.
+     */
+    public void pushUndo(Command command) {
+        if (transaction != null) {
+            transaction.add(command);
+        } else {
+            undoStack.push(command);
+        }
+        versions.commit(rooms, command.getAffectedRoom(), command.removesAffectedRoom());
+        fireHistoryChanged();
+    }
+
+    /**
+     * Clears the redo stack.
+     */
+    public void clearRedo() {
+        redoStack.clear();
+        versions.clearRedo();
+        fireHistoryChanged();
+    }
+
+    /**
+     * Clears the undo and redo history, e.g. after a different plan was loaded.
+     */
+    public void clearHistory() {
+        undoStack.clear();
+        redoStack.clear();
+        versions.reset(rooms);
+        versionsIncomplete = false;
+        fireHistoryChanged();
+    }
+
+    /**
+     * Starts a transaction. Every command pushed until the matching {@link #commitTransaction()}
+     * becomes a single undo step, and change notifications are held back.
+     * Transactions may be nested; only the outermost one commits.
+     */
+    public void beginTransaction() {
+        if (transactionDepth++ == 0) {
+            transaction = new CompositeCommand();
+            versions.beginGroup();
+            holdNotifications();
+        }
+    }
+
+    /**
+     * Commits the current transaction as one undo step, then notifies once.
+     * If a nested transaction was rolled back, the outermost one is rolled back instead.
+     */
+    public void commitTransaction() {
+        if (transactionDepth == 0) {
+            throw new IllegalStateException("No transaction in progress");
+        }
+        if (--transactionDepth > 0) {
+            return;
+        }
+        if (rollbackOnly) {
+            finishRollback();
+            return;
+        }
+        CompositeCommand committed = transaction;
+        transaction = null;
+        if (!committed.isEmpty()) {
+            undoStack.push(committed);
+        }
+        versions.endGroup();
+        fireHistoryChanged();
+        releaseNotifications();
+    }
+
+    /**
+     * Rolls back the current transaction. At the outermost level every command of the
+     * transaction is undone and discarded. A nested transaction only marks the outermost one
+     * as rollback-only, so the callers around it can still end their own levels with
+     * {@link #commitTransaction()} or {@link #rollbackTransaction()}; everything is undone
+     * when the outermost level ends.
+     */
+    public void rollbackTransaction() {
+        if (transactionDepth == 0) {
+            throw new IllegalStateException("No transaction in progress");
+        }
+        rollbackOnly = true;
+        if (--transactionDepth == 0) {
+            finishRollback();
+        }
+    }
+
+    private void finishRollback() {
+        rollbackOnly = false;
+        CompositeCommand rolledBack = transaction;
+        transaction = null;
+        runBackwards(rolledBack, "rollback");
+        versions.cancelGroup();
+        fireHistoryChanged();
+        releaseNotifications();
+    }
+
+    public boolean isInTransaction() {
+        return transactionDepth > 0;
+    }
+
+    /**
+     * Tells whether a nested transaction was rolled back, so the open transaction will be
+     * rolled back when its outermost level ends.
+     *
+     * @return True if the open transaction can no longer commit.
+     */
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    // Package-private views of the history for the memory report
+
+    Deque<Command> getUndoStack() {
+        return undoStack;
+    }
+
+    Deque<Command> getRedoStack() {
+        return redoStack;
+    }
+
+    VersionedPlan getVersions() {
+        return versions;
+    }
+
+    FurnitureIndex getFurnitureIndex() {
+        return furnitureIndex;
+    }
+
+    int getIdIndexSize() {
+        return itemsById.size();
+    }
+
+    /**
+     * Gets the latest committed version of the plan.
+     * The snapshot never changes, so it can be read from background threads
+     * while the user keeps editing.
+     *
+     * @return The current plan snapshot.
+     */
+    public PlanSnapshot getSnapshot() {
+        return versions.current();
+    }
+
+    /**
+     * Gets the number of commands that can currently be undone.
+     *
+     * @return The position in the history timeline.
+     */
+    public int getHistoryPosition() {
+        return undoStack.size();
+    }
+
+    /**
+     * Gets the total number of recorded commands, undone ones included.
+     *
+     * @return The length of the history timeline.
+     */
+    public int getHistoryLength() {
+        return undoStack.size() + redoStack.size();
+    }
+
+    /**
+     * Performs an undo operation.
+     */
+    public void performUndo() {
+        if (!undoStack.isEmpty()) {
+            Command cmd = undoStack.pop();
+            holdNotifications();
+            runBackwards(cmd, "undo");
+            redoStack.push(cmd);
+            versions.undo();
+            fireChanged();
+            releaseNotifications();
+            fireHistoryChanged();
+        }
+    }
+
+    /**
+     * Performs a redo operation.
+     */
+    public void performRedo() {
+        if (!redoStack.isEmpty()) {
+            Command cmd = redoStack.pop();
+            holdNotifications();
+            runForwards(cmd, "redo");
+            undoStack.push(cmd);
+            versions.redo();
+            fireChanged();
+            releaseNotifications();
+            fireHistoryChanged();
+        }
+    }
+
+    /**
+     * Jumps to a point in the history timeline and notifies once.
+     * Short jumps undo or redo the commands in between; long jumps restore the
+     * recorded plan version for that point directly.
+     *
+     * @param position The number of commands that should be applied, from 0 to the history length.
+     */
+    public void seekHistory(int position) {
+        position = Math.max(0, Math.min(position, getHistoryLength()));
+        int steps = position - getHistoryPosition();
+        if (steps == 0 || transactionDepth > 0) {
+            return;
+        }
+        holdNotifications();
+        PlanSnapshot target = versions.seek(steps);
+        if (Math.abs(steps) <= MAX_REPLAY_STEPS || versionsIncomplete) {
+            // Replay the commands in between
+            for (int i = steps; i < 0; i++) {
+                Command cmd = undoStack.pop();
+                runBackwards(cmd, "undo");
+                redoStack.push(cmd);
+            }
+            for (int i = steps; i > 0; i--) {
+                Command cmd = redoStack.pop();
+                runForwards(cmd, "redo");
+                undoStack.push(cmd);
+            }
+        } else {
+            // Move the commands across without running them and restore the recorded version
+            for (int i = steps; i < 0; i++) {
+                redoStack.push(undoStack.pop());
+            }
+            for (int i = steps; i > 0; i--) {
+                undoStack.push(redoStack.pop());
+            }
+            versions.restore(target, rooms);
+            emitReset();
+        }
+        fireChanged();
+        releaseNotifications();
+        fireHistoryChanged();
+    }
+
+    // ---------------------------------------------------------------------
+    // Commands
+    // ---------------------------------------------------------------------
+
+    /**
+     * Command that groups other commands into a single undo step.
+     */
+    public class CompositeCommand implements Command {
+        private List<Command> commands = new ArrayList<>();
+
+        public void add(Command command) {
+            commands.add(command);
+        }
+
+        public boolean isEmpty() {
+            return commands.isEmpty();
+        }
+
+        public int size() {
+            return commands.size();
+        }
+
+        @Override
+        public void execute() {
+            for (Command command : commands) {
+                command.execute();
+            }
+        }
+
+        @Override
+        public void undo() {
+            for (int i = commands.size() - 1; i >= 0; i--) {
+                commands.get(i).undo();
+            }
+        }
+
+        @Override
+        public Room getAffectedRoom() {
+            Room affected = null;
+            for (Command command : commands) {
+                Room room = command.getAffectedRoom();
+                if (room == null || (affected != null && affected != room)) {
+                    return null;
+                }
+                affected = room;
+            }
+            return affected;
+        }
+
+        @Override
+        public boolean removesAffectedRoom() {
+            // All commands touch the same room, so the last one decides whether it is still there
+            return !commands.isEmpty() && commands.get(commands.size() - 1).removesAffectedRoom();
+        }
+    }
+
+    /**
+     * Command to add a room.
+     */
+    public class AddRoomCommand implements Command {
+        private Room room;
+
+        public AddRoomCommand(Room room) {
+            this.room = room;
+        }
+
+        @Override
+        public void execute() {
+            rooms.add(room);
+            emitRoomAdded(room);
+        }
+
+        @Override
+        public void undo() {
+            rooms.remove(room);
+            emitRoomRemoved(room);
+        }
+
+        @Override
+        public Room getAffectedRoom() {
+            return room;
+        }
+    }
+
+    /**
+     * Command to add a relative room.
+     */
+    public class AddRelativeRoomCommand implements Command {
+        private Room room;
+
+        public AddRelativeRoomCommand(Room room) {
+            this.room = room;
+        }
+
+        @Override
+        public void execute() {
+            rooms.add(room);
+            emitRoomAdded(room);
+        }
+
+        @Override
+        public void undo() {
+            rooms.remove(room);
+            emitRoomRemoved(room);
+        }
+
+        @Override
+        public Room getAffectedRoom() {
+            return room;
+        }
+    }
+
+    /**
+     * Command to delete a room.
+     * The room keeps its doors, windows and furniture, so undo only has to put it back.
+     */
+    public class DeleteRoomCommand implements Command {
+        private Room room;
+
+        public DeleteRoomCommand(Room room) {
+            this.room = room;
+        }
+
+        @Override
+        public void execute() {
+            // The furniture goes with the room
+            rooms.remove(room);
+            emitRoomRemoved(room);
+        }
+
+        @Override
+        public void undo() {
+            // Add room back, it still owns its doors, windows and furnitures
+            rooms.add(room);
+            emitRoomAdded(room);
+        }
+
+        @Override
+        public Room getAffectedRoom() {
+            return room;
+        }
+
+        @Override
+        public boolean removesAffectedRoom() {
+            return true;
+        }
+    }
+
+    /**
+     * Command to move a room.
+     */
+    public class MoveRoomCommand implements Command {
+        private Room room;
+        private Point oldPosition;
+        private Point newPosition;
+
+        public MoveRoomCommand(Room room, Point oldPosition, Point newPosition) {
+            this.room = room;
+            this.oldPosition = oldPosition;
+            this.newPosition = newPosition;
+        }
+
+        @Override
+        public void execute() {
+            moveTo(oldPosition, newPosition);
+        }
+
+        @Override
+        public void undo() {
+            moveTo(newPosition, oldPosition);
+        }
+
+        private void moveTo(Point from, Point to) {
+            // The room may already be at 'to' after a drag, so derive the old extent from 'from'
+            room.setPosition(to);
+            Rectangle newExtent = room.getExtent();
+            Rectangle oldExtent = new Rectangle(newExtent);
+            oldExtent.translate(from.x - to.x, from.y - to.y);
+            emit(PlanChangeEvent.Type.MOVED, room, oldExtent, newExtent);
+        }
+
+        @Override
+        public Room getAffectedRoom() {
+            return room;
+        }
+    }
+
+    /**
+     * Command to add a door.
+     */
+    public class AddDoorCommand implements Command {
+        private Room room;
+        private Door door;
+
+        public AddDoorCommand(Room room, Door door) {
+            this.room = room;
+            this.door = door;
+        }
+
+        @Override
+        public void execute() {
+            room.addDoor(door);
+            emit(PlanChangeEvent.Type.ADDED, door, null, door.getBounds());
+        }
+
+        @Override
+        public void undo() {
+            room.removeDoor(door);
+            emit(PlanChangeEvent.Type.REMOVED, door, door.getBounds(), null);
+        }
+
+        @Override
+        public Room getAffectedRoom() {
+            return room;
+        }
+    }
+
+    /**
+     * Command to add a window.
+     */
+    public class AddWindowCommand implements Command {
+        private Room room;
+        private PlanWindow window;
+
+        public AddWindowCommand(Room room, PlanWindow window) {
+            this.room = room;
+            this.window = window;
+        }
+
+        @Override
+        public void execute() {
+            room.addWindow(window);
+            emit(PlanChangeEvent.Type.ADDED, window, null, window.getBounds());
+        }
+
+        @Override
+        public void undo() {
+            room.removeWindow(window);
+            emit(PlanChangeEvent.Type.REMOVED, window, window.getBounds(), null);
+        }
+
+        @Override
+        public Room getAffectedRoom() {
+            return room;
+        }
+    }
+
+    /**
+     * Command to add furniture.
+     */
+    public class AddFurnitureCommand implements Command {
+        private Room room;
+        private Furniture furniture;
+
+        public AddFurnitureCommand(Room room, Furniture furniture) {
+            this.room = room;
+            this.furniture = furniture;
+        }
+
+        @Override
+        public void execute() {
+            room.addFurniture(furniture);
+            emit(PlanChangeEvent.Type.ADDED, furniture, null, furniture.getDisplayBounds());
+        }
+
+        @Override
+        public void undo() {
+            room.removeFurniture(furniture);
+            emit(PlanChangeEvent.Type.REMOVED, furniture, furniture.getDisplayBounds(), null);
+        }
+
+        @Override
+        public Room getAffectedRoom() {
+            return room;
+        }
+    }
+
+    /**
+     * Command to move furniture.
+     */
+    public class MoveFurnitureCommand implements Command {
+        private Furniture furniture;
+        private Point oldPosition;
+        private Point newPosition;
+
+        public MoveFurnitureCommand(Furniture furniture, Point oldPosition, Point newPosition) {
+            this.furniture = furniture;
+            this.oldPosition = oldPosition;
+            this.newPosition = newPosition;
+        }
+
+        @Override
+        public void execute() {
+            moveTo(oldPosition, newPosition);
+        }
+
+        @Override
+        public void undo() {
+            moveTo(newPosition, oldPosition);
+        }
+
+        private void moveTo(Point from, Point to) {
+            // The furniture may already be at 'to' after a drag, so derive the old bounds from 'from'
+            furniture.setPosition(to);
+            Rectangle newBounds = furniture.getDisplayBounds();
+            Rectangle oldBounds = new Rectangle(newBounds);
+            oldBounds.translate(from.x - to.x, from.y - to.y);
+            emit(PlanChangeEvent.Type.MOVED, furniture, oldBounds, newBounds);
+        }
+
+        @Override
+        public Room getAffectedRoom() {
+            return furniture.getRoom();
+        }
+    }
+
+    /**
+     * Command to rotate furniture.
+     */
+    public class RotateFurnitureCommand implements Command {
+        private Furniture furniture;
+        private int oldAngle;
+        private int newAngle;
+
+        public RotateFurnitureCommand(Furniture furniture, int oldAngle, int newAngle) {
+            this.furniture = furniture;
+            this.oldAngle = oldAngle;
+            this.newAngle = newAngle;
+        }
+
+        @Override
+        public void execute() {
+            rotateTo(newAngle);
+        }
+
+        @Override
+        public void undo() {
+            rotateTo(oldAngle);
+        }
+
+        private void rotateTo(int angle) {
+            Rectangle oldBounds = furniture.getDisplayBounds();
+            furniture.setAngle(angle);
+            emit(PlanChangeEvent.Type.ROTATED, furniture, oldBounds, furniture.getDisplayBounds());
+        }
+
+        @Override
+        public Room getAffectedRoom() {
+            return furniture.getRoom();
+        }
+    }
+}
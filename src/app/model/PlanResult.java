@@ -0,0 +1,72 @@
+package app.model;
+
+/**
+ * Outcome of a plan operation. Rule violations are returned as values so the
+ * caller decides how to report them.
+ */
+public final class PlanResult {
+    private static final PlanResult OK = new PlanResult(true, null, null);
+
+    private final boolean ok;
+    private final String title;
+    private final String message;
+
+    private PlanResult(boolean ok, String title, String message) {
+        this.ok = ok;
+        this.title = title;
+        this.message = message;
+    }
+
+    public static PlanResult ok() {
+        return OK;
+    }
+
+    /**
+     * Creates a failed result.
+     *
+     * @param title   Short category of the failure, e.g. "Placement Error".
+     * @param message Human readable description.
+     * @return The failed result.
+     */
+    public static PlanResult error(String title, String message) {
+        return new PlanResult(false, title, message);
+    }
+
+    /**
+     * Creates a successful result that still has something to report, e.g. that part of
+     * the operation was done differently than asked.
+     *
+     * @param title   Short category of the warning, e.g. "Placement Warning".
+     * @param message Human readable description.
+     * @return The result.
+     */
+    public static PlanResult warning(String title, String message) {
+        return new PlanResult(true, title, message);
+    }
+
+    public boolean isOk() {
+        return ok;
+    }
+
+    /**
+     * Tells whether the operation succeeded with a warning.
+     *
+     * @return True for results made by {@link #warning(String, String)}.
+     */
+    public boolean isWarning() {
+        return ok && message != null;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return ok && message == null ? "OK" : title + ": " + message;
+    }
+}
@@ -0,0 +1,175 @@
+package app.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A building rule, checked one room at a time by a {@link RuleValidator}. A rule declares what
+ * its outcome depends on, so after a change only the rules that can be affected are checked
+ * again, and only for the rooms the change reaches.
+ */
+public final class PlanRule {
+    /**
+     * What the outcome of a rule for a room depends on.
+     */
+    public enum Dependency {
+        /** Position and size of the room itself. */
+        ROOM,
+        /** The rooms that overlap or touch the room. */
+        NEIGHBOURS,
+        /** The doors of the room. */
+        DOORS,
+        /** The windows of the room. */
+        WINDOWS,
+        /** The size of the drawing area. */
+        PLAN_SIZE
+    }
+
+    /**
+     * Decides whether an item of a room is allowed.
+     *
+     * @param <T> The kind of item.
+     */
+    public interface ItemCheck<T> {
+        boolean isAllowed(RuleContext context, Room room, T item);
+    }
+
+    public static final PlanRule ROOMS_DO_NOT_OVERLAP = forRooms("Rooms cannot overlap",
+            room -> true,
+            (context, room, unused) -> context.getNeighbours(room).stream().noneMatch(room::intersects),
+            Dependency.ROOM, Dependency.NEIGHBOURS);
+
+    public static final PlanRule BEDROOM_DOORS_NOT_OUTSIDE = forDoors("Bedroom/Bathroom doors cannot lead directly outside",
+            PlanModel::isBedroomOrBathroom,
+            (context, room, door) -> !context.isExternalWall(room, door.getDirection()),
+            Dependency.ROOM, Dependency.DOORS, Dependency.PLAN_SIZE);
+
+    public static final PlanRule BEDROOM_DOORS_ON_SHARED_WALLS = forDoors("Bedroom/Bathroom doors must be on walls connecting to another room",
+            PlanModel::isBedroomOrBathroom,
+            (context, room, door) -> context.isWallShared(room, door.getDirection()),
+            Dependency.ROOM, Dependency.NEIGHBOURS, Dependency.DOORS);
+
+    public static final PlanRule NO_WINDOWS_ON_SHARED_WALLS = forWindows("Windows cannot be on a wall shared with another room",
+            room -> true,
+            (context, room, window) -> !context.isWallShared(room, window.getDirection()),
+            Dependency.ROOM, Dependency.NEIGHBOURS, Dependency.WINDOWS);
+
+    public static final PlanRule NO_WINDOWS_ON_DOOR_WALLS = forWindows("Windows cannot be on a wall that has a door",
+            room -> true,
+            (context, room, window) -> room.getDoors().stream().noneMatch(door -> door.getDirection().equals(window.getDirection())),
+            Dependency.DOORS, Dependency.WINDOWS);
+
+    /**
+     * The rules the plan editor enforces when doors, windows and rooms are added.
+     */
+    public static final List<PlanRule> DEFAULTS = List.of(ROOMS_DO_NOT_OVERLAP, BEDROOM_DOORS_NOT_OUTSIDE,
+            BEDROOM_DOORS_ON_SHARED_WALLS, NO_WINDOWS_ON_SHARED_WALLS, NO_WINDOWS_ON_DOOR_WALLS);
+
+    private final String name;
+    private final Set<Dependency> dependencies;
+    private final Predicate<Room> appliesTo;
+    private final ItemCheck<Room> roomCheck;
+    private final ItemCheck<Door> doorCheck;
+    private final ItemCheck<PlanWindow> windowCheck;
+
+    private PlanRule(String name, Set<Dependency> dependencies, Predicate<Room> appliesTo, ItemCheck<Room> roomCheck,
+                     ItemCheck<Door> doorCheck, ItemCheck<PlanWindow> windowCheck) {
+        this.name = name;
+        this.dependencies = Collections.unmodifiableSet(dependencies);
+        this.appliesTo = appliesTo;
+        this.roomCheck = roomCheck;
+        this.doorCheck = doorCheck;
+        this.windowCheck = windowCheck;
+    }
+
+    /**
+     * Creates a rule about rooms.
+     *
+     * @param name         Description of what is required, shown with violations.
+     * @param appliesTo    Selects the rooms the rule is about.
+     * @param check        Decides whether a room is allowed; it is given the room twice.
+     * @param dependencies What the outcome depends on.
+     * @return The rule.
+     */
+    public static PlanRule forRooms(String name, Predicate<Room> appliesTo, ItemCheck<Room> check, Dependency... dependencies) {
+        return new PlanRule(name, toSet(dependencies), appliesTo, check, null, null);
+    }
+
+    /**
+     * Creates a rule about each door of a room.
+     *
+     * @param name         Description of what is required, shown with violations.
+     * @param appliesTo    Selects the rooms whose doors the rule is about.
+     * @param check        Decides whether a door is allowed.
+     * @param dependencies What the outcome depends on.
+     * @return The rule.
+     */
+    public static PlanRule forDoors(String name, Predicate<Room> appliesTo, ItemCheck<Door> check, Dependency... dependencies) {
+        return new PlanRule(name, toSet(dependencies), appliesTo, null, check, null);
+    }
+
+    /**
+     * Creates a rule about each window of a room.
+     *
+     * @param name         Description of what is required, shown with violations.
+     * @param appliesTo    Selects the rooms whose windows the rule is about.
+     * @param check        Decides whether a window is allowed.
+     * @param dependencies What the outcome depends on.
+     * @return The rule.
+     */
+    public static PlanRule forWindows(String name, Predicate<Room> appliesTo, ItemCheck<PlanWindow> check, Dependency... dependencies) {
+        return new PlanRule(name, toSet(dependencies), appliesTo, null, null, check);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<Dependency> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Checks one room.
+     *
+     * @param context    The rooms around it and the plan size.
+     * @param room       The room.
+     * @param violations Receives the violations found.
+     */
+    public void check(RuleContext context, Room room, List<Violation> violations) {
+        if (!appliesTo.test(room)) {
+            return;
+        }
+        if (roomCheck != null && !roomCheck.isAllowed(context, room, room)) {
+            violations.add(new Violation(this, room, room));
+        }
+        if (doorCheck != null) {
+            for (Door door : room.getDoors()) {
+                if (!doorCheck.isAllowed(context, room, door)) {
+                    violations.add(new Violation(this, room, door));
+                }
+            }
+        }
+        if (windowCheck != null) {
+            for (PlanWindow window : room.getWindows()) {
+                if (!windowCheck.isAllowed(context, room, window)) {
+                    violations.add(new Violation(this, room, window));
+                }
+            }
+        }
+    }
+
+    private static Set<Dependency> toSet(Dependency[] dependencies) {
+        Set<Dependency> set = EnumSet.noneOf(Dependency.class);
+        Collections.addAll(set, dependencies);
+        return set;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
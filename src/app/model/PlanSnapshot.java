@@ -0,0 +1,98 @@
+package app.model;
+
+import app.util.PersistentLongMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Immutable version of the whole plan.
+ * Versions share the room snapshots they have in common, so deriving a new version
+ * after a single-room change costs O(log n). Safe to read from any thread.
+ */
+public final class PlanSnapshot {
+    private static final PlanSnapshot EMPTY = new PlanSnapshot(PersistentLongMap.empty(), 0);
+
+    private final PersistentLongMap<RoomSnapshot> rooms;
+    private final long version;
+
+    private PlanSnapshot(PersistentLongMap<RoomSnapshot> rooms, long version) {
+        this.rooms = rooms;
+        this.version = version;
+    }
+
+    public static PlanSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a new version with the room snapshot added or replaced.
+     *
+     * @param room The room snapshot.
+     * @return The new version.
+     */
+    public PlanSnapshot withRoom(RoomSnapshot room) {
+        return new PlanSnapshot(rooms.put(room.getKey(), room), version + 1);
+    }
+
+    /**
+     * Returns a new version without the room stored under the key.
+     *
+     * @param key The room key.
+     * @return The new version.
+     */
+    public PlanSnapshot withoutRoom(long key) {
+        return new PlanSnapshot(rooms.remove(key), version + 1);
+    }
+
+    public RoomSnapshot getRoom(long key) {
+        return rooms.get(key);
+    }
+
+    /**
+     * Gets the rooms in the order they were first added.
+     *
+     * @return The room snapshots.
+     */
+    public List<RoomSnapshot> getRooms() {
+        return rooms.values();
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * Monotonic counter that grows with every derived version.
+     *
+     * @return The version number.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Visits the room snapshots of this version that were not visited before, for the memory report.
+     *
+     * @param seen   Identity set of the tree nodes already visited.
+     * @param action The action to run for each new room snapshot.
+     * @return The number of new tree nodes.
+     */
+    int forEachUnseenRoom(Set<Object> seen, Consumer<RoomSnapshot> action) {
+        return rooms.forEachUnseenNode(seen, action);
+    }
+
+    /**
+     * Builds independent mutable rooms from this version, e.g. for saving off the EDT.
+     *
+     * @return New Room objects.
+     */
+    public List<Room> toRooms() {
+        List<Room> result = new ArrayList<>(rooms.size());
+        for (RoomSnapshot room : rooms.values()) {
+            result.add(room.toRoom());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,227 @@
+package app.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running totals of a plan: rooms and floor area per room type, doors and windows with the
+ * wall length they take up, and furniture per type. {@link PlanModel} keeps its statistics in
+ * step with the change events of every command, undo and redo, each item costing a couple of
+ * map updates, so reading them never scans the rooms.
+ */
+public final class PlanStatistics {
+    private final Map<String, Tally> roomTypes = new HashMap<>();
+    private final Map<String, Tally> furnitureTypes = new HashMap<>();
+    private final Tally rooms = new Tally();
+    private final Tally doors = new Tally();
+    private final Tally windows = new Tally();
+    private final Tally furniture = new Tally();
+
+    /**
+     * Count and summed size of a group of items: floor area for rooms, wall length for doors
+     * and windows, footprint for furniture.
+     */
+    public static final class Tally {
+        private int count;
+        private long total;
+
+        private Tally() {
+        }
+
+        private Tally(Tally other) {
+            this.count = other.count;
+            this.total = other.total;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        private void add(Tally other) {
+            count += other.count;
+            total += other.total;
+        }
+    }
+
+    /**
+     * Works out the statistics of a plan that is not open, e.g. one read in a batch job.
+     *
+     * @param planRooms The rooms of the plan, with their doors, windows and furniture.
+     * @return The statistics.
+     */
+    public static PlanStatistics of(List<Room> planRooms) {
+        PlanStatistics statistics = new PlanStatistics();
+        statistics.rebuild(planRooms);
+        return statistics;
+    }
+
+    /**
+     * Adds up the statistics of several plans.
+     *
+     * @param plans The statistics of each plan.
+     * @return The combined statistics.
+     */
+    public static PlanStatistics sum(Collection<PlanStatistics> plans) {
+        PlanStatistics result = new PlanStatistics();
+        for (PlanStatistics plan : plans) {
+            result.rooms.add(plan.rooms);
+            result.doors.add(plan.doors);
+            result.windows.add(plan.windows);
+            result.furniture.add(plan.furniture);
+            plan.roomTypes.forEach((type, tally) -> result.roomTypes.computeIfAbsent(type, t -> new Tally()).add(tally));
+            plan.furnitureTypes.forEach((type, tally) -> result.furnitureTypes.computeIfAbsent(type, t -> new Tally()).add(tally));
+        }
+        return result;
+    }
+
+    /**
+     * Counts an item that joined the plan. Rooms are counted without their doors, windows
+     * and furniture, which the model reports as items of their own.
+     */
+    void add(PlanItem item) {
+        update(item, 1);
+    }
+
+    /**
+     * Takes away an item that left the plan.
+     */
+    void remove(PlanItem item) {
+        update(item, -1);
+    }
+
+    void rebuild(List<Room> planRooms) {
+        clear();
+        for (Room room : planRooms) {
+            add(room);
+            room.getDoors().forEach(this::add);
+            room.getWindows().forEach(this::add);
+            room.getFurnitures().forEach(this::add);
+        }
+    }
+
+    void clear() {
+        roomTypes.clear();
+        furnitureTypes.clear();
+        rooms.count = doors.count = windows.count = furniture.count = 0;
+        rooms.total = doors.total = windows.total = furniture.total = 0;
+    }
+
+    private void update(PlanItem item, int sign) {
+        if (item instanceof Room) {
+            Room room = (Room) item;
+            long area = (long) room.getWidth() * room.getHeight();
+            count(rooms, sign, area);
+            count(roomTypes, room.getType(), sign, area);
+        } else if (item instanceof Door || item instanceof PlanWindow) {
+            // Doors and windows are as deep as the wall, so their longer side is the opening
+            long length = Math.max(item.getWidth(), item.getHeight());
+            count(item instanceof Door ? doors : windows, sign, length);
+        } else if (item instanceof Furniture) {
+            Furniture piece = (Furniture) item;
+            long area = (long) piece.getWidth() * piece.getHeight();
+            count(furniture, sign, area);
+            count(furnitureTypes, piece.getType(), sign, area);
+        }
+    }
+
+    private static void count(Tally tally, int sign, long size) {
+        tally.count += sign;
+        tally.total += sign * size;
+    }
+
+    private static void count(Map<String, Tally> byType, String type, int sign, long size) {
+        Tally tally = byType.computeIfAbsent(type, t -> new Tally());
+        count(tally, sign, size);
+        if (tally.count == 0) {
+            byType.remove(type); // Types drop out once their last item is gone
+        }
+    }
+
+    /**
+     * Gets the rooms and their total floor area.
+     *
+     * @return A copy of the tally.
+     */
+    public Tally getRooms() {
+        return new Tally(rooms);
+    }
+
+    /**
+     * Gets the doors and the wall length they open.
+     *
+     * @return A copy of the tally.
+     */
+    public Tally getDoors() {
+        return new Tally(doors);
+    }
+
+    /**
+     * Gets the windows and the wall length they take up.
+     *
+     * @return A copy of the tally.
+     */
+    public Tally getWindows() {
+        return new Tally(windows);
+    }
+
+    /**
+     * Gets all furniture and its total footprint.
+     *
+     * @return A copy of the tally.
+     */
+    public Tally getFurniture() {
+        return new Tally(furniture);
+    }
+
+    public int getRoomCount() {
+        return rooms.count;
+    }
+
+    public long getTotalArea() {
+        return rooms.total;
+    }
+
+    public int getDoorCount() {
+        return doors.count;
+    }
+
+    public int getWindowCount() {
+        return windows.count;
+    }
+
+    public int getFurnitureCount() {
+        return furniture.count;
+    }
+
+    /**
+     * Gets the rooms and floor area of each room type in the plan.
+     *
+     * @return A read-only copy, sorted by type.
+     */
+    public Map<String, Tally> getRoomTypes() {
+        return copy(roomTypes);
+    }
+
+    /**
+     * Gets the number and footprint of each furniture type in the plan.
+     *
+     * @return A read-only copy, sorted by type.
+     */
+    public Map<String, Tally> getFurnitureTypes() {
+        return copy(furnitureTypes);
+    }
+
+    private static Map<String, Tally> copy(Map<String, Tally> byType) {
+        Map<String, Tally> result = new TreeMap<>();
+        byType.forEach((type, tally) -> result.put(type, new Tally(tally)));
+        return Collections.unmodifiableMap(result);
+    }
+}
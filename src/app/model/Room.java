@@ -3,23 +3,54 @@ package app.model;
 import java.awt.Color;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * Represents a room in the floor plan.
+ * Kept compact for very large plans: the type and color are shared flyweights, the name is
+ * interned, and the doors, windows and furnitures are held in exactly sized arrays that are
+ * only allocated once the room gets its first item of that kind.
  */
 public class Room implements PlanItem, Serializable {
     private static final long serialVersionUID = 1L;
-    private int x, y, width, height;
-    private String type;
-    private String name; // New field for room name
-    private Color color;
 
-    private List<Door> doors;
-    private List<PlanWindow> windows;
-    private List<Furniture> furnitures;
+    // The stream format of the original fields and the id, kept so existing plan files still load
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("x", int.class),
+            new ObjectStreamField("y", int.class),
+            new ObjectStreamField("width", int.class),
+            new ObjectStreamField("height", int.class),
+            new ObjectStreamField("type", String.class),
+            new ObjectStreamField("name", String.class),
+            new ObjectStreamField("color", Color.class),
+            new ObjectStreamField("doors", List.class),
+            new ObjectStreamField("windows", List.class),
+            new ObjectStreamField("furnitures", List.class),
+            new ObjectStreamField("id", long.class)
+    };
+
+    private static final Door[] NO_DOORS = new Door[0];
+    private static final PlanWindow[] NO_WINDOWS = new PlanWindow[0];
+    private static final Furniture[] NO_FURNITURES = new Furniture[0];
+
+    private transient long id = ItemIds.next();
+    private transient int x, y, width, height;
+    private transient RoomType type;
+    private transient String name;
+    private transient Color color;
+
+    private transient Door[] doors = NO_DOORS;
+    private transient PlanWindow[] windows = NO_WINDOWS;
+    private transient Furniture[] furnitures = NO_FURNITURES;
 
     public Room(int x, int y, int width, int height, String type, Color color) {
         this(x, y, width, height, type, color, null); // Default name as null
@@ -30,12 +61,23 @@ public class Room implements PlanItem, Serializable {
         this.y = y;
         this.width = width;
         this.height = height;
-        this.type = type;
-        this.color = color;
-        this.name = name;
-        this.doors = new ArrayList<>();
-        this.windows = new ArrayList<>();
-        this.furnitures = new ArrayList<>();
+        this.type = RoomType.of(type);
+        this.color = color != null ? RoomType.internColor(color) : null;
+        this.name = intern(name);
+    }
+
+    private static String intern(String name) {
+        return name != null ? name.intern() : null;
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(long id) {
+        this.id = id;
     }
 
     @Override
@@ -43,6 +85,23 @@ public class Room implements PlanItem, Serializable {
         return new Rectangle(x, y, width, height);
     }
 
+    /**
+     * Gets the area covered by the room together with its doors and windows,
+     * some of which sit just outside the room's own bounds.
+     *
+     * @return The combined bounds.
+     */
+    public Rectangle getExtent() {
+        Rectangle extent = getBounds();
+        for (Door door : doors) {
+            extent.add(door.getBounds());
+        }
+        for (PlanWindow window : windows) {
+            extent.add(window.getBounds());
+        }
+        return extent;
+    }
+
     @Override
     public boolean intersects(PlanItem other) {
         return this.getBounds().intersects(other.getBounds());
@@ -66,10 +125,7 @@ public class Room implements PlanItem, Serializable {
             window.updatePositionRelativeToRoom(this);
         }
 
-        // Optionally, update furnitures' positions if needed
-        for (Furniture furniture : furnitures) {
-            // You can implement furniture position updates here if desired
-        }
+        // Furniture keeps its absolute position
     }
 
     @Override
@@ -99,6 +155,10 @@ public class Room implements PlanItem, Serializable {
 
     // Additional getters and setters
     public String getType() {
+        return type.getName();
+    }
+
+    public RoomType getRoomType() {
         return type;
     }
 
@@ -107,38 +167,211 @@ public class Room implements PlanItem, Serializable {
     }
 
     public void setName(String name) {
-        this.name = name;
+        this.name = intern(name);
     }
 
     public Color getColor() {
         return color;
     }
 
+    /**
+     * Gets the doors of this room as a read-only list. Use {@link #addDoor(Door)} and
+     * {@link #removeDoor(Door)} to change them.
+     *
+     * @return The doors.
+     */
     public List<Door> getDoors() {
-        return doors;
+        return new ArrayView<>(doors);
     }
 
+    /**
+     * Gets the windows of this room as a read-only list.
+     *
+     * @return The windows.
+     */
     public List<PlanWindow> getWindows() {
-        return windows;
+        return new ArrayView<>(windows);
     }
 
+    /**
+     * Gets the furniture of this room as a read-only list.
+     *
+     * @return The furniture.
+     */
     public List<Furniture> getFurnitures() {
-        return furnitures;
+        return new ArrayView<>(furnitures);
     }
 
     // Methods to add doors, windows, and furniture
     public void addDoor(Door door) {
-        doors.add(door);
+        doors = append(doors, door);
         door.setRoom(this);
     }
 
     public void addWindow(PlanWindow window) {
-        windows.add(window);
+        windows = append(windows, window);
         window.setRoom(this);
     }
 
     public void addFurniture(Furniture furniture) {
-        furnitures.add(furniture);
+        furnitures = append(furnitures, furniture);
         furniture.setRoom(this);
     }
-}
\ No newline at end of file
+
+    /**
+     * Removes a door from this room.
+     *
+     * @param door The door.
+     * @return True if the room had the door.
+     */
+    public boolean removeDoor(Door door) {
+        Door[] result = without(doors, door);
+        if (result == doors) {
+            return false;
+        }
+        doors = result.length == 0 ? NO_DOORS : result;
+        return true;
+    }
+
+    public boolean removeWindow(PlanWindow window) {
+        PlanWindow[] result = without(windows, window);
+        if (result == windows) {
+            return false;
+        }
+        windows = result.length == 0 ? NO_WINDOWS : result;
+        return true;
+    }
+
+    public boolean removeFurniture(Furniture furniture) {
+        Furniture[] result = without(furnitures, furniture);
+        if (result == furnitures) {
+            return false;
+        }
+        furnitures = result.length == 0 ? NO_FURNITURES : result;
+        return true;
+    }
+
+    /**
+     * Removes all doors, windows and furniture from this room.
+     */
+    public void clearItems() {
+        doors = NO_DOORS;
+        windows = NO_WINDOWS;
+        furnitures = NO_FURNITURES;
+    }
+
+    /**
+     * Replaces all doors, windows and furniture of this room at once, copying each list into
+     * an array of its final size instead of growing one item at a time.
+     *
+     * @param doors      The doors.
+     * @param windows    The windows.
+     * @param furnitures The furniture.
+     */
+    public void setItems(List<Door> doors, List<PlanWindow> windows, List<Furniture> furnitures) {
+        this.doors = toArray(doors, NO_DOORS);
+        this.windows = toArray(windows, NO_WINDOWS);
+        this.furnitures = toArray(furnitures, NO_FURNITURES);
+        for (Door door : this.doors) {
+            door.setRoom(this);
+        }
+        for (PlanWindow window : this.windows) {
+            window.setRoom(this);
+        }
+        for (Furniture furniture : this.furnitures) {
+            furniture.setRoom(this);
+        }
+    }
+
+    private static <T> T[] append(T[] items, T item) {
+        T[] result = Arrays.copyOf(items, items.length + 1);
+        result[items.length] = item;
+        return result;
+    }
+
+    /**
+     * Returns a copy without the first occurrence of the item, or the same array if it is absent.
+     */
+    private static <T> T[] without(T[] items, T item) {
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == item) {
+                T[] result = Arrays.copyOf(items, items.length - 1);
+                System.arraycopy(items, i + 1, result, i, items.length - i - 1);
+                return result;
+            }
+        }
+        return items;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("x", x);
+        fields.put("y", y);
+        fields.put("width", width);
+        fields.put("height", height);
+        fields.put("type", type.getName());
+        fields.put("name", name);
+        fields.put("color", color);
+        fields.put("doors", new ArrayList<>(Arrays.asList(doors)));
+        fields.put("windows", new ArrayList<>(Arrays.asList(windows)));
+        fields.put("furnitures", new ArrayList<>(Arrays.asList(furnitures)));
+        fields.put("id", id);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        x = fields.get("x", 0);
+        y = fields.get("y", 0);
+        width = fields.get("width", 0);
+        height = fields.get("height", 0);
+        type = RoomType.of((String) fields.get("type", null));
+        name = intern((String) fields.get("name", null));
+        Color stored = (Color) fields.get("color", null);
+        color = stored != null ? RoomType.internColor(stored) : null;
+        doors = toArray((List<Door>) fields.get("doors", null), NO_DOORS);
+        windows = toArray((List<PlanWindow>) fields.get("windows", null), NO_WINDOWS);
+        furnitures = toArray((List<Furniture>) fields.get("furnitures", null), NO_FURNITURES);
+        id = fields.get("id", 0L);
+        if (id == 0) {
+            id = ItemIds.next(); // Saved before items had ids
+        }
+        // The items' room references are transient
+        for (Door door : doors) {
+            door.setRoom(this);
+        }
+        for (PlanWindow window : windows) {
+            window.setRoom(this);
+        }
+        for (Furniture furniture : furnitures) {
+            furniture.setRoom(this);
+        }
+    }
+
+    private static <T> T[] toArray(List<T> items, T[] empty) {
+        return items == null || items.isEmpty() ? empty : items.toArray(empty);
+    }
+
+    /**
+     * Read-only list over one of the item arrays. Adding or removing items replaces the array,
+     * so a view shows the items at the time it was taken.
+     */
+    private static final class ArrayView<T> extends AbstractList<T> implements RandomAccess {
+        private final T[] items;
+
+        ArrayView(T[] items) {
+            this.items = items;
+        }
+
+        @Override
+        public T get(int index) {
+            return items[index];
+        }
+
+        @Override
+        public int size() {
+            return items.length;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package app.model;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Which rooms connect through which doors. Rooms are the nodes; a door is an edge to every
+ * room on the other side of its wall, or an exit if no room is there. The graph follows the
+ * model's change events: a room change only relinks the doors of the room and the rooms
+ * around it, a door change only that door.
+ * <p>
+ * Walking distances run from room centers through the middle of each door. Reachability,
+ * egress distances and shortest paths are worked out on first use and kept until a room
+ * or door changes; furniture and window changes keep them.
+ */
+public final class RoomGraph implements PlanChangeListener {
+    private final PlanModel model;
+    // Room bounds by grid cell, shared with the rule engine
+    private final RuleContext walls = new RuleContext(0, 0);
+    // Rooms on the other side of each door; empty for exits
+    private final Map<Door, List<Room>> links = new IdentityHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    // Analysis of the current graph, null until needed after a change
+    private Analysis analysis = null;
+
+    /**
+     * Builds the graph of a plan and starts following its changes.
+     *
+     * @param model The plan.
+     */
+    public RoomGraph(PlanModel model) {
+        this.model = model;
+        rebuild();
+        model.addChangeListener(this);
+    }
+
+    /**
+     * Stops following the plan.
+     */
+    public void close() {
+        model.removeChangeListener(this);
+    }
+
+    @Override
+    public void planChanged(List<PlanChangeEvent> events) {
+        Set<Room> relink = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean changed = false;
+        for (PlanChangeEvent event : events) {
+            PlanItem item = event.getItem();
+            if (event.getType() == PlanChangeEvent.Type.RESET) {
+                rebuild();
+                fireChanged();
+                return;
+            } else if (item instanceof Room) {
+                roomChanged(event.getType(), (Room) item, relink);
+                changed = true;
+            } else if (item instanceof Door) {
+                Door door = (Door) item;
+                if (event.getType() == PlanChangeEvent.Type.REMOVED) {
+                    links.remove(door);
+                } else if (door.getRoom() != null) {
+                    relink.add(door.getRoom());
+                }
+                changed = true;
+            }
+        }
+        for (Room room : relink) {
+            if (walls.contains(room)) {
+                link(room);
+            }
+        }
+        if (changed) {
+            analysis = null;
+            fireChanged();
+        }
+    }
+
+    private void roomChanged(PlanChangeEvent.Type type, Room room, Set<Room> relink) {
+        Rectangle old;
+        if (type == PlanChangeEvent.Type.REMOVED) {
+            old = walls.remove(room);
+            for (Door door : room.getDoors()) {
+                links.remove(door);
+            }
+        } else {
+            old = walls.update(room);
+            relink.addAll(walls.getRoomsNear(room.getBounds()));
+        }
+        // Doors of rooms around it may now lead outside, or into this room
+        if (old != null) {
+            relink.addAll(walls.getRoomsNear(old));
+        }
+    }
+
+    private void rebuild() {
+        walls.clear();
+        links.clear();
+        for (Room room : model.getRooms()) {
+            walls.update(room);
+        }
+        for (Room room : model.getRooms()) {
+            link(room);
+        }
+        analysis = null;
+    }
+
+    /**
+     * Finds the rooms on the other side of each door of a room.
+     */
+    private void link(Room room) {
+        for (Door door : room.getDoors()) {
+            List<Room> others = new ArrayList<>(1);
+            for (Room other : walls.getNeighbours(room)) {
+                if (PlanModel.sharesWall(room, other, door.getDirection()) && opensInto(room, door, other)) {
+                    others.add(other);
+                }
+            }
+            links.put(door, others);
+        }
+    }
+
+    /**
+     * Checks if the opening of a door on a shared wall lies along the other room.
+     */
+    private static boolean opensInto(Room room, Door door, Room other) {
+        switch (door.getDirection()) {
+            case "North":
+            case "South":
+                return Math.max(door.getX(), other.getX()) < Math.min(door.getX() + door.getWidth(), other.getX() + other.getWidth());
+            default:
+                return Math.max(door.getY(), other.getY()) < Math.min(door.getY() + door.getHeight(), other.getY() + other.getHeight());
+        }
+    }
+
+    /**
+     * Gets the doors leading out of a room, with where they lead.
+     *
+     * @param room The room.
+     * @return The connections of the room, including those through doors of the rooms next to it.
+     */
+    public List<Connection> getConnections(Room room) {
+        return analysis().connections.getOrDefault(room, Collections.emptyList());
+    }
+
+    /**
+     * Gets the doors that lead outside.
+     *
+     * @return The exits, in plan order.
+     */
+    public List<Connection> getExits() {
+        return analysis().exits;
+    }
+
+    /**
+     * Checks if a room can be reached from outside through the exits.
+     *
+     * @param room The room.
+     * @return True if there is a way in.
+     */
+    public boolean isReachable(Room room) {
+        return getEgressDistance(room) < Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Gets the rooms that cannot be reached from outside.
+     *
+     * @return The rooms, in plan order.
+     */
+    public Set<Room> getUnreachableRooms() {
+        Set<Room> result = new LinkedHashSet<>();
+        for (Room room : analysis().rooms) {
+            if (!isReachable(room)) {
+                result.add(room);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the walking distance from the center of a room to the nearest exit.
+     *
+     * @param room The room.
+     * @return The distance in pixels, or infinity if the room has no way out.
+     */
+    public double getEgressDistance(Room room) {
+        Analysis current = analysis();
+        Integer index = current.index.get(room);
+        return index != null ? current.egress[index] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Gets the way from a room to the nearest exit.
+     *
+     * @param room The room.
+     * @return The rooms walked through, starting with the given room and ending in the room
+     *         with the exit, or an empty list if there is no way out.
+     */
+    public List<Room> getEgressRoute(Room room) {
+        Analysis current = analysis();
+        Integer index = current.index.get(room);
+        if (index == null || current.egress[index] == Double.POSITIVE_INFINITY) {
+            return Collections.emptyList();
+        }
+        // The egress tree points towards the exits
+        List<Room> route = new ArrayList<>();
+        for (int i = index; i >= 0; i = current.egressNext[i]) {
+            route.add(current.rooms.get(i));
+        }
+        return route;
+    }
+
+    /**
+     * Gets the walking distance between two rooms.
+     *
+     * @param from The room to start in.
+     * @param to   The room to reach.
+     * @return The distance from center to center in pixels, or infinity if there is no way.
+     */
+    public double getDistance(Room from, Room to) {
+        Analysis current = analysis();
+        Integer target = current.index.get(to);
+        if (target == null || !current.index.containsKey(from)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return current.pathsFrom(from).distance[target];
+    }
+
+    /**
+     * Gets the shortest walking path between two rooms.
+     *
+     * @param from The room to start in.
+     * @param to   The room to reach.
+     * @return The rooms walked through, from first to last, or an empty list if there is no way.
+     */
+    public List<Room> getShortestPath(Room from, Room to) {
+        Analysis current = analysis();
+        Integer target = current.index.get(to);
+        if (target == null || !current.index.containsKey(from)) {
+            return Collections.emptyList();
+        }
+        ShortestPaths paths = current.pathsFrom(from);
+        if (paths.distance[target] == Double.POSITIVE_INFINITY) {
+            return Collections.emptyList();
+        }
+        Deque<Room> path = new ArrayDeque<>();
+        for (int i = target; i >= 0; i = paths.previous[i]) {
+            path.addFirst(current.rooms.get(i));
+        }
+        return new ArrayList<>(path);
+    }
+
+    /**
+     * Adds a listener that is told when rooms or doors changed, so answers may differ.
+     *
+     * @param listener The listener.
+     */
+    public void addChangeListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    private Analysis analysis() {
+        if (analysis == null) {
+            analysis = new Analysis();
+        }
+        return analysis;
+    }
+
+    private static Point center(Room room) {
+        return new Point(room.getX() + room.getWidth() / 2, room.getY() + room.getHeight() / 2);
+    }
+
+    /**
+     * Gets the middle of a door's opening, on the wall line.
+     */
+    private static Point opening(Room room, Door door) {
+        switch (door.getDirection()) {
+            case "North":
+                return new Point(door.getX() + door.getWidth() / 2, room.getY());
+            case "South":
+                return new Point(door.getX() + door.getWidth() / 2, room.getY() + room.getHeight());
+            case "East":
+                return new Point(room.getX() + room.getWidth(), door.getY() + door.getHeight() / 2);
+            default:
+                return new Point(room.getX(), door.getY() + door.getHeight() / 2);
+        }
+    }
+
+    /**
+     * A door seen from one of the rooms it connects.
+     */
+    public static final class Connection {
+        private final Door door;
+        private final Room room;
+        private final Room otherRoom;
+        private final double length;
+
+        private Connection(Door door, Room room, Room otherRoom, double length) {
+            this.door = door;
+            this.room = room;
+            this.otherRoom = otherRoom;
+            this.length = length;
+        }
+
+        public Door getDoor() {
+            return door;
+        }
+
+        public Room getRoom() {
+            return room;
+        }
+
+        /**
+         * Gets the room the door leads to.
+         *
+         * @return The room, or null if the door leads outside.
+         */
+        public Room getOtherRoom() {
+            return otherRoom;
+        }
+
+        public boolean isExit() {
+            return otherRoom == null;
+        }
+
+        /**
+         * Gets the walking distance through the door: from the center of this room to the
+         * center of the other room, or to the door for an exit.
+         *
+         * @return The distance in pixels.
+         */
+        public double getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Shortest paths from one room.
+     */
+    private static final class ShortestPaths {
+        final double[] distance;
+        final int[] previous;
+
+        ShortestPaths(int size) {
+            distance = new double[size];
+            previous = new int[size];
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            Arrays.fill(previous, -1);
+        }
+    }
+
+    /**
+     * Everything worked out from one state of the graph.
+     */
+    private final class Analysis {
+        final List<Room> rooms = new ArrayList<>(model.getRooms());
+        final Map<Room, Integer> index = new IdentityHashMap<>();
+        final Map<Room, List<Connection>> connections = new IdentityHashMap<>();
+        final List<Connection> exits = new ArrayList<>();
+        final double[] egress;
+        final int[] egressNext;
+        // Kept per starting room until the graph changes
+        final Map<Integer, ShortestPaths> paths = new HashMap<>();
+
+        Analysis() {
+            for (int i = 0; i < rooms.size(); i++) {
+                index.put(rooms.get(i), i);
+            }
+            for (Room room : rooms) {
+                Point center = center(room);
+                for (Door door : room.getDoors()) {
+                    List<Room> others = links.get(door);
+                    if (others == null) {
+                        continue;
+                    }
+                    Point opening = opening(room, door);
+                    if (others.isEmpty()) {
+                        Connection exit = new Connection(door, room, null, center.distance(opening));
+                        exits.add(exit);
+                        connect(exit);
+                    }
+                    for (Room other : others) {
+                        if (!index.containsKey(other)) {
+                            continue;
+                        }
+                        double length = center.distance(opening) + opening.distance(center(other));
+                        connect(new Connection(door, room, other, length));
+                        connect(new Connection(door, other, room, length));
+                    }
+                }
+            }
+            egress = new double[rooms.size()];
+            egressNext = new int[rooms.size()];
+            Arrays.fill(egress, Double.POSITIVE_INFINITY);
+            Arrays.fill(egressNext, -1);
+            // Every exit is a start, so each room ends up with its nearest one
+            PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+            for (Connection exit : exits) {
+                int i = index.get(exit.getRoom());
+                if (exit.getLength() < egress[i]) {
+                    egress[i] = exit.getLength();
+                    queue.add(new double[]{egress[i], i});
+                }
+            }
+            search(queue, egress, egressNext);
+        }
+
+        private void connect(Connection connection) {
+            connections.computeIfAbsent(connection.getRoom(), room -> new ArrayList<>(4)).add(connection);
+        }
+
+        ShortestPaths pathsFrom(Room from) {
+            int start = index.get(from);
+            return paths.computeIfAbsent(start, i -> {
+                ShortestPaths result = new ShortestPaths(rooms.size());
+                result.distance[i] = 0;
+                PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+                queue.add(new double[]{0, i});
+                search(queue, result.distance, result.previous);
+                return result;
+            });
+        }
+
+        /**
+         * Dijkstra's algorithm over the room connections, from the rooms already queued.
+         */
+        private void search(PriorityQueue<double[]> queue, double[] distance, int[] previous) {
+            while (!queue.isEmpty()) {
+                double[] head = queue.poll();
+                int i = (int) head[1];
+                if (head[0] > distance[i]) {
+                    continue; // Already reached by a shorter way
+                }
+                for (Connection connection : connections.getOrDefault(rooms.get(i), Collections.emptyList())) {
+                    if (connection.isExit()) {
+                        continue;
+                    }
+                    int j = index.get(connection.getOtherRoom());
+                    double through = distance[i] + connection.getLength();
+                    if (through < distance[j]) {
+                        distance[j] = through;
+                        previous[j] = i;
+                        queue.add(new double[]{through, j});
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package app.model;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable copy of a room and its doors, windows and furniture at one point in time.
+ */
+public final class RoomSnapshot {
+    private final long key;
+    private final long id;
+    private final int x, y, width, height;
+    private final String type;
+    private final String name;
+    private final Color color;
+    private final List<ItemSnapshot> doors;
+    private final List<ItemSnapshot> windows;
+    private final List<ItemSnapshot> furnitures;
+
+    private RoomSnapshot(long key, Room room, List<ItemSnapshot> doors, List<ItemSnapshot> windows,
+                         List<ItemSnapshot> furnitures) {
+        this.key = key;
+        this.id = room.getId();
+        this.x = room.getX();
+        this.y = room.getY();
+        this.width = room.getWidth();
+        this.height = room.getHeight();
+        this.type = room.getType();
+        this.name = room.getName();
+        this.color = room.getColor();
+        this.doors = doors;
+        this.windows = windows;
+        this.furnitures = furnitures;
+    }
+
+    /**
+     * Copies the current state of a room.
+     *
+     * @param room The room to copy.
+     * @param keys Supplies the snapshot key for the room and each of its items.
+     * @return The snapshot.
+     */
+    public static RoomSnapshot of(Room room, ToLongFunction<PlanItem> keys) {
+        List<ItemSnapshot> doors = new ArrayList<>(room.getDoors().size());
+        for (Door door : room.getDoors()) {
+            doors.add(ItemSnapshot.of(keys.applyAsLong(door), door));
+        }
+        List<ItemSnapshot> windows = new ArrayList<>(room.getWindows().size());
+        for (PlanWindow window : room.getWindows()) {
+            windows.add(ItemSnapshot.of(keys.applyAsLong(window), window));
+        }
+        List<ItemSnapshot> furnitures = new ArrayList<>(room.getFurnitures().size());
+        for (Furniture furniture : room.getFurnitures()) {
+            furnitures.add(ItemSnapshot.of(keys.applyAsLong(furniture), furniture));
+        }
+        return new RoomSnapshot(keys.applyAsLong(room), room, Collections.unmodifiableList(doors),
+                Collections.unmodifiableList(windows), Collections.unmodifiableList(furnitures));
+    }
+
+    /**
+     * Builds a new, independent mutable room from this snapshot. The room and its items keep
+     * their ids, so a plan saved from a snapshot refers to the same items.
+     *
+     * @return A new Room with its doors, windows and furniture.
+     */
+    public Room toRoom() {
+        Room room = new Room(x, y, width, height, type, color, name);
+        room.setId(id);
+        List<Door> roomDoors = new ArrayList<>(doors.size());
+        for (ItemSnapshot item : doors) {
+            Door door = new Door(item.getWidth(), item.getHeight(), item.getDirection());
+            door.setId(item.getId());
+            door.setPosition(item.getBounds().getLocation());
+            roomDoors.add(door);
+        }
+        List<PlanWindow> roomWindows = new ArrayList<>(windows.size());
+        for (ItemSnapshot item : windows) {
+            PlanWindow window = new PlanWindow(item.getWidth(), item.getHeight(), item.getDirection());
+            window.setId(item.getId());
+            window.setPosition(item.getBounds().getLocation());
+            roomWindows.add(window);
+        }
+        List<Furniture> roomFurnitures = new ArrayList<>(furnitures.size());
+        for (ItemSnapshot item : furnitures) {
+            Furniture furniture = new Furniture(item.getWidth(), item.getHeight(), item.getType(), room);
+            furniture.setId(item.getId());
+            furniture.setPosition(item.getBounds().getLocation());
+            furniture.setAngle(item.getAngle());
+            furniture.setImagePath(item.getImagePath());
+            furniture.setImageHash(item.getImageHash());
+            roomFurnitures.add(furniture);
+        }
+        room.setItems(roomDoors, roomWindows, roomFurnitures);
+        return room;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Rectangle getBounds() {
+        return new Rectangle(x, y, width, height);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    public List<ItemSnapshot> getDoors() {
+        return doors;
+    }
+
+    public List<ItemSnapshot> getWindows() {
+        return windows;
+    }
+
+    public List<ItemSnapshot> getFurnitures() {
+        return furnitures;
+    }
+}
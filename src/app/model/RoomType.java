@@ -0,0 +1,84 @@
+package app.model;
+
+import java.awt.Color;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared description of a kind of room. There is one instance per type name, so rooms
+ * hold a reference instead of their own type string and color.
+ */
+public final class RoomType {
+    private static final ConcurrentMap<String, RoomType> TYPES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Color, Color> PALETTE = new ConcurrentHashMap<>();
+
+    public static final RoomType BEDROOM = define("Bedroom", new Color(152, 251, 152)); // Light green
+    public static final RoomType BATHROOM = define("Bathroom", new Color(104, 181, 244)); // Steel blue
+    public static final RoomType KITCHEN = define("Kitchen", new Color(251, 75, 0)); // Light salmon
+    public static final RoomType DINING_ROOM = define("Dining Room", new Color(251, 201, 73)); // Bisque
+
+    /**
+     * Type of rooms created or saved without one.
+     */
+    public static final RoomType UNKNOWN = define("Unknown", Color.LIGHT_GRAY);
+
+    private final String name;
+    private final Color color;
+
+    private RoomType(String name, Color color) {
+        this.name = name;
+        this.color = color;
+    }
+
+    private static RoomType define(String name, Color color) {
+        RoomType type = new RoomType(name, internColor(color));
+        TYPES.put(name, type);
+        return type;
+    }
+
+    /**
+     * Gets the shared instance for a type name. Unknown names get a light gray color.
+     *
+     * @param name The type name, e.g. "Bedroom", or null for {@link #UNKNOWN}.
+     * @return The room type.
+     */
+    public static RoomType of(String name) {
+        if (name == null) {
+            return UNKNOWN;
+        }
+        RoomType type = TYPES.get(name);
+        if (type == null) {
+            type = TYPES.computeIfAbsent(name, n -> new RoomType(n, internColor(Color.LIGHT_GRAY)));
+        }
+        return type;
+    }
+
+    /**
+     * Gets a shared Color equal to the given one, so rooms with the same color share one object.
+     *
+     * @param color The color.
+     * @return The shared instance.
+     */
+    public static Color internColor(Color color) {
+        Color shared = PALETTE.putIfAbsent(color, color);
+        return shared != null ? shared : color;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the default fill color for rooms of this type.
+     *
+     * @return The palette color.
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,170 @@
+package app.model;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a {@link PlanRule} may look at besides the room it checks: the rooms around it and the
+ * size of the drawing area. Rooms are kept in a grid of cells, so finding the neighbours of a
+ * room does not scan the plan. Lookups may run on several threads at once, as long as no
+ * room is added, moved or removed meanwhile.
+ */
+public final class RuleContext {
+    // Larger than most rooms, so a room sits in one to four cells
+    private static final int CELL_SIZE = 200;
+
+    private final Map<Long, List<Room>> cells = new HashMap<>();
+    private final Map<Room, Rectangle> indexed = new IdentityHashMap<>();
+    private int planWidth;
+    private int planHeight;
+
+    RuleContext(int planWidth, int planHeight) {
+        this.planWidth = planWidth;
+        this.planHeight = planHeight;
+    }
+
+    /**
+     * Gets the rooms that overlap or touch a room, including rooms that only meet it at a corner.
+     *
+     * @param room The room.
+     * @return The other rooms near it.
+     */
+    public List<Room> getNeighbours(Room room) {
+        List<Room> neighbours = getRoomsNear(room.getBounds());
+        neighbours.remove(room);
+        return neighbours;
+    }
+
+    /**
+     * Checks if a wall of a room is shared with another room, by the same rule as
+     * {@link PlanModel#isWallShared}.
+     *
+     * @param room      The room.
+     * @param direction The direction of the wall.
+     * @return True if the wall is shared.
+     */
+    public boolean isWallShared(Room room, String direction) {
+        for (Room other : getNeighbours(room)) {
+            if (PlanModel.sharesWall(room, other, direction)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a wall of a room lies on the border of the drawing area, by the same rule as
+     * {@link PlanModel#isExternalWall}.
+     *
+     * @param room      The room.
+     * @param direction The direction of the wall.
+     * @return True if the wall is external.
+     */
+    public boolean isExternalWall(Room room, String direction) {
+        return PlanModel.isExternalWall(room, direction, planWidth, planHeight);
+    }
+
+    public int getPlanWidth() {
+        return planWidth;
+    }
+
+    public int getPlanHeight() {
+        return planHeight;
+    }
+
+    /**
+     * Sets the size of the drawing area.
+     *
+     * @return True if the size changed.
+     */
+    boolean setPlanSize(int width, int height) {
+        if (width == planWidth && height == planHeight) {
+            return false;
+        }
+        planWidth = width;
+        planHeight = height;
+        return true;
+    }
+
+    boolean contains(Room room) {
+        return indexed.containsKey(room);
+    }
+
+    /**
+     * Adds a room, or moves it to its current bounds if it is already there.
+     *
+     * @return The bounds it was indexed under before, or null if it was not indexed.
+     */
+    Rectangle update(Room room) {
+        Rectangle old = remove(room);
+        Rectangle bounds = room.getBounds();
+        indexed.put(room, bounds);
+        forEachCell(bounds, key -> cells.computeIfAbsent(key, k -> new ArrayList<>(4)).add(room));
+        return old;
+    }
+
+    /**
+     * Removes a room.
+     *
+     * @return The bounds it was indexed under, or null if it was not indexed.
+     */
+    Rectangle remove(Room room) {
+        Rectangle old = indexed.remove(room);
+        if (old != null) {
+            forEachCell(old, key -> {
+                List<Room> cell = cells.get(key);
+                cell.remove(room);
+                if (cell.isEmpty()) {
+                    cells.remove(key);
+                }
+            });
+        }
+        return old;
+    }
+
+    void clear() {
+        cells.clear();
+        indexed.clear();
+    }
+
+    /**
+     * Gets the rooms whose indexed bounds overlap or touch an area.
+     */
+    List<Room> getRoomsNear(Rectangle area) {
+        Rectangle grown = new Rectangle(area.x - 1, area.y - 1, area.width + 2, area.height + 2);
+        List<Room> result = new ArrayList<>();
+        forEachCell(grown, key -> {
+            List<Room> cell = cells.get(key);
+            if (cell == null) {
+                return;
+            }
+            for (Room room : cell) {
+                // A room spanning several cells is only taken once
+                if (grown.intersects(indexed.get(room)) && !result.contains(room)) {
+                    result.add(room);
+                }
+            }
+        });
+        return result;
+    }
+
+    private interface CellVisitor {
+        void visit(long key);
+    }
+
+    private static void forEachCell(Rectangle area, CellVisitor visitor) {
+        int minColumn = Math.floorDiv(area.x, CELL_SIZE);
+        int maxColumn = Math.floorDiv(area.x + area.width, CELL_SIZE);
+        int minRow = Math.floorDiv(area.y, CELL_SIZE);
+        int maxRow = Math.floorDiv(area.y + area.height, CELL_SIZE);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                visitor.visit(((long) column << 32) | (row & 0xFFFFFFFFL));
+            }
+        }
+    }
+}
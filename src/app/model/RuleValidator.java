@@ -0,0 +1,361 @@
+package app.model;
+
+import app.util.PlanSerializer;
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a live list of the places where a plan breaks its {@link PlanRule rules}. The
+ * validator listens to the model's change events and only checks again the rules that
+ * depend on what changed, for the rooms the change reaches: the changed room and the rooms
+ * around its old and new position. Doors and windows only affect the rules about their room.
+ * <p>
+ * {@link #validateAll()} and {@link #validate} check every room in parallel, for loading a
+ * plan and for batch jobs.
+ */
+public final class RuleValidator implements PlanChangeListener {
+    private final PlanModel model;
+    private final List<PlanRule> rules;
+    private final RuleContext context;
+    // Violations by room and rule; rooms without violations have no entry
+    private final Map<Room, Map<PlanRule, List<Violation>>> violations = new IdentityHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private int violationCount = 0;
+    private int lastCheckedRooms = 0;
+    private long lastCheckNanos = 0;
+
+    public RuleValidator(PlanModel model) {
+        this(model, PlanRule.DEFAULTS);
+    }
+
+    /**
+     * Validates the whole plan and starts following its changes.
+     *
+     * @param model The plan.
+     * @param rules The rules to check.
+     */
+    public RuleValidator(PlanModel model, List<PlanRule> rules) {
+        this.model = model;
+        this.rules = new ArrayList<>(rules);
+        this.context = new RuleContext(model.getPlanWidth(), model.getPlanHeight());
+        validateAll();
+        model.addChangeListener(this);
+    }
+
+    /**
+     * Checks every room of a plan in parallel, e.g. in a batch job.
+     *
+     * @param rooms      The rooms of the plan.
+     * @param planWidth  Width of the drawing area, for rules about external walls.
+     * @param planHeight Height of the drawing area.
+     * @param rules      The rules to check.
+     * @return The violations, room by room.
+     */
+    public static List<Violation> validate(List<Room> rooms, int planWidth, int planHeight, List<PlanRule> rules) {
+        RuleContext context = new RuleContext(planWidth, planHeight);
+        for (Room room : rooms) {
+            context.update(room);
+        }
+        return rooms.parallelStream()
+                .flatMap(room -> check(context, rules, room).stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks the whole plan again, rooms in parallel, and replaces the violation list.
+     */
+    public void validateAll() {
+        long start = System.nanoTime();
+        List<Room> rooms = model.getRooms();
+        context.setPlanSize(model.getPlanWidth(), model.getPlanHeight());
+        context.clear();
+        for (Room room : rooms) {
+            context.update(room);
+        }
+        List<List<Violation>> found = rooms.parallelStream()
+                .map(room -> check(context, rules, room))
+                .collect(Collectors.toList());
+        violations.clear();
+        violationCount = 0;
+        for (List<Violation> ofRoom : found) {
+            for (Violation violation : ofRoom) {
+                violations.computeIfAbsent(violation.getRoom(), room -> new IdentityHashMap<>())
+                        .computeIfAbsent(violation.getRule(), rule -> new ArrayList<>(1))
+                        .add(violation);
+                violationCount++;
+            }
+        }
+        lastCheckedRooms = rooms.size();
+        lastCheckNanos = System.nanoTime() - start;
+        fireChanged();
+    }
+
+    /**
+     * Stops following the plan.
+     */
+    public void close() {
+        model.removeChangeListener(this);
+    }
+
+    @Override
+    public void planChanged(List<PlanChangeEvent> events) {
+        long start = System.nanoTime();
+        Map<Room, Set<PlanRule.Dependency>> dirty = new IdentityHashMap<>();
+        boolean changed = false;
+        for (PlanChangeEvent event : events) {
+            PlanItem item = event.getItem();
+            if (event.getType() == PlanChangeEvent.Type.RESET) {
+                validateAll(); // Covers the events after the reset too
+                return;
+            } else if (item instanceof Room) {
+                changed |= roomChanged(event.getType(), (Room) item, dirty);
+            } else if (item instanceof Door) {
+                mark(dirty, ((Door) item).getRoom(), PlanRule.Dependency.DOORS);
+            } else if (item instanceof PlanWindow) {
+                mark(dirty, ((PlanWindow) item).getRoom(), PlanRule.Dependency.WINDOWS);
+            }
+        }
+        if (context.setPlanSize(model.getPlanWidth(), model.getPlanHeight())) {
+            for (Room room : model.getRooms()) {
+                mark(dirty, room, PlanRule.Dependency.PLAN_SIZE);
+            }
+        }
+        int checked = 0;
+        for (Map.Entry<Room, Set<PlanRule.Dependency>> entry : dirty.entrySet()) {
+            // Rooms removed later in the batch are gone from the context
+            if (context.contains(entry.getKey())) {
+                changed |= recheck(entry.getKey(), entry.getValue());
+                checked++;
+            }
+        }
+        if (checked > 0) {
+            lastCheckedRooms = checked;
+            lastCheckNanos = System.nanoTime() - start;
+        }
+        if (changed) {
+            fireChanged();
+        }
+    }
+
+    /**
+     * Updates the room index and marks what a room change affects.
+     *
+     * @return True if violations were dropped.
+     */
+    private boolean roomChanged(PlanChangeEvent.Type type, Room room, Map<Room, Set<PlanRule.Dependency>> dirty) {
+        switch (type) {
+            case ADDED:
+                context.update(room);
+                mark(dirty, room, PlanRule.Dependency.values());
+                markNear(dirty, room.getBounds());
+                return false;
+            case REMOVED:
+                Rectangle old = context.remove(room);
+                if (old != null) {
+                    markNear(dirty, old);
+                }
+                return dropViolations(room);
+            default:
+                Rectangle previous = context.update(room);
+                mark(dirty, room, PlanRule.Dependency.ROOM, PlanRule.Dependency.NEIGHBOURS);
+                if (previous != null) {
+                    markNear(dirty, previous);
+                }
+                markNear(dirty, room.getBounds());
+                return false;
+        }
+    }
+
+    private void markNear(Map<Room, Set<PlanRule.Dependency>> dirty, Rectangle area) {
+        for (Room neighbour : context.getRoomsNear(area)) {
+            mark(dirty, neighbour, PlanRule.Dependency.NEIGHBOURS);
+        }
+    }
+
+    private static void mark(Map<Room, Set<PlanRule.Dependency>> dirty, Room room, PlanRule.Dependency... dependencies) {
+        if (room != null) {
+            Collections.addAll(dirty.computeIfAbsent(room, r -> EnumSet.noneOf(PlanRule.Dependency.class)), dependencies);
+        }
+    }
+
+    /**
+     * Checks the rules of a room that depend on what changed.
+     *
+     * @return True if the violations of the room changed.
+     */
+    private boolean recheck(Room room, Set<PlanRule.Dependency> changes) {
+        Map<PlanRule, List<Violation>> byRule = violations.get(room);
+        boolean changed = false;
+        for (PlanRule rule : rules) {
+            if (Collections.disjoint(rule.getDependencies(), changes)) {
+                continue;
+            }
+            List<Violation> found = new ArrayList<>(0);
+            rule.check(context, room, found);
+            List<Violation> before = byRule != null ? byRule.get(rule) : null;
+            if (found.isEmpty()) {
+                if (before != null) {
+                    byRule.remove(rule);
+                    violationCount -= before.size();
+                    changed = true;
+                }
+                continue;
+            }
+            if (byRule == null) {
+                byRule = new IdentityHashMap<>();
+                violations.put(room, byRule);
+            }
+            byRule.put(rule, found);
+            violationCount += found.size() - (before != null ? before.size() : 0);
+            changed |= before == null || !sameItems(before, found);
+        }
+        if (byRule != null && byRule.isEmpty()) {
+            violations.remove(room);
+        }
+        return changed;
+    }
+
+    private boolean dropViolations(Room room) {
+        Map<PlanRule, List<Violation>> byRule = violations.remove(room);
+        if (byRule == null) {
+            return false;
+        }
+        for (List<Violation> ofRule : byRule.values()) {
+            violationCount -= ofRule.size();
+        }
+        return true;
+    }
+
+    private static boolean sameItems(List<Violation> before, List<Violation> after) {
+        if (before.size() != after.size()) {
+            return false;
+        }
+        for (int i = 0; i < before.size(); i++) {
+            if (before.get(i).getItem() != after.get(i).getItem()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Violation> check(RuleContext context, Collection<PlanRule> rules, Room room) {
+        List<Violation> found = new ArrayList<>(0);
+        for (PlanRule rule : rules) {
+            rule.check(context, room, found);
+        }
+        return found;
+    }
+
+    /**
+     * Gets the current violations.
+     *
+     * @return A new list, room by room in plan order.
+     */
+    public List<Violation> getViolations() {
+        List<Violation> result = new ArrayList<>(violationCount);
+        if (violationCount == 0) {
+            return result;
+        }
+        for (Room room : model.getRooms()) {
+            Map<PlanRule, List<Violation>> byRule = violations.get(room);
+            if (byRule == null) {
+                continue;
+            }
+            // In the order the rules were given
+            for (PlanRule rule : rules) {
+                List<Violation> ofRule = byRule.get(rule);
+                if (ofRule != null) {
+                    result.addAll(ofRule);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int getViolationCount() {
+        return violationCount;
+    }
+
+    /**
+     * Gets the number of rooms checked after the last change that reached any room.
+     *
+     * @return The number of rooms.
+     */
+    public int getLastCheckedRoomCount() {
+        return lastCheckedRooms;
+    }
+
+    public long getLastCheckNanos() {
+        return lastCheckNanos;
+    }
+
+    /**
+     * Adds a listener that is told when the violation list changed. It is called on the
+     * thread that delivers the model's change events.
+     *
+     * @param listener The listener.
+     */
+    public void addChangeListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Validates plan files. The outline of each plan's rooms stands in for the drawing area.
+     * Exits with 0 if no plan breaks a rule, 1 if one does and 2 if a file cannot be read.
+     *
+     * @param args The plan files.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: RuleValidator plan...");
+            System.exit(2);
+        }
+        int status = 0;
+        for (String name : args) {
+            try {
+                List<Room> rooms = PlanSerializer.loadRooms(new File(name));
+                int width = 0;
+                int height = 0;
+                for (Room room : rooms) {
+                    width = Math.max(width, room.getX() + room.getWidth());
+                    height = Math.max(height, room.getY() + room.getHeight());
+                }
+                long start = System.nanoTime();
+                List<Violation> found = validate(rooms, width, height, PlanRule.DEFAULTS);
+                System.out.printf("%s: %d rooms, %d violations (%d ms)%n", name, rooms.size(), found.size(),
+                        (System.nanoTime() - start) / 1_000_000);
+                for (Violation violation : found) {
+                    System.out.println("  " + violation);
+                }
+                if (!found.isEmpty()) {
+                    status = Math.max(status, 1);
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                System.err.println(name + ": " + e.getMessage());
+                status = 2;
+            }
+        }
+        System.exit(status);
+    }
+}
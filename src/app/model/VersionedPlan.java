@@ -0,0 +1,288 @@
+package app.model;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the immutable versions of a mutable plan in step with its undo and redo stacks.
+ * The mutable rooms are still edited in place; after each committed command the touched room
+ * is re-copied into a new version. Undo and redo switch between the recorded versions.
+ * <p>
+ * Items keep their snapshot key while any recorded version uses it. When versions are dropped
+ * the keys of items no version uses any more are released, so replaced plans and discarded
+ * history do not stay reachable through the key registry.
+ */
+public class VersionedPlan {
+    // The registry is only swept once it has grown this much since the last sweep
+    private static final int MIN_PRUNE_SIZE = 1024;
+
+    private final Map<PlanItem, Long> keys = new IdentityHashMap<>();
+    private final Map<Long, PlanItem> items = new HashMap<>();
+    private long nextKey = 1;
+    private int keysAfterPrune = 0;
+
+    private volatile PlanSnapshot current = PlanSnapshot.empty();
+    private final Deque<PlanSnapshot> undoVersions = new ArrayDeque<>();
+    private final Deque<PlanSnapshot> redoVersions = new ArrayDeque<>();
+
+    // Version before the open group of commits, or null when no group is open.
+    // Commits inside the group build up groupWork and are published together.
+    private PlanSnapshot groupBase = null;
+    private PlanSnapshot groupWork = null;
+
+    /**
+     * Gets the latest committed version. Can be called from any thread.
+     *
+     * @return The current snapshot.
+     */
+    public PlanSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Gets the snapshot key of a live item, assigning one on first use.
+     *
+     * @param item The item.
+     * @return The key.
+     */
+    public long keyOf(PlanItem item) {
+        Long key = keys.get(item);
+        if (key == null) {
+            key = nextKey++;
+            keys.put(item, key);
+            items.put(key, item);
+        }
+        return key;
+    }
+
+    /**
+     * Records a new version after a command was committed.
+     *
+     * @param rooms   The live room list after the command.
+     * @param touched The room changed by the command, or null to re-copy every room.
+     * @param removed True if the command took the touched room out of the plan.
+     */
+    public void commit(List<Room> rooms, Room touched, boolean removed) {
+        boolean dropped = !redoVersions.isEmpty();
+        redoVersions.clear();
+        if (groupBase != null) {
+            groupWork = touched != null ? update(groupWork, touched, removed) : rebuild(rooms);
+        } else {
+            undoVersions.push(current);
+            current = touched != null ? update(current, touched, removed) : rebuild(rooms);
+        }
+        if (dropped) {
+            pruneKeys();
+        }
+    }
+
+    /**
+     * Starts collecting commits into a single undoable version.
+     */
+    public void beginGroup() {
+        groupBase = current;
+        groupWork = current;
+    }
+
+    /**
+     * Ends the open group. All commits since {@link #beginGroup()} become one undo step.
+     */
+    public void endGroup() {
+        if (groupBase != null && groupWork != groupBase) {
+            undoVersions.push(groupBase);
+            current = groupWork;
+        }
+        groupBase = null;
+        groupWork = null;
+    }
+
+    /**
+     * Ends the open group and discards its commits.
+     */
+    public void cancelGroup() {
+        groupBase = null;
+        groupWork = null;
+        pruneKeys();
+    }
+
+    /**
+     * Switches back to the version before the last committed command.
+     */
+    public void undo() {
+        if (!undoVersions.isEmpty()) {
+            redoVersions.push(current);
+            current = undoVersions.pop();
+        }
+    }
+
+    /**
+     * Switches forward to the version after the last undone command.
+     */
+    public void redo() {
+        if (!redoVersions.isEmpty()) {
+            undoVersions.push(current);
+            current = redoVersions.pop();
+        }
+    }
+
+    public void clearRedo() {
+        if (!redoVersions.isEmpty()) {
+            redoVersions.clear();
+            pruneKeys();
+        }
+    }
+
+    /**
+     * Moves several steps through the recorded versions at once.
+     *
+     * @param steps Negative to go back, positive to go forward.
+     * @return The version reached.
+     */
+    public PlanSnapshot seek(int steps) {
+        for (; steps < 0 && !undoVersions.isEmpty(); steps++) {
+            redoVersions.push(current);
+            current = undoVersions.pop();
+        }
+        for (; steps > 0 && !redoVersions.isEmpty(); steps--) {
+            undoVersions.push(current);
+            current = redoVersions.pop();
+        }
+        return current;
+    }
+
+    /**
+     * Rewrites the live plan so it matches a recorded version.
+     * The same Room, Door, PlanWindow and Furniture objects are reused, so commands
+     * that hold references to them stay valid.
+     *
+     * @param snapshot The version to restore.
+     * @param rooms    The live room list to refill.
+     */
+    public void restore(PlanSnapshot snapshot, List<Room> rooms) {
+        rooms.clear();
+        for (RoomSnapshot roomSnapshot : snapshot.getRooms()) {
+            Room room = (Room) items.get(roomSnapshot.getKey());
+            room.setPosition(new Point(roomSnapshot.getX(), roomSnapshot.getY()));
+            List<Door> doors = new ArrayList<>(roomSnapshot.getDoors().size());
+            for (ItemSnapshot item : roomSnapshot.getDoors()) {
+                Door door = (Door) items.get(item.getKey());
+                door.setPosition(new Point(item.getX(), item.getY()));
+                doors.add(door);
+            }
+            List<PlanWindow> windows = new ArrayList<>(roomSnapshot.getWindows().size());
+            for (ItemSnapshot item : roomSnapshot.getWindows()) {
+                PlanWindow window = (PlanWindow) items.get(item.getKey());
+                window.setPosition(new Point(item.getX(), item.getY()));
+                windows.add(window);
+            }
+            List<Furniture> furnitures = new ArrayList<>(roomSnapshot.getFurnitures().size());
+            for (ItemSnapshot item : roomSnapshot.getFurnitures()) {
+                Furniture furniture = (Furniture) items.get(item.getKey());
+                furniture.setPosition(new Point(item.getX(), item.getY()));
+                furniture.setAngle(item.getAngle());
+                furnitures.add(furniture);
+            }
+            room.setItems(doors, windows, furnitures);
+            rooms.add(room);
+        }
+    }
+
+    /**
+     * Drops all recorded versions and starts over from the given rooms.
+     *
+     * @param rooms The live room list.
+     */
+    public void reset(List<Room> rooms) {
+        undoVersions.clear();
+        redoVersions.clear();
+        keys.clear();
+        items.clear();
+        current = rebuild(rooms);
+        keysAfterPrune = keys.size();
+    }
+
+    /**
+     * Adds rooms to the current version only. Unlike {@link #reset(List)}, the rooms already
+     * in the version are not copied again. The recorded versions do not have the rooms, so the
+     * history should be reset once all rooms are in.
+     *
+     * @param added The rooms that were added to the live plan.
+     */
+    public void append(List<Room> added) {
+        PlanSnapshot snapshot = current;
+        for (Room room : added) {
+            snapshot = snapshot.withRoom(RoomSnapshot.of(room, this::keyOf));
+        }
+        current = snapshot;
+    }
+
+    /**
+     * Runs an action for every recorded version, including the open group's work in progress.
+     *
+     * @param action The action.
+     */
+    void forEachVersion(Consumer<PlanSnapshot> action) {
+        action.accept(current);
+        undoVersions.forEach(action);
+        redoVersions.forEach(action);
+        if (groupWork != null) {
+            action.accept(groupWork);
+        }
+    }
+
+    /**
+     * Gets the number of live items that have a snapshot key.
+     *
+     * @return The size of the key registry.
+     */
+    int getKeyCount() {
+        return keys.size();
+    }
+
+    private PlanSnapshot update(PlanSnapshot base, Room touched, boolean removed) {
+        if (removed) {
+            return base.withoutRoom(keyOf(touched));
+        }
+        return base.withRoom(RoomSnapshot.of(touched, this::keyOf));
+    }
+
+    /**
+     * Releases the keys that no recorded version uses any more. The versions share most of
+     * their room snapshots, so the sweep visits each shared tree node once; it only runs once
+     * the registry has doubled since the last sweep, which keeps its cost amortized.
+     */
+    private void pruneKeys() {
+        if (keys.size() < Math.max(MIN_PRUNE_SIZE, 2 * keysAfterPrune)) {
+            return;
+        }
+        Set<Object> seenNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Long> used = new HashSet<>();
+        forEachVersion(snapshot -> snapshot.forEachUnseenRoom(seenNodes, room -> {
+            used.add(room.getKey());
+            room.getDoors().forEach(item -> used.add(item.getKey()));
+            room.getWindows().forEach(item -> used.add(item.getKey()));
+            room.getFurnitures().forEach(item -> used.add(item.getKey()));
+        }));
+        items.keySet().retainAll(used);
+        keys.values().retainAll(used);
+        keysAfterPrune = keys.size();
+    }
+
+    private PlanSnapshot rebuild(List<Room> rooms) {
+        PlanSnapshot snapshot = PlanSnapshot.empty();
+        for (Room room : rooms) {
+            snapshot = snapshot.withRoom(RoomSnapshot.of(room, this::keyOf));
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,46 @@
+package app.model;
+
+/**
+ * A place where the plan breaks a {@link PlanRule}.
+ */
+public final class Violation {
+    private final PlanRule rule;
+    private final Room room;
+    private final PlanItem item;
+
+    public Violation(PlanRule rule, Room room, PlanItem item) {
+        this.rule = rule;
+        this.room = room;
+        this.item = item;
+    }
+
+    public PlanRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Gets the room that was checked.
+     *
+     * @return The room.
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Gets the item that breaks the rule.
+     *
+     * @return The room itself, or one of its doors or windows.
+     */
+    public PlanItem getItem() {
+        return item;
+    }
+
+    @Override
+    public String toString() {
+        String where = room.getName() != null ? room.getName() : room.getType();
+        String what = item instanceof Door ? " (" + ((Door) item).getDirection() + " door)"
+                : item instanceof PlanWindow ? " (" + ((PlanWindow) item).getDirection() + " window)" : "";
+        return String.format("%s at %d,%d%s: %s", where, room.getX(), room.getY(), what, rule.getName());
+    }
+}
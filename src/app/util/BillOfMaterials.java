@@ -0,0 +1,187 @@
+package app.util;
+
+import app.model.PlanStatistics;
+import app.model.Room;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bill of materials for one plan or a directory of plans: rooms with their floor area per room
+ * type, doors and windows with the wall length they take up, and furniture per type. Plans in
+ * a directory are read in parallel. The bill is written as CSV with one line per plan and item
+ * type, followed by the totals when it covers more than one plan.
+ */
+public final class BillOfMaterials {
+    public static final String TOTAL = "Total";
+
+    private final Map<String, PlanStatistics> plans;
+    private final Map<String, String> failures;
+
+    private BillOfMaterials(Map<String, PlanStatistics> plans, Map<String, String> failures) {
+        this.plans = Collections.unmodifiableMap(new TreeMap<>(plans));
+        this.failures = Collections.unmodifiableMap(new TreeMap<>(failures));
+    }
+
+    /**
+     * Makes the bill of one plan.
+     *
+     * @param name  The name the plan is listed under, e.g. its file name.
+     * @param rooms The rooms of the plan.
+     * @return The bill.
+     */
+    public static BillOfMaterials of(String name, List<Room> rooms) {
+        return new BillOfMaterials(Map.of(name, PlanStatistics.of(rooms)), Map.of());
+    }
+
+    /**
+     * Makes the bill of every plan in a directory, reading the plans in parallel. Files that
+     * are not plans are skipped; plans that cannot be read are listed as failures.
+     *
+     * @param directory The plan directory.
+     * @return The bill.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public static BillOfMaterials forDirectory(File directory) throws IOException {
+        File[] files = directory.listFiles(PlanIndex::isCandidate);
+        if (files == null) {
+            throw new FileNotFoundException("Not a directory: " + directory);
+        }
+        ConcurrentMap<String, PlanStatistics> plans = new ConcurrentHashMap<>();
+        ConcurrentMap<String, String> failures = new ConcurrentHashMap<>();
+        List<File> candidates = new ArrayList<>(List.of(files));
+        candidates.parallelStream().forEach(file -> {
+            try {
+                if (PlanIndex.isPlanFile(file)) {
+                    plans.put(file.getName(), PlanStatistics.of(PlanSerializer.loadRooms(file)));
+                }
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                failures.put(file.getName(), String.valueOf(e.getMessage()));
+            }
+        });
+        return new BillOfMaterials(plans, failures);
+    }
+
+    /**
+     * Gets the statistics of each plan.
+     *
+     * @return A read-only map, ordered by plan name.
+     */
+    public Map<String, PlanStatistics> getPlans() {
+        return plans;
+    }
+
+    /**
+     * Gets the plans that could not be read.
+     *
+     * @return A read-only map from plan name to error message, ordered by plan name.
+     */
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Adds up all plans of the bill.
+     *
+     * @return The combined statistics.
+     */
+    public PlanStatistics getTotal() {
+        return PlanStatistics.sum(plans.values());
+    }
+
+    /**
+     * Writes the bill as CSV. Areas are in square plan units, lengths in plan units.
+     *
+     * @param out The destination; it is flushed but not closed.
+     * @throws IOException If writing fails.
+     */
+    public void write(Writer out) throws IOException {
+        PrintWriter writer = new PrintWriter(out);
+        writer.print("plan,item,type,count,size,unit\r\n");
+        for (Map.Entry<String, PlanStatistics> plan : plans.entrySet()) {
+            writeLines(writer, plan.getKey(), plan.getValue());
+        }
+        if (plans.size() > 1) {
+            writeLines(writer, TOTAL, getTotal());
+        }
+        writer.flush();
+        if (writer.checkError()) {
+            throw new IOException("Error writing the bill of materials");
+        }
+    }
+
+    /**
+     * Writes the bill as a CSV file.
+     *
+     * @param file The file to write.
+     * @throws IOException If writing fails.
+     */
+    public void write(File file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            write(out);
+        }
+    }
+
+    private static void writeLines(PrintWriter writer, String plan, PlanStatistics statistics) {
+        for (Map.Entry<String, PlanStatistics.Tally> type : statistics.getRoomTypes().entrySet()) {
+            writeLine(writer, plan, "Room", type.getKey(), type.getValue(), "area");
+        }
+        writeLine(writer, plan, "Door", "", statistics.getDoors(), "length");
+        writeLine(writer, plan, "Window", "", statistics.getWindows(), "length");
+        for (Map.Entry<String, PlanStatistics.Tally> type : statistics.getFurnitureTypes().entrySet()) {
+            writeLine(writer, plan, "Furniture", type.getKey(), type.getValue(), "area");
+        }
+    }
+
+    private static void writeLine(PrintWriter writer, String plan, String item, String type, PlanStatistics.Tally tally,
+                                  String unit) {
+        writer.print(String.join(",", quote(plan), item, quote(type), String.valueOf(tally.getCount()),
+                String.valueOf(tally.getTotal()), unit) + "\r\n");
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Writes the bill of materials of a plan directory, or of a single plan, as CSV to a file or
+     * to standard output. Exits with 0 if every plan was read and 2 otherwise.
+     *
+     * @param args The plan directory or file, and optionally the CSV file.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: BillOfMaterials <directory or plan> [<csv file>]");
+            System.exit(2);
+        }
+        try {
+            long start = System.nanoTime();
+            File source = new File(args[0]);
+            BillOfMaterials bill = source.isDirectory() ? forDirectory(source)
+                    : of(source.getName(), PlanSerializer.loadRooms(source));
+            if (args.length == 2) {
+                bill.write(new File(args[1]));
+            } else {
+                bill.write(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            }
+            for (Map.Entry<String, String> failure : bill.getFailures().entrySet()) {
+                System.err.println(failure.getKey() + ": " + failure.getValue());
+            }
+            System.err.printf("%d plans, %d unreadable (%d ms)%n", bill.getPlans().size(), bill.getFailures().size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            System.exit(bill.getFailures().isEmpty() ? 0 : 2);
+        } catch (Exception e) {
+            System.err.println("Error making the bill of materials: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package app.util;
+
+import app.model.Furniture;
+import app.model.Room;
+import java.awt.Point;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Plan file made of independently decodable chunks of rooms.
+ * <p>
+ * Layout, all numbers big-endian:
+ * <pre>
+ * int  magic "FPLN"
+ * int  version
+ * the rest of a {@link PlanHeader} block, padded to {@link PlanHeader#SIZE} bytes
+ * int  chunk count
+ * int  image count
+ * per chunk: long offset, int length, int room count
+ * per image: long offset, int length
+ * chunk data: each chunk is a separate Java serialization stream holding an ArrayList of rooms
+ * image data: the encoded bytes of each embedded image
+ * </pre>
+ * <p>
+ * A room is written together with its doors, windows and furniture, so chunks do not refer to
+ * each other. Chunks are encoded and decoded in parallel on a {@link ForkJoinPool}; a final pass
+ * joins them in file order. Embedded images are stored once each and added to the
+ * {@link ImageStore} when read; furniture refers to them by content hash.
+ */
+final class ChunkedPlanFile {
+    static final int MAGIC = 0x46504C4E; // "FPLN"
+    static final int VERSION = 1;
+
+    /**
+     * Rooms per chunk. Small enough to spread a large plan over many cores,
+     * large enough that the class descriptors repeated in each chunk do not matter.
+     */
+    static final int ROOMS_PER_CHUNK = 512;
+
+    private static final int HEADER_SIZE = PlanHeader.SIZE + 8;
+    private static final int TABLE_ENTRY_SIZE = 16;
+    private static final int IMAGE_ENTRY_SIZE = 12;
+
+    private ChunkedPlanFile() {
+    }
+
+    /**
+     * Checks whether a file starts with the chunked plan magic number.
+     *
+     * @param file The file.
+     * @return True for a chunked plan, false for anything else, e.g. a plain serialized PlanData.
+     * @throws IOException If an I/O error occurs.
+     */
+    static boolean isChunked(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the rooms of a plan. Chunks are encoded a few at a time per worker, so only
+     * a bounded number of encoded chunks is held in memory at once.
+     *
+     * @param rooms  The rooms.
+     * @param header The summary of the rooms.
+     * @param images      The encoded images to embed.
+     * @param imageHashes Hashes to write for furniture that has an image path but no hash yet, by path.
+     * @param file        The file to write.
+     * @param pool        The pool that encodes the chunks.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void write(List<Room> rooms, PlanHeader header, Collection<byte[]> images, Map<String, String> imageHashes,
+                      File file, ForkJoinPool pool) throws IOException {
+        int chunkCount = (rooms.size() + ROOMS_PER_CHUNK - 1) / ROOMS_PER_CHUNK;
+        long[] offsets = new long[chunkCount];
+        int[] lengths = new int[chunkCount];
+        int wave = Math.max(1, pool.getParallelism() * 2);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // The tables are filled in once the chunk sizes are known
+            int tableSize = chunkCount * TABLE_ENTRY_SIZE + images.size() * IMAGE_ENTRY_SIZE;
+            long position = HEADER_SIZE + tableSize;
+            for (int first = 0; first < chunkCount; first += wave) {
+                int last = Math.min(chunkCount, first + wave);
+                List<ForkJoinTask<byte[]>> tasks = new ArrayList<>(last - first);
+                for (int chunk = first; chunk < last; chunk++) {
+                    List<Room> slice = rooms.subList(chunk * ROOMS_PER_CHUNK,
+                            Math.min(rooms.size(), (chunk + 1) * ROOMS_PER_CHUNK));
+                    tasks.add(pool.submit(() -> encode(slice, imageHashes)));
+                }
+                for (int chunk = first; chunk < last; chunk++) {
+                    byte[] bytes = joinEncoded(tasks.get(chunk - first));
+                    offsets[chunk] = position;
+                    lengths[chunk] = bytes.length;
+                    writeFully(channel, ByteBuffer.wrap(bytes), position);
+                    position += bytes.length;
+                }
+            }
+
+            ByteBuffer start = ByteBuffer.allocate(HEADER_SIZE + tableSize);
+            start.putInt(MAGIC).putInt(VERSION);
+            header.writeTo(start);
+            start.putInt(chunkCount).putInt(images.size());
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                int roomsInChunk = Math.min(ROOMS_PER_CHUNK, rooms.size() - chunk * ROOMS_PER_CHUNK);
+                start.putLong(offsets[chunk]).putInt(lengths[chunk]).putInt(roomsInChunk);
+            }
+            for (byte[] image : images) {
+                start.putLong(position).putInt(image.length);
+                writeFully(channel, ByteBuffer.wrap(image), position);
+                position += image.length;
+            }
+            start.flip();
+            writeFully(channel, start, 0);
+        }
+    }
+
+    /**
+     * Reads the rooms of a chunked plan. Every chunk is read and decoded by its own task.
+     * Embedded images are added to the {@link ImageStore} but not decoded.
+     *
+     * @param file       The file to read.
+     * @param pool       The pool that decodes the chunks.
+     * @param withImages False to skip the embedded images, e.g. when only the rooms are looked at.
+     * @return The rooms, in the order they were written.
+     * @throws IOException            If an I/O error occurs or the file is not a chunked plan.
+     * @throws ClassNotFoundException If the class of a serialized object cannot be found.
+     */
+    static List<Room> read(File file, ForkJoinPool pool, boolean withImages) throws IOException, ClassNotFoundException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a chunked plan file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported plan file version " + version + ": " + file);
+            }
+
+            header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            header.position(8);
+            int roomCount = PlanHeader.readFrom(header).getRoomCount();
+            int chunkCount = header.getInt();
+            int imageCount = header.getInt();
+
+            // Every size below comes from the file, so check it before allocating anything
+            long size = channel.size();
+            if (roomCount < 0 || chunkCount < 0 || imageCount < 0) {
+                throw new InvalidObjectException("Invalid plan file: " + roomCount + " rooms, " + chunkCount
+                        + " chunks, " + imageCount + " images");
+            }
+            long tableSize = (long) chunkCount * TABLE_ENTRY_SIZE + (long) imageCount * IMAGE_ENTRY_SIZE;
+            long dataStart = HEADER_SIZE + tableSize;
+            if (dataStart > size) {
+                throw new InvalidObjectException("Invalid plan file: table of " + chunkCount + " chunks and "
+                        + imageCount + " images does not fit in " + size + " bytes");
+            }
+            ByteBuffer table = ByteBuffer.allocate((int) tableSize);
+            readFully(channel, table, HEADER_SIZE);
+            table.flip();
+
+            long[] offsets = new long[chunkCount];
+            int[] lengths = new int[chunkCount];
+            int[] roomCounts = new int[chunkCount];
+            long tableRooms = 0;
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                offsets[chunk] = table.getLong();
+                lengths[chunk] = table.getInt();
+                roomCounts[chunk] = table.getInt();
+                checkRange("chunk " + chunk, offsets[chunk], lengths[chunk], dataStart, size);
+                if (roomCounts[chunk] < 0) {
+                    throw new InvalidObjectException("Invalid plan file: chunk " + chunk + " holds "
+                            + roomCounts[chunk] + " rooms");
+                }
+                tableRooms += roomCounts[chunk];
+            }
+            if (tableRooms != roomCount) {
+                throw new InvalidObjectException("Invalid plan file: chunks hold " + tableRooms + " rooms instead of "
+                        + roomCount);
+            }
+            long[] imageOffsets = new long[imageCount];
+            int[] imageLengths = new int[imageCount];
+            for (int image = 0; image < imageCount; image++) {
+                imageOffsets[image] = table.getLong();
+                imageLengths[image] = table.getInt();
+                checkRange("image " + image, imageOffsets[image], imageLengths[image], dataStart, size);
+            }
+
+            // Positional reads on a FileChannel may run concurrently
+            List<ForkJoinTask<List<Room>>> tasks = new ArrayList<>(chunkCount);
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                long offset = offsets[chunk];
+                int length = lengths[chunk];
+                int roomsInChunk = roomCounts[chunk];
+                tasks.add(pool.submit(() -> decode(channel, offset, length, roomsInChunk)));
+            }
+            try {
+                for (int image = 0; withImages && image < imageCount; image++) {
+                    ByteBuffer bytes = ByteBuffer.allocate(imageLengths[image]);
+                    readFully(channel, bytes, imageOffsets[image]);
+                    ImageStore.put(bytes.array());
+                }
+
+                // Join the chunks in file order
+                List<Room> rooms = new ArrayList<>(roomCount);
+                for (ForkJoinTask<List<Room>> task : tasks) {
+                    rooms.addAll(join(task));
+                }
+                return rooms;
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                // The channel closes on the way out, so the other chunks are of no use
+                for (ForkJoinTask<List<Room>> task : tasks) {
+                    task.cancel(true);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Checks that a chunk or image lies within the data part of the file.
+     */
+    private static void checkRange(String what, long offset, int length, long dataStart, long size)
+            throws InvalidObjectException {
+        if (length < 0 || offset < dataStart || offset > size - length) {
+            throw new InvalidObjectException("Invalid plan file: " + what + " of " + length + " bytes at " + offset
+                    + " lies outside the file of " + size + " bytes");
+        }
+    }
+
+    private static byte[] encode(List<Room> rooms, Map<String, String> imageHashes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ChunkOutputStream(bytes, imageHashes)) {
+            oos.writeObject(new ArrayList<>(rooms));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes furniture that is missing its image hash as a copy that has it, so saving
+     * never changes the plan being saved.
+     */
+    private static final class ChunkOutputStream extends ObjectOutputStream {
+        private final Map<String, String> imageHashes;
+
+        ChunkOutputStream(OutputStream out, Map<String, String> imageHashes) throws IOException {
+            super(out);
+            this.imageHashes = imageHashes;
+            enableReplaceObject(!imageHashes.isEmpty());
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof Furniture) {
+                Furniture furniture = (Furniture) obj;
+                String hash = furniture.getImageHash() == null && furniture.getImagePath() != null
+                        ? imageHashes.get(furniture.getImagePath()) : null;
+                if (hash != null) {
+                    Furniture copy = new Furniture(furniture.getWidth(), furniture.getHeight(), furniture.getType(),
+                            furniture.getRoom());
+                    copy.setId(furniture.getId());
+                    copy.setPosition(new Point(furniture.getX(), furniture.getY()));
+                    copy.setAngle(furniture.getAngle());
+                    copy.setImagePath(furniture.getImagePath());
+                    copy.setImageHash(hash);
+                    return copy;
+                }
+            }
+            return obj;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Room> decode(FileChannel channel, long offset, int length, int roomCount)
+            throws IOException, ClassNotFoundException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, offset);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(buffer.array()))) {
+            Object chunk = ois.readObject();
+            if (!(chunk instanceof List)) {
+                throw new InvalidObjectException("Chunk at " + offset + " does not hold a room list");
+            }
+            List<Room> rooms = (List<Room>) chunk;
+            if (rooms.size() != roomCount) {
+                throw new InvalidObjectException("Chunk at " + offset + " holds " + rooms.size()
+                        + " rooms instead of " + roomCount);
+            }
+            return rooms;
+        }
+    }
+
+    /**
+     * Waits for a task and rethrows the checked exception it failed with.
+     */
+    private static <T> T join(ForkJoinTask<T> task) throws IOException, ClassNotFoundException {
+        try {
+            return task.join();
+        } catch (RuntimeException e) {
+            // The pool wraps checked exceptions, possibly more than once
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof ClassNotFoundException) {
+                    throw (ClassNotFoundException) cause;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static byte[] joinEncoded(ForkJoinTask<byte[]> task) throws IOException {
+        try {
+            return join(task);
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e); // Encoding never loads classes
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Plan file ends at " + (position + buffer.position()));
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
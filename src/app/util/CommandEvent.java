@@ -0,0 +1,29 @@
+package app.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one command run forwards or backwards.
+ */
+@Name("app.Command")
+@Label("Command")
+@Category({"Floor Planner", "Editing"})
+@Description("A plan command executed, undone, redone or rolled back")
+public class CommandEvent extends jdk.jfr.Event {
+    @Label("Command")
+    public String command;
+
+    @Label("Action")
+    @Description("execute, undo, redo or rollback")
+    public String action;
+
+    @Label("Room")
+    @Description("Name of the room the command changed, if it changed a single room")
+    public String room;
+
+    @Label("History Position")
+    public int historyPosition;
+}
@@ -0,0 +1,25 @@
+package app.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a period in which the event dispatch thread did not process events.
+ * The event's duration is the stall; the stack shows where the thread was stuck.
+ */
+@Name("app.EdtStall")
+@Label("EDT Stall")
+@Category({"Floor Planner", "Responsiveness"})
+@Description("The event dispatch thread was blocked longer than the watchdog threshold")
+public class EdtStallEvent extends jdk.jfr.Event {
+    @Label("Threshold")
+    @Timespan(Timespan.MILLISECONDS)
+    public long thresholdMillis;
+
+    @Label("EDT Stack")
+    @Description("Stack of the event dispatch thread when the threshold was crossed")
+    public String stack;
+}
@@ -0,0 +1,37 @@
+package app.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for decoding one furniture image. Each distinct image is decoded once.
+ */
+@Name("app.ImageDecode")
+@Label("Image Decode")
+@Category({"Floor Planner", "I/O"})
+@Description("A furniture image decoded from its file contents")
+public class ImageDecodeEvent extends jdk.jfr.Event {
+    @Label("Path")
+    @Description("Where the image was first read from, or null for images embedded in a plan file")
+    public String path;
+
+    @Label("Hash")
+    @Description("SHA-256 of the image file contents")
+    public String hash;
+
+    @Label("Bytes")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Found")
+    public boolean found;
+}
@@ -0,0 +1,23 @@
+package app.util;
+
+import java.awt.Image;
+
+/**
+ * Loads furniture images from the class path or the file system through the shared
+ * {@link ImageStore}, so each distinct picture is read and decoded only once.
+ */
+public class ImageLoader {
+
+    /**
+     * Reads an image and scales it to the furniture size.
+     *
+     * @param resourcePath The resource path, e.g. "/resources/chair.png", or a file path.
+     * @param width        The target width.
+     * @param height       The target height.
+     * @return The scaled image, or null if there is no such resource or file.
+     */
+    public static Image loadScaled(String resourcePath, int width, int height) {
+        String hash = ImageStore.hashOfSource(resourcePath);
+        return hash != null ? ImageStore.getScaled(hash, width, height) : null;
+    }
+}
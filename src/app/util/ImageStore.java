@@ -0,0 +1,241 @@
+package app.util;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.imageio.ImageIO;
+
+/**
+ * Shared, content-addressed store of furniture images.
+ * Image files are kept as their encoded bytes under the SHA-256 hash of those bytes, so a
+ * picture used by many pieces of furniture, or found under several paths, is held once.
+ * Bytes are decoded lazily, once per hash, and scaled images are shared between furniture
+ * of the same size. Entries are never evicted; plans only use a handful of pictures.
+ */
+public final class ImageStore {
+    // Returned for sources that do not exist, because concurrent maps cannot hold null
+    private static final String MISSING = "";
+
+    private static final ConcurrentMap<String, byte[]> CONTENT = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, String> SOURCES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, String> ORIGINS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Decoded> DECODED = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<ScaledKey, Image> SCALED = new ConcurrentHashMap<>();
+
+    private ImageStore() {
+    }
+
+    /**
+     * Adds encoded image bytes.
+     *
+     * @param bytes The image file contents, e.g. a PNG. Must not be changed afterwards.
+     * @return The content hash that refers to the image.
+     */
+    public static String put(byte[] bytes) {
+        String hash = hash(bytes);
+        CONTENT.putIfAbsent(hash, bytes);
+        return hash;
+    }
+
+    /**
+     * Gets the encoded bytes of an image.
+     *
+     * @param hash The content hash.
+     * @return The bytes, or null if the store has no such image.
+     */
+    public static byte[] getBytes(String hash) {
+        return CONTENT.get(hash);
+    }
+
+    /**
+     * Reads an image file and adds it to the store. Every path is read once.
+     *
+     * @param path A class path resource such as "/resources/chair.png", or a file path.
+     * @return The content hash, or null if there is no such resource or file.
+     */
+    public static String hashOfSource(String path) {
+        String hash = SOURCES.computeIfAbsent(path, ImageStore::readSource);
+        return hash == MISSING ? null : hash;
+    }
+
+    /**
+     * Gets an image scaled to a furniture size, decoding it on first use.
+     *
+     * @param hash   The content hash.
+     * @param width  The target width.
+     * @param height The target height.
+     * @return The scaled image, or null if the store has no such image or it cannot be decoded.
+     */
+    public static Image getScaled(String hash, int width, int height) {
+        BufferedImage source = decode(hash);
+        if (source == null) {
+            return null;
+        }
+        return SCALED.computeIfAbsent(new ScaledKey(hash, width, height),
+                key -> source.getScaledInstance(width, height, Image.SCALE_SMOOTH));
+    }
+
+    /**
+     * Gets the number of images held as encoded bytes.
+     *
+     * @return The number of distinct images.
+     */
+    public static int getStoredCount() {
+        return CONTENT.size();
+    }
+
+    public static long getStoredBytes() {
+        long bytes = 0;
+        for (byte[] content : CONTENT.values()) {
+            bytes += content.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the number of images decoded so far. Each distinct image is decoded at most once.
+     *
+     * @return The number of decoded images.
+     */
+    public static int getDecodedCount() {
+        int count = 0;
+        for (Decoded decoded : DECODED.values()) {
+            if (decoded.image != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the memory held by decoded images, at four bytes per pixel.
+     *
+     * @return The size in bytes.
+     */
+    public static long getDecodedBytes() {
+        long bytes = 0;
+        for (Decoded decoded : DECODED.values()) {
+            if (decoded.image != null) {
+                bytes += (long) decoded.image.getWidth() * decoded.image.getHeight() * 4;
+            }
+        }
+        return bytes;
+    }
+
+    private static BufferedImage decode(String hash) {
+        byte[] bytes = CONTENT.get(hash);
+        if (bytes == null) {
+            return null;
+        }
+        return DECODED.computeIfAbsent(hash, h -> new Decoded(read(h, bytes))).image;
+    }
+
+    /**
+     * Decodes image bytes and records an {@link ImageDecodeEvent} for the flight recorder.
+     */
+    private static BufferedImage read(String hash, byte[] bytes) {
+        ImageDecodeEvent event = new ImageDecodeEvent();
+        event.begin();
+        BufferedImage image = null;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            // Treated like an image that cannot be decoded
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = ORIGINS.get(hash);
+            event.hash = hash;
+            event.bytes = bytes.length;
+            event.width = image != null ? image.getWidth() : 0;
+            event.height = image != null ? image.getHeight() : 0;
+            event.found = image != null;
+            event.commit();
+        }
+        return image;
+    }
+
+    private static String readSource(String path) {
+        try {
+            byte[] bytes = null;
+            URL url = ImageStore.class.getResource(path);
+            if (url != null) {
+                try (InputStream in = url.openStream()) {
+                    bytes = in.readAllBytes();
+                }
+            } else {
+                File file = new File(path);
+                if (file.isFile()) {
+                    bytes = Files.readAllBytes(file.toPath());
+                }
+            }
+            if (bytes == null) {
+                return MISSING;
+            }
+            String hash = put(bytes);
+            ORIGINS.putIfAbsent(hash, path);
+            return hash;
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Required on every Java platform
+        }
+    }
+
+    /**
+     * Result of decoding, kept even when decoding failed so it is not tried again.
+     */
+    private static final class Decoded {
+        final BufferedImage image;
+
+        Decoded(BufferedImage image) {
+            this.image = image;
+        }
+    }
+
+    private static final class ScaledKey {
+        final String hash;
+        final int width, height;
+
+        ScaledKey(String hash, int width, int height) {
+            this.hash = hash;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ScaledKey)) {
+                return false;
+            }
+            ScaledKey other = (ScaledKey) o;
+            return width == other.width && height == other.height && hash.equals(other.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hash, width, height);
+        }
+    }
+}
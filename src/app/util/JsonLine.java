@@ -0,0 +1,231 @@
+package app.util;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for NDJSON plan records: flat objects whose values are strings,
+ * numbers, booleans or null. Nested objects and arrays are rejected.
+ */
+final class JsonLine {
+    private final String text;
+    private int pos;
+
+    private JsonLine(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses one flat JSON object.
+     *
+     * @param text The line.
+     * @return The members in the order they appear. Numbers are Long or Double values.
+     * @throws IOException If the line is not a flat JSON object.
+     */
+    static Map<String, Object> parse(String text) throws IOException {
+        JsonLine parser = new JsonLine(text);
+        Map<String, Object> members = parser.parseObject();
+        parser.skipWhitespace();
+        if (parser.pos != text.length()) {
+            throw parser.error("Unexpected text after the object");
+        }
+        return members;
+    }
+
+    /**
+     * Appends a string as a quoted JSON string, or null.
+     *
+     * @param out   The builder.
+     * @param value The string, may be null.
+     */
+    static void appendString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+            }
+        }
+        out.append('"');
+    }
+
+    private Map<String, Object> parseObject() throws IOException {
+        Map<String, Object> members = new LinkedHashMap<>();
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return members;
+        }
+        while (true) {
+            skipWhitespace();
+            String name = parseString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            members.put(name, parseValue());
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return members;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private Object parseValue() throws IOException {
+        char c = peek();
+        switch (c) {
+            case '"':
+                return parseString();
+            case 't':
+                expectWord("true");
+                return Boolean.TRUE;
+            case 'f':
+                expectWord("false");
+                return Boolean.FALSE;
+            case 'n':
+                expectWord("null");
+                return null;
+            case '{':
+            case '[':
+                throw error("Nested values are not supported");
+            default:
+                return parseNumber();
+        }
+    }
+
+    private String parseString() throws IOException {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escaped = next();
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    value.append(escaped);
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > text.length()) {
+                        throw error("Incomplete unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw error("Invalid escape '\\" + escaped + "'");
+            }
+        }
+    }
+
+    private Object parseNumber() throws IOException {
+        int start = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+        String number = text.substring(start, pos);
+        try {
+            if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                return Long.parseLong(number);
+            }
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("Invalid value");
+        }
+    }
+
+    private void expectWord(String word) throws IOException {
+        if (!text.startsWith(word, pos)) {
+            throw error("Invalid value");
+        }
+        pos += word.length();
+    }
+
+    private void expect(char expected) throws IOException {
+        if (next() != expected) {
+            pos--;
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    private char peek() throws IOException {
+        if (pos >= text.length()) {
+            throw error("Unexpected end of line");
+        }
+        return text.charAt(pos);
+    }
+
+    private char next() throws IOException {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at column " + (pos + 1));
+    }
+}
@@ -0,0 +1,269 @@
+package app.util;
+
+import app.model.Door;
+import app.model.Furniture;
+import app.model.PlanItem;
+import app.model.PlanWindow;
+import app.model.Room;
+import app.model.RoomType;
+import java.awt.Color;
+import java.awt.Point;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads plans written by {@link NdjsonPlanWriter} one line at a time.
+ * Doors, windows and furniture have to follow the room they belong to, before the next room,
+ * so a room is complete as soon as the next one starts and only the room being read is held.
+ * Items keep the ids in the file. Rooms without a color get the color of their type. Records of
+ * unknown kinds are skipped; blank lines are ignored.
+ */
+public class NdjsonPlanReader implements Closeable {
+    private final BufferedReader in;
+    private long lineNumber = 0;
+
+    // The room being read, its id in the file and its items; finished once the next room starts
+    private Room pending = null;
+    private long pendingId = 0;
+    private final List<Door> pendingDoors = new ArrayList<>();
+    private final List<PlanWindow> pendingWindows = new ArrayList<>();
+    private final List<Furniture> pendingFurnitures = new ArrayList<>();
+    private boolean finished = false;
+
+    public NdjsonPlanReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+    }
+
+    /**
+     * Opens a UTF-8 NDJSON file.
+     *
+     * @param file The file.
+     * @return The reader.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static NdjsonPlanReader open(File file) throws IOException {
+        return new NdjsonPlanReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the rest of the input and hands over the rooms in batches as soon as each batch is
+     * complete, so a consumer can process a plan while it is still being read.
+     *
+     * @param batchSize The number of rooms per batch. The last batch may be smaller.
+     * @param consumer  Receives each batch.
+     * @return The number of rooms read.
+     * @throws IOException If an I/O error occurs or a line is not a valid record.
+     */
+    public int readBatches(int batchSize, Consumer<List<Room>> consumer) throws IOException {
+        int total = 0;
+        List<Room> batch;
+        while (!(batch = readBatch(batchSize)).isEmpty()) {
+            total += batch.size();
+            consumer.accept(batch);
+        }
+        return total;
+    }
+
+    /**
+     * Reads all rooms of a file.
+     *
+     * @param file The file.
+     * @return The plan.
+     * @throws IOException If an I/O error occurs or a line is not a valid record.
+     */
+    public static PlanData read(File file) throws IOException {
+        List<Room> rooms = new ArrayList<>();
+        try (NdjsonPlanReader reader = open(file)) {
+            Room room;
+            while ((room = reader.readRoom()) != null) {
+                rooms.add(room);
+            }
+        }
+        return new PlanData(rooms);
+    }
+
+    /**
+     * Reads up to the given number of complete rooms.
+     *
+     * @param maxRooms The largest batch to return.
+     * @return The rooms, empty at the end of the input.
+     * @throws IOException If an I/O error occurs or a line is not a valid record.
+     */
+    public List<Room> readBatch(int maxRooms) throws IOException {
+        List<Room> batch = new ArrayList<>(Math.min(maxRooms, 1024));
+        Room room;
+        while (batch.size() < maxRooms && (room = readRoom()) != null) {
+            batch.add(room);
+        }
+        return batch;
+    }
+
+    /**
+     * Reads the next complete room with its doors, windows and furniture.
+     *
+     * @return The room, or null at the end of the input.
+     * @throws IOException If an I/O error occurs or a line is not a valid record.
+     */
+    public Room readRoom() throws IOException {
+        String line;
+        while (!finished && (line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            Room complete = readRecord(line);
+            if (complete != null) {
+                return complete;
+            }
+        }
+        finished = true;
+        return finishPending();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Applies one record. Returns the previous room if this record starts a new one.
+     */
+    private Room readRecord(String line) throws IOException {
+        Map<String, Object> record;
+        try {
+            record = JsonLine.parse(line);
+        } catch (IOException e) {
+            throw error(e.getMessage());
+        }
+        String kind = string(record, "kind");
+        if (kind == null) {
+            throw error("Record without a kind");
+        }
+        switch (kind) {
+            case "room": {
+                Room previous = finishPending();
+                String type = required(record, "type");
+                Color color = toColor(string(record, "color"));
+                pending = new Room(integer(record, "x"), integer(record, "y"),
+                        integer(record, "width"), integer(record, "height"), type,
+                        color != null ? color : RoomType.of(type).getColor(), string(record, "name"));
+                pendingId = number(record, "id");
+                setId(pending, pendingId);
+                return previous;
+            }
+            case "door": {
+                Door door = new Door(integer(record, "width"), integer(record, "height"), required(record, "direction"));
+                door.setPosition(new Point(integer(record, "x"), integer(record, "y")));
+                setId(door, number(record, "id"));
+                parent(record, kind);
+                pendingDoors.add(door);
+                return null;
+            }
+            case "window": {
+                PlanWindow window = new PlanWindow(integer(record, "width"), integer(record, "height"),
+                        required(record, "direction"));
+                window.setPosition(new Point(integer(record, "x"), integer(record, "y")));
+                setId(window, number(record, "id"));
+                parent(record, kind);
+                pendingWindows.add(window);
+                return null;
+            }
+            case "furniture": {
+                Room room = parent(record, kind);
+                Furniture furniture = new Furniture(integer(record, "width"), integer(record, "height"),
+                        required(record, "type"), room);
+                furniture.setPosition(new Point(integer(record, "x"), integer(record, "y")));
+                furniture.setImagePath(string(record, "image"));
+                setId(furniture, number(record, "id"));
+                if (record.get("angle") != null) {
+                    furniture.setAngle(integer(record, "angle"));
+                }
+                pendingFurnitures.add(furniture);
+                return null;
+            }
+            default:
+                return null; // Written by a newer version
+        }
+    }
+
+    /**
+     * Hands the room being read its items, all at once, and returns it.
+     */
+    private Room finishPending() {
+        Room room = pending;
+        if (room != null) {
+            room.setItems(pendingDoors, pendingWindows, pendingFurnitures);
+            pendingDoors.clear();
+            pendingWindows.clear();
+            pendingFurnitures.clear();
+        }
+        pending = null;
+        return room;
+    }
+
+    private void setId(PlanItem item, long id) throws IOException {
+        if (id <= 0) {
+            throw error("Invalid id " + id);
+        }
+        item.setId(id);
+    }
+
+    private Room parent(Map<String, Object> record, String kind) throws IOException {
+        long roomId = number(record, "room");
+        if (pending == null || roomId != pendingId) {
+            throw error(kind + " of room " + roomId + " does not follow that room");
+        }
+        return pending;
+    }
+
+    private String string(Map<String, Object> record, String name) throws IOException {
+        Object value = record.get(name);
+        if (value != null && !(value instanceof String)) {
+            throw error("'" + name + "' is not a string");
+        }
+        return (String) value;
+    }
+
+    private String required(Map<String, Object> record, String name) throws IOException {
+        String value = string(record, name);
+        if (value == null) {
+            throw error("'" + name + "' is missing");
+        }
+        return value;
+    }
+
+    private long number(Map<String, Object> record, String name) throws IOException {
+        Object value = record.get(name);
+        if (!(value instanceof Number)) {
+            throw error("'" + name + "' is missing or not a number");
+        }
+        return ((Number) value).longValue();
+    }
+
+    private int integer(Map<String, Object> record, String name) throws IOException {
+        long value = number(record, name);
+        if (value != (int) value) {
+            throw error("'" + name + "' is out of range");
+        }
+        return (int) value;
+    }
+
+    private Color toColor(String hex) throws IOException {
+        if (hex == null) {
+            return null;
+        }
+        try {
+            return Color.decode(hex);
+        } catch (NumberFormatException e) {
+            throw error("Invalid color " + hex);
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException("Line " + lineNumber + ": " + message);
+    }
+}
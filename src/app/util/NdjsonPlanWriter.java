@@ -0,0 +1,123 @@
+package app.util;
+
+import app.model.Door;
+import app.model.Furniture;
+import app.model.PlanWindow;
+import app.model.Room;
+import java.awt.Color;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes a plan as newline-delimited JSON, one record per line, for tools that cannot read
+ * Java serialization. Each room is followed directly by its doors, windows and furniture:
+ * <pre>
+ * {"kind":"room","id":1,"x":0,"y":0,"width":200,"height":160,"type":"Bedroom","name":"Bedroom 1","color":"#98fb98"}
+ * {"kind":"door","id":2,"room":1,"x":80,"y":0,"width":40,"height":20,"direction":"North"}
+ * {"kind":"window","id":3,"room":1,"x":60,"y":160,"width":80,"height":10,"direction":"South"}
+ * {"kind":"furniture","id":4,"room":1,"x":20,"y":20,"width":40,"height":40,"type":"Chair","image":"/resources/chair.png","angle":90}
+ * </pre>
+ * Ids are the items' own ids (see {@link app.model.PlanItem#getId()}), so references to items
+ * stay valid after a round trip through this format. Rooms are written one at a time, so the
+ * writer only holds the current line. {@link NdjsonPlanReader} reads the format back.
+ */
+public class NdjsonPlanWriter implements Closeable {
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(256);
+
+    public NdjsonPlanWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes all rooms of a plan to a file.
+     *
+     * @param rooms The rooms.
+     * @param file  The file to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void write(List<Room> rooms, File file) throws IOException {
+        try (NdjsonPlanWriter writer = new NdjsonPlanWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))) {
+            for (Room room : rooms) {
+                writer.writeRoom(room);
+            }
+        }
+    }
+
+    /**
+     * Writes a room record followed by the records of its doors, windows and furniture.
+     *
+     * @param room The room.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeRoom(Room room) throws IOException {
+        long roomId = room.getId();
+        begin("room", roomId);
+        bounds(room.getX(), room.getY(), room.getWidth(), room.getHeight());
+        string("type", room.getType());
+        string("name", room.getName());
+        string("color", toHex(room.getColor()));
+        end();
+
+        for (Door door : room.getDoors()) {
+            begin("door", door.getId());
+            number("room", roomId);
+            bounds(door.getX(), door.getY(), door.getWidth(), door.getHeight());
+            string("direction", door.getDirection());
+            end();
+        }
+        for (PlanWindow window : room.getWindows()) {
+            begin("window", window.getId());
+            number("room", roomId);
+            bounds(window.getX(), window.getY(), window.getWidth(), window.getHeight());
+            string("direction", window.getDirection());
+            end();
+        }
+        for (Furniture furniture : room.getFurnitures()) {
+            begin("furniture", furniture.getId());
+            number("room", roomId);
+            bounds(furniture.getX(), furniture.getY(), furniture.getWidth(), furniture.getHeight());
+            string("type", furniture.getType());
+            string("image", furniture.getImagePath());
+            number("angle", furniture.getAngle());
+            end();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void begin(String kind, long id) {
+        line.setLength(0);
+        line.append("{\"kind\":\"").append(kind).append("\",\"id\":").append(id);
+    }
+
+    private void bounds(int x, int y, int width, int height) {
+        number("x", x);
+        number("y", y);
+        number("width", width);
+        number("height", height);
+    }
+
+    private void number(String name, long value) {
+        line.append(",\"").append(name).append("\":").append(value);
+    }
+
+    private void string(String name, String value) {
+        line.append(",\"").append(name).append("\":");
+        JsonLine.appendString(line, value);
+    }
+
+    private void end() throws IOException {
+        line.append("}\n");
+        out.append(line);
+    }
+
+    private static String toHex(Color color) {
+        return color != null ? String.format("#%06x", color.getRGB() & 0xFFFFFF) : null;
+    }
+}
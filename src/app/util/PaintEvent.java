@@ -0,0 +1,33 @@
+package app.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one paint of the plan canvas.
+ */
+@Name("app.Paint")
+@Label("Canvas Paint")
+@Category({"Floor Planner", "Rendering"})
+@Description("One paintComponent call of the plan canvas")
+public class PaintEvent extends jdk.jfr.Event {
+    @Label("Clip Width")
+    public int clipWidth;
+
+    @Label("Clip Height")
+    public int clipHeight;
+
+    @Label("Rooms Drawn")
+    public int roomsDrawn;
+
+    @Label("Rooms Culled")
+    public int roomsCulled;
+
+    @Label("Furniture Drawn")
+    public int furnitureDrawn;
+
+    @Label("Furniture Culled")
+    public int furnitureCulled;
+}
@@ -0,0 +1,223 @@
+package app.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Immutable map from long keys to values, ordered by key.
+ * Every update returns a new map that shares all untouched nodes with the old one,
+ * so a put or remove costs O(log n) time and memory and old versions stay valid.
+ *
+ * @param <V> The value type.
+ */
+public final class PersistentLongMap<V> {
+    private static final PersistentLongMap<?> EMPTY = new PersistentLongMap<>(null);
+
+    private final Node<V> root;
+
+    private PersistentLongMap(Node<V> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @param <V> The value type.
+     * @return The shared empty map.
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentLongMap<V> empty() {
+        return (PersistentLongMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Looks up the value stored under a key.
+     *
+     * @param key The key to look up.
+     * @return The value, or null if the key is absent.
+     */
+    public V get(long key) {
+        Node<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map with the key bound to the value.
+     *
+     * @param key   The key.
+     * @param value The value, must not be null.
+     * @return The updated map.
+     */
+    public PersistentLongMap<V> put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        return new PersistentLongMap<>(insert(root, key, value, priority(key)));
+    }
+
+    /**
+     * Returns a map without the key.
+     *
+     * @param key The key to remove.
+     * @return The updated map, or this map if the key was absent.
+     */
+    public PersistentLongMap<V> remove(long key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+        return new PersistentLongMap<>(delete(root, key));
+    }
+
+    /**
+     * Visits all entries in key order.
+     *
+     * @param action The action to run for each key and value.
+     */
+    public void forEach(BiConsumer<Long, V> action) {
+        walk(root, action);
+    }
+
+    /**
+     * Returns the values in key order.
+     *
+     * @return A new list with all values.
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        forEach((key, value) -> values.add(value));
+        return values;
+    }
+
+    /**
+     * Visits the tree nodes not visited before. Maps derived from each other share subtrees,
+     * so passing the same set for several versions visits every shared node only once.
+     *
+     * @param seen   Identity set of the nodes already visited; new nodes are added to it.
+     * @param action The action to run for the value of each new node.
+     * @return The number of new nodes.
+     */
+    public int forEachUnseenNode(Set<Object> seen, Consumer<V> action) {
+        return visitUnseen(root, seen, action);
+    }
+
+    private static <V> int visitUnseen(Node<V> node, Set<Object> seen, Consumer<V> action) {
+        if (node == null || !seen.add(node)) {
+            // A node seen before was visited together with its whole subtree
+            return 0;
+        }
+        action.accept(node.value);
+        return 1 + visitUnseen(node.left, seen, action) + visitUnseen(node.right, seen, action);
+    }
+
+    private static <V> void walk(Node<V> node, BiConsumer<Long, V> action) {
+        while (node != null) {
+            walk(node.left, action);
+            action.accept(node.key, node.value);
+            node = node.right;
+        }
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Heap priority derived from the key, so the tree shape depends only on the key set.
+     */
+    private static int priority(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 32);
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= (h >>> 29);
+        return (int) h;
+    }
+
+    private static <V> Node<V> insert(Node<V> node, long key, V value, int priority) {
+        if (node == null) {
+            return new Node<>(key, value, priority, null, null);
+        }
+        if (key == node.key) {
+            return new Node<>(key, value, node.priority, node.left, node.right);
+        }
+        if (key < node.key) {
+            Node<V> left = insert(node.left, key, value, priority);
+            if (left.priority > node.priority) {
+                // Rotate right
+                Node<V> lowered = new Node<>(node.key, node.value, node.priority, left.right, node.right);
+                return new Node<>(left.key, left.value, left.priority, left.left, lowered);
+            }
+            return new Node<>(node.key, node.value, node.priority, left, node.right);
+        } else {
+            Node<V> right = insert(node.right, key, value, priority);
+            if (right.priority > node.priority) {
+                // Rotate left
+                Node<V> lowered = new Node<>(node.key, node.value, node.priority, node.left, right.left);
+                return new Node<>(right.key, right.value, right.priority, lowered, right.right);
+            }
+            return new Node<>(node.key, node.value, node.priority, node.left, right);
+        }
+    }
+
+    private static <V> Node<V> delete(Node<V> node, long key) {
+        if (key < node.key) {
+            return new Node<>(node.key, node.value, node.priority, delete(node.left, key), node.right);
+        } else if (key > node.key) {
+            return new Node<>(node.key, node.value, node.priority, node.left, delete(node.right, key));
+        }
+        return merge(node.left, node.right);
+    }
+
+    /**
+     * Joins two treaps where every key in left is smaller than every key in right.
+     */
+    private static <V> Node<V> merge(Node<V> left, Node<V> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            return new Node<>(left.key, left.value, left.priority, left.left, merge(left.right, right));
+        }
+        return new Node<>(right.key, right.value, right.priority, merge(left, right.left), right.right);
+    }
+
+    private static final class Node<V> {
+        final long key;
+        final V value;
+        final int priority;
+        final Node<V> left;
+        final Node<V> right;
+        final int size;
+
+        Node(long key, V value, int priority, Node<V> left, Node<V> right) {
+            this.key = key;
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+}
@@ -3,26 +3,39 @@ package app.util;
 import app.model.Furniture;
 import app.model.Room;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Serializable class to hold plan data.
+ * Only the rooms are stored; doors, windows and furniture are saved with the room that owns them.
+ * Files from older versions also hold a separate furniture list, which is ignored when reading.
  */
 public class PlanData implements Serializable {
     private static final long serialVersionUID = 1L;
     private List<Room> rooms;
-    private List<Furniture> furnitures;
 
-    public PlanData(List<Room> rooms, List<Furniture> furnitures) {
+    public PlanData(List<Room> rooms) {
         this.rooms = rooms;
-        this.furnitures = furnitures;
     }
 
     public List<Room> getRooms() {
         return rooms;
     }
 
+    /**
+     * Gets the furniture of all rooms.
+     *
+     * @return A read-only list, room by room.
+     */
     public List<Furniture> getFurnitures() {
-        return furnitures;
+        List<Furniture> furnitures = new ArrayList<>();
+        if (rooms != null) {
+            for (Room room : rooms) {
+                furnitures.addAll(room.getFurnitures());
+            }
+        }
+        return Collections.unmodifiableList(furnitures);
     }
-}
\ No newline at end of file
+}
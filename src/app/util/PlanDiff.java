@@ -0,0 +1,462 @@
+package app.util;
+
+import app.model.Door;
+import app.model.Furniture;
+import app.model.PlanItem;
+import app.model.PlanWindow;
+import app.model.Room;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Structural difference between two versions of a plan: the rooms, doors, windows and furniture
+ * that were added, removed, moved, resized or rotated, and those whose type, name or color
+ * changed. A matched item can have several changes, e.g. a piece of furniture that was moved
+ * and rotated.
+ * <p>
+ * Items are matched by identity, id or position. The same instance, or an unchanged item, at
+ * the start and end of a list is paired up directly; the rest are matched in rounds, each by
+ * hashing: first items of the same kind with the same id, then items with equal details,
+ * position and size, then equal size (moved), then equal position (resized), and last, for
+ * named rooms, the same name. The position rounds matter for plans saved before items had ids,
+ * which get new ids every time they are loaded. Doors, windows and furniture are only matched
+ * within a matched room, by their position relative to it, so moving a room does not report
+ * its contents as moved. Every round is linear in the number of items still unmatched.
+ * An item with the same id but another type is only matched where it stayed in place; it is
+ * then reported as changed.
+ */
+public final class PlanDiff {
+    public enum Kind { ADDED, REMOVED, MOVED, RESIZED, ROTATED, CHANGED }
+
+    private final List<Change> changes;
+    private final int oldItems, newItems;
+
+    private PlanDiff(List<Change> changes, int oldItems, int newItems) {
+        this.changes = Collections.unmodifiableList(changes);
+        this.oldItems = oldItems;
+        this.newItems = newItems;
+    }
+
+    /**
+     * Compares two plans.
+     *
+     * @param oldPlan The earlier version.
+     * @param newPlan The later version.
+     * @return The differences.
+     */
+    public static PlanDiff compare(PlanData oldPlan, PlanData newPlan) {
+        return compare(oldPlan.getRooms(), newPlan.getRooms());
+    }
+
+    /**
+     * Compares two lists of rooms with their contents.
+     *
+     * @param oldRooms The earlier version.
+     * @param newRooms The later version.
+     * @return The differences.
+     */
+    public static PlanDiff compare(List<Room> oldRooms, List<Room> newRooms) {
+        List<Change> changes = new ArrayList<>();
+        int[] roomMatches = match(oldRooms, newRooms, Room::getRoomType, Room::getName,
+                room -> room.getName() != null, room -> Arrays.asList(room.getRoomType(), room.getName(), room.getColor()),
+                room -> 0, 0, 0, changes);
+
+        boolean[] newMatched = new boolean[newRooms.size()];
+        for (int i = 0; i < oldRooms.size(); i++) {
+            Room oldRoom = oldRooms.get(i);
+            if (roomMatches[i] < 0) {
+                addItems(changes, Kind.REMOVED, oldRoom);
+                continue;
+            }
+            Room newRoom = newRooms.get(roomMatches[i]);
+            newMatched[roomMatches[i]] = true;
+            // Old items are compared at the place they would have after moving with the room
+            int dx = newRoom.getX() - oldRoom.getX();
+            int dy = newRoom.getY() - oldRoom.getY();
+            match(oldRoom.getDoors(), newRoom.getDoors(), Door::getDirection, door -> null, door -> false,
+                    Door::getDirection, door -> 0, dx, dy, changes);
+            match(oldRoom.getWindows(), newRoom.getWindows(), PlanWindow::getDirection, window -> null,
+                    window -> false, PlanWindow::getDirection, window -> 0, dx, dy, changes);
+            match(oldRoom.getFurnitures(), newRoom.getFurnitures(), Furniture::getType, Furniture::getAngle,
+                    furniture -> false, Furniture::getType, Furniture::getAngle, dx, dy, changes);
+        }
+        for (int j = 0; j < newRooms.size(); j++) {
+            if (!newMatched[j]) {
+                addItems(changes, Kind.ADDED, newRooms.get(j));
+            }
+        }
+        return new PlanDiff(changes, countItems(oldRooms), countItems(newRooms));
+    }
+
+    /**
+     * Matches two lists of items of one kind and records the changes of the matched and
+     * unmatched ones. Unchanged items at the start and the end of the lists are paired up
+     * directly, so hashing is only needed around the places that changed.
+     *
+     * @param kind         Gets what items need to have in common to match at all, e.g. their type.
+     * @param detail       Gets a second such property; may return null.
+     * @param identifiable Tells whether the kind and detail alone identify an item.
+     * @param properties   Gets what else makes up the item, e.g. its type and name; a matched
+     *                     item whose properties differ is reported as changed.
+     * @param angle        Gets the rotation of an item; a matched item whose angle differs is
+     *                     reported as rotated.
+     * @param dx           How far old items are shifted before their positions are compared.
+     * @param dy           The vertical shift.
+     * @param changes      Receives the changes.
+     * @return The index of the new version of every old item, or -1 if it was removed.
+     */
+    private static <T extends PlanItem> int[] match(List<T> oldItems, List<T> newItems, Function<T, ?> kind,
+                                                    Function<T, ?> detail, Predicate<T> identifiable,
+                                                    Function<T, ?> properties, ToIntFunction<T> angle, int dx, int dy,
+                                                    List<Change> changes) {
+        int[] matches = new int[oldItems.size()];
+        Arrays.fill(matches, -1);
+        int common = Math.min(oldItems.size(), newItems.size());
+        int prefix = 0;
+        while (prefix < common && isSame(oldItems.get(prefix), newItems.get(prefix), properties, angle, dx, dy)) {
+            matches[prefix] = prefix;
+            prefix++;
+        }
+        int oldEnd = oldItems.size();
+        int newEnd = newItems.size();
+        while (oldEnd > prefix && newEnd > prefix
+                && isSame(oldItems.get(oldEnd - 1), newItems.get(newEnd - 1), properties, angle, dx, dy)) {
+            matches[--oldEnd] = --newEnd;
+        }
+        if (oldEnd == prefix && newEnd == prefix) {
+            return matches;
+        }
+
+        // Each round gets the key of an item shifted by the given distance
+        List<BiFunction<T, Point, Key>> rounds = new ArrayList<>();
+        rounds.add((item, shift) -> new Key(kind.apply(item), detail.apply(item), item.getX() + shift.x,
+                item.getY() + shift.y, item.getWidth(), item.getHeight()));
+        rounds.add((item, shift) -> new Key(kind.apply(item), detail.apply(item), 0, 0, item.getWidth(), item.getHeight()));
+        rounds.add((item, shift) -> new Key(kind.apply(item), detail.apply(item), item.getX() + shift.x,
+                item.getY() + shift.y, 0, 0));
+        rounds.add((item, shift) -> identifiable.test(item) ? new Key(kind.apply(item), detail.apply(item), 0, 0, 0, 0) : null);
+
+        boolean[] newMatched = new boolean[newEnd - prefix];
+        Map<Long, Integer> newById = new HashMap<>();
+        for (int j = prefix; j < newEnd; j++) {
+            newById.putIfAbsent(newItems.get(j).getId(), j);
+        }
+        List<Integer> remaining = new ArrayList<>();
+        for (int i = prefix; i < oldEnd; i++) {
+            T oldItem = oldItems.get(i);
+            Integer found = newById.get(oldItem.getId());
+            // Ids are unique across plans, so the same id is the same item wherever it went; a
+            // new type or name is reported from its properties, not as a removal and an addition
+            if (found != null && !newMatched[found - prefix]) {
+                matches[i] = found;
+                newMatched[found - prefix] = true;
+            } else {
+                remaining.add(i);
+            }
+        }
+        Point none = new Point();
+        Point shift = new Point(dx, dy);
+        for (BiFunction<T, Point, Key> round : rounds) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            Map<Key, ArrayDeque<Integer>> candidates = new HashMap<>();
+            for (int j = prefix; j < newEnd; j++) {
+                if (!newMatched[j - prefix]) {
+                    Key key = round.apply(newItems.get(j), none);
+                    if (key != null) {
+                        candidates.computeIfAbsent(key, k -> new ArrayDeque<>()).add(j);
+                    }
+                }
+            }
+            List<Integer> unmatched = new ArrayList<>();
+            for (int i : remaining) {
+                Key key = round.apply(oldItems.get(i), shift);
+                ArrayDeque<Integer> queue = key != null ? candidates.get(key) : null;
+                Integer found = queue != null ? queue.poll() : null;
+                if (found != null) {
+                    matches[i] = found;
+                    newMatched[found - prefix] = true;
+                } else {
+                    unmatched.add(i);
+                }
+            }
+            remaining = unmatched;
+        }
+
+        for (int i = prefix; i < oldEnd; i++) {
+            T oldItem = oldItems.get(i);
+            if (matches[i] < 0) {
+                changes.add(new Change(Kind.REMOVED, oldItem, null));
+                continue;
+            }
+            T newItem = newItems.get(matches[i]);
+            if (oldItem.getWidth() != newItem.getWidth() || oldItem.getHeight() != newItem.getHeight()) {
+                changes.add(new Change(Kind.RESIZED, oldItem, newItem));
+            } else if (oldItem.getX() + dx != newItem.getX() || oldItem.getY() + dy != newItem.getY()) {
+                changes.add(new Change(Kind.MOVED, oldItem, newItem));
+            }
+            if (angle.applyAsInt(oldItem) != angle.applyAsInt(newItem)) {
+                changes.add(new Change(Kind.ROTATED, oldItem, newItem));
+            }
+            if (!Objects.equals(properties.apply(oldItem), properties.apply(newItem))) {
+                changes.add(new Change(Kind.CHANGED, oldItem, newItem));
+            }
+        }
+        for (int j = prefix; j < newEnd; j++) {
+            if (!newMatched[j - prefix]) {
+                changes.add(new Change(Kind.ADDED, null, newItems.get(j)));
+            }
+        }
+        return matches;
+    }
+
+    private static <T extends PlanItem> boolean isSame(T oldItem, T newItem, Function<T, ?> properties,
+                                                       ToIntFunction<T> angle, int dx, int dy) {
+        return oldItem == newItem || (isInPlace(oldItem, newItem, dx, dy)
+                && angle.applyAsInt(oldItem) == angle.applyAsInt(newItem)
+                && Objects.equals(properties.apply(oldItem), properties.apply(newItem)));
+    }
+
+    private static boolean isInPlace(PlanItem oldItem, PlanItem newItem, int dx, int dy) {
+        return oldItem.getX() + dx == newItem.getX() && oldItem.getY() + dy == newItem.getY()
+                && oldItem.getWidth() == newItem.getWidth() && oldItem.getHeight() == newItem.getHeight();
+    }
+
+    /**
+     * Records the contents of a room that is only in one of the plans.
+     */
+    private static void addItems(List<Change> changes, Kind kind, Room room) {
+        List<PlanItem> items = new ArrayList<>();
+        items.addAll(room.getDoors());
+        items.addAll(room.getWindows());
+        items.addAll(room.getFurnitures());
+        for (PlanItem item : items) {
+            changes.add(kind == Kind.ADDED ? new Change(kind, null, item) : new Change(kind, item, null));
+        }
+    }
+
+    private static int countItems(List<Room> rooms) {
+        int count = rooms.size();
+        for (Room room : rooms) {
+            count += room.getDoors().size() + room.getWindows().size() + room.getFurnitures().size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the changes: those to rooms first, then those to doors, windows and furniture.
+     *
+     * @return A read-only list.
+     */
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Counts the changes of one kind.
+     *
+     * @param kind The kind of change.
+     * @return The number of changes.
+     */
+    public int count(Kind kind) {
+        int count = 0;
+        for (Change change : changes) {
+            if (change.kind == kind) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d added, %d removed, %d moved, %d resized, %d rotated, %d changed (%d items before, %d after)",
+                count(Kind.ADDED), count(Kind.REMOVED), count(Kind.MOVED), count(Kind.RESIZED), count(Kind.ROTATED),
+                count(Kind.CHANGED), oldItems, newItems);
+    }
+
+    /**
+     * Prints the differences between two plan files, for scripts such as pre-commit hooks.
+     * Exits with 0 if the plans are the same, 1 if they differ and 2 on errors, like diff.
+     * Usage: {@code PlanDiff [-q] <old file> <new file>}
+     *
+     * @param args Command line arguments; -q prints the summary only.
+     */
+    public static void main(String[] args) {
+        boolean quiet = args.length == 3 && args[0].equals("-q");
+        if (args.length != 2 && !quiet) {
+            System.err.println("Usage: PlanDiff [-q] <old file> <new file>");
+            System.exit(2);
+        }
+        try {
+            long start = System.nanoTime();
+            PlanData oldPlan = PlanSerializer.loadPlan(new File(args[args.length - 2]));
+            PlanData newPlan = PlanSerializer.loadPlan(new File(args[args.length - 1]));
+            long loaded = System.nanoTime();
+            PlanDiff diff = compare(oldPlan, newPlan);
+            long compared = System.nanoTime();
+            if (!quiet) {
+                for (Change change : diff.getChanges()) {
+                    System.out.println(change);
+                }
+            }
+            System.out.printf("%s; loaded in %d ms, compared in %d ms%n", diff,
+                    (loaded - start) / 1_000_000, (compared - loaded) / 1_000_000);
+            System.exit(diff.isEmpty() ? 0 : 1);
+        } catch (Exception e) {
+            System.err.println("Error comparing plans: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * One change of an item: added, removed, moved, resized, rotated or changed.
+     */
+    public static final class Change {
+        private final Kind kind;
+        private final PlanItem oldItem, newItem;
+        private final Rectangle oldBounds, newBounds;
+        private final String oldLabel, newLabel;
+
+        Change(Kind kind, PlanItem oldItem, PlanItem newItem) {
+            this.kind = kind;
+            this.oldItem = oldItem;
+            this.newItem = newItem;
+            // Copied now, since the items may still be edited
+            this.oldBounds = oldItem != null ? oldItem.getBounds() : null;
+            this.newBounds = newItem != null ? newItem.getBounds() : null;
+            this.oldLabel = oldItem != null ? describe(oldItem) : null;
+            this.newLabel = newItem != null ? describe(newItem) : null;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Gets the item in the old plan.
+         *
+         * @return The item, or null if it was added.
+         */
+        public PlanItem getOldItem() {
+            return oldItem;
+        }
+
+        /**
+         * Gets the item in the new plan.
+         *
+         * @return The item, or null if it was removed.
+         */
+        public PlanItem getNewItem() {
+            return newItem;
+        }
+
+        /**
+         * Gets the bounds in the old plan.
+         *
+         * @return A copy of the bounds, or null if the item was added.
+         */
+        public Rectangle getOldBounds() {
+            return oldBounds != null ? new Rectangle(oldBounds) : null;
+        }
+
+        /**
+         * Gets the bounds in the new plan.
+         *
+         * @return A copy of the bounds, or null if the item was removed.
+         */
+        public Rectangle getNewBounds() {
+            return newBounds != null ? new Rectangle(newBounds) : null;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(kind.name().toLowerCase()).append(' ');
+            if (kind == Kind.CHANGED && oldLabel.equals(newLabel)) {
+                // Only a room's color is not part of its description
+                return text.append("color of ").append(newLabel).append(' ').append(format(newBounds)).toString();
+            }
+            if (kind == Kind.CHANGED || kind == Kind.ROTATED) {
+                // The description is what changed
+                return text.append(oldLabel).append(" -> ").append(newLabel).append(' ').append(format(newBounds)).toString();
+            }
+            text.append(newLabel != null ? newLabel : oldLabel);
+            if (oldBounds != null) {
+                text.append(' ').append(format(oldBounds));
+            }
+            if (oldBounds != null && newBounds != null) {
+                text.append(" ->");
+            }
+            if (newBounds != null) {
+                text.append(' ').append(format(newBounds));
+            }
+            return text.toString();
+        }
+
+        private static String describe(PlanItem item) {
+            if (item instanceof Room) {
+                Room room = (Room) item;
+                return "room " + room.getType() + (room.getName() != null ? " '" + room.getName() + "'" : "");
+            }
+            if (item instanceof Door) {
+                return "door " + ((Door) item).getDirection();
+            }
+            if (item instanceof PlanWindow) {
+                return "window " + ((PlanWindow) item).getDirection();
+            }
+            if (item instanceof Furniture) {
+                Furniture furniture = (Furniture) item;
+                return "furniture " + furniture.getType() + (furniture.getAngle() != 0 ? " at " + furniture.getAngle() + " degrees" : "");
+            }
+            return item.getClass().getSimpleName();
+        }
+
+        private static String format(Rectangle bounds) {
+            return bounds.x + "," + bounds.y + " " + bounds.width + "x" + bounds.height;
+        }
+    }
+
+    /**
+     * Hash key of one matching round. Fields a round does not compare are 0.
+     */
+    private static final class Key {
+        final Object kind, detail;
+        final int x, y, width, height;
+
+        Key(Object kind, Object detail, int x, int y, int width, int height) {
+            this.kind = kind;
+            this.detail = detail;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return x == other.x && y == other.y && width == other.width && height == other.height
+                    && Objects.equals(kind, other.kind) && Objects.equals(detail, other.detail);
+        }
+
+        @Override
+        public int hashCode() {
+            return (((Objects.hashCode(kind) * 31 + Objects.hashCode(detail)) * 31 + x) * 31 + y) * 961
+                    + width * 31 + height;
+        }
+    }
+}
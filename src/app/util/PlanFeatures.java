@@ -0,0 +1,300 @@
+package app.util;
+
+import app.model.Furniture;
+import app.model.Room;
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Searchable summary of one plan file, as kept by {@link PlanIndex}: the room types with their
+ * areas, the furniture inventory and which rooms share a wall. Rooms are numbered in plan order;
+ * the neighbours of every room are stored as one flat array, so a summary stays small even
+ * for large plans.
+ */
+public final class PlanFeatures implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String fileName;
+    private final long fileSize, lastModified;
+
+    private final String[] typeNames;
+    private final byte[] roomTypes;
+    private final int[] roomAreas;
+    private final int[] neighbourStart;
+    private final int[] neighbours;
+    private final long totalArea;
+    private final LinkedHashMap<String, Integer> furniture;
+
+    private PlanFeatures(String fileName, long fileSize, long lastModified, String[] typeNames, byte[] roomTypes,
+                         int[] roomAreas, int[] neighbourStart, int[] neighbours, long totalArea,
+                         LinkedHashMap<String, Integer> furniture) {
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.typeNames = typeNames;
+        this.roomTypes = roomTypes;
+        this.roomAreas = roomAreas;
+        this.neighbourStart = neighbourStart;
+        this.neighbours = neighbours;
+        this.totalArea = totalArea;
+        this.furniture = furniture;
+    }
+
+    /**
+     * Extracts the features of a plan.
+     *
+     * @param file  The file the plan was read from; its size and time stamp tell when it changed.
+     * @param rooms The rooms of the plan.
+     * @return The features.
+     * @throws IllegalArgumentException If the plan has more than 255 room types.
+     */
+    public static PlanFeatures of(File file, List<Room> rooms) {
+        Map<String, Integer> typeCodes = new LinkedHashMap<>();
+        byte[] roomTypes = new byte[rooms.size()];
+        int[] roomAreas = new int[rooms.size()];
+        long totalArea = 0;
+        LinkedHashMap<String, Integer> furniture = new LinkedHashMap<>();
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            int code = typeCodes.computeIfAbsent(room.getType(), type -> typeCodes.size());
+            if (code > 255) {
+                throw new IllegalArgumentException("Too many room types in " + file);
+            }
+            roomTypes[i] = (byte) code;
+            roomAreas[i] = (int) Math.min(Integer.MAX_VALUE, (long) room.getWidth() * room.getHeight());
+            totalArea += (long) room.getWidth() * room.getHeight();
+            for (Furniture piece : room.getFurnitures()) {
+                furniture.merge(piece.getType(), 1, Integer::sum);
+            }
+        }
+
+        List<int[]> pairs = findSharedWalls(rooms);
+        int[] neighbourStart = new int[rooms.size() + 1];
+        for (int[] pair : pairs) {
+            neighbourStart[pair[0] + 1]++;
+            neighbourStart[pair[1] + 1]++;
+        }
+        for (int i = 0; i < rooms.size(); i++) {
+            neighbourStart[i + 1] += neighbourStart[i];
+        }
+        int[] neighbours = new int[pairs.size() * 2];
+        int[] next = neighbourStart.clone();
+        for (int[] pair : pairs) {
+            neighbours[next[pair[0]]++] = pair[1];
+            neighbours[next[pair[1]]++] = pair[0];
+        }
+
+        return new PlanFeatures(file.getName(), file.length(), file.lastModified(),
+                typeCodes.keySet().toArray(new String[0]), roomTypes, roomAreas, neighbourStart, neighbours,
+                totalArea, furniture);
+    }
+
+    /**
+     * Finds the pairs of rooms that share part of a wall, the same way
+     * {@code PlanModel.isWallShared} does. Rooms are bucketed by their west and north edges,
+     * so only rooms whose edges line up are compared.
+     */
+    private static List<int[]> findSharedWalls(List<Room> rooms) {
+        Map<Integer, List<Integer>> byWest = new HashMap<>();
+        Map<Integer, List<Integer>> byNorth = new HashMap<>();
+        for (int i = 0; i < rooms.size(); i++) {
+            byWest.computeIfAbsent(rooms.get(i).getX(), x -> new ArrayList<>()).add(i);
+            byNorth.computeIfAbsent(rooms.get(i).getY(), y -> new ArrayList<>()).add(i);
+        }
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            // East wall against the west wall of the other room
+            for (int j : byWest.getOrDefault(room.getX() + room.getWidth(), Collections.emptyList())) {
+                Room other = rooms.get(j);
+                if (rangesOverlap(room.getY(), room.getY() + room.getHeight(), other.getY(), other.getY() + other.getHeight())) {
+                    pairs.add(new int[]{i, j});
+                }
+            }
+            // South wall against the north wall of the other room
+            for (int j : byNorth.getOrDefault(room.getY() + room.getHeight(), Collections.emptyList())) {
+                Room other = rooms.get(j);
+                if (rangesOverlap(room.getX(), room.getX() + room.getWidth(), other.getX(), other.getX() + other.getWidth())) {
+                    pairs.add(new int[]{i, j});
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static boolean rangesOverlap(int start1, int end1, int start2, int end2) {
+        return Math.max(start1, start2) < Math.min(end1, end2);
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public int getRoomCount() {
+        return roomTypes.length;
+    }
+
+    /**
+     * Gets the summed area of all rooms.
+     *
+     * @return The area in square pixels.
+     */
+    public long getTotalArea() {
+        return totalArea;
+    }
+
+    /**
+     * Gets the number of rooms of a type.
+     *
+     * @param type The type name, matched like {@link #typeMatches(String, String)}.
+     * @return The count.
+     */
+    public int getRoomCount(String type) {
+        int count = 0;
+        for (int i = 0; i < typeNames.length; i++) {
+            if (typeMatches(typeNames[i], type)) {
+                for (byte code : roomTypes) {
+                    if ((code & 0xFF) == i) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the area of the smallest and largest room of a type.
+     *
+     * @param type The type name, matched like {@link #typeMatches(String, String)}.
+     * @return The smallest and the largest area in square pixels, or null if there is no such room.
+     */
+    public int[] getAreaRange(String type) {
+        int[] range = null;
+        for (int room = 0; room < roomTypes.length; room++) {
+            if (typeMatches(typeNames[roomTypes[room] & 0xFF], type)) {
+                if (range == null) {
+                    range = new int[]{roomAreas[room], roomAreas[room]};
+                } else {
+                    range[0] = Math.min(range[0], roomAreas[room]);
+                    range[1] = Math.max(range[1], roomAreas[room]);
+                }
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Gets the number of rooms per type, in order of first appearance.
+     *
+     * @return A new map from type name to count.
+     */
+    public Map<String, Integer> getRoomCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String name : typeNames) {
+            counts.put(name, 0);
+        }
+        for (byte code : roomTypes) {
+            counts.merge(typeNames[code & 0xFF], 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    public int getFurnitureCount() {
+        int count = 0;
+        for (int pieces : furniture.values()) {
+            count += pieces;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of pieces of furniture of a type.
+     *
+     * @param type The furniture type, matched like {@link #typeMatches(String, String)}.
+     * @return The count.
+     */
+    public int getFurnitureCount(String type) {
+        int count = 0;
+        for (Map.Entry<String, Integer> entry : furniture.entrySet()) {
+            if (typeMatches(entry.getKey(), type)) {
+                count += entry.getValue();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the furniture inventory.
+     *
+     * @return A read-only map from furniture type to count.
+     */
+    public Map<String, Integer> getFurniture() {
+        return Collections.unmodifiableMap(furniture);
+    }
+
+    /**
+     * Checks rooms of one type for a neighbour of another type, i.e. a room that shares a wall.
+     *
+     * @param type          The rooms to check.
+     * @param neighbourType The type of neighbour to look for.
+     * @param every         True if every room of the first type needs such a neighbour, which also
+     *                      holds if there is no room of that type; false if one is enough.
+     * @return True if the rooms have the neighbours asked for.
+     */
+    public boolean isAdjacent(String type, String neighbourType, boolean every) {
+        boolean[] isType = matchingTypes(type);
+        boolean[] isNeighbourType = matchingTypes(neighbourType);
+        for (int room = 0; room < roomTypes.length; room++) {
+            if (!isType[roomTypes[room] & 0xFF]) {
+                continue;
+            }
+            boolean found = false;
+            for (int i = neighbourStart[room]; i < neighbourStart[room + 1] && !found; i++) {
+                found = isNeighbourType[roomTypes[neighbours[i]] & 0xFF];
+            }
+            if (found != every) {
+                return found;
+            }
+        }
+        return every;
+    }
+
+    private boolean[] matchingTypes(String type) {
+        boolean[] matches = new boolean[typeNames.length];
+        for (int i = 0; i < typeNames.length; i++) {
+            matches[i] = typeMatches(typeNames[i], type);
+        }
+        return matches;
+    }
+
+    /**
+     * Compares a type name from a plan with one from a query, ignoring case and a plural "s",
+     * so "bedrooms" finds rooms of type "Bedroom".
+     *
+     * @param name  The type name in the plan.
+     * @param query The type name asked for.
+     * @return True if they match.
+     */
+    public static boolean typeMatches(String name, String query) {
+        if (name.equalsIgnoreCase(query)) {
+            return true;
+        }
+        return query.length() > 1 && (query.endsWith("s") || query.endsWith("S"))
+                && name.length() == query.length() - 1 && query.regionMatches(true, 0, name, 0, name.length());
+    }
+}
@@ -0,0 +1,290 @@
+package app.util;
+
+import app.model.Door;
+import app.model.Furniture;
+import app.model.ItemIds;
+import app.model.PlanModel;
+import app.model.PlanWindow;
+import app.model.Room;
+import app.model.RoomType;
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates large synthetic plans for stress and scale testing.
+ * Rooms are laid out on a grid of rows and columns of varying size, so neighbouring rooms
+ * share whole walls. A few cells are left empty to give inner rooms outside walls.
+ * Doors and windows follow the placement rules of {@link PlanModel}: Bedroom and Bathroom
+ * doors only on walls shared with another room, windows only on walls that are not shared
+ * and have no door. Output, item ids included, only depends on the seed and the requested
+ * size, not on the number of threads used to build it.
+ */
+public class PlanGenerator {
+    /**
+     * Average number of items produced per room (the room itself, its doors, windows and furniture).
+     */
+    public static final double ITEMS_PER_ROOM = 4.2;
+
+    private static final int VACANT_PERCENT = 8;
+    private static final int MIN_CELL = 100;
+    private static final int CELL_STEPS = 8;
+    private static final String[] ROOM_TYPES = {"Bedroom", "Bathroom", "Kitchen", "Dining Room"};
+    private static final String[] DIRECTIONS = {"North", "South", "East", "West"};
+
+    private final long seed;
+
+    public PlanGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Generates a plan. Rows of rooms are built in parallel.
+     *
+     * @param items Approximate number of items in the plan.
+     * @return The rooms and their furniture, ready to load or save.
+     */
+    public PlanData generate(int items) {
+        int roomCount = Math.max(1, (int) Math.round(items / ITEMS_PER_ROOM));
+        int columns = (int) Math.ceil(Math.sqrt(roomCount));
+        int rows = (int) Math.ceil(roomCount * 100.0 / (100 - VACANT_PERCENT) / columns);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] xs = cellEdges(random, columns);
+        int[] ys = cellEdges(random, rows);
+        Grid grid = new Grid(columns, rows, xs, ys);
+
+        List<List<Room>> roomRows = IntStream.range(0, rows).parallel()
+                .mapToObj(row -> generateRow(grid, row))
+                .collect(Collectors.toList());
+
+        List<Room> rooms = new ArrayList<>(roomCount);
+        for (List<Room> roomRow : roomRows) {
+            for (Room room : roomRow) {
+                room.setName(room.getType() + " " + (rooms.size() + 1));
+                rooms.add(room);
+            }
+        }
+        return new PlanData(rooms);
+    }
+
+    /**
+     * Generates a plan and writes it in the save format read by {@link PlanSerializer#loadPlan(File)}.
+     * The plan never goes through a {@link PlanModel}, so no commands or history are built.
+     *
+     * @param items Approximate number of items in the plan.
+     * @param file  The file to write.
+     * @return The generated plan.
+     * @throws IOException If an I/O error occurs.
+     */
+    public PlanData generateTo(int items, File file) throws IOException {
+        PlanData data = generate(items);
+        PlanSerializer.savePlan(data, file);
+        return data;
+    }
+
+    /**
+     * Writes a generated plan to a file.
+     * Usage: {@code PlanGenerator <items> <seed> <file>}
+     *
+     * @param args Command line arguments.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: PlanGenerator <items> <seed> <file>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        PlanData data = new PlanGenerator(Long.parseLong(args[1])).generateTo(Integer.parseInt(args[0]), new File(args[2]));
+        System.out.printf("Wrote %d rooms and %d pieces of furniture in %d ms%n", data.getRooms().size(),
+                data.getFurnitures().size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Picks the sizes of the columns or rows, as multiples of the grid size, and returns their edges.
+     */
+    private static int[] cellEdges(SplittableRandom random, int count) {
+        int[] edges = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            edges[i + 1] = edges[i] + MIN_CELL + random.nextInt(CELL_STEPS) * PlanModel.GRID_SIZE;
+        }
+        return edges;
+    }
+
+    private List<Room> generateRow(Grid grid, int row) {
+        SplittableRandom random = new SplittableRandom(mix(seed, row));
+        List<Room> rooms = new ArrayList<>(grid.columns);
+        for (int column = 0; column < grid.columns; column++) {
+            if (!grid.isOccupied(column, row)) {
+                continue;
+            }
+            int x = grid.xs[column];
+            int y = grid.ys[row];
+            int width = grid.xs[column + 1] - x;
+            int height = grid.ys[row + 1] - y;
+
+            boolean[] shared = new boolean[DIRECTIONS.length];
+            shared[0] = grid.isOccupied(column, row - 1);
+            shared[1] = grid.isOccupied(column, row + 1);
+            shared[2] = grid.isOccupied(column + 1, row);
+            shared[3] = grid.isOccupied(column - 1, row);
+            boolean anyShared = shared[0] || shared[1] || shared[2] || shared[3];
+
+            String type = ROOM_TYPES[random.nextInt(ROOM_TYPES.length)];
+            if (isBedroomOrBathroom(type) && !anyShared) {
+                // Nowhere to put a valid door
+                type = "Dining Room";
+            }
+            Room room = new Room(x, y, width, height, type, RoomType.of(type).getColor());
+            room.setId(ItemIds.next(random));
+
+            int doorWall = pickDoorWall(random, type, shared);
+            addDoor(room, DIRECTIONS[doorWall], random);
+            for (int wall = 0; wall < DIRECTIONS.length; wall++) {
+                if (wall != doorWall && !shared[wall] && random.nextInt(3) > 0) {
+                    addWindow(room, DIRECTIONS[wall], random);
+                }
+            }
+            furnish(room, random);
+            rooms.add(room);
+        }
+        return rooms;
+    }
+
+    private static int pickDoorWall(SplittableRandom random, String type, boolean[] shared) {
+        int wall = random.nextInt(DIRECTIONS.length);
+        if (isBedroomOrBathroom(type)) {
+            // Shared walls are never on the plan edge, so this also keeps the door inside
+            while (!shared[wall]) {
+                wall = (wall + 1) % DIRECTIONS.length;
+            }
+        }
+        return wall;
+    }
+
+    private static void addDoor(Room room, String direction, SplittableRandom random) {
+        boolean horizontal = direction.equals("North") || direction.equals("South");
+        Door door = new Door(horizontal ? 40 : 20, horizontal ? 20 : 40, direction);
+        door.setId(ItemIds.next(random));
+        door.setPosition(PlanModel.wallPosition(room, direction, door.getWidth(), door.getHeight()));
+        room.addDoor(door);
+    }
+
+    private static void addWindow(Room room, String direction, SplittableRandom random) {
+        boolean horizontal = direction.equals("North") || direction.equals("South");
+        PlanWindow window = new PlanWindow(horizontal ? 40 : 10, horizontal ? 10 : 40, direction);
+        window.setId(ItemIds.next(random));
+        window.setPosition(PlanModel.wallPosition(room, direction, window.getWidth(), window.getHeight()));
+        room.addWindow(window);
+    }
+
+    /**
+     * Places the furniture typical for the room type in rows from the top left corner,
+     * dropping pieces that no longer fit.
+     */
+    private static void furnish(Room room, SplittableRandom random) {
+        List<Furniture> pieces = new ArrayList<>();
+        switch (room.getType()) {
+            case "Bedroom":
+                pieces.add(piece(random, room, "Bed", "bed", 60, 80));
+                if (random.nextBoolean()) {
+                    pieces.add(piece(random, room, "Chair", "chair", 20, 20));
+                }
+                if (random.nextInt(3) == 0) {
+                    pieces.add(piece(random, room, "Table", "table", 40, 20));
+                }
+                break;
+            case "Bathroom":
+                pieces.add(piece(random, room, "Commode", "commode", 20, 20));
+                pieces.add(piece(random, room, "Washbasin", "washbasin", 20, 20));
+                if (random.nextInt(5) < 3) {
+                    pieces.add(piece(random, room, "Shower", "shower", 40, 40));
+                }
+                break;
+            case "Kitchen":
+                pieces.add(piece(random, room, "Table", "table", 40, 40));
+                for (int i = random.nextInt(3); i > 0; i--) {
+                    pieces.add(piece(random, room, "Chair", "chair", 20, 20));
+                }
+                break;
+            default:
+                pieces.add(piece(random, room, "Dining Set", "dining_set", 80, 60));
+                for (int i = random.nextInt(3); i > 0; i--) {
+                    pieces.add(piece(random, room, "Chair", "chair", 20, 20));
+                }
+                break;
+        }
+
+        int margin = PlanModel.GRID_SIZE;
+        int x = room.getX() + margin;
+        int y = room.getY() + margin;
+        int rowHeight = 0;
+        for (Furniture furniture : pieces) {
+            if (x + furniture.getWidth() > room.getX() + room.getWidth() - margin) {
+                x = room.getX() + margin;
+                y += rowHeight + margin;
+                rowHeight = 0;
+            }
+            if (y + furniture.getHeight() > room.getY() + room.getHeight() - margin) {
+                break;
+            }
+            furniture.setPosition(new Point(x, y));
+            room.addFurniture(furniture);
+            x += furniture.getWidth() + margin;
+            rowHeight = Math.max(rowHeight, furniture.getHeight());
+        }
+    }
+
+    private static Furniture piece(SplittableRandom random, Room room, String type, String image, int width,
+                                   int height) {
+        Furniture furniture = new Furniture(width, height, type, room);
+        furniture.setId(ItemIds.next(random));
+        furniture.setImagePath("/resources/" + image + ".png");
+        return furniture;
+    }
+
+    private static boolean isBedroomOrBathroom(String type) {
+        return type.equals("Bedroom") || type.equals("Bathroom");
+    }
+
+    /**
+     * Mixes a seed with a number into a well spread 64-bit value (SplitMix64 finalizer).
+     */
+    private static long mix(long seed, long value) {
+        long z = seed + (value + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Cell layout shared by all row workers. Whether a cell holds a room is a pure function
+     * of its position, so each row can look at its neighbours without waiting for them.
+     */
+    private final class Grid {
+        final int columns;
+        final int rows;
+        final int[] xs;
+        final int[] ys;
+
+        Grid(int columns, int rows, int[] xs, int[] ys) {
+            this.columns = columns;
+            this.rows = rows;
+            this.xs = xs;
+            this.ys = ys;
+        }
+
+        boolean isOccupied(int column, int row) {
+            if (column < 0 || row < 0 || column >= columns || row >= rows) {
+                return false;
+            }
+            return Math.floorMod(mix(~seed, (long) row * columns + column), 100) >= VACANT_PERCENT;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package app.util;
+
+import app.model.Room;
+import app.model.RoomType;
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of a plan stored in a fixed-size block at the start of a plan file: item counts,
+ * bounding box, total area, the rooms per type and a low-resolution thumbnail.
+ * {@link #read(File)} gets it with a single small read, so a plan library can be browsed
+ * without decoding the plans themselves.
+ * <p>
+ * The thumbnail holds one byte per pixel: 0 for no room, 1 to {@link #MAX_TYPES} for the
+ * room types in histogram order, and {@link #OTHER_TYPES} for all other types.
+ */
+public final class PlanHeader {
+    /**
+     * Size of the block in bytes, including the file's magic number and version.
+     */
+    public static final int SIZE = 4096;
+
+    public static final int THUMBNAIL_WIDTH = 64;
+    public static final int THUMBNAIL_HEIGHT = 48;
+
+    /**
+     * Number of room types listed individually; the rest are summed up as "Other".
+     */
+    public static final int MAX_TYPES = 8;
+
+    private static final int TYPE_NAME_BYTES = 24;
+    private static final byte OTHER_TYPES = MAX_TYPES + 1;
+    private static final String OTHER_NAME = "Other";
+    private static final Color EMPTY_COLOR = new Color(250, 250, 250);
+
+    private final int rooms, doors, windows, furnitures;
+    private final Rectangle bounds;
+    private final long totalArea;
+    private final List<TypeCount> types;
+    private final byte[] thumbnail;
+
+    private PlanHeader(int rooms, int doors, int windows, int furnitures, Rectangle bounds, long totalArea,
+                       List<TypeCount> types, byte[] thumbnail) {
+        this.rooms = rooms;
+        this.doors = doors;
+        this.windows = windows;
+        this.furnitures = furnitures;
+        this.bounds = bounds;
+        this.totalArea = totalArea;
+        this.types = types;
+        this.thumbnail = thumbnail;
+    }
+
+    /**
+     * Computes the summary of a plan.
+     *
+     * @param roomList The rooms.
+     * @return The header.
+     */
+    public static PlanHeader of(List<Room> roomList) {
+        int doors = 0, windows = 0, furnitures = 0;
+        long totalArea = 0;
+        Rectangle bounds = null;
+        Map<String, TypeCount> byType = new HashMap<>();
+        for (Room room : roomList) {
+            doors += room.getDoors().size();
+            windows += room.getWindows().size();
+            furnitures += room.getFurnitures().size();
+            long area = (long) room.getWidth() * room.getHeight();
+            totalArea += area;
+            bounds = bounds == null ? room.getBounds() : bounds.union(room.getBounds());
+            byType.computeIfAbsent(room.getType(), TypeCount::new).add(area);
+        }
+
+        // Most common types first; the ones that do not fit are merged
+        List<TypeCount> types = new ArrayList<>(byType.values());
+        types.sort((a, b) -> a.count != b.count ? Integer.compare(b.count, a.count) : a.name.compareTo(b.name));
+        Map<String, Byte> codes = new HashMap<>();
+        if (types.size() > MAX_TYPES) {
+            TypeCount other = new TypeCount(OTHER_NAME);
+            for (TypeCount type : types.subList(MAX_TYPES - 1, types.size())) {
+                other.count += type.count;
+                other.area += type.area;
+            }
+            types = new ArrayList<>(types.subList(0, MAX_TYPES - 1));
+            types.add(other);
+        }
+        for (int i = 0; i < types.size(); i++) {
+            codes.put(types.get(i).name, (byte) (i + 1));
+        }
+
+        return new PlanHeader(roomList.size(), doors, windows, furnitures,
+                bounds != null ? bounds : new Rectangle(), totalArea,
+                Collections.unmodifiableList(types), drawThumbnail(roomList, bounds, codes));
+    }
+
+    /**
+     * Reads the header of a plan file with one read of {@link #SIZE} bytes.
+     *
+     * @param file The plan file.
+     * @return The header, or null if the file has none, e.g. a plan saved by an earlier version.
+     * @throws IOException If the file cannot be read.
+     */
+    public static PlanHeader read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null; // Too short for a header
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt() != ChunkedPlanFile.MAGIC || buffer.getInt() != ChunkedPlanFile.VERSION) {
+                return null;
+            }
+            return readFrom(buffer);
+        }
+    }
+
+    /**
+     * Writes the fields after the magic number and version.
+     *
+     * @param buffer A buffer positioned after the version, with room for the rest of the block.
+     */
+    void writeTo(ByteBuffer buffer) {
+        int start = buffer.position() - 8;
+        buffer.putInt(rooms).putInt(doors).putInt(windows).putInt(furnitures);
+        buffer.putInt(bounds.x).putInt(bounds.y).putInt(bounds.width).putInt(bounds.height);
+        buffer.putLong(totalArea);
+        buffer.putInt(types.size());
+        for (int i = 0; i < MAX_TYPES; i++) {
+            byte[] name = new byte[TYPE_NAME_BYTES];
+            int count = 0;
+            long area = 0;
+            if (i < types.size()) {
+                byte[] encoded = types.get(i).name.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(encoded, 0, name, 0, Math.min(encoded.length, TYPE_NAME_BYTES));
+                count = types.get(i).count;
+                area = types.get(i).area;
+            }
+            buffer.put(name).putInt(count).putLong(area);
+        }
+        buffer.putInt(THUMBNAIL_WIDTH).putInt(THUMBNAIL_HEIGHT).put(thumbnail);
+        buffer.position(start + SIZE); // Zero padding
+    }
+
+    /**
+     * Reads the fields after the magic number and version.
+     *
+     * @param buffer A buffer positioned after the version.
+     * @return The header.
+     * @throws IOException If the block is malformed.
+     */
+    static PlanHeader readFrom(ByteBuffer buffer) throws IOException {
+        int start = buffer.position() - 8;
+        int rooms = buffer.getInt();
+        int doors = buffer.getInt();
+        int windows = buffer.getInt();
+        int furnitures = buffer.getInt();
+        Rectangle bounds = new Rectangle(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+        long totalArea = buffer.getLong();
+        int typeCount = buffer.getInt();
+        if (typeCount < 0 || typeCount > MAX_TYPES) {
+            throw new IOException("Invalid plan header: " + typeCount + " room types");
+        }
+        List<TypeCount> types = new ArrayList<>(typeCount);
+        for (int i = 0; i < MAX_TYPES; i++) {
+            byte[] name = new byte[TYPE_NAME_BYTES];
+            buffer.get(name);
+            int count = buffer.getInt();
+            long area = buffer.getLong();
+            if (i < typeCount) {
+                int length = 0;
+                while (length < name.length && name[length] != 0) {
+                    length++;
+                }
+                TypeCount type = new TypeCount(new String(name, 0, length, StandardCharsets.UTF_8));
+                type.count = count;
+                type.area = area;
+                types.add(type);
+            }
+        }
+        if (buffer.getInt() != THUMBNAIL_WIDTH || buffer.getInt() != THUMBNAIL_HEIGHT) {
+            throw new IOException("Invalid plan header: unexpected thumbnail size");
+        }
+        byte[] thumbnail = new byte[THUMBNAIL_WIDTH * THUMBNAIL_HEIGHT];
+        buffer.get(thumbnail);
+        buffer.position(start + SIZE);
+        return new PlanHeader(rooms, doors, windows, furnitures, bounds, totalArea,
+                Collections.unmodifiableList(types), thumbnail);
+    }
+
+    public int getRoomCount() {
+        return rooms;
+    }
+
+    public int getDoorCount() {
+        return doors;
+    }
+
+    public int getWindowCount() {
+        return windows;
+    }
+
+    public int getFurnitureCount() {
+        return furnitures;
+    }
+
+    /**
+     * Gets the smallest rectangle that holds all rooms.
+     *
+     * @return The bounding box, empty for a plan without rooms.
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(bounds);
+    }
+
+    /**
+     * Gets the summed area of all rooms.
+     *
+     * @return The area in square pixels.
+     */
+    public long getTotalArea() {
+        return totalArea;
+    }
+
+    /**
+     * Gets the number and area of rooms per type, most common first.
+     *
+     * @return Up to {@link #MAX_TYPES} entries; the last one is "Other" if there were more types.
+     */
+    public List<TypeCount> getRoomTypes() {
+        return types;
+    }
+
+    /**
+     * Gets the number of rooms of a type.
+     *
+     * @param type The type name.
+     * @return The count, 0 if the type is not listed.
+     */
+    public int getRoomCount(String type) {
+        for (TypeCount count : types) {
+            if (count.name.equals(type)) {
+                return count.count;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Renders the thumbnail in the room type colors.
+     *
+     * @return A new image of {@link #THUMBNAIL_WIDTH} by {@link #THUMBNAIL_HEIGHT} pixels.
+     */
+    public BufferedImage getThumbnail() {
+        int[] palette = new int[OTHER_TYPES + 1];
+        palette[0] = EMPTY_COLOR.getRGB();
+        for (int i = 0; i < types.size(); i++) {
+            String name = types.get(i).name;
+            palette[i + 1] = name.equals(OTHER_NAME) ? Color.LIGHT_GRAY.getRGB() : RoomType.of(name).getColor().getRGB();
+        }
+        palette[OTHER_TYPES] = Color.LIGHT_GRAY.getRGB();
+        BufferedImage image = new BufferedImage(THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < THUMBNAIL_HEIGHT; y++) {
+            for (int x = 0; x < THUMBNAIL_WIDTH; x++) {
+                int code = thumbnail[y * THUMBNAIL_WIDTH + x];
+                image.setRGB(x, y, palette[code >= 0 && code <= OTHER_TYPES ? code : 0]);
+            }
+        }
+        return image;
+    }
+
+    private static byte[] drawThumbnail(List<Room> rooms, Rectangle bounds, Map<String, Byte> codes) {
+        byte[] pixels = new byte[THUMBNAIL_WIDTH * THUMBNAIL_HEIGHT];
+        if (bounds == null || bounds.width <= 0 || bounds.height <= 0) {
+            return pixels;
+        }
+        // Same scale on both axes, so rooms keep their shape
+        double scale = Math.min((double) THUMBNAIL_WIDTH / bounds.width, (double) THUMBNAIL_HEIGHT / bounds.height);
+        for (Room room : rooms) {
+            Byte code = codes.get(room.getType());
+            byte value = code != null ? code : OTHER_TYPES;
+            int x0 = (int) ((room.getX() - bounds.x) * scale);
+            int y0 = (int) ((room.getY() - bounds.y) * scale);
+            int x1 = Math.max(x0 + 1, (int) ((room.getX() + room.getWidth() - bounds.x) * scale));
+            int y1 = Math.max(y0 + 1, (int) ((room.getY() + room.getHeight() - bounds.y) * scale));
+            for (int y = y0; y < Math.min(y1, THUMBNAIL_HEIGHT); y++) {
+                for (int x = x0; x < Math.min(x1, THUMBNAIL_WIDTH); x++) {
+                    pixels[y * THUMBNAIL_WIDTH + x] = value;
+                }
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Number and total area of the rooms of one type.
+     */
+    public static final class TypeCount {
+        private final String name;
+        private int count;
+        private long area;
+
+        TypeCount(String name) {
+            this.name = name;
+        }
+
+        void add(long roomArea) {
+            count++;
+            area += roomArea;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getArea() {
+            return area;
+        }
+    }
+}
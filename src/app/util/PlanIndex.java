@@ -0,0 +1,349 @@
+package app.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Searchable index over the plans in a directory, saved next to them in {@link #INDEX_FILE_NAME}.
+ * A file is only read again when its size or time stamp changed since it was indexed, so
+ * reopening a large library costs a directory listing. While {@link #watch() watching}, files
+ * that are written or deleted are reindexed in the background, a short while after the last
+ * change so files being saved are read once they are complete.
+ */
+public final class PlanIndex implements Closeable {
+    public static final String INDEX_FILE_NAME = ".planindex";
+
+    private static final int INDEX_VERSION = 1;
+    // Changes are collected this long before reindexing, so a file being saved is read once
+    private static final long SETTLE_MILLIS = 500;
+
+    private final Path directory;
+    private final ConcurrentMap<String, PlanFeatures> entries = new ConcurrentHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Object updateLock = new Object();
+
+    private WatchService watcher;
+    private Thread watchThread;
+    private volatile boolean dirty = false;
+    private volatile IOException watchError;
+
+    private PlanIndex(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the index of a directory, reads the saved index if there is one and brings it up to
+     * date with the files in the directory.
+     *
+     * @param directory The plan directory.
+     * @return The index.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public static PlanIndex open(File directory) throws IOException {
+        if (!directory.isDirectory()) {
+            throw new FileNotFoundException("Not a directory: " + directory);
+        }
+        PlanIndex index = new PlanIndex(directory.toPath());
+        index.load();
+        index.update();
+        return index;
+    }
+
+    /**
+     * Reindexes the files that were added or changed and drops the ones that were deleted.
+     * Changed files are read in parallel; files that are not plans are left out.
+     *
+     * @return The number of files read.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public int update() throws IOException {
+        List<File> changed = new ArrayList<>();
+        Set<String> present = new HashSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path path : files) {
+                File file = path.toFile();
+                if (!isCandidate(file)) {
+                    continue;
+                }
+                present.add(file.getName());
+                PlanFeatures entry = entries.get(file.getName());
+                if (entry == null || entry.getFileSize() != file.length() || entry.getLastModified() != file.lastModified()) {
+                    changed.add(file);
+                }
+            }
+        }
+        synchronized (updateLock) {
+            boolean removed = entries.keySet().retainAll(present);
+            reindex(changed);
+            if (removed || !changed.isEmpty()) {
+                dirty = true;
+                save();
+                fireChanged();
+            }
+        }
+        return changed.size();
+    }
+
+    /**
+     * Starts reindexing files in the background when they change. The index is saved after
+     * every round of changes and the listeners are told.
+     *
+     * @throws IOException If the directory cannot be watched.
+     */
+    public synchronized void watch() throws IOException {
+        if (watcher != null) {
+            return;
+        }
+        watcher = directory.getFileSystem().newWatchService();
+        directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        WatchService service = watcher;
+        watchThread = new Thread(() -> watchLoop(service), "Plan index watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Finds the plans that match a query. The index is searched in parallel.
+     *
+     * @param query The query.
+     * @return The matching plans, ordered by file name.
+     */
+    public List<PlanFeatures> search(PlanQuery query) {
+        return entries.values().parallelStream()
+                .filter(query)
+                .sorted(Comparator.comparing(PlanFeatures::getFileName))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the file an entry was read from.
+     *
+     * @param features An entry of this index.
+     * @return The plan file.
+     */
+    public File getFile(PlanFeatures features) {
+        return directory.resolve(features.getFileName()).toFile();
+    }
+
+    public File getDirectory() {
+        return directory.toFile();
+    }
+
+    /**
+     * Gets the number of indexed plans.
+     *
+     * @return The number of plans.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the error that stopped the background updates started by {@link #watch()}.
+     *
+     * @return The error, or null if the index is still being kept up to date.
+     */
+    public IOException getWatchError() {
+        return watchError;
+    }
+
+    /**
+     * Adds a listener that is told when entries were added, changed or removed, or when
+     * watching stopped with an error. It is called on
+     * the thread that updated the index, which is the watcher thread for background updates.
+     *
+     * @param listener The listener.
+     */
+    public void addChangeListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Writes the index file if entries changed since it was last written. The file is replaced
+     * in one step, so a crash never leaves a partial index behind.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    public void save() throws IOException {
+        synchronized (updateLock) {
+            if (!dirty) {
+                return;
+            }
+            Path temp = directory.resolve(INDEX_FILE_NAME + ".tmp");
+            try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                oos.writeInt(INDEX_VERSION);
+                oos.writeObject(new ArrayList<>(entries.values()));
+            }
+            Files.move(temp, directory.resolve(INDEX_FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Stops watching and saves the index.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (watcher != null) {
+                watcher.close();
+                watchThread.interrupt();
+                watcher = null;
+            }
+        }
+        save();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        File file = directory.resolve(INDEX_FILE_NAME).toFile();
+        if (!file.isFile()) {
+            return;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (ois.readInt() != INDEX_VERSION) {
+                return; // Rebuilt from the plans
+            }
+            for (PlanFeatures entry : (List<PlanFeatures>) ois.readObject()) {
+                entries.put(entry.getFileName(), entry);
+            }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            entries.clear(); // A damaged index is rebuilt from the plans
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Set<String> changed = new HashSet<>();
+                boolean overflow = false;
+                // Collect changes until the directory has been quiet for a while
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else {
+                            changed.add(event.context().toString());
+                        }
+                    }
+                    if (!key.reset()) {
+                        return; // The directory is gone
+                    }
+                    key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (overflow) {
+                    update();
+                } else {
+                    update(changed);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped by close()
+        } catch (IOException e) {
+            watchError = e;
+            fireChanged();
+        }
+    }
+
+    /**
+     * Reindexes the named files only.
+     */
+    private void update(Collection<String> names) throws IOException {
+        synchronized (updateLock) {
+            List<File> changed = new ArrayList<>();
+            boolean removed = false;
+            for (String name : names) {
+                File file = directory.resolve(name).toFile();
+                if (isCandidate(file)) {
+                    changed.add(file);
+                } else {
+                    removed |= entries.remove(name) != null;
+                }
+            }
+            reindex(changed);
+            if (removed || !changed.isEmpty()) {
+                dirty = true;
+                save();
+                fireChanged();
+            }
+        }
+    }
+
+    private void reindex(List<File> files) {
+        files.parallelStream().forEach(file -> {
+            PlanFeatures features = extract(file);
+            if (features != null) {
+                entries.put(file.getName(), features);
+            } else {
+                entries.remove(file.getName());
+            }
+        });
+    }
+
+    /**
+     * Reads a plan and extracts its features.
+     *
+     * @return The features, or null if the file is not a plan or cannot be read.
+     */
+    private static PlanFeatures extract(File file) {
+        try {
+            if (!isPlanFile(file)) {
+                return null;
+            }
+            // Taken before reading, so a change during the read is picked up next time
+            long length = file.length();
+            long lastModified = file.lastModified();
+            PlanFeatures features = PlanFeatures.of(file, PlanSerializer.loadRooms(file));
+            return features.getFileSize() == length && features.getLastModified() == lastModified ? features : null;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks the first bytes, so other files in the directory are not read completely.
+     */
+    static boolean isPlanFile(File file) throws IOException {
+        if (ChunkedPlanFile.isChunked(file)) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(2);
+            channel.read(start);
+            // Plans of earlier versions are a plain serialization stream
+            return start.position() == 2 && start.getShort(0) == ObjectStreamConstants.STREAM_MAGIC;
+        }
+    }
+
+    static boolean isCandidate(File file) {
+        return file.isFile() && !file.getName().startsWith(".");
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package app.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for saving or loading a plan file.
+ */
+@Name("app.PlanIo")
+@Label("Plan I/O")
+@Category({"Floor Planner", "I/O"})
+@Description("A plan saved to or loaded from a file")
+public class PlanIoEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    @Description("save or load")
+    public String operation;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;
+
+    @Label("Rooms")
+    public int rooms;
+
+    @Label("Furniture")
+    public int furnitures;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,250 @@
+package app.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Condition on the {@link PlanFeatures} of a plan, for searching a {@link PlanIndex}.
+ * Queries are built from the factory methods or parsed from text, as comma-separated clauses
+ * that all have to hold:
+ * <pre>
+ * 3 bedrooms                         exactly three rooms of type Bedroom
+ * bathroom &gt;= 1                      a count compared with =, &lt;, &lt;=, &gt; or &gt;=
+ * rooms &lt; 12                          the number of rooms
+ * area &lt; 120000                       the total room area in square pixels
+ * furniture bed &gt;= 2                  a count from the furniture inventory
+ * bathroom adjacent to every bedroom every bedroom shares a wall with a bathroom
+ * kitchen next to dining room        at least one pair of rooms shares a wall
+ * </pre>
+ * Type names ignore case and a plural "s".
+ */
+public final class PlanQuery implements Predicate<PlanFeatures> {
+    private static final Pattern COMPARISON = Pattern.compile("(.+?)\\s*(<=|>=|=|<|>)\\s*(\\d+)");
+    private static final Pattern COUNT = Pattern.compile("(\\d+)\\s+(.+)");
+    private static final Pattern ADJACENT = Pattern.compile(
+            "(?:(every|each|all)\\s+)?(.+?)\\s+(?:adjacent to|next to)\\s+(?:(every|each|all|a|an|some)\\s+)?(.+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern FURNITURE = Pattern.compile("furniture\\s+(.+)", Pattern.CASE_INSENSITIVE);
+
+    private final String description;
+    private final Predicate<PlanFeatures> condition;
+
+    private PlanQuery(String description, Predicate<PlanFeatures> condition) {
+        this.description = description;
+        this.condition = condition;
+    }
+
+    /**
+     * Matches every plan.
+     *
+     * @return The query.
+     */
+    public static PlanQuery all() {
+        return new PlanQuery("all plans", features -> true);
+    }
+
+    /**
+     * Limits the number of rooms of a type.
+     *
+     * @param type The room type.
+     * @param min  The smallest count allowed.
+     * @param max  The largest count allowed.
+     * @return The query.
+     */
+    public static PlanQuery rooms(String type, int min, int max) {
+        return new PlanQuery(range(type, min, max), features -> within(features.getRoomCount(type), min, max));
+    }
+
+    /**
+     * Limits the total number of rooms.
+     *
+     * @param min The smallest count allowed.
+     * @param max The largest count allowed.
+     * @return The query.
+     */
+    public static PlanQuery rooms(int min, int max) {
+        return new PlanQuery(range("rooms", min, max), features -> within(features.getRoomCount(), min, max));
+    }
+
+    /**
+     * Limits the total room area.
+     *
+     * @param min The smallest area allowed, in square pixels.
+     * @param max The largest area allowed, in square pixels.
+     * @return The query.
+     */
+    public static PlanQuery area(long min, long max) {
+        return new PlanQuery(range("area", min, max), features -> within(features.getTotalArea(), min, max));
+    }
+
+    /**
+     * Limits the number of pieces of furniture of a type.
+     *
+     * @param type The furniture type.
+     * @param min  The smallest count allowed.
+     * @param max  The largest count allowed.
+     * @return The query.
+     */
+    public static PlanQuery furniture(String type, int min, int max) {
+        return new PlanQuery(range("furniture " + type, min, max),
+                features -> within(features.getFurnitureCount(type), min, max));
+    }
+
+    /**
+     * Requires rooms of one type to share a wall with rooms of another.
+     *
+     * @param type          The rooms to check.
+     * @param neighbourType The type of neighbour they need.
+     * @param every         True if every room of the first type needs such a neighbour;
+     *                      false if one pair of neighbours is enough.
+     * @return The query.
+     */
+    public static PlanQuery adjacent(String type, String neighbourType, boolean every) {
+        return new PlanQuery((every ? "every " : "") + type + " adjacent to " + neighbourType,
+                features -> features.isAdjacent(type, neighbourType, every));
+    }
+
+    /**
+     * Combines queries that all have to match.
+     *
+     * @param queries The queries.
+     * @return The query.
+     */
+    public static PlanQuery and(List<PlanQuery> queries) {
+        if (queries.isEmpty()) {
+            return all();
+        }
+        List<String> descriptions = new ArrayList<>();
+        for (PlanQuery query : queries) {
+            descriptions.add(query.description);
+        }
+        PlanQuery[] parts = queries.toArray(new PlanQuery[0]);
+        return new PlanQuery(String.join(", ", descriptions), features -> {
+            for (PlanQuery part : parts) {
+                if (!part.test(features)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Parses a query in the syntax described above.
+     *
+     * @param text The query text; blank for all plans.
+     * @return The query.
+     * @throws IllegalArgumentException If a clause cannot be understood.
+     */
+    public static PlanQuery parse(String text) {
+        List<PlanQuery> clauses = new ArrayList<>();
+        for (String clause : text.split(",")) {
+            clause = clause.trim().replaceAll("\\s+", " ");
+            if (!clause.isEmpty()) {
+                clauses.add(parseClause(clause));
+            }
+        }
+        return and(clauses);
+    }
+
+    private static PlanQuery parseClause(String clause) {
+        Matcher adjacent = ADJACENT.matcher(clause);
+        if (adjacent.matches()) {
+            if (adjacent.group(1) != null) {
+                return adjacent(adjacent.group(2), adjacent.group(4), true);
+            }
+            // "bathroom adjacent to every bedroom": every bedroom needs a bathroom
+            boolean every = adjacent.group(3) != null && !isIndefinite(adjacent.group(3));
+            return every ? adjacent(adjacent.group(4), adjacent.group(2), true)
+                    : adjacent(adjacent.group(2), adjacent.group(4), false);
+        }
+        Matcher count = COUNT.matcher(clause);
+        if (count.matches()) {
+            int value = parseCount(count.group(1), clause);
+            return subject(count.group(2), value, value, clause);
+        }
+        Matcher comparison = COMPARISON.matcher(clause);
+        if (comparison.matches()) {
+            long value = Long.parseLong(comparison.group(3));
+            long min = 0, max = Long.MAX_VALUE;
+            switch (comparison.group(2)) {
+                case "=":
+                    min = max = value;
+                    break;
+                case "<":
+                    max = value - 1;
+                    break;
+                case "<=":
+                    max = value;
+                    break;
+                case ">":
+                    min = value + 1;
+                    break;
+                default:
+                    min = value;
+                    break;
+            }
+            return subject(comparison.group(1), min, max, clause);
+        }
+        throw new IllegalArgumentException("Cannot understand '" + clause + "'");
+    }
+
+    private static PlanQuery subject(String subject, long min, long max, String clause) {
+        int minCount = (int) Math.min(min, Integer.MAX_VALUE);
+        int maxCount = (int) Math.min(max, Integer.MAX_VALUE);
+        if (subject.equalsIgnoreCase("area")) {
+            return area(min, max);
+        }
+        if (subject.equalsIgnoreCase("rooms")) {
+            return rooms(minCount, maxCount);
+        }
+        Matcher furniture = FURNITURE.matcher(subject);
+        if (furniture.matches()) {
+            return furniture(furniture.group(1), minCount, maxCount);
+        }
+        if (subject.isEmpty()) {
+            throw new IllegalArgumentException("Missing room type in '" + clause + "'");
+        }
+        return rooms(subject, minCount, maxCount);
+    }
+
+    private static int parseCount(String digits, String clause) {
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Count out of range in '" + clause + "'");
+        }
+    }
+
+    private static boolean isIndefinite(String quantifier) {
+        return quantifier.equalsIgnoreCase("a") || quantifier.equalsIgnoreCase("an")
+                || quantifier.equalsIgnoreCase("some");
+    }
+
+    private static boolean within(long value, long min, long max) {
+        return value >= min && value <= max;
+    }
+
+    private static String range(String subject, long min, long max) {
+        if (min == max) {
+            return subject + " = " + min;
+        }
+        if (max == Long.MAX_VALUE || max == Integer.MAX_VALUE) {
+            return subject + " >= " + min;
+        }
+        return min <= 0 ? subject + " <= " + max : min + " <= " + subject + " <= " + max;
+    }
+
+    @Override
+    public boolean test(PlanFeatures features) {
+        return condition.test(features);
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
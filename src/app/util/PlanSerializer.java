@@ -1,27 +1,74 @@
 package app.util;
 
+import app.model.Furniture;
+import app.model.Room;
 import java.io.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Utility class for serializing and deserializing plan data.
+ * Plans are saved as chunked files (see {@link ChunkedPlanFile}) whose rooms are encoded and
+ * decoded in parallel. Files holding a single serialized {@link PlanData}, as written by
+ * earlier versions, still load.
+ * Furniture images can be embedded, so a plan does not depend on image files staying where they
+ * were. Each distinct image is stored once and referenced by its content hash.
  */
 public class PlanSerializer {
 
     /**
-     * Saves the plan data to a file.
+     * Saves the plan data to a file, using the common fork/join pool.
      *
      * @param data The plan data to save.
      * @param file The file to save the data to.
      * @throws IOException If an I/O error occurs.
      */
     public static void savePlan(PlanData data, File file) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
-            oos.writeObject(data);
+        savePlan(data, file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Saves the plan data to a file without embedding image files.
+     *
+     * @param data The plan data to save.
+     * @param file The file to save the data to.
+     * @param pool The pool that encodes the chunks of rooms.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void savePlan(PlanData data, File file, ForkJoinPool pool) throws IOException {
+        savePlan(data, file, pool, false);
+    }
+
+    /**
+     * Saves the plan data to a file.
+     * Images that are only known by content hash, e.g. from a plan loaded with embedded images,
+     * are always embedded, since there is no file to refer to.
+     *
+     * @param data        The plan data to save.
+     * @param file        The file to save the data to.
+     * @param pool        The pool that encodes the chunks of rooms.
+     * @param embedImages True to also embed the images that furniture refers to by path.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void savePlan(PlanData data, File file, ForkJoinPool pool, boolean embedImages) throws IOException {
+        PlanIoEvent event = new PlanIoEvent();
+        event.begin();
+        try {
+            Map<String, String> imageHashes = new HashMap<>();
+            Map<String, byte[]> images = collectImages(data, embedImages, imageHashes);
+            ChunkedPlanFile.write(data.getRooms(), PlanHeader.of(data.getRooms()), images.values(), imageHashes, file,
+                    pool);
+            event.succeeded = true;
+        } finally {
+            commitEvent(event, "save", file, data);
         }
     }
 
     /**
-     * Loads the plan data from a file.
+     * Loads the plan data from a file, using the common fork/join pool.
      *
      * @param file The file to load the data from.
      * @return The loaded plan data.
@@ -29,8 +76,93 @@ public class PlanSerializer {
      * @throws ClassNotFoundException If the class of a serialized object cannot be found.
      */
     public static PlanData loadPlan(File file) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            return (PlanData) ois.readObject();
+        return loadPlan(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads the plan data from a file.
+     *
+     * @param file The file to load the data from.
+     * @param pool The pool that decodes the chunks of rooms. Not used for files from earlier versions.
+     * @return The loaded plan data.
+     * @throws IOException            If an I/O error occurs.
+     * @throws ClassNotFoundException If the class of a serialized object cannot be found.
+     */
+    public static PlanData loadPlan(File file, ForkJoinPool pool) throws IOException, ClassNotFoundException {
+        return load(file, pool, true);
+    }
+
+    /**
+     * Loads only the rooms of a plan, for indexing and batch jobs. Embedded images are not added
+     * to the shared {@link ImageStore}, so reading many plans does not keep their images in
+     * memory; furniture of these rooms is drawn without its embedded image.
+     *
+     * @param file The file to load the rooms from.
+     * @return The rooms with their doors, windows and furniture.
+     * @throws IOException            If an I/O error occurs.
+     * @throws ClassNotFoundException If the class of a serialized object cannot be found.
+     */
+    public static List<Room> loadRooms(File file) throws IOException, ClassNotFoundException {
+        return load(file, ForkJoinPool.commonPool(), false).getRooms();
+    }
+
+    private static PlanData load(File file, ForkJoinPool pool, boolean withImages) throws IOException, ClassNotFoundException {
+        PlanIoEvent event = new PlanIoEvent();
+        event.begin();
+        PlanData data = null;
+        try {
+            if (ChunkedPlanFile.isChunked(file)) {
+                data = new PlanData(ChunkedPlanFile.read(file, pool, withImages));
+            } else {
+                try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    data = (PlanData) ois.readObject();
+                }
+            }
+            event.succeeded = true;
+            return data;
+        } finally {
+            commitEvent(event, "load", file, data);
+        }
+    }
+
+    /**
+     * Gets the images to embed, once per content hash. The hashes of images embedded by path
+     * for the first time go into {@code imageHashes}, keyed by path, so the written file refers
+     * to the embedded copy while the furniture itself is left as it is.
+     */
+    private static Map<String, byte[]> collectImages(PlanData data, boolean embedImages,
+                                                     Map<String, String> imageHashes) {
+        Map<String, byte[]> images = new LinkedHashMap<>();
+        for (Room room : data.getRooms()) {
+            for (Furniture furniture : room.getFurnitures()) {
+                String hash = furniture.getImageHash();
+                String path = furniture.getImagePath();
+                if (hash == null && embedImages && path != null) {
+                    hash = imageHashes.containsKey(path) ? imageHashes.get(path) : ImageStore.hashOfSource(path);
+                    imageHashes.put(path, hash);
+                }
+                if (hash != null && !images.containsKey(hash)) {
+                    byte[] bytes = ImageStore.getBytes(hash);
+                    if (bytes != null) {
+                        images.put(hash, bytes);
+                    }
+                }
+            }
+        }
+        return images;
+    }
+
+    private static void commitEvent(PlanIoEvent event, String operation, File file, PlanData data) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = file.getPath();
+            event.bytes = file.length();
+            if (data != null) {
+                event.rooms = data.getRooms() != null ? data.getRooms().size() : 0;
+                event.furnitures = data.getFurnitures() != null ? data.getFurnitures().size() : 0;
+            }
+            event.commit();
         }
     }
 }
\ No newline at end of file